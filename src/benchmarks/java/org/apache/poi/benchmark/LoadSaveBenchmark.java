@@ -0,0 +1,79 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.benchmark.SyntheticWorkbooks.CountingOutputStream;
+import org.apache.poi.benchmark.SyntheticWorkbooks.Format;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading and saving of complete workbooks with the usermodel, for both
+ * <tt>.xls</tt> (HSSF) and <tt>.xlsx</tt> (XSSF) files.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadSaveBenchmark {
+
+    @Param({"HSSF", "XSSF"})
+    public Format format;
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"10"})
+    public int columns;
+
+    private byte[] _data;
+    private Workbook _workbook;
+
+    @Setup
+    public void setUp() throws IOException {
+        _data = SyntheticWorkbooks.createBytes(format, rows, columns);
+        _workbook = format.load(_data);
+    }
+
+    @Benchmark
+    public Workbook load() throws IOException {
+        return format.load(_data);
+    }
+
+    @Benchmark
+    public long save() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        _workbook.write(out);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,93 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.benchmark.SyntheticWorkbooks.Format;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactory;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.IOUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the <tt>Workbook</tt> stream of an <tt>.xls</tt> file into
+ *  HSSF records with {@link RecordFactory}, without building a usermodel.
+ *  Besides the streams per second, the number of records per second is
+ *  reported as the <tt>records</tt> counter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordFactoryBenchmark {
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"10"})
+    public int columns;
+
+    private byte[] _stream;
+
+    /**
+     * Counts the parsed records, so that JMH reports them as a rate
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class RecordCounter {
+        public long records;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] data = SyntheticWorkbooks.createBytes(Format.HSSF, rows, columns);
+        POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(data));
+        InputStream in = fs.createDocumentInputStream("Workbook");
+        try {
+            _stream = IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public List<Record> createRecords(RecordCounter counter) {
+        List<Record> records = RecordFactory.createRecords(new ByteArrayInputStream(_stream));
+        counter.records += records.size();
+        return records;
+    }
+}
@@ -0,0 +1,72 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.benchmark.SyntheticWorkbooks.CountingOutputStream;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing of <tt>.xlsx</tt> files through the streaming SXSSF usermodel,
+ * including the temporary sheet files it uses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SXSSFWriteBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"10"})
+    public int columns;
+
+    @Param({"100"})
+    public int rowAccessWindowSize;
+
+    @Param({"false", "true"})
+    public boolean compressTempFiles;
+
+    @Benchmark
+    public long write() throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(null, rowAccessWindowSize, compressTempFiles);
+        try {
+            SyntheticWorkbooks.populate(wb, rows, columns);
+            CountingOutputStream out = new CountingOutputStream();
+            wb.write(out);
+            return out.getCount();
+        } finally {
+            wb.dispose();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Generates the synthetic workbooks used by the benchmarks.<p/>
+ *
+ * Every row gets a label in the first column, numbers in the middle
+ * columns and a formula summing the numbers in the last column. Every
+ * tenth row has a text label shared with the other rows, so both unique
+ * and repeated strings end up in the string table.
+ */
+public final class SyntheticWorkbooks {
+
+    private SyntheticWorkbooks() {
+        // no instances of this class
+    }
+
+    /**
+     * The spreadsheet formats the benchmarks are run against
+     */
+    public enum Format {
+        HSSF, XSSF;
+
+        public Workbook create() {
+            return this == HSSF ? new HSSFWorkbook() : new XSSFWorkbook();
+        }
+
+        public Workbook load(byte[] data) throws IOException {
+            ByteArrayInputStream is = new ByteArrayInputStream(data);
+            return this == HSSF ? new HSSFWorkbook(is) : new XSSFWorkbook(is);
+        }
+    }
+
+    /**
+     * Fills a new sheet of the workbook with <tt>rows</tt> rows of <tt>columns</tt> cells
+     */
+    public static void populate(Workbook wb, int rows, int columns) {
+        if (columns < 3) {
+            throw new IllegalArgumentException("At least 3 columns are needed, but got " + columns);
+        }
+        Sheet sheet = wb.createSheet();
+        String lastNumberColumn = CellReference.convertNumToColString(columns - 2);
+        for (int r = 0; r < rows; r++) {
+            Row row = sheet.createRow(r);
+            row.createCell(0).setCellValue(r % 10 == 0 ? "Label" : "Row " + r);
+            for (int c = 1; c < columns - 1; c++) {
+                row.createCell(c).setCellValue(r * columns + c);
+            }
+            Cell total = row.createCell(columns - 1);
+            total.setCellFormula("SUM(B" + (r + 1) + ":" + lastNumberColumn + (r + 1) + ")");
+        }
+    }
+
+    /**
+     * Creates a workbook of the given format with one populated sheet
+     */
+    public static Workbook create(Format format, int rows, int columns) {
+        Workbook wb = format.create();
+        populate(wb, rows, columns);
+        return wb;
+    }
+
+    /**
+     * @return the serialized form of a workbook of the given format with one populated sheet
+     */
+    public static byte[] createBytes(Format format, int rows, int columns) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        create(format, rows, columns).write(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * An output stream which only counts the bytes written to it, so that
+     * benchmarks of writing measure the serialization and not the buffering.
+     */
+    public static final class CountingOutputStream extends OutputStream {
+        private long _count;
+
+        public void write(int b) {
+            _count++;
+        }
+
+        public void write(byte[] b, int off, int len) {
+            _count += len;
+        }
+
+        public long getCount() {
+            return _count;
+        }
+    }
+}
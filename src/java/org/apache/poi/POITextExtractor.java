@@ -16,6 +16,8 @@
 ==================================================================== */
 package org.apache.poi;
 
+import java.io.IOException;
+
 /**
  * Common Parent for Text Extractors
  *  of POI Documents. 
@@ -54,6 +56,36 @@ public abstract class POITextExtractor {
 	 * @return All the text from the document
 	 */
 	public abstract String getText();
+
+	/**
+	 * Writes all the text from the document to the given
+	 *  output, exactly as {@link #getText()} would return it.
+	 * Extractors for the larger document formats write the text
+	 *  out as they go, so that it never has to be held in
+	 *  memory all at once. By default, this simply appends
+	 *  the result of {@link #getText()}.
+	 * @param out where to write the text, for example a
+	 *  {@link java.io.Writer}
+	 */
+	public void writeText(Appendable out) throws IOException {
+		out.append(getText());
+	}
+
+	/**
+	 * For extractors which implement {@link #writeText(Appendable)}
+	 *  themselves, collects what it writes into a String, to
+	 *  be returned by {@link #getText()}
+	 */
+	protected final String writeTextToString() {
+		StringBuilder text = new StringBuilder();
+		try {
+			writeText(text);
+		} catch (IOException e) {
+			// never happens with a StringBuilder
+			throw new RuntimeException(e);
+		}
+		return text.toString();
+	}
 	
 	/**
 	 * Returns another text extractor, which is able to
@@ -129,23 +129,26 @@ public class EventBasedExcelExtractor extends POIOLE2TextExtractor {
 	 * Retreives the text contents of the file
 	 */
 	public String getText() {
-		String text = null;
-		try {
-			TextListener tl = triggerExtraction();
+		return writeTextToString();
+	}
 
-			text = tl._text.toString();
-			if(! text.endsWith("\n")) {
-				text = text + "\n";
-			}
-		} catch(IOException e) {
-			throw new RuntimeException(e);
+	/**
+	 * Writes the text contents of the file, as the records
+	 *  are read
+	 */
+	public void writeText(Appendable text) throws IOException {
+		TextListener tl = new TextListener(text);
+		try {
+			triggerExtraction(tl);
+		} catch(OutputException e) {
+			throw e.getCause();
+		}
+		if(tl._lastChar != '\n') {
+			text.append("\n");
 		}
-
-		return text;
 	}
 
-	private TextListener triggerExtraction() throws IOException {
-		TextListener tl = new TextListener();
+	private void triggerExtraction(TextListener tl) throws IOException {
 		FormatTrackingHSSFListener ft = new FormatTrackingHSSFListener(tl);
 		tl._ft = ft;
 
@@ -155,8 +158,19 @@ public class EventBasedExcelExtractor extends POIOLE2TextExtractor {
 		request.addListenerForAllRecords(ft);
 
 		factory.processWorkbookEvents(request, _dir);
+	}
 
-		return tl;
+	/**
+	 * Carries an IOException from the output through
+	 *  {@link HSSFListener#processRecord(Record)}
+	 */
+	private static final class OutputException extends RuntimeException {
+		public OutputException(IOException cause) {
+			super(cause);
+		}
+		public IOException getCause() {
+			return (IOException)super.getCause();
+		}
 	}
 
 	private class TextListener implements HSSFListener {
@@ -164,15 +178,30 @@ public class EventBasedExcelExtractor extends POIOLE2TextExtractor {
 		private SSTRecord sstRecord;
 
 		private final List<String> sheetNames;
-		final StringBuffer _text = new StringBuffer();
+		private final Appendable _text;
+		/** the last character output so far, or 0 if there has been none */
+		char _lastChar;
 		private int sheetNum = -1;
 		private int rowNum;
 
 		private boolean outputNextStringValue = false;
 		private int nextRow = -1;
 
-		public TextListener() {
+		public TextListener(Appendable text) {
 			sheetNames = new ArrayList<String>();
+			_text = text;
+		}
+
+		private void append(String str) {
+			if(str.length() == 0) {
+				return;
+			}
+			try {
+				_text.append(str);
+			} catch(IOException e) {
+				throw new OutputException(e);
+			}
+			_lastChar = str.charAt(str.length() - 1);
 		}
 		public void processRecord(Record record) {
 			String thisText = null;
@@ -190,8 +219,8 @@ public class EventBasedExcelExtractor extends POIOLE2TextExtractor {
 					rowNum = -1;
 
 					if(_includeSheetNames) {
-						if(_text.length() > 0) _text.append("\n");
-						_text.append(sheetNames.get(sheetNum));
+						if(_lastChar != 0) append("\n");
+						append(sheetNames.get(sheetNum));
 					}
 				}
 				break;
@@ -255,12 +284,12 @@ public class EventBasedExcelExtractor extends POIOLE2TextExtractor {
 			if(thisText != null) {
 				if(thisRow != rowNum) {
 					rowNum = thisRow;
-					if(_text.length() > 0)
-						_text.append("\n");
+					if(_lastChar != 0)
+						append("\n");
 				} else {
-					_text.append("\t");
+					append("\t");
 				}
-				_text.append(thisText);
+				append(thisText);
 			}
 		}
 	}
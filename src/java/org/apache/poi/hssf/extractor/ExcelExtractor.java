@@ -240,7 +240,8 @@ public class ExcelExtractor extends POIOLE2TextExtractor implements org.apache.p
 			extractor.setIncludeCellComments(cmdArgs.shouldShowCellComments());
 			extractor.setIncludeBlankCells(cmdArgs.shouldShowBlankCells());
 			extractor.setIncludeHeadersFooters(cmdArgs.shouldIncludeHeadersFooters());
-			System.out.println(extractor.getText());
+			extractor.writeText(System.out);
+			System.out.println();
 		} catch (Exception e) {
 			e.printStackTrace();
 			System.exit(1);
@@ -285,8 +286,13 @@ public class ExcelExtractor extends POIOLE2TextExtractor implements org.apache.p
 	 * Retrieves the text contents of the file
 	 */
 	public String getText() {
-		StringBuffer text = new StringBuffer();
+		return writeTextToString();
+	}
 
+	/**
+	 * Writes the text contents of the file, one row at a time
+	 */
+	public void writeText(Appendable text) throws IOException {
 		// We don't care about the difference between
 		//  null (missing) and blank cells
 		_wb.setMissingCellPolicy(HSSFRow.RETURN_BLANK_AS_NULL);
@@ -340,7 +346,7 @@ public class ExcelExtractor extends POIOLE2TextExtractor implements org.apache.p
 								);
 								break;
 							case HSSFCell.CELL_TYPE_BOOLEAN:
-								text.append(cell.getBooleanCellValue());
+								text.append(String.valueOf(cell.getBooleanCellValue()));
 								break;
 							case HSSFCell.CELL_TYPE_ERROR:
 								text.append(ErrorEval.getText(cell.getErrorCellValue()));
@@ -359,7 +365,7 @@ public class ExcelExtractor extends POIOLE2TextExtractor implements org.apache.p
 										case HSSFCell.CELL_TYPE_NUMERIC:
 										   HSSFCellStyle style = cell.getCellStyle();
 										   if(style == null) {
-										      text.append( cell.getNumericCellValue() );
+										      text.append(String.valueOf(cell.getNumericCellValue()));
 										   } else {
 	                                 text.append(
 	                                       _formatter.formatRawCellContents(
@@ -371,7 +377,7 @@ public class ExcelExtractor extends POIOLE2TextExtractor implements org.apache.p
 										   }
 											break;
 										case HSSFCell.CELL_TYPE_BOOLEAN:
-											text.append(cell.getBooleanCellValue());
+											text.append(String.valueOf(cell.getBooleanCellValue()));
 											break;
 										case HSSFCell.CELL_TYPE_ERROR:
 											text.append(ErrorEval.getText(cell.getErrorCellValue()));
@@ -409,8 +415,6 @@ public class ExcelExtractor extends POIOLE2TextExtractor implements org.apache.p
 				text.append(_extractHeaderFooter(sheet.getFooter()));
 			}
 		}
-
-		return text.toString();
 	}
 
 	public static String _extractHeaderFooter(HeaderFooter hf) {
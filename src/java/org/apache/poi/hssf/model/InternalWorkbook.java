@@ -19,6 +19,7 @@ package org.apache.poi.hssf.model;
 
 import java.security.AccessControlException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -164,6 +165,11 @@ public final class InternalWorkbook {
 	private int numxfs;
     /** the number of font records */
 	private int numfonts;
+    /**
+     * position of each font record in the font table (ignoring "there is no 4"),
+     * built on demand and dropped whenever fonts are removed
+     */
+    private Map<FontRecord, Integer> fontIndexes;
     /** holds the max format id */
 	private int maxformatid;
     /** whether 1904 date windowing is being used */
@@ -492,18 +498,26 @@ public final class InternalWorkbook {
      * Retrieves the index of the given font
      */
     public int getFontIndex(FontRecord font) {
-        for(int i=0; i<=numfonts; i++) {
-            FontRecord thisFont =
-                ( FontRecord ) records.get((records.getFontpos() - (numfonts - 1)) + i);
-            if(thisFont == font) {
-                // There is no 4!
-                if(i > 3) {
-                    return (i+1);
+        if (fontIndexes == null) {
+            fontIndexes = new IdentityHashMap<FontRecord, Integer>();
+            int firstFontPos = records.getFontpos() - (numfonts - 1);
+            for(int i=0; i<numfonts; i++) {
+                FontRecord thisFont = ( FontRecord ) records.get(firstFontPos + i);
+                if (!fontIndexes.containsKey(thisFont)) {
+                    fontIndexes.put(thisFont, Integer.valueOf(i));
                 }
-                return i;
             }
         }
-        throw new IllegalArgumentException("Could not find that font!");
+        Integer idx = fontIndexes.get(font);
+        if (idx == null) {
+            throw new IllegalArgumentException("Could not find that font!");
+        }
+        int i = idx.intValue();
+        // There is no 4!
+        if(i > 3) {
+            return (i+1);
+        }
+        return i;
     }
 
     /**
@@ -519,6 +533,9 @@ public final class InternalWorkbook {
 
         records.add(records.getFontpos()+1, rec);
         records.setFontpos( records.getFontpos() + 1 );
+        if (fontIndexes != null) {
+            fontIndexes.put(rec, Integer.valueOf(numfonts));
+        }
         numfonts++;
         return rec;
     }
@@ -532,6 +549,7 @@ public final class InternalWorkbook {
     public void removeFontRecord(FontRecord rec) {
         records.remove(rec); // this updates FontPos for us
         numfonts--;
+        fontIndexes = null;
     }
 
     /**
@@ -18,9 +18,6 @@
 package org.apache.poi.hssf.record;
 
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
 
@@ -40,66 +37,6 @@ import org.apache.poi.hssf.record.pivottable.*;
 public final class RecordFactory {
 	private static final int NUM_RECORDS = 512;
 
-	private interface I_RecordCreator {
-		Record create(RecordInputStream in);
-
-		Class<? extends Record> getRecordClass();
-	}
-	private static final class ReflectionConstructorRecordCreator implements I_RecordCreator {
-
-		private final Constructor<? extends Record> _c;
-		public ReflectionConstructorRecordCreator(Constructor<? extends Record> c) {
-			_c = c;
-		}
-		public Record create(RecordInputStream in) {
-			Object[] args = { in, };
-			try {
-				return _c.newInstance(args);
-			} catch (IllegalArgumentException e) {
-				throw new RuntimeException(e);
-			} catch (InstantiationException e) {
-				throw new RuntimeException(e);
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException(e);
-			} catch (InvocationTargetException e) {
-				throw new RecordFormatException("Unable to construct record instance" , e.getTargetException());
-			}
-		}
-		public Class<? extends Record> getRecordClass() {
-			return _c.getDeclaringClass();
-		}
-	}
-	/**
-	 * A "create" method is used instead of the usual constructor if the created record might
-	 * be of a different class to the declaring class.
-	 */
-	private static final class ReflectionMethodRecordCreator implements I_RecordCreator {
-
-		private final Method _m;
-		public ReflectionMethodRecordCreator(Method m) {
-			_m = m;
-		}
-		public Record create(RecordInputStream in) {
-			Object[] args = { in, };
-			try {
-				return (Record) _m.invoke(null, args);
-			} catch (IllegalArgumentException e) {
-				throw new RuntimeException(e);
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException(e);
-			} catch (InvocationTargetException e) {
-				throw new RecordFormatException("Unable to construct record instance" , e.getTargetException());
-			}
-		}
-		@SuppressWarnings("unchecked")
-		public Class<? extends Record> getRecordClass() {
-			return (Class<? extends Record>) _m.getDeclaringClass();
-		}
-	}
-
-
-	private static final Class<?>[] CONSTRUCTOR_ARGS = { RecordInputStream.class, };
-
 	/**
 	 * contains the classes for all the records we want to parse.<br/>
 	 * Note - this most but not *every* subclass of Record.
@@ -250,9 +187,9 @@ public final class RecordFactory {
 	};
 
 	/**
-	 * cache of the recordsToMap();
+	 * the classes of {@link #recordClasses}, indexed by record sid
 	 */
-	private static final Map<Integer, I_RecordCreator> _recordCreatorsById  = recordsToMap(recordClasses);
+	private static final Class<? extends Record>[] _recordClassesBySid = recordsToArray(recordClasses);
 
 	private static short[] _allKnownRecordSIDs;
 
@@ -265,11 +202,10 @@ public final class RecordFactory {
 	 * <code>null</code> if the specified record is not interpreted by POI.
 	 */
 	public static Class<? extends Record> getRecordClass(int sid) {
-		I_RecordCreator rc = _recordCreatorsById.get(Integer.valueOf(sid));
-		if (rc == null) {
+		if (sid < 0 || sid >= _recordClassesBySid.length) {
 			return null;
 		}
-		return rc.getRecordClass();
+		return _recordClassesBySid[sid];
 	}
 	/**
 	 * create a record, if there are MUL records than multiple records
@@ -292,13 +228,171 @@ public final class RecordFactory {
 	}
 
 	public static Record createSingleRecord(RecordInputStream in) {
-		I_RecordCreator constructor = _recordCreatorsById.get(Integer.valueOf(in.getSid()));
-
-		if (constructor == null) {
+		int sid = in.getSid();
+		if (getRecordClass(sid) == null) {
 			return new UnknownRecord(in);
 		}
 
-		return constructor.create(in);
+		Record record;
+		try {
+			record = createKnownRecord(sid, in);
+		} catch (RuntimeException e) {
+			throw new RecordFormatException("Unable to construct record instance", e);
+		}
+		if (record == null) {
+			throw new IllegalStateException("No constructor call for record class ("
+					+ getRecordClass(sid).getName() + ")");
+		}
+		return record;
+	}
+
+	/**
+	 * Creates the record for one of the {@link #recordClasses} by calling its constructor (or
+	 * <tt>create</tt> method) directly, rather than through reflection which shows up when
+	 * loading large files.  A case must be added here for every entry in {@link #recordClasses}.
+	 *
+	 * @return <code>null</code> if the sid is not handled
+	 */
+	private static Record createKnownRecord(int sid, RecordInputStream in) {
+		switch (sid) {
+			case ArrayRecord.sid: return new ArrayRecord(in);
+			case AutoFilterInfoRecord.sid: return new AutoFilterInfoRecord(in);
+			case BackupRecord.sid: return new BackupRecord(in);
+			case BlankRecord.sid: return new BlankRecord(in);
+			case BOFRecord.sid: return new BOFRecord(in);
+			case BookBoolRecord.sid: return new BookBoolRecord(in);
+			case BoolErrRecord.sid: return new BoolErrRecord(in);
+			case BottomMarginRecord.sid: return new BottomMarginRecord(in);
+			case BoundSheetRecord.sid: return new BoundSheetRecord(in);
+			case CalcCountRecord.sid: return new CalcCountRecord(in);
+			case CalcModeRecord.sid: return new CalcModeRecord(in);
+			case CFHeaderRecord.sid: return new CFHeaderRecord(in);
+			case CFRuleRecord.sid: return new CFRuleRecord(in);
+			case ChartRecord.sid: return new ChartRecord(in);
+			case ChartTitleFormatRecord.sid: return new ChartTitleFormatRecord(in);
+			case CodepageRecord.sid: return new CodepageRecord(in);
+			case ColumnInfoRecord.sid: return new ColumnInfoRecord(in);
+			case ContinueRecord.sid: return new ContinueRecord(in);
+			case CountryRecord.sid: return new CountryRecord(in);
+			case CRNCountRecord.sid: return new CRNCountRecord(in);
+			case CRNRecord.sid: return new CRNRecord(in);
+			case DateWindow1904Record.sid: return new DateWindow1904Record(in);
+			case DBCellRecord.sid: return new DBCellRecord(in);
+			case DConRefRecord.sid: return new DConRefRecord(in);
+			case DefaultColWidthRecord.sid: return new DefaultColWidthRecord(in);
+			case DefaultRowHeightRecord.sid: return new DefaultRowHeightRecord(in);
+			case DeltaRecord.sid: return new DeltaRecord(in);
+			case DimensionsRecord.sid: return new DimensionsRecord(in);
+			case DrawingGroupRecord.sid: return new DrawingGroupRecord(in);
+			case DrawingRecord.sid: return new DrawingRecord(in);
+			case DrawingSelectionRecord.sid: return new DrawingSelectionRecord(in);
+			case DSFRecord.sid: return new DSFRecord(in);
+			case DVALRecord.sid: return new DVALRecord(in);
+			case DVRecord.sid: return new DVRecord(in);
+			case EOFRecord.sid: return new EOFRecord(in);
+			case ExtendedFormatRecord.sid: return new ExtendedFormatRecord(in);
+			case ExternalNameRecord.sid: return new ExternalNameRecord(in);
+			case ExternSheetRecord.sid: return new ExternSheetRecord(in);
+			case ExtSSTRecord.sid: return new ExtSSTRecord(in);
+			case FeatRecord.sid: return new FeatRecord(in);
+			case FeatHdrRecord.sid: return new FeatHdrRecord(in);
+			case FilePassRecord.sid: return new FilePassRecord(in);
+			case FileSharingRecord.sid: return new FileSharingRecord(in);
+			case FnGroupCountRecord.sid: return new FnGroupCountRecord(in);
+			case FontRecord.sid: return new FontRecord(in);
+			case FooterRecord.sid: return new FooterRecord(in);
+			case FormatRecord.sid: return new FormatRecord(in);
+			case FormulaRecord.sid: return new FormulaRecord(in);
+			case GridsetRecord.sid: return new GridsetRecord(in);
+			case GutsRecord.sid: return new GutsRecord(in);
+			case HCenterRecord.sid: return new HCenterRecord(in);
+			case HeaderRecord.sid: return new HeaderRecord(in);
+			case HeaderFooterRecord.sid: return new HeaderFooterRecord(in);
+			case HideObjRecord.sid: return new HideObjRecord(in);
+			case HorizontalPageBreakRecord.sid: return new HorizontalPageBreakRecord(in);
+			case HyperlinkRecord.sid: return new HyperlinkRecord(in);
+			case IndexRecord.sid: return new IndexRecord(in);
+			case InterfaceEndRecord.sid: return InterfaceEndRecord.create(in);
+			case InterfaceHdrRecord.sid: return new InterfaceHdrRecord(in);
+			case IterationRecord.sid: return new IterationRecord(in);
+			case LabelRecord.sid: return new LabelRecord(in);
+			case LabelSSTRecord.sid: return new LabelSSTRecord(in);
+			case LeftMarginRecord.sid: return new LeftMarginRecord(in);
+			case LegendRecord.sid: return new LegendRecord(in);
+			case MergeCellsRecord.sid: return new MergeCellsRecord(in);
+			case MMSRecord.sid: return new MMSRecord(in);
+			case MulBlankRecord.sid: return new MulBlankRecord(in);
+			case MulRKRecord.sid: return new MulRKRecord(in);
+			case NameRecord.sid: return new NameRecord(in);
+			case NameCommentRecord.sid: return new NameCommentRecord(in);
+			case NoteRecord.sid: return new NoteRecord(in);
+			case NumberRecord.sid: return new NumberRecord(in);
+			case ObjectProtectRecord.sid: return new ObjectProtectRecord(in);
+			case ObjRecord.sid: return new ObjRecord(in);
+			case PaletteRecord.sid: return new PaletteRecord(in);
+			case PaneRecord.sid: return new PaneRecord(in);
+			case PasswordRecord.sid: return new PasswordRecord(in);
+			case PasswordRev4Record.sid: return new PasswordRev4Record(in);
+			case PrecisionRecord.sid: return new PrecisionRecord(in);
+			case PrintGridlinesRecord.sid: return new PrintGridlinesRecord(in);
+			case PrintHeadersRecord.sid: return new PrintHeadersRecord(in);
+			case PrintSetupRecord.sid: return new PrintSetupRecord(in);
+			case ProtectionRev4Record.sid: return new ProtectionRev4Record(in);
+			case ProtectRecord.sid: return new ProtectRecord(in);
+			case RecalcIdRecord.sid: return new RecalcIdRecord(in);
+			case RefModeRecord.sid: return new RefModeRecord(in);
+			case RefreshAllRecord.sid: return new RefreshAllRecord(in);
+			case RightMarginRecord.sid: return new RightMarginRecord(in);
+			case RKRecord.sid: return new RKRecord(in);
+			case RowRecord.sid: return new RowRecord(in);
+			case SaveRecalcRecord.sid: return new SaveRecalcRecord(in);
+			case ScenarioProtectRecord.sid: return new ScenarioProtectRecord(in);
+			case SelectionRecord.sid: return new SelectionRecord(in);
+			case SeriesRecord.sid: return new SeriesRecord(in);
+			case SeriesTextRecord.sid: return new SeriesTextRecord(in);
+			case SharedFormulaRecord.sid: return new SharedFormulaRecord(in);
+			case SSTRecord.sid: return new SSTRecord(in);
+			case StringRecord.sid: return new StringRecord(in);
+			case StyleRecord.sid: return new StyleRecord(in);
+			case SupBookRecord.sid: return new SupBookRecord(in);
+			case TabIdRecord.sid: return new TabIdRecord(in);
+			case TableRecord.sid: return new TableRecord(in);
+			case TableStylesRecord.sid: return new TableStylesRecord(in);
+			case TextObjectRecord.sid: return new TextObjectRecord(in);
+			case TopMarginRecord.sid: return new TopMarginRecord(in);
+			case UncalcedRecord.sid: return new UncalcedRecord(in);
+			case UseSelFSRecord.sid: return new UseSelFSRecord(in);
+			case UserSViewBegin.sid: return new UserSViewBegin(in);
+			case UserSViewEnd.sid: return new UserSViewEnd(in);
+			case ValueRangeRecord.sid: return new ValueRangeRecord(in);
+			case VCenterRecord.sid: return new VCenterRecord(in);
+			case VerticalPageBreakRecord.sid: return new VerticalPageBreakRecord(in);
+			case WindowOneRecord.sid: return new WindowOneRecord(in);
+			case WindowProtectRecord.sid: return new WindowProtectRecord(in);
+			case WindowTwoRecord.sid: return new WindowTwoRecord(in);
+			case WriteAccessRecord.sid: return new WriteAccessRecord(in);
+			case WriteProtectRecord.sid: return new WriteProtectRecord(in);
+			case WSBoolRecord.sid: return new WSBoolRecord(in);
+			case BeginRecord.sid: return new BeginRecord(in);
+			case ChartFRTInfoRecord.sid: return new ChartFRTInfoRecord(in);
+			case ChartStartBlockRecord.sid: return new ChartStartBlockRecord(in);
+			case ChartEndBlockRecord.sid: return new ChartEndBlockRecord(in);
+			case ChartStartObjectRecord.sid: return new ChartStartObjectRecord(in);
+			case ChartEndObjectRecord.sid: return new ChartEndObjectRecord(in);
+			case CatLabRecord.sid: return new CatLabRecord(in);
+			case DataFormatRecord.sid: return new DataFormatRecord(in);
+			case EndRecord.sid: return new EndRecord(in);
+			case LinkedDataRecord.sid: return new LinkedDataRecord(in);
+			case SeriesToChartGroupRecord.sid: return new SeriesToChartGroupRecord(in);
+			case DataItemRecord.sid: return new DataItemRecord(in);
+			case ExtendedPivotTableViewFieldsRecord.sid: return new ExtendedPivotTableViewFieldsRecord(in);
+			case PageItemRecord.sid: return new PageItemRecord(in);
+			case StreamIDRecord.sid: return new StreamIDRecord(in);
+			case ViewDefinitionRecord.sid: return new ViewDefinitionRecord(in);
+			case ViewFieldsRecord.sid: return new ViewFieldsRecord(in);
+			case ViewSourceRecord.sid: return new ViewSourceRecord(in);
+		}
+		return null;
 	}
 
 	/**
@@ -353,15 +447,14 @@ public final class RecordFactory {
 	 */
 	public static short[] getAllKnownRecordSIDs() {
 		if (_allKnownRecordSIDs == null) {
-			short[] results = new short[ _recordCreatorsById.size() ];
+			short[] results = new short[ recordClasses.length ];
 			int i = 0;
 
-			for (Iterator<Integer> iterator = _recordCreatorsById.keySet().iterator(); iterator.hasNext(); ) {
-				Integer sid = iterator.next();
-
-				results[i++] = sid.shortValue();
+			for (int sid = 0; sid < _recordClassesBySid.length; sid++) {
+				if (_recordClassesBySid[sid] != null) {
+					results[i++] = (short) sid;
+				}
 			}
-			Arrays.sort(results);
  			_allKnownRecordSIDs = results;
 		}
 
@@ -369,13 +462,14 @@ public final class RecordFactory {
 	}
 
 	/**
-	 * gets the record constructors and sticks them in the map by SID
-	 * @return map of SIDs to short,short,byte[] constructors for Record classes
-	 * most of org.apache.poi.hssf.record.*
+	 * gets the record sids and puts the record classes in an array indexed by SID
+	 * @return array of Record classes, most of org.apache.poi.hssf.record.*, indexed by SID
 	 */
-	private static Map<Integer, I_RecordCreator> recordsToMap(Class<? extends Record> [] records) {
-		Map<Integer, I_RecordCreator> result = new HashMap<Integer, I_RecordCreator>();
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Record>[] recordsToArray(Class<? extends Record> [] records) {
+		Map<Integer, Class<? extends Record>> classesBySid = new HashMap<Integer, Class<? extends Record>>();
 		Set<Class<?>> uniqueRecClasses = new HashSet<Class<?>>(records.length * 3 / 2);
+		int maxSid = 0;
 
 		for (int i = 0; i < records.length; i++) {
 
@@ -398,31 +492,20 @@ public final class RecordFactory {
 					"Unable to determine record types");
 			}
 			Integer key = Integer.valueOf(sid);
-			if (result.containsKey(key)) {
-				Class<?> prevClass = result.get(key).getRecordClass();
+			if (classesBySid.containsKey(key)) {
+				Class<?> prevClass = classesBySid.get(key);
 				throw new RuntimeException("duplicate record sid 0x" + Integer.toHexString(sid).toUpperCase()
 						+ " for classes (" + recClass.getName() + ") and (" + prevClass.getName() + ")");
 			}
-			result.put(key, getRecordCreator(recClass));
+			classesBySid.put(key, recClass);
+			maxSid = Math.max(maxSid, sid);
 		}
-//		result.put(Integer.valueOf(0x0406), result.get(Integer.valueOf(0x06)));
-		return result;
-	}
 
-	private static I_RecordCreator getRecordCreator(Class<? extends Record> recClass) {
-		try {
-			Constructor<? extends Record> constructor;
-			constructor = recClass.getConstructor(CONSTRUCTOR_ARGS);
-			return new ReflectionConstructorRecordCreator(constructor);
-		} catch (NoSuchMethodException e) {
-			// fall through and look for other construction methods
-		}
-		try {
-			Method m = recClass.getDeclaredMethod("create", CONSTRUCTOR_ARGS);
-			return new ReflectionMethodRecordCreator(m);
-		} catch (NoSuchMethodException e) {
-			throw new RuntimeException("Failed to find constructor or create method for (" + recClass.getName() + ").");
+		Class<? extends Record>[] result = new Class[maxSid + 1];
+		for (Map.Entry<Integer, Class<? extends Record>> e : classesBySid.entrySet()) {
+			result[e.getKey().intValue()] = e.getValue();
 		}
+		return result;
 	}
 	/**
 	 * Create an array of records from an input stream
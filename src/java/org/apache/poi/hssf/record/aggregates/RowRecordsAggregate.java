@@ -246,36 +246,10 @@ public final class RowRecordsAggregate extends RecordAggregate {
 
 	public void visitContainedRecords(RecordVisitor rv) {
 
-		PositionTrackingVisitor stv = new PositionTrackingVisitor(rv, 0);
 		//DBCells are serialized before row records.
 		final int blockCount = getRowBlockCount();
 		for (int blockIndex = 0; blockIndex < blockCount; blockIndex++) {
-			// Serialize a block of rows.
-			// Hold onto the position of the first row in the block
-			int pos=0;
-			// Hold onto the size of this block that was serialized
-			final int rowBlockSize = visitRowRecordsForBlock(blockIndex, rv);
-			pos += rowBlockSize;
-			// Serialize a block of cells for those rows
-			final int startRowNumber = getStartRowNumberForBlock(blockIndex);
-			final int endRowNumber = getEndRowNumberForBlock(blockIndex);
-			DBCellRecord.Builder dbcrBuilder = new DBCellRecord.Builder();
-			// Note: Cell references start from the second row...
-			int cellRefOffset = (rowBlockSize - RowRecord.ENCODED_SIZE);
-			for (int row = startRowNumber; row <= endRowNumber; row++) {
-				if (_valuesAgg.rowHasCells(row)) {
-					stv.setPosition(0);
-					_valuesAgg.visitCellsForRow(row, stv);
-					int rowCellSize = stv.getPosition();
-					pos += rowCellSize;
-					// Add the offset to the first cell for the row into the
-					// DBCellRecord.
-					dbcrBuilder.addCellOffset(cellRefOffset);
-					cellRefOffset = rowCellSize;
-				}
-			}
-			// Calculate Offset from the start of a DBCellRecord to the first Row
-			rv.visitRecord(dbcrBuilder.build(pos));
+			visitRowBlock(blockIndex, rv);
 		}
 		for (int i=0; i< _unknownRecords.size(); i++) {
 			// Potentially breaking the file here since we don't know exactly where to write these records
@@ -283,6 +257,43 @@ public final class RowRecordsAggregate extends RecordAggregate {
 		}
 	}
 
+	/**
+	 * Serializes one block of rows: the row records, the cell records for those
+	 * rows, and the DBCELL record which follows them.
+	 *
+	 * @return the size in bytes of the whole block, including the DBCELL record
+	 */
+	public int visitRowBlock(int blockIndex, RecordVisitor rv) {
+		PositionTrackingVisitor stv = new PositionTrackingVisitor(rv, 0);
+		// Hold onto the position of the first row in the block
+		int pos=0;
+		// Hold onto the size of this block that was serialized
+		final int rowBlockSize = visitRowRecordsForBlock(blockIndex, rv);
+		pos += rowBlockSize;
+		// Serialize a block of cells for those rows
+		final int startRowNumber = getStartRowNumberForBlock(blockIndex);
+		final int endRowNumber = getEndRowNumberForBlock(blockIndex);
+		DBCellRecord.Builder dbcrBuilder = new DBCellRecord.Builder();
+		// Note: Cell references start from the second row...
+		int cellRefOffset = (rowBlockSize - RowRecord.ENCODED_SIZE);
+		for (int row = startRowNumber; row <= endRowNumber; row++) {
+			if (_valuesAgg.rowHasCells(row)) {
+				stv.setPosition(0);
+				_valuesAgg.visitCellsForRow(row, stv);
+				int rowCellSize = stv.getPosition();
+				pos += rowCellSize;
+				// Add the offset to the first cell for the row into the
+				// DBCellRecord.
+				dbcrBuilder.addCellOffset(cellRefOffset);
+				cellRefOffset = rowCellSize;
+			}
+		}
+		// Calculate Offset from the start of a DBCellRecord to the first Row
+		DBCellRecord dbcr = dbcrBuilder.build(pos);
+		rv.visitRecord(dbcr);
+		return pos + dbcr.getRecordSize();
+	}
+
 	public Iterator<RowRecord> getIterator() {
 		return _rowRecords.values().iterator();
 	}
@@ -476,13 +487,21 @@ public final class RowRecordsAggregate extends RecordAggregate {
 			// account for row records in this row-block
 			currentOffset += getRowBlockSize(block);
 			// account for cell value records after those
-			currentOffset += _valuesAgg.getRowCellBlockSize(
-					getStartRowNumberForBlock(block), getEndRowNumberForBlock(block));
+			int startRowNumber = getStartRowNumberForBlock(block);
+			int endRowNumber = getEndRowNumberForBlock(block);
+			currentOffset += _valuesAgg.getRowCellBlockSize(startRowNumber, endRowNumber);
 
 			// currentOffset is now the location of the DBCELL record for this row-block
 			result.addDbcell(currentOffset);
 			// Add space required to write the DBCELL record (whose reference was just added).
-			currentOffset += (8 + (getRowCountForBlock(block) * 2));
+			// It only has a cell offset for the rows which have cells
+			int rowsWithCells = 0;
+			for (int row = startRowNumber; row <= endRowNumber; row++) {
+				if (_valuesAgg.rowHasCells(row)) {
+					rowsWithCells++;
+				}
+			}
+			currentOffset += (8 + (rowsWithCells * 2));
 		}
 		return result;
 	}
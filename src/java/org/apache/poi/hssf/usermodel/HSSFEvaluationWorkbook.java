@@ -151,6 +151,13 @@ public final class HSSFEvaluationWorkbook implements FormulaRenderingWorkbook, E
         return _uBook.getUDFFinder();
     }
 
+	public void clearAllCachedResultValues() {
+		// nothing to do - formula tokens are read straight from the FormulaRecords
+	}
+	public void notifyUpdateCell(EvaluationCell cell) {
+		// nothing to do
+	}
+
 	private static final class Name implements EvaluationName {
 
 		private final NameRecord _nameRecord;
@@ -17,9 +17,18 @@
 
 package org.apache.poi.hssf.usermodel;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import org.apache.poi.ss.formula.CollaboratingWorkbooksEnvironment;
 import org.apache.poi.ss.formula.IStabilityClassifier;
 import org.apache.poi.ss.formula.WorkbookEvaluator;
+import org.apache.poi.ss.formula.WorkbookEvaluatorProvider;
 import org.apache.poi.ss.formula.eval.BoolEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
 import org.apache.poi.ss.formula.eval.NumberEval;
@@ -43,7 +52,7 @@ import org.apache.poi.ss.usermodel.Workbook;
  * @author Amol S. Deshmukh &lt; amolweb at ya hoo dot com &gt;
  * @author Josh Micich
  */
-public class HSSFFormulaEvaluator implements FormulaEvaluator  {
+public class HSSFFormulaEvaluator implements FormulaEvaluator, WorkbookEvaluatorProvider  {
 
 	private WorkbookEvaluator _bookEvaluator;
 	private HSSFWorkbook _book;
@@ -319,17 +328,99 @@ public class HSSFFormulaEvaluator implements FormulaEvaluator  {
 	}
 	private static void evaluateAllFormulaCells(Workbook wb, FormulaEvaluator evaluator) {
       for(int i=0; i<wb.getNumberOfSheets(); i++) {
-         Sheet sheet = wb.getSheetAt(i);
+         evaluateAllFormulaCells(wb.getSheetAt(i), evaluator);
+      }
+	}
+	private static void evaluateAllFormulaCells(Sheet sheet, FormulaEvaluator evaluator) {
+      for(Row r : sheet) {
+         for (Cell c : r) {
+            if (c.getCellType() == HSSFCell.CELL_TYPE_FORMULA) {
+               evaluator.evaluateFormulaCell(c);
+            }
+         }
+      }
+	}
 
-         for(Row r : sheet) {
-            for (Cell c : r) {
-               if (c.getCellType() == HSSFCell.CELL_TYPE_FORMULA) {
-                  evaluator.evaluateFormulaCell(c);
+   /**
+    * Evaluates all formula cells of the supplied workbook like
+    *  {@link #evaluateAllFormulaCells(Workbook)}, but with the
+    *  sheets shared out as separate tasks on the given executor.<p/>
+    *
+    * Formula evaluators are not thread safe, so every task borrows
+    *  an evaluator (with its own cache) which no other task uses at
+    *  the same time, and hands it back for the following sheets when
+    *  done.  Formulas referring to other sheets are evaluated from
+    *  the cell definitions rather than the saved results, so the
+    *  results are identical to those of a sequential evaluation,
+    *  although precedents shared between sheets may be calculated
+    *  once per evaluator instead of once overall.<p/>
+    *
+    * The workbook must not be modified by other threads while this
+    *  method is running.  It returns once all sheets have been
+    *  evaluated; if any evaluation failed, the first failure is
+    *  rethrown.
+    *
+    * @param executor runs the per sheet tasks.  It is not shut down
+    *  by this method
+    */
+   public static void evaluateAllFormulaCells(final Workbook wb, ExecutorService executor) {
+      final ConcurrentLinkedQueue<FormulaEvaluator> evaluators = new ConcurrentLinkedQueue<FormulaEvaluator>();
+      List<Future<?>> results = new ArrayList<Future<?>>();
+      for(int i=0; i<wb.getNumberOfSheets(); i++) {
+         // Fetched here so that any lazy loading of the sheets happens on this thread
+         final Sheet sheet = wb.getSheetAt(i);
+         results.add(executor.submit(new Runnable() {
+            public void run() {
+               FormulaEvaluator evaluator = evaluators.poll();
+               if (evaluator == null) {
+                  synchronized (evaluators) {
+                     evaluator = wb.getCreationHelper().createFormulaEvaluator();
+                  }
+               }
+               try {
+                  evaluateAllFormulaCells(sheet, evaluator);
+               } finally {
+                  evaluators.add(evaluator);
                }
             }
+         }));
+      }
+
+      RuntimeException failure = null;
+      for (Future<?> result : results) {
+         try {
+            result.get();
+         } catch (CancellationException e) {
+            // only after an earlier failure
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll(results);
+            throw new RuntimeException("Interrupted while evaluating formulas", e);
+         } catch (ExecutionException e) {
+            if (failure == null) {
+               Throwable cause = e.getCause();
+               if (cause instanceof Error) {
+                  cancelAll(results);
+                  throw (Error)cause;
+               }
+               if (cause instanceof RuntimeException) {
+                  failure = (RuntimeException)cause;
+               } else {
+                  failure = new RuntimeException(cause);
+               }
+               cancelAll(results);
+            }
          }
       }
-	}
+      if (failure != null) {
+         throw failure;
+      }
+   }
+   private static void cancelAll(List<Future<?>> results) {
+      for (Future<?> result : results) {
+         result.cancel(false);
+      }
+   }
 	
    /**
     * Loops over all cells in all sheets of the supplied
@@ -393,4 +484,8 @@ public class HSSFFormulaEvaluator implements FormulaEvaluator  {
     public void setDebugEvaluationOutputForNextEval(boolean value){
         _bookEvaluator.setDebugEvaluationOutputForNextEval(value);
     }
+
+    public WorkbookEvaluator _getWorkbookEvaluator() {
+        return _bookEvaluator;
+    }
 }
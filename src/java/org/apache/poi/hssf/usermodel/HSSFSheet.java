@@ -229,6 +229,10 @@ public final class HSSFSheet implements org.apache.poi.ss.usermodel.Sheet {
      * @see #removeRow(org.apache.poi.ss.usermodel.Row)
      */
     public HSSFRow createRow(int rownum) {
+        HSSFStreamingWriter streamingWriter = _workbook.getStreamingWriter();
+        if (streamingWriter != null) {
+            streamingWriter.beforeCreateRow(this, rownum);
+        }
         HSSFRow row = new HSSFRow(_workbook, this, rownum);
         // new rows inherit default height from the sheet
         row.setHeight(getDefaultRowHeight());
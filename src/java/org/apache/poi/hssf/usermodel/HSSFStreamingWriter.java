@@ -0,0 +1,435 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.usermodel;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.poi.hssf.model.InternalSheet;
+import org.apache.poi.hssf.model.InternalWorkbook;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.DBCellRecord;
+import org.apache.poi.hssf.record.IndexRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordBase;
+import org.apache.poi.hssf.record.UncalcedRecord;
+import org.apache.poi.hssf.record.aggregates.RecordAggregate;
+import org.apache.poi.hssf.record.aggregates.RecordAggregate.RecordVisitor;
+import org.apache.poi.hssf.record.aggregates.RowRecordsAggregate;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.poifs.filesystem.POIFSWriterEvent;
+import org.apache.poi.poifs.filesystem.POIFSWriterListener;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.TempFile;
+
+/**
+ * Writes a {@link HSSFWorkbook} with a bounded number of rows held in
+ *  memory, for producing large .xls files.<p/>
+ *
+ * Once a sheet holds as many rows as the row window, its lowest blocks of
+ *  rows are serialized (each followed by its DBCELL record) to a temporary
+ *  file, and removed from the sheet. Flushed rows can no longer be read or
+ *  changed, and any new row must come after them. When the workbook is
+ *  written, the INDEX records are calculated from the flushed blocks, and
+ *  the temporary files are streamed into the Workbook stream.<p/>
+ *
+ * The workbook level records, such as the styles, fonts and the shared
+ *  string table, are still kept in memory. Rows containing part of an array
+ *  formula cannot be flushed.<p/>
+ *
+ * Typical usage:
+ * <pre>
+ * HSSFWorkbook wb = new HSSFWorkbook();
+ * HSSFStreamingWriter writer = new HSSFStreamingWriter(wb, 100);
+ * try {
+ *     HSSFSheet sheet = wb.createSheet();
+ *     for (int i = 0; i &lt; 65536; i++) {
+ *         sheet.createRow(i).createCell(0).setCellValue(i);
+ *     }
+ *     writer.write(out);
+ * } finally {
+ *     writer.dispose();
+ * }
+ * </pre>
+ */
+public final class HSSFStreamingWriter {
+    private final HSSFWorkbook _workbook;
+    private final int _rowWindowSize;
+    private final Map<HSSFSheet, RowBlockSpool> _spools;
+    private boolean _written;
+
+    /**
+     * @param workbook the workbook to write
+     * @param rowWindowSize the number of rows of each sheet to keep in memory,
+     *  at least {@link DBCellRecord#BLOCK_SIZE}
+     */
+    public HSSFStreamingWriter(HSSFWorkbook workbook, int rowWindowSize) {
+        if (rowWindowSize < DBCellRecord.BLOCK_SIZE) {
+            throw new IllegalArgumentException("The row window must hold at least "
+                    + DBCellRecord.BLOCK_SIZE + " rows, but was " + rowWindowSize);
+        }
+        if (workbook.getStreamingWriter() != null) {
+            throw new IllegalStateException("The workbook already has a streaming writer");
+        }
+        _workbook = workbook;
+        _rowWindowSize = rowWindowSize;
+        _spools = new IdentityHashMap<HSSFSheet, RowBlockSpool>();
+        workbook.setStreamingWriter(this);
+    }
+
+    public int getRowWindowSize() {
+        return _rowWindowSize;
+    }
+
+    /**
+     * @return whether any rows have been flushed out of the workbook
+     */
+    public boolean hasFlushedRows() {
+        return !_spools.isEmpty();
+    }
+
+    /**
+     * Called by {@link HSSFSheet#createRow(int)} before the row is created,
+     *  to flush the lowest row blocks of the sheet if the row window is full.
+     */
+    void beforeCreateRow(HSSFSheet sheet, int rownum) {
+        if (_written) {
+            throw new IllegalStateException("The workbook has already been written");
+        }
+        RowBlockSpool spool = _spools.get(sheet);
+        if (spool != null && rownum <= spool.getLastRow()) {
+            throw new IllegalArgumentException("Row " + rownum + " cannot be created, rows up to "
+                    + spool.getLastRow() + " have already been flushed");
+        }
+        if (sheet.getRow(rownum) != null) {
+            // replacing an existing row does not grow the window
+            return;
+        }
+        try {
+            while (sheet.getPhysicalNumberOfRows() >= _rowWindowSize) {
+                if (!flushFirstBlock(sheet, rownum)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to flush rows of sheet "
+                    + _workbook.getSheetName(_workbook.getSheetIndex(sheet)), e);
+        }
+    }
+
+    /**
+     * Flushes all the rows currently in memory for the given sheet. New
+     *  rows must then come after the last of them.
+     */
+    public void flushRows(HSSFSheet sheet) throws IOException {
+        while (sheet.getPhysicalNumberOfRows() > 0) {
+            flushFirstBlock(sheet, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Flushes the lowest block of rows of the sheet, if all of them are
+     *  before the given row.
+     *
+     * @return whether the block was flushed
+     */
+    private boolean flushFirstBlock(HSSFSheet sheet, int beforeRow) throws IOException {
+        RowRecordsAggregate rra = sheet.getSheet().getRowsAggregate();
+        HSSFRow[] rows = new HSSFRow[rra.getRowCountForBlock(0)];
+        Iterator<Row> it = sheet.rowIterator();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (HSSFRow) it.next();
+        }
+        int lastRow = rows[rows.length - 1].getRowNum();
+        if (lastRow >= beforeRow) {
+            return false;
+        }
+
+        RowBlockSpool spool = _spools.get(sheet);
+        if (spool == null) {
+            spool = new RowBlockSpool();
+            _spools.put(sheet, spool);
+        }
+        spool.writeBlock(rra, lastRow);
+        for (HSSFRow row : rows) {
+            sheet.removeRow(row);
+        }
+        return true;
+    }
+
+    /**
+     * Flushes the remaining rows, and writes out the whole workbook. This
+     *  can only be done once.
+     *
+     * @param stream the stream to write the .xls file to
+     */
+    public void write(OutputStream stream) throws IOException {
+        if (_written) {
+            throw new IllegalStateException("The workbook has already been written");
+        }
+        _written = true;
+
+        HSSFSheet[] sheets = new HSSFSheet[_workbook.getNumberOfSheets()];
+        for (int k = 0; k < sheets.length; k++) {
+            sheets[k] = _workbook.getSheetAt(k);
+        }
+        for (HSSFSheet sheet : sheets) {
+            flushRows(sheet);
+        }
+        for (RowBlockSpool spool : _spools.values()) {
+            spool.finish();
+        }
+
+        // before getting the workbook size we must tell the sheets that
+        // serialization is about to occur.
+        InternalWorkbook workbook = _workbook.getWorkbook();
+        workbook.preSerialize();
+        for (HSSFSheet sheet : sheets) {
+            sheet.getSheet().preSerialize();
+            sheet.preSerialize();
+        }
+
+        final byte[] globals = new byte[workbook.getSize()];
+        long totalSize = globals.length;
+        final SheetParts[] parts = new SheetParts[sheets.length];
+        for (int k = 0; k < sheets.length; k++) {
+            workbook.setSheetBof(k, (int) totalSize);
+            parts[k] = new SheetParts(sheets[k].getSheet(), _spools.get(sheets[k]), (int) totalSize);
+            totalSize += parts[k].getSize();
+            if (totalSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("The workbook is too large for the Workbook stream");
+            }
+        }
+        workbook.serialize(0, globals);
+
+        POIFSFileSystem fs = new POIFSFileSystem();
+        fs.createDocument("Workbook", (int) totalSize, new POIFSWriterListener() {
+            public void processPOIFSWriterEvent(POIFSWriterEvent event) {
+                try {
+                    OutputStream out = event.getStream();
+                    out.write(globals);
+                    for (SheetParts part : parts) {
+                        part.writeTo(out);
+                    }
+                } catch (IOException e) {
+                    throw new SpoolException(e);
+                }
+            }
+        });
+        try {
+            _workbook.writeFilesystem(fs, stream);
+        } catch (SpoolException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Deletes the temporary files holding the flushed rows. The rows are
+     *  lost if the workbook has not been written yet.
+     */
+    public void dispose() {
+        for (RowBlockSpool spool : _spools.values()) {
+            spool.dispose();
+        }
+    }
+
+    /**
+     * The serialized row blocks of a sheet, kept in a temporary file
+     */
+    private static final class RowBlockSpool implements RecordVisitor {
+        private final File _file;
+        private final OutputStream _out;
+        private final ByteArrayOutputStream _block;
+        private long _size;
+        private int _lastRow;
+        /** offsets of the DBCELL records, from the start of the first block */
+        private int[] _dbcellOffsets;
+        private int _blockCount;
+
+        public RowBlockSpool() throws IOException {
+            _file = TempFile.createTempFile("poi-hssf-rows-", ".tmp");
+            _out = new BufferedOutputStream(new FileOutputStream(_file));
+            _block = new ByteArrayOutputStream();
+            _dbcellOffsets = new int[16];
+        }
+
+        public void writeBlock(RowRecordsAggregate rra, int lastRow) throws IOException {
+            _block.reset();
+            rra.visitRowBlock(0, this);
+            _block.writeTo(_out);
+            _size += _block.size();
+            _lastRow = lastRow;
+        }
+
+        public void visitRecord(Record r) {
+            if (r instanceof DBCellRecord) {
+                if (_blockCount == _dbcellOffsets.length) {
+                    int[] newOffsets = new int[_blockCount * 2];
+                    System.arraycopy(_dbcellOffsets, 0, newOffsets, 0, _blockCount);
+                    _dbcellOffsets = newOffsets;
+                }
+                _dbcellOffsets[_blockCount++] = (int) (_size + _block.size());
+            }
+            byte[] data = r.serialize();
+            _block.write(data, 0, data.length);
+        }
+
+        public int getLastRow() {
+            return _lastRow;
+        }
+
+        public long getSize() {
+            return _size;
+        }
+
+        public int getBlockCount() {
+            return _blockCount;
+        }
+
+        public int getDbcellOffset(int block) {
+            return _dbcellOffsets[block];
+        }
+
+        public void finish() throws IOException {
+            _out.close();
+        }
+
+        public void copyTo(OutputStream out) throws IOException {
+            InputStream in = new FileInputStream(_file);
+            try {
+                IOUtils.copy(in, out);
+            } finally {
+                in.close();
+            }
+        }
+
+        public void dispose() {
+            IOUtils.closeQuietly(_out);
+            _file.delete();
+        }
+    }
+
+    /**
+     * The records of a sheet, split around the INDEX record and the row blocks
+     */
+    private static final class SheetParts {
+        /** the BOF record, and the UNCALCED record if needed */
+        private final ByteArrayOutputStream _head;
+        private final IndexRecord _index;
+        /** the records between the INDEX record and the row blocks */
+        private final ByteArrayOutputStream _initial;
+        private final RowBlockSpool _rows;
+        /** everything after the row blocks */
+        private final ByteArrayOutputStream _tail;
+
+        public SheetParts(InternalSheet sheet, RowBlockSpool rows, int sheetOffset) {
+            _head = new ByteArrayOutputStream();
+            _initial = new ByteArrayOutputStream();
+            _tail = new ByteArrayOutputStream();
+            _rows = rows;
+
+            RecordCollector head = new RecordCollector(_head);
+            RecordCollector current = head;
+            RowRecordsAggregate rra = null;
+            for (RecordBase rb : sheet.getRecords()) {
+                if (rb instanceof RowRecordsAggregate) {
+                    // only records which are not rows are left in there now
+                    rra = (RowRecordsAggregate) rb;
+                    current = new RecordCollector(_tail);
+                }
+                if (rb instanceof RecordAggregate) {
+                    ((RecordAggregate) rb).visitContainedRecords(current);
+                } else {
+                    current.visitRecord((Record) rb);
+                }
+                if (rb instanceof BOFRecord && current == head) {
+                    if (sheet.getUncalced()) {
+                        head.visitRecord(new UncalcedRecord());
+                    }
+                    current = new RecordCollector(_initial);
+                }
+            }
+
+            _index = new IndexRecord();
+            _index.setFirstRow(rra.getFirstRowNum());
+            _index.setLastRowAdd1(rra.getLastRowNum() + 1);
+            if (rows != null) {
+                int blockCount = rows.getBlockCount();
+                int rowsOffset = sheetOffset + _head.size()
+                        + IndexRecord.getRecordSizeForBlockCount(blockCount) + _initial.size();
+                for (int block = 0; block < blockCount; block++) {
+                    _index.addDbcell(rowsOffset + rows.getDbcellOffset(block));
+                }
+            }
+        }
+
+        public long getSize() {
+            long size = _head.size() + _index.getRecordSize() + _initial.size() + _tail.size();
+            if (_rows != null) {
+                size += _rows.getSize();
+            }
+            return size;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            _head.writeTo(out);
+            out.write(_index.serialize());
+            _initial.writeTo(out);
+            if (_rows != null) {
+                _rows.copyTo(out);
+            }
+            _tail.writeTo(out);
+        }
+    }
+
+    private static final class RecordCollector implements RecordVisitor {
+        private final ByteArrayOutputStream _out;
+
+        public RecordCollector(ByteArrayOutputStream out) {
+            _out = out;
+        }
+
+        public void visitRecord(Record r) {
+            byte[] data = r.serialize();
+            _out.write(data, 0, data.length);
+        }
+    }
+
+    /**
+     * Carries an {@link IOException} out of the {@link POIFSWriterListener}
+     */
+    private static final class SpoolException extends RuntimeException {
+        public SpoolException(IOException cause) {
+            super(cause);
+        }
+
+        public IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
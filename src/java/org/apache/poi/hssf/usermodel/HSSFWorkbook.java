@@ -51,6 +51,7 @@ import org.apache.poi.ss.formula.FormulaType;
 import org.apache.poi.ss.formula.SheetNameFormatter;
 import org.apache.poi.ss.formula.udf.AggregatingUDFFinder;
 import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.Date1904Support;
 import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.WorkbookUtil;
@@ -71,7 +72,7 @@ import org.apache.poi.ss.formula.udf.IndexedUDFFinder;
  * @author  Glen Stampoultzis (glens at apache.org)
  * @author  Shawn Laubach (slaubach at apache dot org)
  */
-public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss.usermodel.Workbook {
+public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss.usermodel.Workbook, Date1904Support {
     private static final Pattern COMMA_PATTERN = Pattern.compile(",");
 
     /**
@@ -133,6 +134,11 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
      */
     private HSSFDataFormat formatter;
 
+    /**
+     * The streaming writer which rows are being flushed to, if any
+     */
+    private HSSFStreamingWriter streamingWriter;
+
     /**
      * The policy to apply in the event of missing or
      *  blank cells when fetching from a row.
@@ -569,6 +575,13 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         return workbook.getWindowOne().getHidden();
     }
 
+    /**
+     * @return <code>true</code> if the dates of this workbook are counted from 1904
+     */
+    public boolean isDate1904() {
+        return workbook.isUsing1904DateWindowing();
+    }
+
     public void setHidden(boolean hiddenFlag) {
         workbook.getWindowOne().setHidden(hiddenFlag);
     }
@@ -1169,13 +1182,23 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         byte[] bytes = getBytes();
         POIFSFileSystem fs = new POIFSFileSystem();
 
+        // Write out the Workbook stream
+        fs.createDocument(new ByteArrayInputStream(bytes), "Workbook");
+
+        writeFilesystem(fs, stream);
+    }
+
+    /**
+     * Adds the properties and any preserved nodes to a filesystem which
+     *  already holds the Workbook stream, and writes it out.
+     */
+    void writeFilesystem(POIFSFileSystem fs, OutputStream stream)
+            throws IOException
+    {
         // For tracking what we've written out, used if we're
         //  going to be preserving nodes
         List<String> excepts = new ArrayList<String>(1);
 
-        // Write out the Workbook stream
-        fs.createDocument(new ByteArrayInputStream(bytes), "Workbook");
-
         // Write out our HPFS properties, if we have them
         writeProperties(fs, excepts);
 
@@ -1241,6 +1264,10 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         if (log.check( POILogger.DEBUG )) {
             log.log(DEBUG, "HSSFWorkbook.getBytes()");
         }
+        if (streamingWriter != null && streamingWriter.hasFlushedRows()) {
+            throw new IllegalStateException("Rows of this workbook have been flushed to a "
+                    + "streaming writer, use HSSFStreamingWriter.write() instead");
+        }
 
         HSSFSheet[] sheets = getSheets();
         int nSheets = sheets.length;
@@ -1306,6 +1333,14 @@ public final class HSSFWorkbook extends POIDocument implements org.apache.poi.ss
         return workbook;
     }
 
+    HSSFStreamingWriter getStreamingWriter() {
+        return streamingWriter;
+    }
+
+    void setStreamingWriter(HSSFStreamingWriter writer) {
+        streamingWriter = writer;
+    }
+
     public int getNumberOfNames(){
         int result = names.size();
         return result;
@@ -18,15 +18,12 @@
 package org.apache.poi.hssf.usermodel;
 
 import java.awt.Font;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
+import org.apache.poi.ss.util.FontMetricsProperties;
+
 /**
  * Allows the user to lookup the font metrics for a particular font without
  * actually having the font on the system. The font details are loaded as a
@@ -37,8 +34,6 @@ import java.util.Properties;
  * @author Glen Stampoultzis (glens at apache.org)
  */
 final class StaticFontMetrics {
-	/** The font metrics property file we're using */
-	private static Properties fontMetricsProps;
 	/** Our cache of font details we've already looked up */
 	private static Map<String, FontDetails> fontDetailsMap = new HashMap<String, FontDetails>();
 
@@ -50,47 +45,7 @@ final class StaticFontMetrics {
 	 * @return the fake font.
 	 */
 	public static FontDetails getFontDetails(Font font) {
-		// If we haven't already identified out font metrics file,
-		// figure out which one to use and load it
-		if (fontMetricsProps == null) {
-			InputStream metricsIn = null;
-			try {
-				fontMetricsProps = new Properties();
-
-				// Check to see if the font metric file was specified
-				// as a system property
-				String propFileName = null;
-				try {
-					propFileName = System.getProperty("font.metrics.filename");
-				} catch (SecurityException e) {
-				}
-
-				if (propFileName != null) {
-					File file = new File(propFileName);
-					if (!file.exists())
-						throw new FileNotFoundException(
-								"font_metrics.properties not found at path "
-										+ file.getAbsolutePath());
-					metricsIn = new FileInputStream(file);
-				} else {
-					// Use the built-in font metrics file off the classpath
-					metricsIn = FontDetails.class.getResourceAsStream("/font_metrics.properties");
-					if (metricsIn == null)
-						throw new FileNotFoundException(
-								"font_metrics.properties not found in classpath");
-				}
-				fontMetricsProps.load(metricsIn);
-			} catch (IOException e) {
-				throw new RuntimeException("Could not load font metrics: " + e.getMessage());
-			} finally {
-				if (metricsIn != null) {
-					try {
-						metricsIn.close();
-					} catch (IOException ignore) {
-					}
-				}
-			}
-		}
+		Properties fontMetricsProps = FontMetricsProperties.getFontMetricsProps();
 
 		// Grab the base name of the font they've asked about
 		String fontName = font.getName();
@@ -17,8 +17,10 @@
 package org.apache.poi.poifs.crypt;
 
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
@@ -31,6 +33,7 @@ import javax.crypto.spec.SecretKeySpec;
 import javax.crypto.spec.IvParameterSpec;
 
 import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.nio.DataSource;
 import org.apache.poi.util.LittleEndian;
 
 /**
@@ -42,9 +45,9 @@ public class AgileDecryptor extends Decryptor {
     private SecretKey _secretKey;
     private long _length = -1;
 
-    private static final byte[] kVerifierInputBlock;
-    private static final byte[] kHashedVerifierBlock;
-    private static final byte[] kCryptoKeyBlock;
+    static final byte[] kVerifierInputBlock;
+    static final byte[] kHashedVerifierBlock;
+    static final byte[] kCryptoKeyBlock;
 
     static {
         kVerifierInputBlock =
@@ -59,11 +62,14 @@ public class AgileDecryptor extends Decryptor {
     }
 
     public boolean verifyPassword(String password) throws GeneralSecurityException {
+        return verifyPasswordHash(hashPassword(_info, password));
+    }
+
+    protected boolean verifyPasswordHash(byte[] pwHash) throws GeneralSecurityException {
         EncryptionVerifier verifier = _info.getVerifier();
         int algorithm = verifier.getAlgorithm();
         int mode = verifier.getCipherMode();
 
-        byte[] pwHash = hashPassword(_info, password);
         byte[] iv = generateIv(algorithm, verifier.getSalt(), null);
 
         SecretKey skey;
@@ -98,9 +104,29 @@ public class AgileDecryptor extends Decryptor {
     }
 
     public InputStream getDataStream(DirectoryNode dir) throws IOException, GeneralSecurityException {
+        return new ChunkedCipherInputStream(getDataSource(dir));
+    }
+
+    /**
+     * Returns a read only, random access view of the decrypted package,
+     *  which only decrypts the segments that are read, keeping the most
+     *  recent ones. When reading sequentially, the following segments
+     *  are decrypted ahead by the {@link #setExecutor(Executor) executor},
+     *  if there is one. The data source is safe for use by several threads.
+     * <p>
+     * The password must have been verified first.
+     * </p>
+     *
+     * @param dir the node to read from
+     * @return the decrypted package, of {@link #getLength()} bytes
+     */
+    public DataSource getDataSource(DirectoryNode dir) throws IOException, GeneralSecurityException {
+        if (_secretKey == null)
+            throw new IllegalStateException("AgileDecryptor.verifyPassword() did not succeed");
+
         DocumentInputStream dis = dir.createDocumentInputStream("EncryptedPackage");
         _length = dis.readLong();
-        return new ChunkedCipherInputStream(dis, _length);
+        return new ChunkedCipherDataSource(this, dis, _length, getExecutor());
     }
 
     public long getLength(){
@@ -112,27 +138,44 @@ public class AgileDecryptor extends Decryptor {
         _info = info;
     }
 
-    private class ChunkedCipherInputStream extends InputStream {
-        private int _lastIndex = 0;
+    public EncryptionInfo getEncryptionInfo() {
+        return _info;
+    }
+
+    /**
+     * Creates a cipher for {@link #decryptSegment(Cipher, int, byte[])}
+     */
+    Cipher createSegmentCipher() throws GeneralSecurityException {
+        return getCipher(_info.getHeader().getAlgorithm(),
+                         _info.getHeader().getCipherMode(),
+                         _secretKey, _info.getHeader().getKeySalt());
+    }
+
+    /**
+     * Decrypts one 4096 byte segment of the package in place, each having
+     *  its own initialization vector
+     */
+    void decryptSegment(Cipher cipher, int index, byte[] segment) throws GeneralSecurityException {
+        byte[] blockKey = new byte[4];
+        LittleEndian.putInt(blockKey, 0, index);
+        byte[] iv = generateIv(_info.getHeader().getAlgorithm(),
+                               _info.getHeader().getKeySalt(), blockKey);
+        cipher.init(Cipher.DECRYPT_MODE, _secretKey, new IvParameterSpec(iv));
+        cipher.doFinal(segment, 0, segment.length, segment, 0);
+    }
+
+    private static class ChunkedCipherInputStream extends InputStream {
+        private final DataSource _source;
         private long _pos = 0;
-        private final long _size;
-        private final DocumentInputStream _stream;
-        private byte[] _chunk;
-        private Cipher _cipher;
-
-        public ChunkedCipherInputStream(DocumentInputStream stream, long size)
-            throws GeneralSecurityException {
-            _size = size;
-            _stream = stream;
-            _cipher = getCipher(_info.getHeader().getAlgorithm(),
-                                _info.getHeader().getCipherMode(),
-                                _secretKey, _info.getHeader().getKeySalt());
+
+        public ChunkedCipherInputStream(DataSource source) {
+            _source = source;
         }
 
         public int read() throws IOException {
             byte[] b = new byte[1];
             if (read(b) == 1)
-                return b[0];
+                return b[0] & 0xff;
             return -1;
         }
 
@@ -141,59 +184,29 @@ public class AgileDecryptor extends Decryptor {
         }
 
         public int read(byte[] b, int off, int len) throws IOException {
-            int total = 0;
-
-            while (len > 0) {
-                if (_chunk == null) {
-                    try {
-                        _chunk = nextChunk();
-                    } catch (GeneralSecurityException e) {
-                        throw new EncryptedDocumentException(e.getMessage());
-                    }
-                }
-                int count = (int)(4096L - (_pos & 0xfff));
-                count = Math.min(available(), Math.min(count, len));
-                System.arraycopy(_chunk, (int)(_pos & 0xfff), b, off, count);
-                off += count;
-                len -= count;
-                _pos += count;
-                if ((_pos & 0xfff) == 0)
-                    _chunk = null;
-                total += count;
-            }
-
-            return total;
+            if (len == 0)
+                return 0;
+            if (available() == 0)
+                return -1;
+
+            ByteBuffer buffer = _source.read(Math.min(available(), len), _pos);
+            int count = buffer.remaining();
+            buffer.get(b, off, count);
+            _pos += count;
+            return count;
         }
 
         public long skip(long n) throws IOException {
-            long start = _pos;
-            long skip = Math.min(available(), n);
-
-            if ((((_pos + skip) ^ start) & ~0xfff) != 0)
-                _chunk = null;
+            long skip = Math.max(0, Math.min(_source.size() - _pos, n));
             _pos += skip;
             return skip;
         }
 
-        public int available() throws IOException { return (int)(_size - _pos); }
-        public void close() throws IOException { _stream.close(); }
-        public boolean markSupported() { return false; }
-
-        private byte[] nextChunk() throws GeneralSecurityException, IOException {
-            int index = (int)(_pos >> 12);
-            byte[] blockKey = new byte[4];
-            LittleEndian.putInt(blockKey, 0, index);
-            byte[] iv = generateIv(_info.getHeader().getAlgorithm(),
-                                   _info.getHeader().getKeySalt(), blockKey);
-            _cipher.init(Cipher.DECRYPT_MODE, _secretKey, new IvParameterSpec(iv));
-            if (_lastIndex != index)
-                _stream.skip((index - _lastIndex) << 12);
-
-            byte[] block = new byte[Math.min(_stream.available(), 4096)];
-            _stream.readFully(block);
-            _lastIndex = index + 1;
-            return _cipher.doFinal(block);
+        public int available() throws IOException {
+            return (int)Math.min(Integer.MAX_VALUE, _source.size() - _pos);
         }
+        public void close() throws IOException { _source.close(); }
+        public boolean markSupported() { return false; }
     }
 
     private Cipher getCipher(int algorithm, int mode, SecretKey key, byte[] vec)
@@ -0,0 +1,199 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.LittleEndianOutputStream;
+
+/**
+ * Agile encryption (version 4.4), with AES-128 in CBC mode and SHA-1, as
+ *  Office 2010 writes it and {@link AgileDecryptor} reads it. The HMAC of
+ *  the encrypted package is included too, which Office checks.
+ */
+public class AgileEncryptor extends Encryptor {
+    static final byte[] kIntegrityKeyBlock =
+        new byte[] { (byte)0x5f, (byte)0xb2, (byte)0xad, (byte)0x01,
+                     (byte)0x0c, (byte)0xb9, (byte)0xe1, (byte)0xf6 };
+    static final byte[] kIntegrityValueBlock =
+        new byte[] { (byte)0xa0, (byte)0x67, (byte)0x7f, (byte)0x02,
+                     (byte)0xb2, (byte)0x2c, (byte)0x84, (byte)0x33 };
+
+    private static final int SPIN_COUNT = 100000;
+    private static final int KEY_BITS = 128;
+    private static final int BLOCK_SIZE = 16;
+    private static final int SALT_SIZE = 16;
+    private static final int HASH_SIZE = 20;
+    private static final String CIPHER_ATTRIBUTES =
+        " saltSize=\"" + SALT_SIZE + "\" blockSize=\"" + BLOCK_SIZE
+        + "\" keyBits=\"" + KEY_BITS + "\" hashSize=\"" + HASH_SIZE
+        + "\" cipherAlgorithm=\"AES\" cipherChaining=\"ChainingModeCBC\" hashAlgorithm=\"SHA1\"";
+
+    private byte[] _keySalt;
+    private byte[] _verifierSalt;
+    private byte[] _encryptedVerifier;
+    private byte[] _encryptedVerifierHash;
+    private byte[] _encryptedKey;
+    private SecretKey _secretKey;
+
+    public void confirmPassword(String password) throws GeneralSecurityException {
+        byte[] verifierSalt = getRandomBytes(SALT_SIZE);
+        byte[] verifier = getRandomBytes(SALT_SIZE);
+        byte[] keySpec = getRandomBytes(KEY_BITS / 8);
+
+        byte[] pwHash = Decryptor.hashPassword(password, verifierSalt, SPIN_COUNT);
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        _encryptedVerifier = encryptWithPassword(pwHash, AgileDecryptor.kVerifierInputBlock,
+                                                 verifierSalt, verifier);
+        _encryptedVerifierHash = encryptWithPassword(pwHash, AgileDecryptor.kHashedVerifierBlock,
+                                                     verifierSalt, sha1.digest(verifier));
+        _encryptedKey = encryptWithPassword(pwHash, AgileDecryptor.kCryptoKeyBlock,
+                                            verifierSalt, keySpec);
+        _verifierSalt = verifierSalt;
+        _keySalt = getRandomBytes(SALT_SIZE);
+        _secretKey = new SecretKeySpec(keySpec, "AES");
+    }
+
+    public OutputStream getDataStream(DirectoryNode dir) throws IOException, GeneralSecurityException {
+        if (_secretKey == null)
+            throw new IllegalStateException("AgileEncryptor.confirmPassword() was not called");
+
+        // a later password must not change the package being written
+        final SecretKey secretKey = _secretKey;
+        final byte[] keySalt = _keySalt;
+        final String keyEncryptor = getKeyEncryptor();
+
+        final byte[] integritySalt = getRandomBytes(HASH_SIZE);
+        final Mac integrity = Mac.getInstance("HmacSHA1");
+        integrity.init(new SecretKeySpec(integritySalt, "HmacSHA1"));
+
+        return new ChunkedCipherOutputStream(dir, getExecutor(), BLOCK_SIZE) {
+            protected Cipher createCipher() throws GeneralSecurityException {
+                return Cipher.getInstance("AES/CBC/NoPadding");
+            }
+
+            protected void initCipher(Cipher cipher, int segment) throws GeneralSecurityException {
+                byte[] blockKey = new byte[LittleEndian.INT_SIZE];
+                LittleEndian.putInt(blockKey, 0, segment);
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey,
+                            new IvParameterSpec(generateIv(keySalt, blockKey)));
+            }
+
+            protected void updateIntegrity(byte[] b, int off, int len) {
+                integrity.update(b, off, len);
+            }
+
+            protected void writeEncryptionInfo(DirectoryNode dir)
+                throws IOException, GeneralSecurityException {
+                byte[] hmacKey = encrypt(secretKey, generateIv(keySalt, kIntegrityKeyBlock),
+                                         integritySalt);
+                byte[] hmacValue = encrypt(secretKey, generateIv(keySalt, kIntegrityValueBlock),
+                                           integrity.doFinal());
+
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                LittleEndianOutputStream out = new LittleEndianOutputStream(bos);
+                out.writeShort(4);
+                out.writeShort(4);
+                out.writeInt(0x40);
+                out.write(getDescriptor(keyEncryptor, keySalt, hmacKey, hmacValue));
+                dir.createDocument("EncryptionInfo", new ByteArrayInputStream(bos.toByteArray()));
+            }
+        };
+    }
+
+    /**
+     * The password key encryptor element, for the current password
+     */
+    private String getKeyEncryptor() {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<keyEncryptor uri=\"http://schemas.microsoft.com/office/2006/keyEncryptor/password\">");
+        xml.append("<p:encryptedKey spinCount=\"").append(SPIN_COUNT).append('"');
+        xml.append(CIPHER_ATTRIBUTES);
+        xml.append(" saltValue=\"").append(base64(_verifierSalt)).append('"');
+        xml.append(" encryptedVerifierHashInput=\"").append(base64(_encryptedVerifier)).append('"');
+        xml.append(" encryptedVerifierHashValue=\"").append(base64(_encryptedVerifierHash)).append('"');
+        xml.append(" encryptedKeyValue=\"").append(base64(_encryptedKey)).append("\"/>");
+        xml.append("</keyEncryptor>");
+        return xml.toString();
+    }
+
+    private static byte[] getDescriptor(String keyEncryptor, byte[] keySalt,
+                                        byte[] hmacKey, byte[] hmacValue) throws IOException {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n");
+        xml.append("<encryption xmlns=\"http://schemas.microsoft.com/office/2006/encryption\"");
+        xml.append(" xmlns:p=\"http://schemas.microsoft.com/office/2006/keyEncryptor/password\">");
+        xml.append("<keyData").append(CIPHER_ATTRIBUTES);
+        xml.append(" saltValue=\"").append(base64(keySalt)).append("\"/>");
+        xml.append("<dataIntegrity encryptedHmacKey=\"").append(base64(hmacKey)).append('"');
+        xml.append(" encryptedHmacValue=\"").append(base64(hmacValue)).append("\"/>");
+        xml.append("<keyEncryptors>").append(keyEncryptor).append("</keyEncryptors>");
+        xml.append("</encryption>");
+        return xml.toString().getBytes("UTF-8");
+    }
+
+    private static String base64(byte[] data) {
+        return new String(Base64.encodeBase64(data));
+    }
+
+    private static byte[] encryptWithPassword(byte[] pwHash, byte[] blockKey, byte[] salt,
+                                              byte[] input) throws GeneralSecurityException {
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        sha1.update(pwHash);
+        byte[] key = getBlock(sha1.digest(blockKey), KEY_BITS / 8, (byte)0x36);
+        return encrypt(new SecretKeySpec(key, "AES"), getBlock(salt, BLOCK_SIZE, (byte)0x36), input);
+    }
+
+    /**
+     * Encrypts the input, padded with zeros to the block size
+     */
+    private static byte[] encrypt(SecretKey key, byte[] iv, byte[] input)
+        throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        int length = (input.length + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+        return cipher.doFinal(getBlock(input, length, (byte)0));
+    }
+
+    private static byte[] generateIv(byte[] salt, byte[] blockKey) throws GeneralSecurityException {
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        sha1.update(salt);
+        return getBlock(sha1.digest(blockKey), BLOCK_SIZE, (byte)0x36);
+    }
+
+    private static byte[] getBlock(byte[] hash, int size, byte fill) {
+        byte[] result = new byte[size];
+        Arrays.fill(result, fill);
+        System.arraycopy(hash, 0, result, 0, Math.min(size, hash.length));
+        return result;
+    }
+}
@@ -0,0 +1,257 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import javax.crypto.Cipher;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.nio.DataSource;
+
+/**
+ * A read only view of an Agile encrypted package, which decrypts its
+ *  4096 byte segments as they are asked for, rather than from the start.
+ * <p>
+ * The most recently used segments are kept. With an {@link Executor},
+ *  sequential reads also have the segments which follow decrypted by
+ *  its threads, in runs of {@link #SEGMENTS_PER_TASK}, so that they are
+ *  usually ready by the time they are read. The encrypted data is only
+ *  ever read by the calling threads, one at a time.
+ * </p>
+ */
+final class ChunkedCipherDataSource extends DataSource {
+    static final int SEGMENT_SIZE = 4096;
+    static final int CACHED_SEGMENTS = 64;
+    static final int READ_AHEAD_SEGMENTS = 32;
+    static final int SEGMENTS_PER_TASK = 8;
+
+    private final AgileDecryptor _decryptor;
+    private final Executor _executor;
+    private final long _size;
+    private final long _encryptedSize;
+    private final int _segmentCount;
+    private final ConcurrentLinkedQueue<Cipher> _ciphers = new ConcurrentLinkedQueue<Cipher>();
+    private final Map<Integer, FutureTask<byte[]>> _segments;
+    /** The encrypted package, positioned after the length */
+    private DocumentInputStream _stream;
+    private long _streamPos;
+    private int _lastSegment = -1;
+
+    public ChunkedCipherDataSource(AgileDecryptor decryptor, DocumentInputStream stream,
+                                   long size, Executor executor) {
+        _decryptor = decryptor;
+        _stream = stream;
+        _size = size;
+        _encryptedSize = stream.available();
+        _executor = executor;
+        _segmentCount = (int)((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        _segments = new LinkedHashMap<Integer, FutureTask<byte[]>>(CACHED_SEGMENTS * 2, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, FutureTask<byte[]>> eldest) {
+                return size() > CACHED_SEGMENTS;
+            }
+        };
+    }
+
+    public ByteBuffer read(int length, long position) throws IOException {
+        if (position >= _size) {
+            throw new IndexOutOfBoundsException(
+                "Unable to read " + length + " bytes from " +
+                position + " in stream of length " + _size
+            );
+        }
+
+        int toRead = (int)Math.min(length, _size - position);
+        int index = (int)(position / SEGMENT_SIZE);
+        int offset = (int)(position % SEGMENT_SIZE);
+        byte[] segment = getSegment(index);
+        if (offset + toRead <= segment.length) {
+            return ByteBuffer.wrap(segment, offset, toRead).slice().asReadOnlyBuffer();
+        }
+
+        // Spans several segments, so has to be copied
+        byte[] result = new byte[toRead];
+        int done = 0;
+        while (true) {
+            int count = Math.min(toRead - done, segment.length - offset);
+            System.arraycopy(segment, offset, result, done, count);
+            done += count;
+            if (done == toRead) {
+                break;
+            }
+            segment = getSegment(++index);
+            offset = 0;
+        }
+        return ByteBuffer.wrap(result);
+    }
+
+    public void write(ByteBuffer src, long position) {
+        throw new UnsupportedOperationException("Decrypted packages are read only");
+    }
+
+    public long size() {
+        return _size;
+    }
+
+    public void copyTo(OutputStream stream) throws IOException {
+        for (int i = 0; i < _segmentCount; i++) {
+            stream.write(getSegment(i));
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        _segments.clear();
+        if (_stream != null) {
+            _stream.close();
+            _stream = null;
+        }
+    }
+
+    /**
+     * @return the decrypted segment, without the padding of the last one.
+     *  Must not be changed, as it is shared.
+     */
+    private byte[] getSegment(int index) throws IOException {
+        FutureTask<byte[]> task;
+        synchronized (this) {
+            if (_stream == null) {
+                throw new IOException("Data source is closed");
+            }
+            task = _segments.get(Integer.valueOf(index));
+            if (task == null) {
+                task = createTask(index);
+                _segments.put(Integer.valueOf(index), task);
+            }
+            if (_executor != null && (index == _lastSegment || index == _lastSegment + 1)) {
+                readAhead(index);
+            }
+            _lastSegment = index;
+        }
+
+        // Does nothing if the task has been started already, otherwise
+        //  saves waiting for the executor to get round to it
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EncryptedDocumentException("Interrupted while decrypting the package");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new EncryptedDocumentException(cause.getMessage());
+        }
+    }
+
+    /**
+     * Has the segments after the given one decrypted by the executor, once
+     *  fewer than half of {@link #READ_AHEAD_SEGMENTS} are left
+     */
+    private void readAhead(int index) throws IOException {
+        int next = index + 1;
+        while (next < _segmentCount && _segments.containsKey(Integer.valueOf(next))) {
+            next++;
+        }
+        if (next - index > READ_AHEAD_SEGMENTS / 2) {
+            return;
+        }
+
+        int end = Math.min(index + READ_AHEAD_SEGMENTS, _segmentCount);
+        while (next < end) {
+            final List<FutureTask<byte[]>> run = new ArrayList<FutureTask<byte[]>>(SEGMENTS_PER_TASK);
+            while (next < end && run.size() < SEGMENTS_PER_TASK
+                   && !_segments.containsKey(Integer.valueOf(next))) {
+                FutureTask<byte[]> task = createTask(next);
+                _segments.put(Integer.valueOf(next), task);
+                run.add(task);
+                next++;
+            }
+            if (run.isEmpty()) {
+                next++;
+                continue;
+            }
+            _executor.execute(new Runnable() {
+                public void run() {
+                    for (FutureTask<byte[]> task : run) {
+                        task.run();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads the encrypted segment, and returns the task which decrypts it
+     */
+    private FutureTask<byte[]> createTask(final int index) throws IOException {
+        long position = (long)index * SEGMENT_SIZE;
+        final int length = (int)Math.min(SEGMENT_SIZE, _size - position);
+        // the last segment is padded to the cipher block size
+        int encryptedLength = (int)Math.min(SEGMENT_SIZE, _encryptedSize - position);
+        if (encryptedLength < length) {
+            throw new EncryptedDocumentException("The encrypted package is truncated");
+        }
+        final byte[] segment = new byte[encryptedLength];
+        if (position < _streamPos) {
+            // Back to the start of the segments
+            _stream.reset();
+            _stream.readLong();
+            _streamPos = 0;
+        }
+        while (_streamPos < position) {
+            _streamPos += _stream.skip(position - _streamPos);
+        }
+        _stream.readFully(segment);
+        _streamPos += segment.length;
+
+        return new FutureTask<byte[]>(new Callable<byte[]>() {
+            public byte[] call() throws GeneralSecurityException {
+                Cipher cipher = _ciphers.poll();
+                if (cipher == null) {
+                    cipher = _decryptor.createSegmentCipher();
+                }
+                try {
+                    _decryptor.decryptSegment(cipher, index, segment);
+                } finally {
+                    _ciphers.add(cipher);
+                }
+                if (length == segment.length) {
+                    return segment;
+                }
+                byte[] trimmed = new byte[length];
+                System.arraycopy(segment, 0, trimmed, 0, length);
+                return trimmed;
+            }
+        });
+    }
+}
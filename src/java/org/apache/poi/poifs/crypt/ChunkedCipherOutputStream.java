@@ -0,0 +1,308 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import javax.crypto.Cipher;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.TempFile;
+
+/**
+ * Encrypts a package in 4096 byte segments, each with a freshly initialized
+ *  cipher, into a temporary file. When closed, the <tt>EncryptedPackage</tt>
+ *  document is written from the file a segment at a time, and the subclass
+ *  adds the entries which describe the encryption.
+ * <p>
+ * With an {@link Executor}, batches of segments are encrypted by its
+ *  threads, each with a cipher of its own, while the next ones are being
+ *  written. Only a few batches are held at any time, and they are written
+ *  to the file in order.
+ * </p>
+ */
+abstract class ChunkedCipherOutputStream extends OutputStream {
+    static final int SEGMENT_SIZE = 4096;
+    static final int SEGMENTS_PER_TASK = 64;
+
+    private static final int MAX_PENDING_TASKS = 4 * Runtime.getRuntime().availableProcessors();
+
+    private final DirectoryNode _dir;
+    private final Executor _executor;
+    private final int _blockSize;
+    private final File _file;
+    private final OutputStream _out;
+    private final LinkedList<Batch> _pending = new LinkedList<Batch>();
+    private Batch _batch;
+    private Cipher _cipher;
+    private int _nextSegment;
+    private long _length;
+    private boolean _closed;
+
+    public ChunkedCipherOutputStream(DirectoryNode dir, Executor executor, int blockSize)
+        throws IOException {
+        _dir = dir;
+        _executor = executor;
+        _blockSize = blockSize;
+        _file = TempFile.createTempFile("encrypted_package", ".crypt");
+        _out = new FileOutputStream(_file);
+        _batch = new Batch();
+    }
+
+    /**
+     * Creates a cipher in encryption mode, not yet initialized. Called by
+     *  the threads of the executor too.
+     */
+    protected abstract Cipher createCipher() throws GeneralSecurityException;
+
+    /**
+     * Initializes the cipher for the segment with the given index. Called
+     *  by the threads of the executor too.
+     */
+    protected abstract void initCipher(Cipher cipher, int segment)
+        throws GeneralSecurityException;
+
+    /**
+     * Called with every part of the <tt>EncryptedPackage</tt> document in
+     *  order, including the length before the segments, as it is added
+     */
+    protected void updateIntegrity(byte[] b, int off, int len) {
+        // nothing to check by default
+    }
+
+    /**
+     * Adds the entries which describe the encryption, once the
+     *  <tt>EncryptedPackage</tt> document has been added
+     */
+    protected abstract void writeEncryptionInfo(DirectoryNode dir)
+        throws IOException, GeneralSecurityException;
+
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (_closed)
+            throw new IOException("Stream is closed");
+
+        while (len > 0) {
+            int count = Math.min(len, _batch.data.length - _batch.length);
+            System.arraycopy(b, off, _batch.data, _batch.length, count);
+            _batch.length += count;
+            _length += count;
+            off += count;
+            len -= count;
+            if (_batch.length == _batch.data.length)
+                flushBatch();
+        }
+    }
+
+    public void close() throws IOException {
+        if (_closed)
+            return;
+        _closed = true;
+
+        try {
+            try {
+                if (_batch.length > 0)
+                    flushBatch();
+                while (!_pending.isEmpty())
+                    writeBatch(_pending.removeFirst());
+            } finally {
+                _out.close();
+            }
+
+            long size = LittleEndian.LONG_SIZE + _file.length();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("The encrypted package is too large, at " + size + " bytes");
+            PackageIterator contents = new PackageIterator();
+            try {
+                _dir.createDocument("EncryptedPackage", (int)size, contents);
+            } catch (PackageReadException e) {
+                throw e.getCause();
+            } finally {
+                contents.close();
+            }
+
+            writeEncryptionInfo(_dir);
+            DataSpaces.write(_dir);
+        } catch (GeneralSecurityException e) {
+            throw new EncryptedDocumentException(e.getMessage());
+        } finally {
+            _file.delete();
+        }
+    }
+
+    private void flushBatch() throws IOException {
+        Batch batch = _batch;
+        batch.firstSegment = _nextSegment;
+        _nextSegment += SEGMENTS_PER_TASK;
+
+        if (_executor == null) {
+            try {
+                if (_cipher == null)
+                    _cipher = createCipher();
+                batch.encrypt(_cipher);
+            } catch (GeneralSecurityException e) {
+                throw new EncryptedDocumentException(e.getMessage());
+            }
+            _out.write(batch.data, 0, batch.length);
+            batch.length = 0;
+            return;
+        }
+
+        _batch = new Batch();
+        batch.task = new FutureTask<Boolean>(batch);
+        _pending.add(batch);
+        _executor.execute(batch.task);
+        while (_pending.size() > MAX_PENDING_TASKS)
+            writeBatch(_pending.removeFirst());
+    }
+
+    private void writeBatch(Batch batch) throws IOException {
+        try {
+            batch.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encrypting the package");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new EncryptedDocumentException(cause.getMessage());
+        }
+        _out.write(batch.data, 0, batch.length);
+    }
+
+    /**
+     * Segments which are encrypted together, in place. The last segment
+     *  of the package is padded with zeros to the cipher block size.
+     */
+    private class Batch implements Callable<Boolean> {
+        final byte[] data = new byte[SEGMENT_SIZE * SEGMENTS_PER_TASK];
+        int length;
+        int firstSegment;
+        FutureTask<Boolean> task;
+
+        public Boolean call() throws GeneralSecurityException {
+            encrypt(createCipher());
+            return Boolean.TRUE;
+        }
+
+        void encrypt(Cipher cipher) throws GeneralSecurityException {
+            int padded = (length + _blockSize - 1) / _blockSize * _blockSize;
+            Arrays.fill(data, length, padded, (byte)0);
+            int segment = firstSegment;
+            for (int pos = 0; pos < padded; pos += SEGMENT_SIZE) {
+                initCipher(cipher, segment++);
+                cipher.doFinal(data, pos, Math.min(SEGMENT_SIZE, padded - pos), data, pos);
+            }
+            length = padded;
+        }
+    }
+
+    /**
+     * Supplies the <tt>EncryptedPackage</tt> document, the length and then
+     *  the encrypted segments read back from the file, one buffer at a
+     *  time. The same buffer is reused, as the document copies each one
+     *  into its blocks before asking for the next.
+     */
+    private class PackageIterator implements Iterator<ByteBuffer> {
+        private final InputStream _in;
+        private final byte[] _buffer = new byte[SEGMENT_SIZE];
+        private boolean _lengthDone;
+        private long _remaining;
+
+        PackageIterator() throws IOException {
+            _in = new FileInputStream(_file);
+            _remaining = _file.length();
+        }
+
+        public boolean hasNext() {
+            return !_lengthDone || _remaining > 0;
+        }
+
+        public ByteBuffer next() {
+            if (!_lengthDone) {
+                _lengthDone = true;
+                byte[] length = new byte[LittleEndian.LONG_SIZE];
+                LittleEndian.putLong(length, 0, _length);
+                updateIntegrity(length, 0, length.length);
+                return ByteBuffer.wrap(length);
+            }
+            if (_remaining <= 0)
+                throw new NoSuchElementException();
+
+            try {
+                int count = _in.read(_buffer, 0, (int)Math.min(_buffer.length, _remaining));
+                if (count < 0)
+                    throw new EOFException("The encrypted package file ended early");
+                _remaining -= count;
+                updateIntegrity(_buffer, 0, count);
+                return ByteBuffer.wrap(_buffer, 0, count);
+            } catch (IOException e) {
+                throw new PackageReadException(e);
+            }
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        void close() throws IOException {
+            _in.close();
+        }
+    }
+
+    /**
+     * Carries a failure to read the file back out of the iterator
+     */
+    private static class PackageReadException extends RuntimeException {
+        PackageReadException(IOException cause) {
+            super(cause);
+        }
+
+        public IOException getCause() {
+            return (IOException)super.getCause();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.poifs.filesystem.DirectoryEntry;
+import org.apache.poi.util.LittleEndianOutputStream;
+
+/**
+ * Writes the <tt>\u0006DataSpaces</tt> storage of an encrypted package,
+ *  which tells Office that the <tt>EncryptedPackage</tt> document has to
+ *  be decrypted with the strong encryption transform, as described in
+ *  section 2.2 of [MS-OFFCRYPTO]
+ */
+final class DataSpaces {
+    private static final String ENCRYPTION_TRANSFORM_ID = "{FF9A3F03-56EF-4613-BDD5-5A41C1D07246}";
+
+    private DataSpaces() {
+        // no instances of this class
+    }
+
+    public static void write(DirectoryEntry dir) throws IOException {
+        DirectoryEntry dataSpaces = dir.createDirectory("\u0006DataSpaces");
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        LittleEndianOutputStream out = new LittleEndianOutputStream(bos);
+        writeUnicodeLPP4(out, "Microsoft.Container.DataSpaces");
+        writeVersions(out);
+        dataSpaces.createDocument("Version", new ByteArrayInputStream(bos.toByteArray()));
+
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        out = new LittleEndianOutputStream(entry);
+        out.writeInt(1); // reference components
+        out.writeInt(0); // a stream
+        writeUnicodeLPP4(out, "EncryptedPackage");
+        writeUnicodeLPP4(out, "StrongEncryptionDataSpace");
+        bos = new ByteArrayOutputStream();
+        out = new LittleEndianOutputStream(bos);
+        out.writeInt(8); // header length
+        out.writeInt(1); // entries
+        out.writeInt(4 + entry.size());
+        out.write(entry.toByteArray());
+        dataSpaces.createDocument("DataSpaceMap", new ByteArrayInputStream(bos.toByteArray()));
+
+        bos = new ByteArrayOutputStream();
+        out = new LittleEndianOutputStream(bos);
+        out.writeInt(8); // header length
+        out.writeInt(1); // transforms
+        writeUnicodeLPP4(out, "StrongEncryptionTransform");
+        dataSpaces.createDirectory("DataSpaceInfo").createDocument(
+            "StrongEncryptionDataSpace", new ByteArrayInputStream(bos.toByteArray()));
+
+        bos = new ByteArrayOutputStream();
+        out = new LittleEndianOutputStream(bos);
+        // the length of the transform header, up to and including its id
+        out.writeInt(12 + ENCRYPTION_TRANSFORM_ID.length() * 2);
+        out.writeInt(1); // transform type
+        writeUnicodeLPP4(out, ENCRYPTION_TRANSFORM_ID);
+        writeUnicodeLPP4(out, "Microsoft.Container.EncryptionTransform");
+        writeVersions(out);
+        out.writeInt(0); // empty encryption name
+        out.writeInt(0); // encryption block size
+        out.writeInt(0); // cipher mode
+        out.writeInt(4); // reserved
+        dataSpaces.createDirectory("TransformInfo").createDirectory("StrongEncryptionTransform")
+            .createDocument("\u0006Primary", new ByteArrayInputStream(bos.toByteArray()));
+    }
+
+    /**
+     * Reader, updater and writer versions, all 1.0
+     */
+    private static void writeVersions(LittleEndianOutputStream out) {
+        for (int i = 0; i < 3; i++) {
+            out.writeShort(1);
+            out.writeShort(0);
+        }
+    }
+
+    /**
+     * Writes the length in bytes and the UTF-16 characters of the string,
+     *  padded to a multiple of four bytes
+     */
+    private static void writeUnicodeLPP4(LittleEndianOutputStream out, String s) {
+        out.writeInt(s.length() * 2);
+        for (int i = 0; i < s.length(); i++) {
+            out.writeShort(s.charAt(i));
+        }
+        if (s.length() % 2 != 0) {
+            out.writeShort(0);
+        }
+    }
+}
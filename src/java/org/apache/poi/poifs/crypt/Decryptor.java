@@ -22,6 +22,13 @@ import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.poifs.filesystem.DirectoryNode;
@@ -31,6 +38,9 @@ import org.apache.poi.util.LittleEndian;
 public abstract class Decryptor {
     public static final String DEFAULT_PASSWORD="VelvetSweatshop";
 
+    private Executor executor;
+    private PasswordHashCache passwordHashCache;
+
     /**
      * Return a stream with decrypted data.
      * <p>
@@ -48,6 +58,90 @@ public abstract class Decryptor {
     public abstract boolean verifyPassword(String password)
         throws GeneralSecurityException;
 
+    /**
+     * Verifies the password by its hash, as returned by
+     *  {@link #hashPassword(EncryptionInfo, String)}, which is what
+     *  {@link #verifyPassword(String)} does after hashing it.
+     * Decryptors which return an {@link #getEncryptionInfo() EncryptionInfo}
+     *  must override this.
+     */
+    protected boolean verifyPasswordHash(byte[] passwordHash)
+        throws GeneralSecurityException {
+        throw new UnsupportedOperationException("Passwords can only be verified by verifyPassword()");
+    }
+
+    /**
+     * @return the encryption details of the document, or <code>null</code>
+     *  if the decryptor doesn't make them available, in which case
+     *  {@link #findPassword(List)} verifies the passwords one by one
+     */
+    public EncryptionInfo getEncryptionInfo() {
+        return null;
+    }
+
+    /**
+     * Tries the given passwords in turn, as {@link #verifyPassword(String)}
+     *  does, until one is right. If there is an {@link #setExecutor(Executor)
+     *  executor}, the following passwords are hashed by it meanwhile, which
+     *  is the slow part of verifying them.
+     *
+     * @return the right password, or <code>null</code> if none of them is
+     */
+    public String findPassword(List<String> passwords) throws GeneralSecurityException {
+        final EncryptionInfo info = getEncryptionInfo();
+        if (executor == null || info == null || passwords.size() < 2) {
+            for (String password : passwords) {
+                if (verifyPassword(password))
+                    return password;
+            }
+            return null;
+        }
+
+        int maxPending = 2 * Runtime.getRuntime().availableProcessors();
+        Iterator<String> it = passwords.iterator();
+        LinkedList<FutureTask<byte[]>> pending = new LinkedList<FutureTask<byte[]>>();
+        LinkedList<String> pendingPasswords = new LinkedList<String>();
+        try {
+            while (it.hasNext() || !pending.isEmpty()) {
+                while (it.hasNext() && pending.size() < maxPending) {
+                    final String password = it.next();
+                    FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+                        public byte[] call() throws NoSuchAlgorithmException {
+                            return hashPassword(info, password);
+                        }
+                    });
+                    executor.execute(task);
+                    pending.add(task);
+                    pendingPasswords.add(password);
+                }
+
+                FutureTask<byte[]> task = pending.removeFirst();
+                String password = pendingPasswords.removeFirst();
+                // runs the hashing here if the executor has not started it yet
+                task.run();
+                if (verifyPasswordHash(task.get()))
+                    return password;
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EncryptedDocumentException("Interrupted while hashing the passwords");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            if (cause instanceof GeneralSecurityException)
+                throw (GeneralSecurityException) cause;
+            throw new EncryptedDocumentException(cause.getMessage());
+        } finally {
+            for (FutureTask<byte[]> task : pending) {
+                task.cancel(false);
+            }
+        }
+    }
+
     /**
      * Returns the length of the encytpted data that can be safely read with
      * {@link #getDataStream(org.apache.poi.poifs.filesystem.DirectoryNode)}.
@@ -65,6 +159,32 @@ public abstract class Decryptor {
      */
     public abstract long getLength();
 
+    /**
+     * Sets the executor which decrypts the segments of an Agile encrypted
+     *  package ahead of sequential reads. By default the segments are only
+     *  decrypted as they are read, by the reading thread.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the cache of password hashes, which may be shared by the
+     *  decryptors of several documents. By default the password is hashed
+     *  every time it is verified.
+     */
+    public void setPasswordHashCache(PasswordHashCache passwordHashCache) {
+        this.passwordHashCache = passwordHashCache;
+    }
+
+    public PasswordHashCache getPasswordHashCache() {
+        return passwordHashCache;
+    }
+
     public static Decryptor getInstance(EncryptionInfo info) {
         int major = info.getVersionMajor();
         int minor = info.getVersionMinor();
@@ -96,6 +216,21 @@ public abstract class Decryptor {
 
     protected byte[] hashPassword(EncryptionInfo info,
                                   String password) throws NoSuchAlgorithmException {
+        PasswordHashCache cache = passwordHashCache;
+        if (cache != null) {
+            return cache.getHash(password, info.getVerifier().getSalt(),
+                                 info.getVerifier().getSpinCount());
+        }
+        return hashPassword(password, info.getVerifier().getSalt(),
+                            info.getVerifier().getSpinCount());
+    }
+
+    /**
+     * The password hash which the keys are derived from, shared with the
+     *  {@link Encryptor}s
+     */
+    static byte[] hashPassword(String password, byte[] salt, int spinCount)
+        throws NoSuchAlgorithmException {
         MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
         byte[] bytes;
         try {
@@ -104,11 +239,11 @@ public abstract class Decryptor {
             throw new EncryptedDocumentException("UTF16 not supported");
         }
 
-        sha1.update(info.getVerifier().getSalt());
+        sha1.update(salt);
         byte[] hash = sha1.digest(bytes);
         byte[] iterator = new byte[4];
 
-        for (int i = 0; i < info.getVerifier().getSpinCount(); i++) {
+        for (int i = 0; i < spinCount; i++) {
             sha1.reset();
             LittleEndian.putInt(iterator, 0, i);
             sha1.update(iterator);
@@ -117,4 +252,4 @@ public abstract class Decryptor {
 
         return hash;
     }
-}
\ No newline at end of file
+}
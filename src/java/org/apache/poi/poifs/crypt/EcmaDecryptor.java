@@ -45,7 +45,20 @@ public class EcmaDecryptor extends Decryptor {
         this.info = info;
     }
 
+    public EncryptionInfo getEncryptionInfo() {
+        return info;
+    }
+
     private byte[] generateKey(int block) throws NoSuchAlgorithmException {
+        return generateKey(passwordHash, block, info.getHeader().getKeySize());
+    }
+
+    /**
+     * Derives the key of the given block from the password hash, as
+     *  {@link EcmaEncryptor} does too
+     */
+    static byte[] generateKey(byte[] passwordHash, int block, int keySize)
+        throws NoSuchAlgorithmException {
         MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
 
         sha1.update(passwordHash);
@@ -53,7 +66,7 @@ public class EcmaDecryptor extends Decryptor {
         LittleEndian.putInt(blockValue, 0, block);
         byte[] finalHash = sha1.digest(blockValue);
 
-        int requiredKeyLength = info.getHeader().getKeySize()/8;
+        int requiredKeyLength = keySize/8;
 
         byte[] buff = new byte[64];
 
@@ -82,7 +95,11 @@ public class EcmaDecryptor extends Decryptor {
     }
 
     public boolean verifyPassword(String password) throws GeneralSecurityException {
-        passwordHash = hashPassword(info, password);
+        return verifyPasswordHash(hashPassword(info, password));
+    }
+
+    protected boolean verifyPasswordHash(byte[] pwHash) throws GeneralSecurityException {
+        passwordHash = pwHash;
 
         Cipher cipher = getCipher();
 
@@ -101,7 +118,7 @@ public class EcmaDecryptor extends Decryptor {
      *  truncated or zero padded as needed.
      * Behaves like Arrays.copyOf in Java 1.6
      */
-    private byte[] truncateOrPad(byte[] source, int length) {
+    static byte[] truncateOrPad(byte[] source, int length) {
        byte[] result = new byte[length];
        System.arraycopy(source, 0, result, 0, Math.min(length, source.length));
        if(length > source.length) {
@@ -0,0 +1,118 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.util.LittleEndianOutputStream;
+
+/**
+ * Standard encryption (version 4.2), with AES-128 in ECB mode, as Office
+ *  2007 writes it and {@link EcmaDecryptor} reads it
+ */
+public class EcmaEncryptor extends Encryptor {
+    private static final int FLAGS = 0x24; // CryptoAPI and AES
+    private static final int KEY_SIZE = 128;
+    private static final int SPIN_COUNT = 50000;
+    private static final String CSP_NAME = "Microsoft Enhanced RSA and AES Cryptographic Provider";
+
+    private byte[] _salt;
+    private byte[] _encryptedVerifier;
+    private byte[] _encryptedVerifierHash;
+    private SecretKey _secretKey;
+
+    public void confirmPassword(String password) throws GeneralSecurityException {
+        byte[] salt = getRandomBytes(16);
+        byte[] verifier = getRandomBytes(16);
+
+        byte[] passwordHash = Decryptor.hashPassword(password, salt, SPIN_COUNT);
+        SecretKey secretKey = new SecretKeySpec(
+            EcmaDecryptor.generateKey(passwordHash, 0, KEY_SIZE), "AES");
+        Cipher cipher = Cipher.getInstance("AES/ECB/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        _encryptedVerifier = cipher.doFinal(verifier);
+        _encryptedVerifierHash = cipher.doFinal(
+            EcmaDecryptor.truncateOrPad(sha1.digest(verifier), 32));
+        _salt = salt;
+        _secretKey = secretKey;
+    }
+
+    public OutputStream getDataStream(DirectoryNode dir) throws IOException, GeneralSecurityException {
+        if (_secretKey == null)
+            throw new IllegalStateException("EcmaEncryptor.confirmPassword() was not called");
+
+        // a later password must not change the package being written
+        final SecretKey secretKey = _secretKey;
+        final byte[] encryptionInfo = getEncryptionInfo();
+
+        return new ChunkedCipherOutputStream(dir, getExecutor(), 16) {
+            protected Cipher createCipher() throws GeneralSecurityException {
+                return Cipher.getInstance("AES/ECB/NoPadding");
+            }
+
+            protected void initCipher(Cipher cipher, int segment) throws GeneralSecurityException {
+                // each block is encrypted on its own, so the segments are too
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+            }
+
+            protected void writeEncryptionInfo(DirectoryNode dir) throws IOException {
+                dir.createDocument("EncryptionInfo", new ByteArrayInputStream(encryptionInfo));
+            }
+        };
+    }
+
+    private byte[] getEncryptionInfo() {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        LittleEndianOutputStream out = new LittleEndianOutputStream(header);
+        out.writeInt(FLAGS);
+        out.writeInt(0); // size extra
+        out.writeInt(EncryptionHeader.ALGORITHM_AES_128);
+        out.writeInt(EncryptionHeader.HASH_SHA1);
+        out.writeInt(KEY_SIZE);
+        out.writeInt(EncryptionHeader.PROVIDER_AES);
+        out.writeLong(0); // reserved
+        for (int i = 0; i < CSP_NAME.length(); i++) {
+            out.writeShort(CSP_NAME.charAt(i));
+        }
+        out.writeShort(0);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        out = new LittleEndianOutputStream(bos);
+        out.writeShort(4);
+        out.writeShort(2);
+        out.writeInt(FLAGS);
+        out.writeInt(header.size());
+        out.write(header.toByteArray());
+        out.writeInt(_salt.length);
+        out.write(_salt);
+        out.write(_encryptedVerifier);
+        out.writeInt(20); // verifier hash size
+        out.write(_encryptedVerifierHash);
+        return bos.toByteArray();
+    }
+}
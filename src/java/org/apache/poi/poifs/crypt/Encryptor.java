@@ -0,0 +1,98 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.Executor;
+
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+/**
+ * The counterpart of {@link Decryptor}, which password protects an OOXML
+ *  package, such as one saved by <tt>OPCPackage.save(OutputStream)</tt>,
+ *  by writing it encrypted into the <tt>EncryptedPackage</tt> document
+ *  of an OLE2 filesystem, together with the <tt>EncryptionInfo</tt> and
+ *  <tt>DataSpaces</tt> entries which describe the encryption.
+ * <p>
+ * The package is encrypted in 4096 byte segments, which are independent
+ *  of each other, so an {@link Executor} may be given to encrypt batches
+ *  of segments at the same time. They are still written in order.
+ * </p>
+ * <pre>
+ * NPOIFSFileSystem fs = new NPOIFSFileSystem();
+ * Encryptor enc = new AgileEncryptor();
+ * enc.confirmPassword("password");
+ * OutputStream os = enc.getDataStream(fs);
+ * pkg.save(os);
+ * os.close();
+ * fs.writeFilesystem(out);
+ * </pre>
+ */
+public abstract class Encryptor {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private Executor executor;
+
+    /**
+     * Sets the password, and generates the keys and the verifier from it.
+     *  Must be called before {@link #getDataStream(DirectoryNode)}.
+     */
+    public abstract void confirmPassword(String password)
+        throws GeneralSecurityException;
+
+    /**
+     * Returns a stream which encrypts the package written to it. The
+     *  entries are added to the directory, which should not have any yet,
+     *  when the stream is closed.
+     *
+     * @param dir the node to write to
+     * @return stream for the plain package
+     */
+    public abstract OutputStream getDataStream(DirectoryNode dir)
+        throws IOException, GeneralSecurityException;
+
+    public OutputStream getDataStream(NPOIFSFileSystem fs) throws IOException, GeneralSecurityException {
+        return getDataStream(fs.getRoot());
+    }
+    public OutputStream getDataStream(POIFSFileSystem fs) throws IOException, GeneralSecurityException {
+        return getDataStream(fs.getRoot());
+    }
+
+    /**
+     * Sets the executor which encrypts the segments of the package, in
+     *  batches of 64 segments.
+     *  By default they are encrypted by the thread writing the package.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    protected static byte[] getRandomBytes(int length) {
+        byte[] result = new byte[length];
+        RANDOM.nextBytes(result);
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.poifs.crypt;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.util.LittleEndian;
+
+/**
+ * A bounded cache of the spun password hashes, which the keys of a document
+ *  are derived from. Deriving them is deliberately slow, so when many
+ *  documents are decrypted with the same password and salt, for example
+ *  the same document read again, give their {@link Decryptor}s one cache
+ *  with {@link Decryptor#setPasswordHashCache(PasswordHashCache)}.
+ * <p>
+ * The passwords themselves are not kept. The entries are found by a
+ *  digest of the password, salt and spin count, salted with a random value
+ *  of the cache. The hashes are zeroed when they are evicted, and on
+ *  {@link #clear()}, and callers only ever get copies of them.
+ * </p>
+ * <p>
+ * The cache is safe for use by several threads.
+ * </p>
+ */
+public final class PasswordHashCache {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int maxEntries;
+    private final byte[] cacheSalt = new byte[16];
+    private final Map<Key, byte[]> hashes;
+
+    /**
+     * @param maxEntries the number of hashes kept, the least recently used
+     *  being evicted first
+     */
+    public PasswordHashCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive, but was " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        RANDOM.nextBytes(cacheSalt);
+        hashes = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                if (size() <= PasswordHashCache.this.maxEntries) {
+                    return false;
+                }
+                Arrays.fill(eldest.getValue(), (byte) 0);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the password hash, from the cache if it has been computed
+     *  before, as {@link Decryptor#hashPassword(String, byte[], int)}
+     *  returns it
+     */
+    public byte[] getHash(String password, byte[] salt, int spinCount)
+        throws NoSuchAlgorithmException {
+        Key key = createKey(password, salt, spinCount);
+        synchronized (hashes) {
+            byte[] hash = hashes.get(key);
+            if (hash != null) {
+                return hash.clone();
+            }
+        }
+
+        // computed without holding the lock, so that other passwords can be
+        //  hashed meanwhile
+        byte[] hash = Decryptor.hashPassword(password, salt, spinCount);
+        synchronized (hashes) {
+            byte[] previous = hashes.put(key, hash.clone());
+            if (previous != null) {
+                Arrays.fill(previous, (byte) 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return the number of hashes in the cache
+     */
+    public int size() {
+        synchronized (hashes) {
+            return hashes.size();
+        }
+    }
+
+    /**
+     * Zeroes and removes all the hashes
+     */
+    public void clear() {
+        synchronized (hashes) {
+            for (Iterator<byte[]> it = hashes.values().iterator(); it.hasNext();) {
+                Arrays.fill(it.next(), (byte) 0);
+                it.remove();
+            }
+        }
+    }
+
+    private Key createKey(String password, byte[] salt, int spinCount)
+        throws NoSuchAlgorithmException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[] bytes;
+        try {
+            bytes = password.getBytes("UTF-16LE");
+        } catch (UnsupportedEncodingException e) {
+            throw new EncryptedDocumentException("UTF16 not supported");
+        }
+        byte[] length = new byte[LittleEndian.INT_SIZE];
+
+        sha256.update(cacheSalt);
+        LittleEndian.putInt(length, 0, spinCount);
+        sha256.update(length);
+        LittleEndian.putInt(length, 0, salt.length);
+        sha256.update(length);
+        sha256.update(salt);
+        sha256.update(bytes);
+        Arrays.fill(bytes, (byte) 0);
+        return new Key(sha256.digest());
+    }
+
+    private static final class Key {
+        private final byte[] digest;
+        private final int hashCode;
+
+        Key(byte[] digest) {
+            this.digest = digest;
+            hashCode = Arrays.hashCode(digest);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(digest, ((Key) obj).digest);
+        }
+    }
+}
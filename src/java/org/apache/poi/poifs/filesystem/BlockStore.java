@@ -44,6 +44,13 @@ public abstract class BlockStore {
      */
     protected abstract ByteBuffer createBlockIfNeeded(final int offset) throws IOException;
     
+    /**
+     * Saves a block, changed through the buffer that
+     *  {@link #createBlockIfNeeded(int)} returned, back to the underlying
+     *  data. The buffer must still be positioned at the start of the block.
+     */
+    protected abstract void writeBlock(final int offset, ByteBuffer block) throws IOException;
+    
     /**
      * Returns the BATBlock that handles the specified offset,
      *  and the relative index within it
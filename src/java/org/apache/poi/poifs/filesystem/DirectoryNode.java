@@ -19,9 +19,11 @@
 
 package org.apache.poi.poifs.filesystem;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -401,6 +403,78 @@ public class DirectoryNode
         }
     }
 
+    /**
+     * create a new DocumentEntry from the first <code>size</code> bytes
+     *  of the given buffers. For an {@link NPOIFSFileSystem}, each buffer
+     *  is written into the blocks of the document before the next one is
+     *  asked for, so large contents needn't be held in memory, and the
+     *  buffers may be reused.
+     *
+     * @param name the name of the new DocumentEntry
+     * @param size the size of the new DocumentEntry
+     * @param contents the buffers holding the contents
+     *
+     * @return the new DocumentEntry
+     *
+     * @exception IOException
+     */
+
+    public DocumentEntry createDocument(final String name, final int size,
+                                        final Iterator<ByteBuffer> contents)
+        throws IOException
+    {
+        if(_nfilesystem != null) {
+           return createDocument(new NPOIFSDocument(name, _nfilesystem, size, contents));
+        }
+
+        byte[] data = new byte[size];
+        int offset = 0;
+        while(offset < size) {
+           ByteBuffer buffer = contents.next().duplicate();
+           int count = Math.min(size - offset, buffer.remaining());
+           buffer.get(data, offset, count);
+           offset += count;
+        }
+        return createDocument(new POIFSDocument(name, new ByteArrayInputStream(data)));
+    }
+
+    /**
+     * set the contents of a document, creating it if needed. For an
+     *  {@link NPOIFSFileSystem}, an existing document is updated in
+     *  place, so that saving the filesystem only writes out what
+     *  has changed; otherwise it is replaced.
+     *
+     * @param name the name of the DocumentEntry
+     * @param stream the InputStream from which to read the contents
+     *
+     * @return the DocumentEntry
+     *
+     * @exception IOException
+     */
+
+    public DocumentEntry createOrUpdateDocument(final String name,
+                                                final InputStream stream)
+        throws IOException
+    {
+        Entry existing = _byname.get(name);
+        if(existing == null || !existing.isDocumentEntry()) {
+           // A directory of that name will fail as a duplicate
+           return createDocument(name, stream);
+        }
+
+        DocumentNode document = (DocumentNode) existing;
+        if(_nfilesystem != null) {
+           NPOIFSDocument nDocument = new NPOIFSDocument(
+                 (DocumentProperty) document.getProperty(), _nfilesystem
+           );
+           nDocument.replaceContents(stream);
+           return document;
+        } else {
+           document.delete();
+           return createDocument(name, stream);
+        }
+    }
+
     /**
      * create a new DocumentEntry; the data will be provided later
      *
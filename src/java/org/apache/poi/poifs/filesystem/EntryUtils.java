@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.poi.poifs.property.DocumentProperty;
 import org.apache.poi.util.Internal;
 
 @Internal
@@ -52,10 +53,46 @@ public class EntryUtils
         else
         {
             DocumentEntry dentry = (DocumentEntry) entry;
-            DocumentInputStream dstream = new DocumentInputStream( dentry );
-            target.createDocument( dentry.getName(), dstream );
-            dstream.close();
+            if ( !copyDocumentBlocks( dentry, target ) )
+            {
+                DocumentInputStream dstream = new DocumentInputStream( dentry );
+                target.createDocument( dentry.getName(), dstream );
+                dstream.close();
+            }
+        }
+    }
+
+    /**
+     * Copies a document between two {@link NPOIFSFileSystem}s block by
+     *  block, so that its contents are never held in memory all at once
+     * 
+     * @return <code>false</code> if either filesystem isn't an NPOIFS one,
+     *  in which case nothing has been copied
+     */
+    private static boolean copyDocumentBlocks( DocumentEntry entry,
+            DirectoryEntry target ) throws IOException
+    {
+        while ( target instanceof FilteringDirectoryNode )
+        {
+            target = ( (FilteringDirectoryNode) target ).getDirectory();
+        }
+        if ( !( entry instanceof DocumentNode )
+                || !( target instanceof DirectoryNode ) )
+        {
+            return false;
+        }
+        NPOIFSFileSystem sourceFs = ( (DirectoryNode) entry.getParent() ).getNFileSystem();
+        NPOIFSFileSystem targetFs = ( (DirectoryNode) target ).getNFileSystem();
+        if ( sourceFs == null || targetFs == null )
+        {
+            return false;
         }
+
+        DocumentProperty property = (DocumentProperty) ( (DocumentNode) entry ).getProperty();
+        NPOIFSDocument source = new NPOIFSDocument( property, sourceFs );
+        ( (DirectoryNode) target ).createDocument(
+                new NPOIFSDocument( entry.getName(), targetFs, source ) );
+        return true;
     }
 
     /**
@@ -147,6 +184,40 @@ public class EntryUtils
         );
     }
     
+    /**
+     * Copies all nodes from one NPOIFS to the other. The documents are
+     *  copied block by block, rather than being read into memory.
+     * 
+     * @param source
+     *            is the source NPOIFS to copy from
+     * @param target
+     *            is the target NPOIFS to copy to
+     */
+    public static void copyNodes( NPOIFSFileSystem source,
+            NPOIFSFileSystem target ) throws IOException
+    {
+        copyNodes( source.getRoot(), target.getRoot() );
+    }
+    
+    /**
+     * Copies nodes from one NPOIFS to the other, minus the excepts,
+     *  as {@link #copyNodes(POIFSFileSystem, POIFSFileSystem, List)} does.
+     *  The documents are copied block by block, rather than being read
+     *  into memory.
+     * 
+     * @param source is the source NPOIFS to copy from
+     * @param target is the target NPOIFS to copy to
+     * @param excepts is a list of Entry Names to be excluded from the copy
+     */
+    public static void copyNodes( NPOIFSFileSystem source,
+            NPOIFSFileSystem target, List<String> excepts ) throws IOException
+    {
+        copyNodes(
+              new FilteringDirectoryNode(source.getRoot(), excepts),
+              new FilteringDirectoryNode(target.getRoot(), excepts)
+        );
+    }
+    
     /**
      * Checks to see if the two Directories hold the same contents.
      * For this to be true, they must have entries with the same names,
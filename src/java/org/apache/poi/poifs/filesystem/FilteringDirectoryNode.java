@@ -83,6 +83,13 @@ public class FilteringDirectoryNode implements DirectoryEntry
       }
    }
 
+   /**
+    * @return the directory which is being filtered
+    */
+   DirectoryEntry getDirectory() {
+      return directory;
+   }
+
    public DirectoryEntry createDirectory(String name) throws IOException {
       return directory.createDirectory(name);
    }
@@ -71,22 +71,10 @@ public final class NPOIFSDocument implements POIFSViewable {
       throws IOException 
    {
       this._filesystem = filesystem;
-
-      // Buffer the contents into memory. This is a bit icky...
-      // TODO Replace with a buffer up to the mini stream size, then streaming write
-      byte[] contents;
-      if(stream instanceof ByteArrayInputStream) {
-         ByteArrayInputStream bais = (ByteArrayInputStream)stream;
-         contents = new byte[bais.available()];
-         bais.read(contents);
-      } else {
-         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-         IOUtils.copy(stream, baos);
-         contents = baos.toByteArray();
-      }
+      byte[] contents = readContents(stream);
 
       // Do we need to store as a mini stream or a full one?
-      if(contents.length <= POIFSConstants.BIG_BLOCK_MINIMUM_DOCUMENT_SIZE) {
+      if(contents.length < POIFSConstants.BIG_BLOCK_MINIMUM_DOCUMENT_SIZE) {
          _stream = new NPOIFSStream(filesystem.getMiniStore());
          _block_size = _filesystem.getMiniStore().getBlockStoreBlockSize();
       } else {
@@ -102,6 +90,104 @@ public final class NPOIFSDocument implements POIFSViewable {
       _property.setStartBlock(_stream.getStartBlock());     
    }
    
+   /**
+    * Constructor for a new Document, which is a copy of one in this or
+    *  another filesystem. The blocks of the source are copied straight
+    *  into the new ones, rather than the whole contents being read
+    *  into memory first.
+    *
+    * @param name the name of the POIFSDocument
+    * @param source the document to copy
+    */
+   NPOIFSDocument(String name, NPOIFSFileSystem filesystem, NPOIFSDocument source)
+      throws IOException
+   {
+      this(name, filesystem, source.getSize(), source.getBlockIterator());
+   }
+
+   /**
+    * Constructor for a new Document, whose contents are the first
+    *  <code>size</code> bytes of the given buffers. Each buffer is
+    *  copied into the blocks of the document before the next one is
+    *  asked for, so the buffers may be reused.
+    *
+    * @param name the name of the POIFSDocument
+    * @param size the size of the contents
+    * @param contents the buffers holding the contents
+    */
+   NPOIFSDocument(String name, NPOIFSFileSystem filesystem, int size, Iterator<ByteBuffer> contents)
+      throws IOException
+   {
+      this._filesystem = filesystem;
+
+      // Do we need to store as a mini stream or a full one?
+      if(size < POIFSConstants.BIG_BLOCK_MINIMUM_DOCUMENT_SIZE) {
+         _stream = new NPOIFSStream(filesystem.getMiniStore());
+         _block_size = _filesystem.getMiniStore().getBlockStoreBlockSize();
+      } else {
+         _stream = new NPOIFSStream(filesystem);
+         _block_size = _filesystem.getBlockStoreBlockSize();
+      }
+
+      // Store it
+      _stream.updateContents(contents, size);
+
+      // And build the property for it
+      this._property = new DocumentProperty(name, size);
+      _property.setStartBlock(_stream.getStartBlock());
+   }
+
+   /**
+    * Replaces the contents of the document. The blocks which it already
+    *  has are reused, and extended or freed as needed, so only the blocks
+    *  which change, along with the allocation tables and property that
+    *  refer to them, are written out when the filesystem is next saved.
+    * If the new contents are on the other side of the mini stream cut
+    *  off, they're moved to the other block store.
+    *
+    * @param stream the InputStream we read the new contents from
+    */
+   public void replaceContents(InputStream stream) throws IOException {
+      byte[] contents = readContents(stream);
+
+      // Do we need to move between the mini stream and a full one?
+      boolean wasMini = _property.getSize() < POIFSConstants.BIG_BLOCK_MINIMUM_DOCUMENT_SIZE;
+      boolean isMini = contents.length < POIFSConstants.BIG_BLOCK_MINIMUM_DOCUMENT_SIZE;
+      if(wasMini != isMini) {
+         _stream.free();
+         if(isMini) {
+            _stream = new NPOIFSStream(_filesystem.getMiniStore());
+            _block_size = _filesystem.getMiniStore().getBlockStoreBlockSize();
+         } else {
+            _stream = new NPOIFSStream(_filesystem);
+            _block_size = _filesystem.getBlockStoreBlockSize();
+         }
+      }
+
+      // Store it
+      _stream.updateContents(contents);
+
+      // And update the property for it
+      _property.updateSize(contents.length);
+      _property.setStartBlock(_stream.getStartBlock());
+   }
+
+   /**
+    * Buffers the contents into memory. This is a bit icky...
+    */
+   // TODO Replace with a buffer up to the mini stream size, then streaming write
+   private static byte[] readContents(InputStream stream) throws IOException {
+      if(stream instanceof ByteArrayInputStream) {
+         ByteArrayInputStream bais = (ByteArrayInputStream)stream;
+         byte[] contents = new byte[bais.available()];
+         bais.read(contents);
+         return contents;
+      }
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      IOUtils.copy(stream, baos);
+      return baos.toByteArray();
+   }
+
    int getDocumentBlockSize() {
       return _block_size;
    }
@@ -34,8 +34,10 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.poi.poifs.common.POIFSBigBlockSize;
 import org.apache.poi.poifs.common.POIFSConstants;
@@ -81,6 +83,8 @@ public class NPOIFSFileSystem extends BlockStore
     private NPropertyTable  _property_table;
     private List<BATBlock>  _xbat_blocks;
     private List<BATBlock>  _bat_blocks;
+    /** The BATs and XBATs changed since they were last written */
+    private Set<BATBlock>   _changed_bat_blocks = new HashSet<BATBlock>();
     private HeaderBlock     _header;
     private DirectoryNode   _root;
     
@@ -159,10 +163,36 @@ public class NPOIFSFileSystem extends BlockStore
      */
     public NPOIFSFileSystem(File file, boolean readOnly)
          throws IOException
+    {
+       this(file, readOnly, false);
+    }
+    
+    /**
+     * Creates a POIFSFileSystem from a <tt>File</tt>, optionally memory
+     *  mapping the file. Memory mapping is only used when opening read-only,
+     *  and avoids copying each block onto the heap as it is read, which
+     *  helps when scanning through lots of files. Files too large to be
+     *  mapped are read normally.
+     *  
+     * Note that with this constructor, you will need to call {@link #close()}
+     *  when you're done to have the underlying file closed, as the file is
+     *  kept open during normal operation to read the data out. With memory
+     *  mapping, some platforms keep the file locked until the mapping has
+     *  been garbage collected, even after {@link #close()}.
+     *  
+     * @param file the File from which to read the data
+     * @param readOnly whether to open the file read-only
+     * @param memoryMapped whether to memory map the file, if read-only
+     *
+     * @exception IOException on errors reading, or on invalid data
+     */
+    public NPOIFSFileSystem(File file, boolean readOnly, boolean memoryMapped)
+         throws IOException
     {
        this(
            (new RandomAccessFile(file, readOnly? "r" : "rw")).getChannel(),
-           true
+           true,
+           readOnly && memoryMapped
        );
     }
     
@@ -181,10 +211,10 @@ public class NPOIFSFileSystem extends BlockStore
     public NPOIFSFileSystem(FileChannel channel)
          throws IOException
     {
-       this(channel, false);
+       this(channel, false, false);
     }
     
-    private NPOIFSFileSystem(FileChannel channel, boolean closeChannelOnError)
+    private NPOIFSFileSystem(FileChannel channel, boolean closeChannelOnError, boolean memoryMapped)
          throws IOException
     {
        this(false);
@@ -198,7 +228,7 @@ public class NPOIFSFileSystem extends BlockStore
           _header = new HeaderBlock(headerBuffer);
           
           // Now process the various entries
-          _data = new FileBackedDataSource(channel);
+          _data = new FileBackedDataSource(channel, memoryMapped);
           readCoreContents();
        } catch(IOException e) {
           if(closeChannelOnError) {
@@ -409,6 +439,7 @@ public class NPOIFSFileSystem extends BlockStore
        // Create a new BATBlock
        BATBlock newBAT = BATBlock.createEmptyBATBlock(bigBlockSize, !isBAT);
        newBAT.setOurBlockIndex(offset);
+       _changed_bat_blocks.add(newBAT);
        // Ensure there's a spot in the file for it
        ByteBuffer buffer = ByteBuffer.allocate(bigBlockSize.getBigBlockSize());
        int writeTo = (1+offset) * bigBlockSize.getBigBlockSize(); // Header isn't in BATs
@@ -431,17 +462,33 @@ public class NPOIFSFileSystem extends BlockStore
      *  extending the file if needed
      */
     protected ByteBuffer createBlockIfNeeded(final int offset) throws IOException {
-       try {
-          return getBlockAt(offset);
-       } catch(IndexOutOfBoundsException e) {
-          // The header block doesn't count, so add one
-          long startAt = (offset+1) * bigBlockSize.getBigBlockSize();
-          // Allocate and write
-          ByteBuffer buffer = ByteBuffer.allocate(getBigBlockSize());
-          _data.write(buffer, startAt);
-          // Retrieve the properly backed block
+       // The header block doesn't count, so add one
+       long startAt = (offset+1) * bigBlockSize.getBigBlockSize();
+       if(startAt < _data.size()) {
           return getBlockAt(offset);
        }
+       // Allocate and write
+       ByteBuffer buffer = ByteBuffer.allocate(getBigBlockSize());
+       _data.write(buffer, startAt);
+       // Retrieve the properly backed block
+       return getBlockAt(offset);
+    }
+    
+    /**
+     * Saves the block at the given offset, or the header block for -1
+     */
+    protected void writeBlock(final int offset, ByteBuffer block) throws IOException {
+       writeBlock(offset, 0, block);
+    }
+    
+    /**
+     * Saves part of the block at the given offset, starting the
+     *  given number of bytes into it
+     */
+    void writeBlock(final int offset, int blockOffset, ByteBuffer data) throws IOException {
+       // The header block doesn't count, so add one
+       long startAt = (offset+1) * bigBlockSize.getBigBlockSize();
+       _data.write(data, startAt + blockOffset);
     }
     
     /**
@@ -470,6 +517,7 @@ public class NPOIFSFileSystem extends BlockStore
        bai.getBlock().setValueAt(
              bai.getIndex(), nextBlock
        );
+       _changed_bat_blocks.add(bai.getBlock());
     }
     
     /**
@@ -529,18 +577,23 @@ public class NPOIFSFileSystem extends BlockStore
              if(_xbat_blocks.size() == 0) {
                 _header.setXBATStart(offset);
              } else {
-                _xbat_blocks.get(_xbat_blocks.size()-1).setValueAt(
+                BATBlock lastXBAT = _xbat_blocks.get(_xbat_blocks.size()-1);
+                lastXBAT.setValueAt(
                       bigBlockSize.getXBATEntriesPerBlock(), offset
                 );
+                _changed_bat_blocks.add(lastXBAT);
              }
              _xbat_blocks.add(xbat);
              _header.setXBATCount(_xbat_blocks.size());
-          }
-          // Allocate us in the XBAT
-          for(int i=0; i<bigBlockSize.getXBATEntriesPerBlock(); i++) {
-             if(xbat.getValueAt(i) == POIFSConstants.UNUSED_BLOCK) {
-                xbat.setValueAt(i, offset);
+          } else {
+             // Allocate us in the first free spot of the XBAT
+             for(int i=0; i<bigBlockSize.getXBATEntriesPerBlock(); i++) {
+                if(xbat.getValueAt(i) == POIFSConstants.UNUSED_BLOCK) {
+                   xbat.setValueAt(i, offset);
+                   break;
+                }
              }
+             _changed_bat_blocks.add(xbat);
           }
        } else {
           // Store us in the header
@@ -655,6 +708,10 @@ public class NPOIFSFileSystem extends BlockStore
      * Write the filesystem out to the open file. Will thrown an
      *  {@link IllegalArgumentException} if opened from an 
      *  {@link InputStream}.
+     * Only the blocks which have changed are written, along with the
+     *  header, so that updating one document with
+     *  {@link DirectoryNode#createOrUpdateDocument(String, InputStream)}
+     *  costs about as much as the change itself.
      * 
      * @exception IOException thrown on errors writing to the stream
      */
@@ -696,23 +753,30 @@ public class NPOIFSFileSystem extends BlockStore
      */
     private void syncWithDataSource() throws IOException
     {
-       // HeaderBlock
-       HeaderBlockWriter hbw = new HeaderBlockWriter(_header);
-       hbw.writeBlock( getBlockAt(-1) );
-       
-       // BATs
-       for(BATBlock bat : _bat_blocks) {
-          ByteBuffer block = getBlockAt(bat.getOurBlockIndex());
-          BlockAllocationTableWriter.writeBlock(bat, block);
-       }
-       
-       // SBATs
+       // SBATs, which also sets the size of the mini stream
        _mini_store.syncWithDataSource();
        
-       // Properties
+       // Properties, which may need more blocks than before,
+       //  so are written before the header and the BATs
        _property_table.write(
              new NPOIFSStream(this, _header.getPropertyStart())
        );
+       
+       // HeaderBlock
+       HeaderBlockWriter hbw = new HeaderBlockWriter(_header);
+       ByteBuffer header = getBlockAt(-1);
+       hbw.writeBlock( header.duplicate() );
+       writeBlock(-1, header);
+       
+       // BATs and XBATs, only those which have changed since they
+       //  were last written, so that small changes to big files are
+       //  cheap to save
+       for(BATBlock bat : _changed_bat_blocks) {
+          ByteBuffer block = getBlockAt(bat.getOurBlockIndex());
+          BlockAllocationTableWriter.writeBlock(bat, block.duplicate());
+          writeBlock(bat.getOurBlockIndex(), block);
+       }
+       _changed_bat_blocks.clear();
     }
     
     /**
@@ -21,8 +21,11 @@ package org.apache.poi.poifs.filesystem;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.poi.poifs.common.POIFSConstants;
 import org.apache.poi.poifs.property.RootProperty;
@@ -40,6 +43,8 @@ public class NPOIFSMiniStore extends BlockStore
     private NPOIFSFileSystem _filesystem;
     private NPOIFSStream     _mini_stream;
     private List<BATBlock>   _sbat_blocks;
+    private Set<BATBlock>    _changed_sbat_blocks = new HashSet<BATBlock>();
+    private List<Integer>    _mini_stream_chain = new ArrayList<Integer>();
     private HeaderBlock      _header;
     private RootProperty     _root;
 
@@ -86,18 +91,31 @@ public class NPOIFSMiniStore extends BlockStore
      * Load the block, extending the underlying stream if needed
      */
     protected ByteBuffer createBlockIfNeeded(final int offset) throws IOException {
+       boolean firstInStore = (_mini_stream.getStartBlock() == POIFSConstants.END_OF_CHAIN);
+
        // Try to get it without extending the stream
-       try {
-          return getBlockAt(offset);
-       } catch(IndexOutOfBoundsException e) {
-          // Need to extend the stream
-          // TODO Replace this with proper append support
-          // For now, do the extending by hand...
-          
-          // Ask for another block
-          int newBigBlock = _filesystem.getFreeBlock();
-          _filesystem.createBlockIfNeeded(newBigBlock);
-          
+       if (! firstInStore) {
+          try {
+             return getBlockAt(offset);
+          } catch(IndexOutOfBoundsException e) {
+             // Need to extend the stream, below
+          }
+       }
+
+       // TODO Replace this with proper append support
+       // For now, do the extending by hand...
+
+       // Ask for another block
+       int newBigBlock = _filesystem.getFreeBlock();
+       _filesystem.createBlockIfNeeded(newBigBlock);
+
+       if (firstInStore) {
+          // A new filesystem, the mini stream starts here
+          _filesystem.setNextBlock(newBigBlock, POIFSConstants.END_OF_CHAIN);
+          _root.setStartBlock(newBigBlock);
+          _mini_stream = new NPOIFSStream(_filesystem, newBigBlock);
+          _mini_stream_chain.clear();
+       } else {
           // Tack it onto the end of our chain
           ChainLoopDetector loopDetector = _filesystem.getChainLoopDetector();
           int block = _mini_stream.getStartBlock();
@@ -111,10 +129,34 @@ public class NPOIFSMiniStore extends BlockStore
           }
           _filesystem.setNextBlock(block, newBigBlock);
           _filesystem.setNextBlock(newBigBlock, POIFSConstants.END_OF_CHAIN);
+       }
 
-          // Now try again to get it
-          return createBlockIfNeeded(offset);
+       // Now try again to get it
+       return createBlockIfNeeded(offset);
+    }
+    
+    /**
+     * Saves a block, changed through the buffer from
+     *  {@link #createBlockIfNeeded(int)}, into the big block of the
+     *  mini stream which holds it
+     */
+    protected void writeBlock(final int offset, ByteBuffer block) throws IOException {
+       int byteOffset = offset * POIFSConstants.SMALL_BLOCK_SIZE;
+       int bigBlockNumber = byteOffset / _filesystem.getBigBlockSize();
+       int bigBlockOffset = byteOffset % _filesystem.getBigBlockSize();
+       
+       // Follow the chain of the mini stream to the big block. The
+       //  chain only grows between writes, so carry on from the
+       //  furthest big block already found
+       if(_mini_stream_chain.isEmpty()) {
+          _mini_stream_chain.add(_mini_stream.getStartBlock());
+       }
+       while(_mini_stream_chain.size() <= bigBlockNumber) {
+          int last = _mini_stream_chain.get(_mini_stream_chain.size()-1);
+          _mini_stream_chain.add(_filesystem.getNextBlock(last));
        }
+       int bigBlock = _mini_stream_chain.get(bigBlockNumber);
+       _filesystem.writeBlock(bigBlock, bigBlockOffset, block);
     }
     
     /**
@@ -143,6 +185,7 @@ public class NPOIFSMiniStore extends BlockStore
        bai.getBlock().setValueAt(
              bai.getIndex(), nextBlock
        );
+       _changed_sbat_blocks.add(bai.getBlock());
     }
     
     /**
@@ -211,6 +254,7 @@ public class NPOIFSMiniStore extends BlockStore
        // Finish allocating
        _filesystem.setNextBlock(batForSBAT, POIFSConstants.END_OF_CHAIN);
        _sbat_blocks.add(newSBAT);
+       _changed_sbat_blocks.add(newSBAT);
        
        // Return our first spot
        return offset;
@@ -229,9 +273,31 @@ public class NPOIFSMiniStore extends BlockStore
      * Writes the SBATs to their backing blocks
      */
     protected void syncWithDataSource() throws IOException {
-       for(BATBlock sbat : _sbat_blocks) {
+       // The root property holds the size of the mini stream, which
+       //  must cover all the blocks in use
+       int sectorsPerSBAT = _filesystem.getBigBlockSizeDetails().getBATEntriesPerBlock();
+       int blocksUsed = 0;
+       for(int i=0; i<_sbat_blocks.size(); i++) {
+          BATBlock sbat = _sbat_blocks.get(i);
+          for(int j=0; j<sectorsPerSBAT; j++) {
+             if(sbat.getValueAt(j) != POIFSConstants.UNUSED_BLOCK) {
+                blocksUsed = i*sectorsPerSBAT + j + 1;
+             }
+          }
+       }
+       int blocksCovered = (_root.getSize() + POIFSConstants.SMALL_BLOCK_SIZE - 1) /
+             POIFSConstants.SMALL_BLOCK_SIZE;
+       if(blocksUsed > blocksCovered) {
+          _root.setSize(blocksUsed);
+       }
+
+       // Only the SBATs changed since the last write need saving
+       for(BATBlock sbat : _changed_sbat_blocks) {
           ByteBuffer block = _filesystem.getBlockAt(sbat.getOurBlockIndex());
-          BlockAllocationTableWriter.writeBlock(sbat, block);
+          BlockAllocationTableWriter.writeBlock(sbat, block.duplicate());
+          _filesystem.writeBlock(sbat.getOurBlockIndex(), block);
        }
+       _changed_sbat_blocks.clear();
+       _mini_stream_chain.clear();
     }
 }
@@ -21,7 +21,9 @@ package org.apache.poi.poifs.filesystem;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.poi.poifs.common.POIFSConstants;
 import org.apache.poi.poifs.filesystem.BlockStore.ChainLoopDetector;
@@ -100,15 +102,29 @@ public class NPOIFSStream implements Iterable<ByteBuffer>
     *  need to update the size in the property yourself
     */
    public void updateContents(byte[] contents) throws IOException {
+      List<ByteBuffer> buffers = Collections.singletonList(ByteBuffer.wrap(contents));
+      updateContents(buffers.iterator(), contents.length);
+   }
+
+   /**
+    * Updates the contents of the stream to the first <code>length</code>
+    *  bytes of the given buffers, such as the blocks of another stream,
+    *  which are copied straight into the blocks of this one.
+    * The buffers themselves are left as they were.
+    * Note - if this is property based, you'll still
+    *  need to update the size in the property yourself
+    */
+   public void updateContents(Iterator<ByteBuffer> contents, int length) throws IOException {
       // How many blocks are we going to need?
       int blockSize = blockStore.getBlockStoreBlockSize();
-      int blocks = (int)Math.ceil( ((double)contents.length) / blockSize );
+      int blocks = (int)Math.ceil( ((double)length) / blockSize );
       
       // Make sure we don't encounter a loop whilst overwriting
       //  the existing blocks
       ChainLoopDetector loopDetector = blockStore.getChainLoopDetector();
       
       // Start writing
+      ByteBuffer src = null;
       int prevBlock = POIFSConstants.END_OF_CHAIN;
       int nextBlock = startBlock;
       for(int i=0; i<blocks; i++) {
@@ -139,11 +155,32 @@ public class NPOIFSStream implements Iterable<ByteBuffer>
             nextBlock = blockStore.getNextBlock(thisBlock);
          }
          
-         // Write it
+         // Write it, from as many of the buffers as it spans
          ByteBuffer buffer = blockStore.createBlockIfNeeded(thisBlock);
-         int startAt = i*blockSize;
-         int endAt = Math.min(contents.length - startAt, blockSize);
-         buffer.put(contents, startAt, endAt); 
+         ByteBuffer block = buffer.duplicate();
+         boolean changed = false;
+         int toWrite = Math.min(length - i*blockSize, blockSize);
+         while(toWrite > 0) {
+            if(src == null || !src.hasRemaining()) {
+               src = contents.next().duplicate();
+            }
+            ByteBuffer part = src.slice();
+            int count = Math.min(toWrite, part.remaining());
+            part.limit(count);
+            if(!changed) {
+               ByteBuffer existing = block.slice();
+               existing.limit(count);
+               changed = !existing.equals(part);
+            }
+            block.put(part);
+            src.position(src.position() + count);
+            toWrite -= count;
+         }
+         
+         // Only blocks which now hold something different need saving
+         if(changed) {
+            blockStore.writeBlock(thisBlock, buffer);
+         }
          
          // Update pointers
          prevBlock = thisBlock;
@@ -154,8 +191,12 @@ public class NPOIFSStream implements Iterable<ByteBuffer>
       NPOIFSStream toFree = new NPOIFSStream(blockStore, nextBlock);
       toFree.free(loopDetector);
       
-      // Mark the end of the stream
-      blockStore.setNextBlock(lastBlock, POIFSConstants.END_OF_CHAIN);
+      // Mark the end of the stream, unless it's now empty
+      if(lastBlock != POIFSConstants.END_OF_CHAIN) {
+         blockStore.setNextBlock(lastBlock, POIFSConstants.END_OF_CHAIN);
+      } else {
+         this.startBlock = POIFSConstants.END_OF_CHAIN;
+      }
    }
    
    // TODO Streaming write support
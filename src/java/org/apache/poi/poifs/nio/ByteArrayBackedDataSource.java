@@ -50,13 +50,20 @@ public class ByteArrayBackedDataSource extends DataSource {
    
    public void write(ByteBuffer src, long position) {
       // Extend if needed
-      long endPosition = position + src.capacity(); 
+      int length = src.remaining();
+      long endPosition = position + length; 
       if(endPosition > buffer.length) {
          extend(endPosition);
       }
       
-      // Now copy
-      src.get(buffer, (int)position, src.capacity());
+      // Now copy, unless it's one of our own buffers from read(),
+      //  which already holds the changes in place
+      if(src.hasArray() && src.array() == buffer &&
+            src.arrayOffset() + src.position() == position) {
+         src.position(src.limit());
+      } else {
+         src.get(buffer, (int)position, length);
+      }
       
       // Update size if needed
       if(endPosition > size) {
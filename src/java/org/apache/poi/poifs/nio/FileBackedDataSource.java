@@ -33,7 +33,18 @@ import org.apache.poi.util.IOUtils;
  * A POIFS {@link DataSource} backed by a File
  */
 public class FileBackedDataSource extends DataSource {
+   /**
+    * Files larger than this can't be mapped into a single buffer,
+    *  so are always read with positioned channel reads
+    */
+   public static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
    private FileChannel channel;
+   /**
+    * The whole (read only) file, if it was memory mapped,
+    *  otherwise <code>null</code>
+    */
+   private ByteBuffer mapped;
    
    public FileBackedDataSource(File file) throws FileNotFoundException {
       if(!file.exists()) {
@@ -45,10 +56,50 @@ public class FileBackedDataSource extends DataSource {
       this.channel = channel;
    }
    
+   /**
+    * Creates a DataSource for a channel, optionally memory mapping
+    *  the file. When mapped, the file is only mapped once, and each
+    *  {@link #read(int, long)} hands out a read only slice of the
+    *  mapping rather than copying the data onto the heap.
+    * Files bigger than {@link #MAX_MAPPED_SIZE} are never mapped,
+    *  and read in the normal way instead.
+    * 
+    * Only use memory mapping for read only access - the buffers
+    *  returned by {@link #read(int, long)} can't be modified, and
+    *  the size of the mapping is fixed. 
+    * 
+    * @param channel the channel to read from
+    * @param memoryMapped whether to memory map the file
+    */
+   public FileBackedDataSource(FileChannel channel, boolean memoryMapped) throws IOException {
+      this(channel);
+      if(memoryMapped) {
+         long size = channel.size();
+         if(size <= MAX_MAPPED_SIZE) {
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+         }
+      }
+   }
+   
+   /**
+    * @return whether reads are served from a memory mapping of the file
+    */
+   public boolean isMemoryMapped() {
+      return mapped != null;
+   }
+   
    public ByteBuffer read(int length, long position) throws IOException {
       if(position >= size()) {
          throw new IllegalArgumentException("Position " + position + " past the end of the file");
       }
+      
+      // If the whole range is mapped, simply hand out a view of it
+      if(mapped != null && position + length <= mapped.capacity()) {
+         ByteBuffer dst = mapped.duplicate();
+         dst.position((int)position);
+         dst.limit((int)position + length);
+         return dst.slice();
+      }
 
       // Read
       channel.position(position);
@@ -83,6 +134,8 @@ public class FileBackedDataSource extends DataSource {
    }
    
    public void close() throws IOException {
+      // The mapping itself is released once it has been garbage collected
+      mapped = null;
       channel.close();
    }
 }
@@ -88,6 +88,17 @@ public class DocumentProperty
         return _document;
     }
 
+    /**
+     * update the size of the document, when its contents are replaced
+     *
+     * @param size the new POIFSDocument size
+     */
+
+    public void updateSize(int size)
+    {
+        setSize(size);
+    }
+
     /* ********** START extension of Property ********** */
 
     /**
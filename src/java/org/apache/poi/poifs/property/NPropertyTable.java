@@ -19,6 +19,7 @@ package org.apache.poi.poifs.property;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -41,6 +42,18 @@ public final class NPropertyTable extends PropertyTableBase {
     private static final POILogger _logger =
        POILogFactory.getLogger(NPropertyTable.class);
     private POIFSBigBlockSize _bigBigBlockSize;
+    /**
+     * The properties, and their names, as they were laid out when last
+     *  read or written. While they stay the same, the existing links
+     *  between them are kept, so that only the properties which have
+     *  changed end up being written out
+     */
+    private Property[] _laidOut = new Property[0];
+    private String[] _laidOutNames = new String[0];
+    /**
+     * The raw data of the empty slots read in, by their index
+     */
+    private byte[][] _emptySlots = new byte[0][];
 
     public NPropertyTable(HeaderBlock headerBlock)
     {
@@ -63,27 +76,43 @@ public final class NPropertyTable extends PropertyTableBase {
                           final NPOIFSFileSystem filesystem)
         throws IOException
     {
-        super(
+        this(
               headerBlock,
-              buildProperties(
+              readBlocks(
                     (new NPOIFSStream(filesystem, headerBlock.getPropertyStart())).iterator(),
                     headerBlock.getBigBlockSize()
               )
         );
+    }
+
+    private NPropertyTable(final HeaderBlock headerBlock, final List<byte[]> blocks)
+        throws IOException
+    {
+        super(headerBlock, buildProperties(blocks));
         _bigBigBlockSize = headerBlock.getBigBlockSize();
+        rememberLayout();
+
+        // Keep the empty slots as they were, so that writing them back
+        //  doesn't change them
+        _emptySlots = new byte[_properties.size()][];
+        int slot = 0;
+        for(byte[] data : blocks) {
+           for(int offset=0; offset<data.length; offset+=POIFSConstants.PROPERTY_SIZE, slot++) {
+              if(_properties.get(slot) == null) {
+                 _emptySlots[slot] = new byte[POIFSConstants.PROPERTY_SIZE];
+                 System.arraycopy(data, offset, _emptySlots[slot], 0, POIFSConstants.PROPERTY_SIZE);
+              }
+           }
+        }
     }
     
     /**
-     * Builds
-     * @param startAt
-     * @param filesystem
-     * @return
-     * @throws IOException
+     * Reads the data of the property blocks
      */
-    private static List<Property> buildProperties(final Iterator<ByteBuffer> dataSource,
+    private static List<byte[]> readBlocks(final Iterator<ByteBuffer> dataSource,
           final POIFSBigBlockSize bigBlockSize) throws IOException
     {
-       List<Property> properties = new ArrayList<Property>();
+       List<byte[]> blocks = new ArrayList<byte[]>();
        while(dataSource.hasNext()) {
           ByteBuffer bb = dataSource.next();
           
@@ -108,6 +137,19 @@ public final class NPropertyTable extends PropertyTableBase {
              bb.get(data, 0, toRead);
           }
           
+          blocks.add(data);
+       }
+       return blocks;
+    }
+
+    /**
+     * Builds the properties held in the property blocks
+     */
+    private static List<Property> buildProperties(final List<byte[]> blocks)
+          throws IOException
+    {
+       List<Property> properties = new ArrayList<Property>();
+       for(byte[] data : blocks) {
           PropertyFactory.convertToProperties(data, properties);
        }
        return properties;
@@ -128,13 +170,41 @@ public final class NPropertyTable extends PropertyTableBase {
      * Writes the properties out into the given low-level stream
      */
     public void write(NPOIFSStream stream) throws IOException {
+       if(!isLayoutUnchanged()) {
+          // Drop the empty slots read in, and give each property its
+          //  index, so that the directories can link up their children
+          for(Iterator<Property> it = _properties.iterator(); it.hasNext(); ) {
+             if(it.next() == null) {
+                it.remove();
+             }
+          }
+          _emptySlots = new byte[0][];
+          for(int i=0; i<_properties.size(); i++) {
+             _properties.get(i).setIndex(i);
+          }
+          for(Property property : _properties) {
+             property.preWrite();
+          }
+          rememberLayout();
+       }
+
        // TODO - Use a streaming write
        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-       for(Property property : _properties) {
-          if(property != null) {
+       for(int i=0; i<_properties.size(); i++) {
+          Property property = _properties.get(i);
+          if(property == null) {
+             // An empty slot, which we've kept in its place as it was
+             baos.write(_emptySlots[i]);
+          } else {
              property.writeData(baos);
           }
        }
+       // Fill the last block with empty entries, over anything left
+       //  from before
+       int blockSize = _bigBigBlockSize.getBigBlockSize();
+       while(baos.size() % blockSize != 0) {
+          writeEmptyProperty(baos);
+       }
        stream.updateContents(baos.toByteArray());
        
        // Update the start position if needed
@@ -142,4 +212,51 @@ public final class NPropertyTable extends PropertyTableBase {
           setStartBlock(stream.getStartBlock());
        }
     }
+
+    /**
+     * Writes an unused entry, which has no name and whose links are
+     *  all NOSTREAM, as {@link org.apache.poi.poifs.storage.PropertyBlock}
+     *  pads with
+     */
+    private static void writeEmptyProperty(OutputStream stream) throws IOException {
+       Property empty = new Property() {
+          protected void preWrite() {
+          }
+
+          public boolean isDirectory() {
+             return false;
+          }
+       };
+       empty.writeData(stream);
+    }
+
+    private void rememberLayout() {
+       _laidOut = _properties.toArray(new Property[_properties.size()]);
+       _laidOutNames = new String[_laidOut.length];
+       for(int i=0; i<_laidOut.length; i++) {
+          if(_laidOut[i] != null) {
+             _laidOutNames[i] = _laidOut[i].getName();
+          }
+       }
+    }
+
+    /**
+     * @return whether no properties have been added, removed or renamed
+     *  since they were last laid out
+     */
+    private boolean isLayoutUnchanged() {
+       if(_laidOut.length != _properties.size()) {
+          return false;
+       }
+       for(int i=0; i<_laidOut.length; i++) {
+          Property property = _properties.get(i);
+          if(property != _laidOut[i]) {
+             return false;
+          }
+          if(property != null && !property.getName().equals(_laidOutNames[i])) {
+             return false;
+          }
+       }
+       return true;
+    }
 }
@@ -0,0 +1,35 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+/**
+ * Builds an index (for example a map from values to positions) from the
+ * cells of an area, for {@link IndexableAreaEval#getIndex(AreaIndexBuilder)}.<p/>
+ *
+ * The builder is part of the cache key, so there should be one instance
+ * for each kind of index, usually a constant.
+ */
+public interface AreaIndexBuilder<T> {
+
+	/**
+	 * @param area the area to index. Only its cell values should be used.
+	 * @return the index, or <code>null</code> if this area cannot be indexed, in which
+	 * case nothing is cached
+	 */
+	T build(TwoDEval area);
+}
@@ -0,0 +1,96 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import org.apache.poi.ss.formula.eval.AreaEval;
+
+/**
+ * Stores an index built from the cells of an area.<p/>
+ *
+ * The index is tied into the dependency tracking through a formula cache entry,
+ * which is evaluated like a formula reading every cell of the area, and which is
+ * used as an input by every formula that looked at the index. Any change to the
+ * cells clears that entry, along with the cached results of those formulas.
+ */
+final class AreaIndexCacheEntry {
+
+	public static final class Key {
+		private final int _bookIndex;
+		private final int _sheetIndex;
+		private final int _firstRow;
+		private final int _firstColumn;
+		private final int _lastRow;
+		private final int _lastColumn;
+		private final AreaIndexBuilder<?> _builder;
+
+		public Key(int bookIndex, int sheetIndex, AreaEval area, AreaIndexBuilder<?> builder) {
+			_bookIndex = bookIndex;
+			_sheetIndex = sheetIndex;
+			_firstRow = area.getFirstRow();
+			_firstColumn = area.getFirstColumn();
+			_lastRow = area.getLastRow();
+			_lastColumn = area.getLastColumn();
+			_builder = builder;
+		}
+
+		public int hashCode() {
+			int result = _bookIndex * 31 + _sheetIndex;
+			result = result * 31 + _firstRow;
+			result = result * 31 + _firstColumn;
+			result = result * 31 + _lastRow;
+			result = result * 31 + _lastColumn;
+			return result * 31 + _builder.hashCode();
+		}
+
+		public boolean equals(Object obj) {
+			assert obj instanceof Key : "these package-private cache key instances are only compared to themselves";
+			Key other = (Key) obj;
+			return _bookIndex == other._bookIndex && _sheetIndex == other._sheetIndex
+					&& _firstRow == other._firstRow && _firstColumn == other._firstColumn
+					&& _lastRow == other._lastRow && _lastColumn == other._lastColumn
+					&& _builder.equals(other._builder);
+		}
+	}
+
+	private final FormulaCellCacheEntry _cce;
+	private Object _index;
+
+	public AreaIndexCacheEntry() {
+		_cce = new FormulaCellCacheEntry();
+	}
+
+	public FormulaCellCacheEntry getCacheEntry() {
+		return _cce;
+	}
+
+	/**
+	 * @return <code>false</code> if the index has not been built yet, or any of the cells
+	 * it was built from have changed since
+	 */
+	public boolean isValid() {
+		return _cce.getValue() != null;
+	}
+
+	public Object getIndex() {
+		return _index;
+	}
+
+	public void setIndex(Object index) {
+		_index = index;
+	}
+}
@@ -17,6 +17,12 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.formula.eval.AreaEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
@@ -37,8 +43,19 @@ import org.apache.poi.ss.usermodel.Cell;
  */
 final class EvaluationCache {
 
+	/**
+	 * The most cells which are indexed at any time, so that the indexes of many large
+	 * areas which all differ do not take much more memory than the workbook itself
+	 */
+	private static final long MAX_INDEXED_CELLS = 1000000;
+
 	private final PlainCellCache _plainCellCache;
 	private final FormulaCellCache _formulaCellCache;
+	private final Map<AreaIndexCacheEntry.Key, AreaIndexCacheEntry> _areaIndexCache;
+	/** areas which have been looked up once, and are only indexed if looked up again */
+	private final Set<AreaIndexCacheEntry.Key> _areasLookedUpOnce;
+	/** the number of cells of the areas in {@link #_areaIndexCache} */
+	private long _indexedCellCount;
 	/** only used for testing. <code>null</code> otherwise */
 	final IEvaluationListener _evaluationListener;
 
@@ -46,6 +63,8 @@ final class EvaluationCache {
 		_evaluationListener = evaluationListener;
 		_plainCellCache = new PlainCellCache();
 		_formulaCellCache = new FormulaCellCache();
+		_areaIndexCache = new HashMap<AreaIndexCacheEntry.Key, AreaIndexCacheEntry>();
+		_areasLookedUpOnce = new HashSet<AreaIndexCacheEntry.Key>();
 	}
 
 	public void notifyUpdateCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
@@ -124,6 +143,9 @@ final class EvaluationCache {
 				entry.notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener);
 			}
 		});
+		for (AreaIndexCacheEntry entry : _areaIndexCache.values()) {
+			entry.getCacheEntry().notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener);
+		}
 	}
 
 	public PlainValueCellCacheEntry getPlainValueEntry(int bookIndex, int sheetIndex,
@@ -185,6 +207,35 @@ final class EvaluationCache {
 		return result;
 	}
 
+	/**
+	 * An index takes as long to build as scanning the area, and as much memory as the area,
+	 * so it only pays when the same area is looked up again. Areas which differ with each
+	 * formula, such as the expanding range <tt>A$1:A5</tt>, are not indexed at all. Once
+	 * {@link #MAX_INDEXED_CELLS} cells are indexed, further areas are not indexed either.
+	 *
+	 * @return <code>null</code> the first time an area is looked up, or if there are too many
+	 * indexed cells already, in which case the area should be scanned instead
+	 */
+	public AreaIndexCacheEntry getOrCreateAreaIndexEntry(int bookIndex, int sheetIndex,
+			AreaEval area, AreaIndexBuilder<?> builder) {
+		AreaIndexCacheEntry.Key key = new AreaIndexCacheEntry.Key(bookIndex, sheetIndex, area, builder);
+		AreaIndexCacheEntry result = _areaIndexCache.get(key);
+		if (result == null) {
+			if (_areasLookedUpOnce.add(key)) {
+				return null;
+			}
+			_areasLookedUpOnce.remove(key);
+			long size = (long) area.getHeight() * area.getWidth();
+			if (_indexedCellCount + size > MAX_INDEXED_CELLS) {
+				return null;
+			}
+			_indexedCellCount += size;
+			result = new AreaIndexCacheEntry();
+			_areaIndexCache.put(key, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Should be called whenever there are changes to input cells in the evaluated workbook.
 	 */
@@ -194,6 +245,9 @@ final class EvaluationCache {
 		}
 		_plainCellCache.clear();
 		_formulaCellCache.clear();
+		_areaIndexCache.clear();
+		_areasLookedUpOnce.clear();
+		_indexedCellCount = 0;
 	}
 	public void notifyDeleteCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
 
@@ -55,6 +55,18 @@ public interface EvaluationWorkbook {
 	Ptg[] getFormulaTokens(EvaluationCell cell);
     UDFFinder getUDFFinder();
 
+	/**
+	 * Propagated from {@link WorkbookEvaluator#clearAllCachedResultValues()}.  Implementations
+	 * which cache data derived from cells (e.g. parsed formula tokens) must discard all of it.
+	 */
+	void clearAllCachedResultValues();
+	/**
+	 * Propagated from {@link WorkbookEvaluator#notifyUpdateCell(EvaluationCell)} and
+	 * {@link WorkbookEvaluator#notifyDeleteCell(EvaluationCell)}.  Implementations must discard
+	 * any data cached for the specified cell.
+	 */
+	void notifyUpdateCell(EvaluationCell cell);
+
 	class ExternalSheet {
 		private final String _workbookName;
 		private final String _sheetName;
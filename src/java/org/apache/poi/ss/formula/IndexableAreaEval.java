@@ -0,0 +1,37 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+/**
+ * An area of cells known to the evaluator, which can keep indexes built from
+ * those cells in the evaluation cache. Functions which search through large
+ * areas again and again (such as VLOOKUP) can use this to avoid a full scan
+ * on every call.
+ */
+public interface IndexableAreaEval extends TwoDEval {
+
+	/**
+	 * Returns the index built by the given builder from the cells of this area. The
+	 * index is cached until any of those cells change, and the formula being evaluated
+	 * becomes dependent on all of them. The first time an area is asked for, no index is
+	 * built, as it only pays if the same area is searched again.
+	 *
+	 * @return the index, or <code>null</code> if the area should be scanned instead
+	 */
+	<T> T getIndex(AreaIndexBuilder<T> builder);
+}
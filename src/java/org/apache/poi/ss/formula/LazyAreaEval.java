@@ -28,7 +28,7 @@ import org.apache.poi.ss.util.CellReference;
  *
  * @author Josh Micich
  */
-final class LazyAreaEval extends AreaEvalBase {
+final class LazyAreaEval extends AreaEvalBase implements IndexableAreaEval {
 
 	private final SheetRefEvaluator _evaluator;
 
@@ -74,6 +74,10 @@ final class LazyAreaEval extends AreaEvalBase {
 		return new LazyAreaEval(getFirstRow(), absColIx, getLastRow(), absColIx, _evaluator);
 	}
 
+	public <T> T getIndex(AreaIndexBuilder<T> builder) {
+		return _evaluator.getAreaIndex(this, builder);
+	}
+
 	public String toString() {
 		CellReference crA = new CellReference(getFirstRow(), getFirstColumn());
 		CellReference crB = new CellReference(getLastRow(), getLastColumn());
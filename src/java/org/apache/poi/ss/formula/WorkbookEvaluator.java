@@ -126,7 +126,10 @@ public final class WorkbookEvaluator {
 		return _workbook.getSheet(sheetIndex);
 	}
 	
-	/* package */ EvaluationWorkbook getWorkbook() {
+	/**
+	 * @return the workbook which this evaluator evaluates
+	 */
+	public EvaluationWorkbook getWorkbook() {
 		return _workbook;
 	}
 
@@ -193,6 +196,9 @@ public final class WorkbookEvaluator {
 	public void clearAllCachedResultValues() {
 		_cache.clear();
 		_sheetIndexesBySheet.clear();
+		if (_workbook != null) { // workbook can be null in unit tests
+			_workbook.clearAllCachedResultValues();
+		}
 	}
 
 	/**
@@ -202,6 +208,7 @@ public final class WorkbookEvaluator {
 	public void notifyUpdateCell(EvaluationCell cell) {
 		int sheetIndex = getSheetIndex(cell.getSheet());
 		_cache.notifyUpdateCell(_workbookIx, sheetIndex, cell);
+		_workbook.notifyUpdateCell(cell);
 	}
 	/**
 	 * Should be called to tell the cell value cache that the specified cell has just been
@@ -210,6 +217,7 @@ public final class WorkbookEvaluator {
 	public void notifyDeleteCell(EvaluationCell cell) {
 		int sheetIndex = getSheetIndex(cell.getSheet());
 		_cache.notifyDeleteCell(_workbookIx, sheetIndex, cell);
+		_workbook.notifyUpdateCell(cell);
 	}
 	
 	private int getSheetIndex(EvaluationSheet sheet) {
@@ -701,6 +709,49 @@ public final class WorkbookEvaluator {
 		EvaluationCell cell = sheet.getCell(rowIndex, columnIndex);
 		return evaluateAny(cell, sheetIndex, rowIndex, columnIndex, tracker);
 	}
+
+	/**
+	 * Used by the lazy area evals to get an index of their cells, which stays cached until
+	 * any of those cells change.
+	 * @return <code>null</code> if the area is not looked up often enough to be worth
+	 * indexing, or the builder could not index it
+	 */
+	/* package */ <T> T getAreaIndex(int sheetIndex, AreaEval area, AreaIndexBuilder<T> builder,
+			EvaluationTracker tracker) {
+
+		AreaIndexCacheEntry entry = _cache.getOrCreateAreaIndexEntry(_workbookIx, sheetIndex, area, builder);
+		if (entry == null) {
+			return null;
+		}
+		FormulaCellCacheEntry cce = entry.getCacheEntry();
+		if (!entry.isValid()) {
+			// The index is built like a formula reading every cell of the area,
+			// so that its entry becomes a consumer of all those cells
+			if (!tracker.startEvaluate(cce)) {
+				// Already building this index further up, the area refers back to itself
+				return null;
+			}
+			T index;
+			try {
+				index = builder.build(area);
+				if (index != null) {
+					entry.setIndex(index);
+					// any value will do, as long as it is not null
+					tracker.updateCacheResult(BoolEval.TRUE);
+				}
+			} finally {
+				tracker.endEvaluate(cce);
+			}
+			if (index == null) {
+				return null;
+			}
+		}
+		tracker.acceptFormulaDependency(cce);
+		@SuppressWarnings("unchecked")
+		T result = (T) entry.getIndex();
+		return result;
+	}
+
 	public FreeRefFunction findUserDefinedFunction(String functionName) {
 		return _udfFinder.findFunction(functionName);
 	}
@@ -139,6 +139,14 @@ final class ForkedEvaluationWorkbook implements EvaluationWorkbook {
         return _masterBook.getUDFFinder();
     }
 
+	public void clearAllCachedResultValues() {
+		// the master workbook is shared by other forked evaluators and is never modified,
+		// so anything it has cached remains valid
+	}
+	public void notifyUpdateCell(EvaluationCell cell) {
+		// only values of the forked cells can be updated, see above
+	}
+
 	private static final class OrderedSheet implements Comparable<OrderedSheet> {
 		private final String _sheetName;
 		private final int _index;
@@ -41,11 +41,40 @@ final class CountUtils {
     public interface I_MatchAreaPredicate extends I_MatchPredicate {
         boolean matches(TwoDEval x, int rowIndex, int columnIndex);
     }
+	/**
+	 * Matching criteria which can look up the matching cells of a large range in its
+	 * {@link CriteriaIndex}, instead of testing each cell.
+	 */
+	public interface I_IndexedMatchPredicate extends I_MatchPredicate {
+		/**
+		 * @param areaEval the range, which is large enough to be indexed
+		 * @return the positions (<tt>row * width + column</tt>) of the matching cells in
+		 * ascending order, or <code>null</code> if the index is of no use for this criteria
+		 */
+		int[] findMatches(TwoDEval areaEval);
+	}
+
+	/**
+	 * @return the positions (<tt>row * width + column</tt>) of the cells in the range that
+	 * match the specified criteria, in ascending order, or <code>null</code> if they can only
+	 * be found by testing each cell
+	 */
+	public static int[] findMatchingCells(TwoDEval areaEval, I_MatchPredicate criteriaPredicate) {
+		if (criteriaPredicate instanceof I_IndexedMatchPredicate
+				&& (long) areaEval.getHeight() * areaEval.getWidth() >= CriteriaIndex.MIN_INDEXED_SIZE) {
+			return ((I_IndexedMatchPredicate) criteriaPredicate).findMatches(areaEval);
+		}
+		return null;
+	}
 
 	/**
 	 * @return the number of evaluated cells in the range that match the specified criteria
 	 */
 	public static int countMatchingCellsInArea(TwoDEval areaEval, I_MatchPredicate criteriaPredicate) {
+		int[] matches = findMatchingCells(areaEval, criteriaPredicate);
+		if (matches != null) {
+			return matches.length;
+		}
 		int result = 0;
 
 		int height = areaEval.getHeight();
@@ -28,6 +28,7 @@ import org.apache.poi.ss.formula.eval.OperandResolver;
 import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.StringEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.functions.CountUtils.I_IndexedMatchPredicate;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchPredicate;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.usermodel.ErrorConstants;
@@ -177,7 +178,7 @@ public final class Countif extends Fixed2ArgFunction {
 		protected abstract String getValueText();
 	}
 
-	private static final class NumberMatcher extends MatcherBase {
+	private static final class NumberMatcher extends MatcherBase implements I_IndexedMatchPredicate {
 
 		private final double _value;
 
@@ -231,8 +232,34 @@ public final class Countif extends Fixed2ArgFunction {
 			}
 			return evaluate(Double.compare(testValue, _value));
 		}
+
+		public int[] findMatches(TwoDEval areaEval) {
+			switch (getCode()) {
+				case CmpOp.NONE:
+				case CmpOp.EQ:
+				case CmpOp.LT:
+				case CmpOp.LE:
+				case CmpOp.GT:
+				case CmpOp.GE:
+					break;
+				default:
+					// '<>' matches text and blank cells as well
+					return null;
+			}
+			CriteriaIndex index = CriteriaIndex.getIndex(areaEval);
+			if (index == null) {
+				return null;
+			}
+			switch (getCode()) {
+				case CmpOp.LT: return index.findNumbersBelow(_value, false);
+				case CmpOp.LE: return index.findNumbersBelow(_value, true);
+				case CmpOp.GT: return index.findNumbersAbove(_value, false);
+				case CmpOp.GE: return index.findNumbersAbove(_value, true);
+			}
+			return index.findNumber(_value);
+		}
 	}
-	private static final class BooleanMatcher extends MatcherBase {
+	private static final class BooleanMatcher extends MatcherBase implements I_IndexedMatchPredicate {
 
 		private final int _value;
 
@@ -288,6 +315,21 @@ public final class Countif extends Fixed2ArgFunction {
 			}
 			return evaluate(testValue - _value);
 		}
+
+		public int[] findMatches(TwoDEval areaEval) {
+			switch (getCode()) {
+				case CmpOp.NONE:
+				case CmpOp.EQ:
+					break;
+				default:
+					return null;
+			}
+			CriteriaIndex index = CriteriaIndex.getIndex(areaEval);
+			if (index == null) {
+				return null;
+			}
+			return index.findValue(BoolEval.valueOf(_value == 1));
+		}
 	}
 	private static final class ErrorMatcher extends MatcherBase {
 
@@ -310,7 +352,7 @@ public final class Countif extends Fixed2ArgFunction {
 			return false;
 		}
 	}
-	public static final class StringMatcher extends MatcherBase {
+	public static final class StringMatcher extends MatcherBase implements I_IndexedMatchPredicate {
 
 		private final String _value;
 		private final Pattern _pattern;
@@ -375,6 +417,25 @@ public final class Countif extends Fixed2ArgFunction {
             // for example, the string "apples" and the string "APPLES" will match the same cells.
 			return evaluate(testedValue.compareToIgnoreCase(_value));
 		}
+
+		public int[] findMatches(TwoDEval areaEval) {
+			switch (getCode()) {
+				case CmpOp.NONE:
+				case CmpOp.EQ:
+					break;
+				default:
+					return null;
+			}
+			if (_pattern != null || _value.length() < 1) {
+				// wildcards and the empty string criteria are left to matches()
+				return null;
+			}
+			CriteriaIndex index = CriteriaIndex.getIndex(areaEval);
+			if (index == null) {
+				return null;
+			}
+			return index.findValue(new StringEval(_value));
+		}
 		/**
 		 * Translates Excel countif wildcard strings into java regex strings
 		 * @return <code>null</code> if the specified value contains no special wildcard characters.
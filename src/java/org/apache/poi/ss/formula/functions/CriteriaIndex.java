@@ -0,0 +1,301 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula.functions;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.poi.ss.formula.AreaIndexBuilder;
+import org.apache.poi.ss.formula.IndexableAreaEval;
+import org.apache.poi.ss.formula.TwoDEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.OperandResolver;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.util.IntList;
+
+/**
+ * Index of the values of a criteria range, as used by COUNTIF, SUMIF and SUMIFS.<p/>
+ *
+ * The cells of the range are identified by their position <tt>row * width + column</tt>,
+ * relative to the top left corner. For each distinct number, string (ignoring case) and
+ * boolean value the index holds the positions where it occurs, and the numbers are also
+ * kept sorted, so that the cells matching a simple criteria are found without testing
+ * every cell.  The index is cached by the evaluator until any cell of the range changes.
+ * A range is only indexed when it is searched again, so that the expanding ranges of
+ * running counts like <tt>COUNTIF($A$1:A5,A5)</tt> are just scanned.
+ *
+ * @see CountUtils.I_IndexedMatchPredicate
+ */
+final class CriteriaIndex {
+
+	/**
+	 * Ranges with fewer cells than this are just scanned
+	 */
+	static final int MIN_INDEXED_SIZE = 16;
+
+	private static final int[] NO_POSITIONS = { };
+
+	private static final AreaIndexBuilder<CriteriaIndex> BUILDER = new AreaIndexBuilder<CriteriaIndex>() {
+		public CriteriaIndex build(TwoDEval area) {
+			return create(area);
+		}
+	};
+
+	/** keys are created by {@link LookupUtils#createIndexKey(ValueEval)} */
+	private final Map<Object, int[]> _valuePositions;
+	/** text cells which COUNTIF compares equal to numbers, keyed by the parsed number */
+	private final Map<Double, int[]> _numericTextPositions;
+	/** the number cells, in ascending order of value */
+	private final double[] _sortedNumbers;
+	private final int[] _sortedNumberPositions;
+
+	private CriteriaIndex(Map<Object, int[]> valuePositions, Map<Double, int[]> numericTextPositions,
+			double[] sortedNumbers, int[] sortedNumberPositions) {
+		_valuePositions = valuePositions;
+		_numericTextPositions = numericTextPositions;
+		_sortedNumbers = sortedNumbers;
+		_sortedNumberPositions = sortedNumberPositions;
+	}
+
+	/**
+	 * @return the index of the area, or <code>null</code> if the area is too small or
+	 * not searched often enough to be worth indexing, or cannot be indexed
+	 */
+	public static CriteriaIndex getIndex(TwoDEval area) {
+		if (!(area instanceof IndexableAreaEval)) {
+			return null;
+		}
+		long size = (long) area.getHeight() * area.getWidth();
+		if (size < MIN_INDEXED_SIZE || size > Integer.MAX_VALUE) {
+			return null;
+		}
+		return ((IndexableAreaEval) area).getIndex(BUILDER);
+	}
+
+	private static CriteriaIndex create(TwoDEval area) {
+		int height = area.getHeight();
+		int width = area.getWidth();
+
+		Map<Object, IntList> valuePositions = new HashMap<Object, IntList>();
+		Map<Double, IntList> numericTextPositions = new HashMap<Double, IntList>();
+		IntList numberPositions = new IntList();
+		IntList numberValueIndexes = new IntList();
+		double[] numbers = new double[16];
+
+		for (int r = 0; r < height; r++) {
+			for (int c = 0; c < width; c++) {
+				ValueEval ve = area.getValue(r, c);
+				if (ve == ErrorEval.CIRCULAR_REF_ERROR) {
+					// some cell depends on the formula being evaluated
+					return null;
+				}
+				int position = r * width + c;
+				Object key = LookupUtils.createIndexKey(ve);
+				if (key == null) {
+					continue;
+				}
+				addPosition(valuePositions, key, position);
+				if (ve instanceof NumberEval) {
+					int count = numberPositions.size();
+					if (count == numbers.length) {
+						double[] newNumbers = new double[count * 2];
+						System.arraycopy(numbers, 0, newNumbers, 0, count);
+						numbers = newNumbers;
+					}
+					numbers[count] = ((NumberEval) ve).getNumberValue();
+					numberPositions.add(position);
+					numberValueIndexes.add(count);
+				} else if (ve instanceof StringEval) {
+					Double parsed = OperandResolver.parseDouble(((StringEval) ve).getStringValue());
+					if (parsed != null && !parsed.isNaN()) {
+						addPosition(numericTextPositions, normalize(parsed.doubleValue()), position);
+					}
+				}
+			}
+		}
+
+		// sort the number cells by value, keeping cells of equal value in position order
+		int count = numberPositions.size();
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = Integer.valueOf(numberValueIndexes.get(i));
+		}
+		final double[] values = numbers;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Double.compare(values[a.intValue()], values[b.intValue()]);
+			}
+		});
+		double[] sortedNumbers = new double[count];
+		int[] sortedNumberPositions = new int[count];
+		for (int i = 0; i < count; i++) {
+			int ix = order[i].intValue();
+			sortedNumbers[i] = numbers[ix];
+			sortedNumberPositions[i] = numberPositions.get(ix);
+		}
+
+		return new CriteriaIndex(toArrays(valuePositions), toArrays(numericTextPositions),
+				sortedNumbers, sortedNumberPositions);
+	}
+
+	private static <K> void addPosition(Map<K, IntList> map, K key, int position) {
+		IntList positions = map.get(key);
+		if (positions == null) {
+			positions = new IntList(4);
+			map.put(key, positions);
+		}
+		positions.add(position);
+	}
+
+	private static <K> Map<K, int[]> toArrays(Map<K, IntList> map) {
+		Map<K, int[]> result = new HashMap<K, int[]>(map.size() * 4 / 3 + 1);
+		Iterator<Map.Entry<K, IntList>> it = map.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<K, IntList> entry = it.next();
+			result.put(entry.getKey(), entry.getValue().toArray());
+		}
+		return result;
+	}
+
+	/**
+	 * Text is compared to numbers with <tt>==</tt>, for which zero and negative zero are equal
+	 */
+	private static Double normalize(double value) {
+		return Double.valueOf(value == 0.0 ? 0.0 : value);
+	}
+
+	/**
+	 * @return the positions of the cells equal to the specified string, boolean or number
+	 * value, in ascending order.  Text which parses as a number is not included.
+	 */
+	public int[] findValue(ValueEval value) {
+		Object key = LookupUtils.createIndexKey(value);
+		int[] result = key == null ? null : _valuePositions.get(key);
+		return result == null ? NO_POSITIONS : result;
+	}
+
+	/**
+	 * @return the positions of the number cells equal to <tt>value</tt>, together with those
+	 * of the text cells which parse as that number, in ascending order
+	 */
+	public int[] findNumber(double value) {
+		int[] numbers = findValue(new NumberEval(value));
+		if (Double.isNaN(value)) {
+			return numbers;
+		}
+		int[] text = _numericTextPositions.get(normalize(value));
+		if (text == null) {
+			return numbers;
+		}
+		return merge(numbers, text);
+	}
+
+	/**
+	 * @return the positions of the number cells greater than (or equal to) <tt>value</tt>,
+	 * in ascending order
+	 */
+	public int[] findNumbersAbove(double value, boolean inclusive) {
+		return getNumberPositions(findFirstNumberAbove(value, inclusive), _sortedNumbers.length);
+	}
+
+	/**
+	 * @return the positions of the number cells less than (or equal to) <tt>value</tt>,
+	 * in ascending order
+	 */
+	public int[] findNumbersBelow(double value, boolean inclusive) {
+		return getNumberPositions(0, findFirstNumberAbove(value, !inclusive));
+	}
+
+	/**
+	 * @return the index in the sorted numbers of the first one greater than (or equal to)
+	 * <tt>value</tt>
+	 */
+	private int findFirstNumberAbove(double value, boolean inclusive) {
+		int low = 0;
+		int high = _sortedNumbers.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int cmp = Double.compare(_sortedNumbers[mid], value);
+			if (cmp > 0 || (inclusive && cmp == 0)) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	private int[] getNumberPositions(int fromIndex, int toIndex) {
+		int[] result = new int[toIndex - fromIndex];
+		System.arraycopy(_sortedNumberPositions, fromIndex, result, 0, result.length);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * @return the positions in either of the ascending arrays, in ascending order
+	 */
+	private static int[] merge(int[] a, int[] b) {
+		int[] result = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < a.length && j < b.length) {
+			result[k++] = a[i] < b[j] ? a[i++] : b[j++];
+		}
+		while (i < a.length) {
+			result[k++] = a[i++];
+		}
+		while (j < b.length) {
+			result[k++] = b[j++];
+		}
+		return result;
+	}
+
+	/**
+	 * @return the positions in both of the ascending arrays, in ascending order
+	 */
+	public static int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				result[k++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		if (k == result.length) {
+			return result;
+		}
+		int[] trimmed = new int[k];
+		System.arraycopy(result, 0, trimmed, 0, k);
+		return trimmed;
+	}
+}
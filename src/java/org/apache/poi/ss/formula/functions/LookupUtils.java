@@ -27,8 +27,12 @@ import org.apache.poi.ss.formula.eval.OperandResolver;
 import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.StringEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.AreaIndexBuilder;
+import org.apache.poi.ss.formula.IndexableAreaEval;
 import org.apache.poi.ss.formula.TwoDEval;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -76,6 +80,13 @@ final class LookupUtils {
 		public int getSize() {
 			return _size;
 		}
+		/**
+		 * @return this row as an area which can be indexed, or <code>null</code>
+		 */
+		public IndexableAreaEval getIndexableArea() {
+			TwoDEval row = _tableArray.isRow() ? _tableArray : _tableArray.getRow(_rowIndex);
+			return row instanceof IndexableAreaEval ? (IndexableAreaEval) row : null;
+		}
 	}
 
 	private static final class ColumnVector implements ValueVector {
@@ -105,6 +116,13 @@ final class LookupUtils {
 		public int getSize() {
 			return _size;
 		}
+		/**
+		 * @return this column as an area which can be indexed, or <code>null</code>
+		 */
+		public IndexableAreaEval getIndexableArea() {
+			TwoDEval column = _tableArray.isColumn() ? _tableArray : _tableArray.getColumn(_columnIndex);
+			return column instanceof IndexableAreaEval ? (IndexableAreaEval) column : null;
+		}
 	}
 
 	public static ValueVector createRowVector(TwoDEval tableArray, int relativeRowIndex) {
@@ -461,7 +479,7 @@ final class LookupUtils {
 		if(isRangeLookup) {
 			result = performBinarySearch(vector, lookupComparer);
 		} else {
-			result = lookupIndexOfExactValue(lookupComparer, vector);
+			result = lookupIndexOfExactValue(lookupValue, lookupComparer, vector);
 		}
 		if(result < 0) {
 			throw new EvaluationException(ErrorEval.NA);
@@ -471,13 +489,26 @@ final class LookupUtils {
 
 
 	/**
-	 * Finds first (lowest index) exact occurrence of specified value.
+	 * Finds first (lowest index) exact occurrence of specified value.<p/>
+	 *
+	 * Unless the lookup value has wildcards, large vectors are searched through an index
+	 * of their values, which is cached by the evaluator until the vector cells change.
+	 *
+	 * @param lookupValue the value to be found, which <tt>lookupComparer</tt> was created for
 	 * @param lookupComparer the value to be found in column or row vector
 	 * @param vector the values to be searched. For VLOOKUP this is the first column of the
 	 * 	tableArray. For HLOOKUP this is the first row of the tableArray.
 	 * @return zero based index into the vector, -1 if value cannot be found
 	 */
-	private static int lookupIndexOfExactValue(LookupValueComparer lookupComparer, ValueVector vector) {
+	static int lookupIndexOfExactValue(ValueEval lookupValue, LookupValueComparer lookupComparer,
+			ValueVector vector) {
+
+		Map<Object, Integer> index = getExactValueIndex(lookupValue, vector);
+		if (index != null) {
+			ValueEval keyValue = lookupValue == BlankEval.instance ? NumberEval.ZERO : lookupValue;
+			Integer result = index.get(createIndexKey(keyValue));
+			return result == null ? -1 : result.intValue();
+		}
 
 		// find first occurrence of lookup value
 		int size = vector.getSize();
@@ -489,6 +520,87 @@ final class LookupUtils {
 		return -1;
 	}
 
+	/**
+	 * Vectors shorter than this are just scanned for exact matches
+	 */
+	private static final int MIN_INDEXED_SIZE = 16;
+
+	/**
+	 * Maps each value of a single row or column area to the position of its first occurrence
+	 */
+	private static final AreaIndexBuilder<Map<Object, Integer>> EXACT_VALUE_INDEX_BUILDER =
+			new AreaIndexBuilder<Map<Object, Integer>>() {
+		public Map<Object, Integer> build(TwoDEval area) {
+			ValueVector vector = createVector(area);
+			int size = vector.getSize();
+			Map<Object, Integer> result = new HashMap<Object, Integer>(size * 4 / 3 + 1);
+			for (int i = 0; i < size; i++) {
+				ValueEval item = vector.getItem(i);
+				if (item == ErrorEval.CIRCULAR_REF_ERROR) {
+					// some cell depends on the formula being evaluated
+					return null;
+				}
+				Object key = createIndexKey(item);
+				if (key != null && !result.containsKey(key)) {
+					result.put(key, Integer.valueOf(i));
+				}
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * @return <code>null</code> if the vector should be scanned instead
+	 */
+	private static Map<Object, Integer> getExactValueIndex(ValueEval lookupValue, ValueVector vector) {
+		if (vector.getSize() < MIN_INDEXED_SIZE) {
+			return null;
+		}
+		if (lookupValue instanceof StringEval) {
+			String stringValue = ((StringEval) lookupValue).getStringValue();
+			if (Countif.StringMatcher.getWildCardPattern(stringValue) != null) {
+				return null;
+			}
+		}
+		IndexableAreaEval area;
+		if (vector instanceof ColumnVector) {
+			area = ((ColumnVector) vector).getIndexableArea();
+		} else if (vector instanceof RowVector) {
+			area = ((RowVector) vector).getIndexableArea();
+		} else {
+			area = null;
+		}
+		if (area == null) {
+			return null;
+		}
+		return area.getIndex(EXACT_VALUE_INDEX_BUILDER);
+	}
+
+	/**
+	 * Creates the key of a value for the exact value index. Keys are equal when the
+	 * lookup comparers would find the values equal.
+	 *
+	 * @return <code>null</code> for values which are never matched
+	 */
+	static Object createIndexKey(ValueEval value) {
+		Class<? extends ValueEval> cls = value.getClass();
+		if (cls == NumberEval.class) {
+			return Double.valueOf(((NumberEval) value).getNumberValue());
+		}
+		if (cls == StringEval.class) {
+			// fold case the same way as String.compareToIgnoreCase()
+			char[] chars = ((StringEval) value).getStringValue().toCharArray();
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+			}
+			return new String(chars);
+		}
+		if (cls == BoolEval.class) {
+			return Boolean.valueOf(((BoolEval) value).getBooleanValue());
+		}
+		return null;
+	}
+
 
 	/**
 	 * Encapsulates some standard binary search functionality so the unusual Excel behaviour can
@@ -78,6 +78,13 @@ public final class Sumif extends Var2or3ArgFunction {
 		int width= aeRange.getWidth();
 
 		double result = 0.0;
+		int[] matches = CountUtils.findMatchingCells(aeRange, mp);
+		if (matches != null) {
+			for (int i=0; i<matches.length; i++) {
+				result += accumulate(aeSum, matches[i] / width, matches[i] % width);
+			}
+			return result;
+		}
 		for (int r=0; r<height; r++) {
 			for (int c=0; c<width; c++) {
 				result += accumulate(aeRange, mp, aeSum, r, c);
@@ -92,6 +99,10 @@ public final class Sumif extends Var2or3ArgFunction {
 		if (!mp.matches(aeRange.getRelativeValue(relRowIndex, relColIndex))) {
 			return 0.0;
 		}
+		return accumulate(aeSum, relRowIndex, relColIndex);
+	}
+
+	private static double accumulate(AreaEval aeSum, int relRowIndex, int relColIndex) {
 		ValueEval addend = aeSum.getRelativeValue(relRowIndex, relColIndex);
 		if (addend instanceof NumberEval) {
 			return ((NumberEval)addend).getNumberValue();
@@ -100,22 +100,21 @@ public final class Sumifs implements FreeRefFunction {
         int width = aeSum.getWidth();
 
         double result = 0.0;
+        int[] candidates = findIndexedMatches(ranges, predicates);
+        if (candidates != null) {
+            for (int i = 0; i < candidates.length; i++) {
+                int r = candidates[i] / width;
+                int c = candidates[i] % width;
+                if (matchesAll(ranges, predicates, r, c)) {
+                    result += accumulate(aeSum, r, c);
+                }
+            }
+            return result;
+        }
         for (int r = 0; r < height; r++) {
             for (int c = 0; c < width; c++) {
 
-                boolean matches = true;
-                for(int i = 0; i < ranges.length; i++){
-                    AreaEval aeRange = ranges[i];
-                    I_MatchPredicate mp = predicates[i];
-
-                    if (!mp.matches(aeRange.getRelativeValue(r, c))) {
-                        matches = false;
-                        break;
-                    }
-
-                }
-
-                if(matches) { // sum only if all of the corresponding criteria specified are true for that cell.
+                if(matchesAll(ranges, predicates, r, c)) { // sum only if all of the corresponding criteria specified are true for that cell.
                     result += accumulate(aeSum, r, c);
                 }
             }
@@ -123,6 +122,37 @@ public final class Sumifs implements FreeRefFunction {
         return result;
     }
 
+    /**
+     * Looks up the cells matching each criteria which can use the index of its range,
+     * and keeps the cells matching all of them.
+     *
+     * @return the positions (<code>row * width + column</code>) of the candidate cells in
+     * ascending order, or <code>null</code> if no criteria could use an index
+     */
+    private static int[] findIndexedMatches(AreaEval[] ranges, I_MatchPredicate[] predicates) {
+        int[] result = null;
+        for(int i = 0; i < ranges.length; i++){
+            int[] matches = CountUtils.findMatchingCells(ranges[i], predicates[i]);
+            if (matches != null) {
+                result = result == null ? matches : CriteriaIndex.intersect(result, matches);
+            }
+        }
+        return result;
+    }
+
+    private static boolean matchesAll(AreaEval[] ranges, I_MatchPredicate[] predicates, int relRowIndex,
+            int relColIndex) {
+        for(int i = 0; i < ranges.length; i++){
+            AreaEval aeRange = ranges[i];
+            I_MatchPredicate mp = predicates[i];
+
+            if (!mp.matches(aeRange.getRelativeValue(relRowIndex, relColIndex))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 	private static double accumulate(AreaEval aeSum, int relRowIndex,
 			int relColIndex) {
 
@@ -0,0 +1,270 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.ss.usermodel;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.Format;
+import java.text.ParsePosition;
+
+/**
+ * A plain (not scientific) {@link DecimalFormat} pattern, compiled so that
+ *  numbers are written straight into a <tt>StringBuilder</tt>, without
+ *  the intermediate digit lists and Strings of <tt>DecimalFormat</tt>.
+ * <p>
+ * The prefixes, suffixes, digit counts, grouping, multiplier and symbols
+ *  are all taken from the <tt>DecimalFormat</tt>, so the output is exactly
+ *  what it would produce. Only values which can be rounded reliably with
+ *  <tt>double</tt> arithmetic are formatted by this class, that is those
+ *  below 10<sup>14</sup> once scaled by the fraction digits, and not close
+ *  to a rounding tie. The rest are passed on to the <tt>DecimalFormat</tt>.
+ * </p>
+ * <p>
+ * Instances are immutable, and the <tt>DecimalFormat</tt> is only used
+ *  while holding its lock, so they can be shared between threads.
+ * </p>
+ */
+final class CompiledNumberFormat extends Format {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Scaled values must stay below this, so that their error after the
+     *  multiplication is well under {@link #TIE_MARGIN}, and so that the
+     *  digits kept are no more than <tt>DecimalFormat</tt> itself keeps
+     */
+    private static final double LIMIT = 1e14;
+
+    /**
+     * Scaled values whose fraction is this close to one half are rounded
+     *  by the <tt>DecimalFormat</tt>
+     */
+    private static final double TIE_MARGIN = 0.01;
+
+    private static final int MAX_FRACTION_DIGITS = 15;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_FRACTION_DIGITS + 1];
+    static {
+        long power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+    }
+
+    private final DecimalFormat format;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final int multiplier;
+    private final int minIntegerDigits;
+    private final int minFractionDigits;
+    private final int maxFractionDigits;
+    /** zero if grouping is not used */
+    private final int groupingSize;
+    private final boolean decimalSeparatorAlwaysShown;
+    private final char zeroDigit;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+
+    private CompiledNumberFormat(DecimalFormat format, DecimalFormatSymbols symbols) {
+        this.format = format;
+        positivePrefix = format.getPositivePrefix();
+        positiveSuffix = format.getPositiveSuffix();
+        negativePrefix = format.getNegativePrefix();
+        negativeSuffix = format.getNegativeSuffix();
+        multiplier = format.getMultiplier();
+        minIntegerDigits = format.getMinimumIntegerDigits();
+        minFractionDigits = format.getMinimumFractionDigits();
+        maxFractionDigits = format.getMaximumFractionDigits();
+        groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+        decimalSeparatorAlwaysShown = format.isDecimalSeparatorAlwaysShown();
+        zeroDigit = symbols.getZeroDigit();
+        groupingSeparator = symbols.getGroupingSeparator();
+        decimalSeparator = symbols.getDecimalSeparator();
+    }
+
+    /**
+     * Compiles the pattern of the given format. The format must not be
+     *  changed afterwards.
+     *
+     * @return the compiled format, or <code>null</code> if the pattern uses
+     *  features which are not supported, such as scientific notation,
+     *  currency symbols or rounding other than half up or half even
+     */
+    public static CompiledNumberFormat compile(DecimalFormat format) {
+        if (format.getClass() != DecimalFormat.class) {
+            return null;
+        }
+        String pattern = format.toPattern();
+        if (pattern.indexOf('E') >= 0 || pattern.indexOf('\u00A4') >= 0) {
+            return null;
+        }
+        if (format.getMultiplier() == 0
+                || format.getMaximumIntegerDigits() < 15
+                || format.getMinimumIntegerDigits() > 15
+                || format.getMaximumFractionDigits() > MAX_FRACTION_DIGITS
+                || (format.isGroupingUsed() && format.getGroupingSize() <= 0)) {
+            return null;
+        }
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        if (!isRoundingSupported(format, symbols.getZeroDigit())) {
+            return null;
+        }
+        return new CompiledNumberFormat(format, symbols);
+    }
+
+    /**
+     * Checks that ties are rounded away from zero or to the even neighbour,
+     *  the modes which DataFormatter uses. Both leave values that are not
+     *  ties rounded to the nearest digit.
+     */
+    private static boolean isRoundingSupported(DecimalFormat format, char zeroDigit) {
+        DecimalFormat probe = (DecimalFormat) format.clone();
+        probe.setMultiplier(1);
+        probe.setGroupingUsed(false);
+        probe.setPositivePrefix("");
+        probe.setPositiveSuffix("");
+        probe.setMinimumIntegerDigits(1);
+        probe.setMinimumFractionDigits(0);
+        probe.setMaximumFractionDigits(0);
+        probe.setDecimalSeparatorAlwaysShown(false);
+        StringBuilder actual = new StringBuilder();
+        actual.append(probe.format(0.5)).append(probe.format(1.5)).append(probe.format(2.5));
+        actual.append(probe.format(0.4)).append(probe.format(0.6));
+        for (int i = 0; i < actual.length(); i++) {
+            actual.setCharAt(i, (char) ('0' + actual.charAt(i) - zeroDigit));
+        }
+        return "12301".equals(actual.toString()) || "02201".equals(actual.toString());
+    }
+
+    /**
+     * Appends the formatted value, as {@link DecimalFormat#format(double)}
+     *  would return it
+     */
+    public void append(double value, StringBuilder out) {
+        if (!Double.isNaN(value)) {
+            boolean negative = ((value < 0.0) || (value == 0.0 && 1 / value < 0.0)) ^ (multiplier < 0);
+            double number = value;
+            if (multiplier != 1) {
+                number *= multiplier;
+            }
+            if (appendNumber(Math.abs(number), negative, out)) {
+                return;
+            }
+        }
+        String result;
+        synchronized (format) {
+            result = format.format(value);
+        }
+        out.append(result);
+    }
+
+    /**
+     * @return <code>false</code> if the number could not be formatted
+     *  reliably, in which case nothing has been appended
+     */
+    private boolean appendNumber(double number, boolean negative, StringBuilder out) {
+        if (!(number < LIMIT)) {
+            // also infinity
+            return false;
+        }
+        int scale = maxFractionDigits;
+        while (scale > 0 && number * POWERS_OF_TEN[scale] >= LIMIT) {
+            scale--;
+        }
+        double scaled = number * POWERS_OF_TEN[scale];
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        long units;
+        if (fraction < 0.5 - TIE_MARGIN) {
+            units = (long) floor;
+        } else if (fraction > 0.5 + TIE_MARGIN) {
+            units = (long) floor + 1;
+        } else {
+            return false;
+        }
+        if (scale < maxFractionDigits && units / (double) POWERS_OF_TEN[scale] != number) {
+            // DecimalFormat would show more digits than can be trusted
+            return false;
+        }
+
+        long integerPart = units / POWERS_OF_TEN[scale];
+        long fractionPart = units % POWERS_OF_TEN[scale];
+        // drop the trailing zeros of the fraction, down to the minimum
+        int fractionDigits = scale;
+        while (fractionDigits > minFractionDigits && fractionPart % 10 == 0) {
+            fractionPart /= 10;
+            fractionDigits--;
+        }
+
+        out.append(negative ? negativePrefix : positivePrefix);
+        int integerDigits = countDigits(integerPart);
+        int count = Math.max(minIntegerDigits, integerDigits);
+        for (int i = count - 1; i >= 0; i--) {
+            int digit = i < integerDigits ? (int) (integerPart / POWERS_OF_TEN[i] % 10) : 0;
+            out.append((char) (zeroDigit + digit));
+            if (groupingSize > 0 && i > 0 && i % groupingSize == 0) {
+                out.append(groupingSeparator);
+            }
+        }
+        boolean fractionPresent = minFractionDigits > 0 || fractionDigits > 0;
+        if (count == 0 && !fractionPresent) {
+            out.append(zeroDigit);
+        }
+        if (decimalSeparatorAlwaysShown || fractionPresent) {
+            out.append(decimalSeparator);
+        }
+        for (int i = fractionDigits - 1; i >= 0; i--) {
+            out.append((char) (zeroDigit + (int) (fractionPart / POWERS_OF_TEN[i] % 10)));
+        }
+        for (int i = fractionDigits; i < minFractionDigits; i++) {
+            out.append(zeroDigit);
+        }
+        out.append(negative ? negativeSuffix : positiveSuffix);
+        return true;
+    }
+
+    /**
+     * @return the number of digits of a non negative value, none for zero
+     */
+    private static int countDigits(long value) {
+        int result = 0;
+        while (result < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[result]) {
+            result++;
+        }
+        return result;
+    }
+
+    public StringBuffer format(Object obj, StringBuffer toAppendTo, FieldPosition pos) {
+        if (obj instanceof Double || obj instanceof Float) {
+            StringBuilder sb = new StringBuilder();
+            append(((Number) obj).doubleValue(), sb);
+            return toAppendTo.append(sb);
+        }
+        synchronized (format) {
+            return format.format(obj, toAppendTo, pos);
+        }
+    }
+
+    public Object parseObject(String source, ParsePosition pos) {
+        synchronized (format) {
+            return format.parseObject(source, pos);
+        }
+    }
+}
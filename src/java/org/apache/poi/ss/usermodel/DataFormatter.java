@@ -167,6 +167,12 @@ public class DataFormatter {
      */
     private final Map<String,Format> formats;
 
+    /**
+     * A map to cache whether format strings are date formats, as checking
+     *  that takes several regular expressions.
+     */
+    private final Map<String,Boolean> dateFormatStrings;
+
     private boolean emulateCsv = false;
 
     /**
@@ -202,10 +208,11 @@ public class DataFormatter {
     public DataFormatter(Locale locale) {
         dateSymbols = new DateFormatSymbols(locale);
         decimalSymbols = new DecimalFormatSymbols(locale);
-        generalWholeNumFormat = new DecimalFormat("#", decimalSymbols);
-        generalDecimalNumFormat = new DecimalFormat("#.##########", decimalSymbols);
+        generalWholeNumFormat = compileNumberFormat(new DecimalFormat("#", decimalSymbols));
+        generalDecimalNumFormat = compileNumberFormat(new DecimalFormat("#.##########", decimalSymbols));
 
         formats = new HashMap<String,Format>();
+        dateFormatStrings = new HashMap<String,Boolean>();
 
         // init built-in formats
 
@@ -619,7 +626,7 @@ public class DataFormatter {
         try {
             DecimalFormat df = new DecimalFormat(format, decimalSymbols);
             setExcelStyleRoundingMode(df);
-            return df;
+            return compileNumberFormat(df);
         } catch(IllegalArgumentException iae) {
 
             // the pattern could not be parsed correctly,
@@ -628,6 +635,51 @@ public class DataFormatter {
         }
     }
 
+    /**
+     * @return the compiled form of the format, which appends numbers without
+     *  creating intermediate Strings, or the format itself if its pattern
+     *  is not supported by {@link CompiledNumberFormat}
+     */
+    private static Format compileNumberFormat(DecimalFormat format) {
+        Format compiled = CompiledNumberFormat.compile(format);
+        return compiled == null ? format : compiled;
+    }
+
+    /**
+     * Same as {@link DateUtil#isADateFormat(int, String)}, but remembers
+     *  the result for each format string.
+     */
+    private boolean isADateFormat(int formatIndex, String formatString) {
+        if (DateUtil.isInternalDateFormat(formatIndex)) {
+            return true;
+        }
+        if (formatString == null) {
+            return false;
+        }
+        Boolean result = dateFormatStrings.get(formatString);
+        if (result == null) {
+            // -1 is not an internal format, so only the string is checked
+            result = Boolean.valueOf(DateUtil.isADateFormat(-1, formatString));
+            dateFormatStrings.put(formatString, result);
+        }
+        return result.booleanValue();
+    }
+
+    /**
+     * Same as {@link DateUtil#isCellDateFormatted(Cell)}, but remembers
+     *  which format strings are date formats.
+     */
+    private boolean isCellDateFormatted(Cell cell) {
+        if (!DateUtil.isValidExcelDate(cell.getNumericCellValue())) {
+            return false;
+        }
+        CellStyle style = cell.getCellStyle();
+        if (style == null) {
+            return false;
+        }
+        return isADateFormat(style.getDataFormat(), style.getDataFormatString());
+    }
+
     /**
      * Return true if the double value represents a whole number
      * @param d the double value to check
@@ -722,8 +774,27 @@ public class DataFormatter {
      * @see #formatCellValue(Cell)
      */
     public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+        StringBuilder result = new StringBuilder();
+        formatRawCellContents(value, formatIndex, formatString, use1904Windowing, result);
+        return result.toString();
+    }
+
+    /**
+     * Formats the given raw cell value, based on the supplied
+     *  format index and string, according to excel style rules,
+     *  and appends the result to the given buffer.
+     * <p>
+     * The plain number formats which most cells use are compiled
+     *  when they are first seen, and then write their digits straight
+     *  into the buffer, so this is the cheapest way to format many
+     *  values, such as when exporting a sheet.
+     * </p>
+     * @see #formatRawCellContents(double, int, String, boolean)
+     */
+    public void formatRawCellContents(double value, int formatIndex, String formatString,
+            boolean use1904Windowing, StringBuilder out) {
         // Is it a date?
-        if(DateUtil.isADateFormat(formatIndex,formatString)) {
+        if(isADateFormat(formatIndex,formatString)) {
             if(DateUtil.isValidExcelDate(value)) {
                 Format dateFormat = getFormat(value, formatIndex, formatString);
                 if(dateFormat instanceof ExcelStyleDateFormatter) {
@@ -731,24 +802,32 @@ public class DataFormatter {
                    ((ExcelStyleDateFormatter)dateFormat).setDateToBeFormatted(value);
                 }
                 Date d = DateUtil.getJavaDate(value, use1904Windowing);
-                return performDateFormatting(d, dateFormat);
+                out.append(performDateFormatting(d, dateFormat));
+                return;
             }
              // RK: Invalid dates are 255 #s.
              if (emulateCsv) {
-                 return invalidDateTimeString;
+                 out.append(invalidDateTimeString);
+                 return;
              }
         }
         // else Number
             Format numberFormat = getFormat(value, formatIndex, formatString);
             if (numberFormat == null) {
-                return String.valueOf(value);
+                out.append(value);
+                return;
+            }
+            if (numberFormat instanceof CompiledNumberFormat) {
+                // never uses scientific notation
+                ((CompiledNumberFormat)numberFormat).append(value, out);
+                return;
             }
             // RK: This hack handles scientific notation by adding the missing + back.
             String result = numberFormat.format(new Double(value));
             if (result.contains("E") && !result.contains("E-")) {
                 result = result.replaceFirst("E", "E+");
             }
-            return result;
+            out.append(result);
     }
 
     /**
@@ -801,7 +880,7 @@ public class DataFormatter {
         switch (cellType) {
             case Cell.CELL_TYPE_NUMERIC :
 
-                if (DateUtil.isCellDateFormatted(cell)) {
+                if (isCellDateFormatted(cell)) {
                     return getFormattedDateString(cell);
                 }
                 return getFormattedNumberString(cell);
@@ -0,0 +1,137 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.EvaluationCell;
+import org.apache.poi.ss.formula.EvaluationName;
+import org.apache.poi.ss.formula.EvaluationWorkbook;
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalName;
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheet;
+import org.apache.poi.ss.formula.ExternSheetReferenceToken;
+import org.apache.poi.ss.formula.FormulaParsingWorkbook;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.NameXPtg;
+import org.apache.poi.ss.formula.ptg.OperandPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.Cell;
+
+/**
+ * Copies the formula tokens of a workbook while a snapshot is created, and
+ *  resolves the external sheets and names they refer to, so that the
+ *  snapshot can be evaluated without the workbook.
+ */
+final class FormulaCapture {
+
+    private final EvaluationWorkbook source;
+    final Map<Integer, ExternalSheet> externalSheets = new HashMap<Integer, ExternalSheet>();
+    final Map<Integer, Integer> sheetIndexes = new HashMap<Integer, Integer>();
+    final Map<Long, ExternalName> externalNames = new HashMap<Long, ExternalName>();
+    final Map<Long, String> nameXTexts = new HashMap<Long, String>();
+
+    FormulaCapture(EvaluationWorkbook source) {
+        this.source = source;
+    }
+
+    static Long getNameXKey(int sheetRefIndex, int nameIndex) {
+        return Long.valueOf(((long) sheetRefIndex << 32) | (nameIndex & 0xFFFFFFFFL));
+    }
+
+    UDFFinder getUDFFinder() {
+        return source.getUDFFinder();
+    }
+
+    SpreadsheetVersion getSpreadsheetVersion() {
+        if (source instanceof FormulaParsingWorkbook) {
+            return ((FormulaParsingWorkbook) source).getSpreadsheetVersion();
+        }
+        return SpreadsheetVersion.EXCEL97;
+    }
+
+    EvaluationName getName(int nameIndex) {
+        return source.getName(new NamePtg(nameIndex));
+    }
+
+    /**
+     * @return a copy of the tokens of the given formula cell
+     */
+    Ptg[] getFormulaTokens(Cell cell, int sheetIndex) {
+        EvaluationCell evalCell = source.getSheet(sheetIndex).getCell(cell.getRowIndex(), cell.getColumnIndex());
+        if (evalCell == null || evalCell.getCellType() != Cell.CELL_TYPE_FORMULA) {
+            throw new IllegalArgumentException("The formula of cell " + cell.getRowIndex() + ","
+                    + cell.getColumnIndex() + " of sheet " + sheetIndex + " cannot be read");
+        }
+        return copy(source.getFormulaTokens(evalCell));
+    }
+
+    /**
+     * Copies the tokens which refer to cells, since the workbook changes them in
+     *  place when rows are shifted, and records what they refer to
+     */
+    Ptg[] copy(Ptg[] ptgs) {
+        if (ptgs == null) {
+            return null;
+        }
+        Ptg[] result = new Ptg[ptgs.length];
+        for (int i = 0; i < ptgs.length; i++) {
+            Ptg ptg = ptgs[i];
+            if (ptg instanceof ExternSheetReferenceToken) {
+                addExternSheet(((ExternSheetReferenceToken) ptg).getExternSheetIndex());
+            } else if (ptg instanceof NameXPtg) {
+                addNameX((NameXPtg) ptg);
+            }
+            result[i] = ptg instanceof OperandPtg ? ((OperandPtg) ptg).copy() : ptg;
+        }
+        return result;
+    }
+
+    private void addExternSheet(int externSheetIndex) {
+        Integer key = Integer.valueOf(externSheetIndex);
+        if (externalSheets.containsKey(key)) {
+            return;
+        }
+        ExternalSheet externalSheet = source.getExternalSheet(externSheetIndex);
+        externalSheets.put(key, externalSheet);
+        if (externalSheet == null) {
+            sheetIndexes.put(key, Integer.valueOf(source.convertFromExternSheetIndex(externSheetIndex)));
+        }
+    }
+
+    private void addNameX(NameXPtg ptg) {
+        Long key = getNameXKey(ptg.getSheetRefIndex(), ptg.getNameIndex());
+        if (nameXTexts.containsKey(key)) {
+            return;
+        }
+        addExternSheet(ptg.getSheetRefIndex());
+        if (externalSheets.get(Integer.valueOf(ptg.getSheetRefIndex())) != null) {
+            externalNames.put(key, source.getExternalName(ptg.getSheetRefIndex(), ptg.getNameIndex()));
+        }
+        String text;
+        try {
+            text = source.resolveNameXText(ptg);
+        } catch (RuntimeException e) {
+            // evaluating the name then fails, as it does with the workbook
+            text = null;
+        }
+        nameXTexts.put(key, text);
+    }
+}
@@ -0,0 +1,133 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.BorderFormatting;
+
+/**
+ * The read only copy of the border formatting of a conditional formatting rule of a
+ *  {@link WorkbookSnapshot}
+ */
+final class SnapshotBorderFormatting implements BorderFormatting {
+
+    private final short borderBottom;
+    private final short borderDiagonal;
+    private final short borderLeft;
+    private final short borderRight;
+    private final short borderTop;
+    private final short bottomBorderColor;
+    private final short diagonalBorderColor;
+    private final short leftBorderColor;
+    private final short rightBorderColor;
+    private final short topBorderColor;
+
+    SnapshotBorderFormatting(BorderFormatting formatting) {
+        borderBottom = formatting.getBorderBottom();
+        borderDiagonal = formatting.getBorderDiagonal();
+        borderLeft = formatting.getBorderLeft();
+        borderRight = formatting.getBorderRight();
+        borderTop = formatting.getBorderTop();
+        bottomBorderColor = formatting.getBottomBorderColor();
+        diagonalBorderColor = formatting.getDiagonalBorderColor();
+        leftBorderColor = formatting.getLeftBorderColor();
+        rightBorderColor = formatting.getRightBorderColor();
+        topBorderColor = formatting.getTopBorderColor();
+    }
+
+    public short getBorderBottom() {
+        return borderBottom;
+    }
+
+    public void setBorderBottom(short border) {
+        throw readOnly();
+    }
+
+    public short getBorderDiagonal() {
+        return borderDiagonal;
+    }
+
+    public void setBorderDiagonal(short border) {
+        throw readOnly();
+    }
+
+    public short getBorderLeft() {
+        return borderLeft;
+    }
+
+    public void setBorderLeft(short border) {
+        throw readOnly();
+    }
+
+    public short getBorderRight() {
+        return borderRight;
+    }
+
+    public void setBorderRight(short border) {
+        throw readOnly();
+    }
+
+    public short getBorderTop() {
+        return borderTop;
+    }
+
+    public void setBorderTop(short border) {
+        throw readOnly();
+    }
+
+    public short getBottomBorderColor() {
+        return bottomBorderColor;
+    }
+
+    public void setBottomBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getDiagonalBorderColor() {
+        return diagonalBorderColor;
+    }
+
+    public void setDiagonalBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getLeftBorderColor() {
+        return leftBorderColor;
+    }
+
+    public void setLeftBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getRightBorderColor() {
+        return rightBorderColor;
+    }
+
+    public void setRightBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getTopBorderColor() {
+        return topBorderColor;
+    }
+
+    public void setTopBorderColor(short color) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,342 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.unreadable;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+
+/**
+ * The read only copy of a cell of a {@link WorkbookSnapshot}. The value of
+ *  a formula cell is the result cached in the copied workbook.
+ */
+final class SnapshotCell implements Cell {
+
+    private final SnapshotRow row;
+    private final int columnIndex;
+    private final int cellType;
+    private final int cachedResultType;
+    private final double numericValue;
+    private final SnapshotRichTextString stringValue;
+    private final boolean booleanValue;
+    private final byte errorValue;
+    private final String formula;
+    private final Ptg[] formulaTokens;
+    private final RuntimeException formulaFailure;
+    private final RuntimeException formulaTokensFailure;
+    private final CellRangeAddress arrayFormulaRange;
+    private final SnapshotCellStyle style;
+
+    SnapshotCell(SnapshotRow row, Cell cell, int sheetIndex, FormulaCapture capture) {
+        this.row = row;
+        columnIndex = cell.getColumnIndex();
+        cellType = cell.getCellType();
+        style = getStyle(row.getSnapshot(), cell);
+
+        int valueType = cellType;
+        if (cellType == CELL_TYPE_FORMULA) {
+            cachedResultType = cell.getCachedFormulaResultType();
+            String formulaText = null;
+            RuntimeException failure = null;
+            try {
+                formulaText = cell.getCellFormula();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            formula = formulaText;
+            formulaFailure = failure;
+            Ptg[] tokens = null;
+            failure = null;
+            try {
+                tokens = capture.getFormulaTokens(cell, sheetIndex);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            formulaTokens = tokens;
+            formulaTokensFailure = failure;
+            arrayFormulaRange = cell.isPartOfArrayFormulaGroup() ? cell.getArrayFormulaRange().copy() : null;
+            valueType = cachedResultType;
+        } else {
+            cachedResultType = -1;
+            formula = null;
+            formulaTokens = null;
+            formulaFailure = null;
+            formulaTokensFailure = null;
+            arrayFormulaRange = null;
+        }
+
+        double numeric = 0.0;
+        SnapshotRichTextString string = null;
+        boolean bool = false;
+        byte error = 0;
+        switch (valueType) {
+            case CELL_TYPE_NUMERIC:
+                numeric = cell.getNumericCellValue();
+                break;
+            case CELL_TYPE_STRING:
+                string = cellType == CELL_TYPE_FORMULA
+                        ? new SnapshotRichTextString(cell.getStringCellValue())
+                        : new SnapshotRichTextString(cell.getRichStringCellValue());
+                break;
+            case CELL_TYPE_BOOLEAN:
+                bool = cell.getBooleanCellValue();
+                break;
+            case CELL_TYPE_ERROR:
+                error = cell.getErrorCellValue();
+                break;
+        }
+        numericValue = numeric;
+        stringValue = string;
+        booleanValue = bool;
+        errorValue = error;
+    }
+
+    /**
+     * Creates a blank cell which is not part of its row, as returned for
+     *  {@link Row#CREATE_NULL_AS_BLANK}
+     */
+    SnapshotCell(SnapshotRow row, int columnIndex, SnapshotCellStyle style) {
+        this.row = row;
+        this.columnIndex = columnIndex;
+        this.style = style;
+        cellType = CELL_TYPE_BLANK;
+        cachedResultType = -1;
+        numericValue = 0.0;
+        stringValue = null;
+        booleanValue = false;
+        errorValue = 0;
+        formula = null;
+        formulaTokens = null;
+        formulaFailure = null;
+        formulaTokensFailure = null;
+        arrayFormulaRange = null;
+    }
+
+    private static SnapshotCellStyle getStyle(WorkbookSnapshot snapshot, Cell cell) {
+        try {
+            return snapshot.getStyle(cell.getCellStyle());
+        } catch (RuntimeException e) {
+            // the style is missing from the workbook, and so from the snapshot
+            return null;
+        }
+    }
+
+    Ptg[] getFormulaTokens() {
+        if (formulaTokensFailure != null) {
+            throw unreadable("formula of cell " + this, formulaTokensFailure);
+        }
+        return formulaTokens;
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public int getRowIndex() {
+        return row.getRowNum();
+    }
+
+    public Sheet getSheet() {
+        return row.getSheet();
+    }
+
+    public Row getRow() {
+        return row;
+    }
+
+    public int getCellType() {
+        return cellType;
+    }
+
+    public void setCellType(int cellType) {
+        throw readOnly();
+    }
+
+    public int getCachedFormulaResultType() {
+        if (cellType != CELL_TYPE_FORMULA) {
+            throw new IllegalStateException("Only formula cells have cached results");
+        }
+        return cachedResultType;
+    }
+
+    private static String getCellTypeName(int cellTypeCode) {
+        switch (cellTypeCode) {
+            case CELL_TYPE_BLANK:   return "blank";
+            case CELL_TYPE_STRING:  return "text";
+            case CELL_TYPE_BOOLEAN: return "boolean";
+            case CELL_TYPE_ERROR:   return "error";
+            case CELL_TYPE_NUMERIC: return "numeric";
+            case CELL_TYPE_FORMULA: return "formula";
+        }
+        return "#unknown cell type (" + cellTypeCode + ")#";
+    }
+
+    /**
+     * Checks the type of the value, failing as <code>HSSFCell</code> does
+     *
+     * @return <code>false</code> if the cell is blank
+     */
+    private boolean checkValueType(int expectedTypeCode) {
+        if (cellType == CELL_TYPE_BLANK) {
+            return false;
+        }
+        boolean isFormulaCell = cellType == CELL_TYPE_FORMULA;
+        int actualTypeCode = isFormulaCell ? cachedResultType : cellType;
+        if (actualTypeCode != expectedTypeCode) {
+            throw new IllegalStateException("Cannot get a " + getCellTypeName(expectedTypeCode) + " value from a "
+                    + getCellTypeName(actualTypeCode) + " " + (isFormulaCell ? "formula " : "") + "cell");
+        }
+        return true;
+    }
+
+    public double getNumericCellValue() {
+        return checkValueType(CELL_TYPE_NUMERIC) ? numericValue : 0.0;
+    }
+
+    public Date getDateCellValue() {
+        if (cellType == CELL_TYPE_BLANK) {
+            return null;
+        }
+        return DateUtil.getJavaDate(getNumericCellValue(), row.getSnapshot().isDate1904());
+    }
+
+    public RichTextString getRichStringCellValue() {
+        return checkValueType(CELL_TYPE_STRING) ? stringValue : new SnapshotRichTextString("");
+    }
+
+    public String getStringCellValue() {
+        return checkValueType(CELL_TYPE_STRING) ? stringValue.getString() : "";
+    }
+
+    public boolean getBooleanCellValue() {
+        return checkValueType(CELL_TYPE_BOOLEAN) && booleanValue;
+    }
+
+    public byte getErrorCellValue() {
+        if (cellType == CELL_TYPE_BLANK) {
+            throw new IllegalStateException("Cannot get a error value from a blank cell");
+        }
+        checkValueType(CELL_TYPE_ERROR);
+        return errorValue;
+    }
+
+    public String getCellFormula() {
+        if (cellType != CELL_TYPE_FORMULA) {
+            throw new IllegalStateException("Cannot get a formula value from a "
+                    + getCellTypeName(cellType) + " cell");
+        }
+        if (formulaFailure != null) {
+            throw unreadable("formula of cell " + this, formulaFailure);
+        }
+        return formula;
+    }
+
+    public void setCellValue(double value) {
+        throw readOnly();
+    }
+
+    public void setCellValue(Date value) {
+        throw readOnly();
+    }
+
+    public void setCellValue(Calendar value) {
+        throw readOnly();
+    }
+
+    public void setCellValue(RichTextString value) {
+        throw readOnly();
+    }
+
+    public void setCellValue(String value) {
+        throw readOnly();
+    }
+
+    public void setCellValue(boolean value) {
+        throw readOnly();
+    }
+
+    public void setCellErrorValue(byte value) {
+        throw readOnly();
+    }
+
+    public void setCellFormula(String formula) {
+        throw readOnly();
+    }
+
+    public CellStyle getCellStyle() {
+        return style;
+    }
+
+    public void setCellStyle(CellStyle style) {
+        throw readOnly();
+    }
+
+    public void setAsActiveCell() {
+        throw readOnly();
+    }
+
+    public Comment getCellComment() {
+        return row.getSnapshotSheet().getCellComment(row.getRowNum(), columnIndex);
+    }
+
+    public void setCellComment(Comment comment) {
+        throw readOnly();
+    }
+
+    public void removeCellComment() {
+        throw readOnly();
+    }
+
+    public Hyperlink getHyperlink() {
+        return row.getSnapshotSheet().getHyperlink(row.getRowNum(), columnIndex);
+    }
+
+    public void setHyperlink(Hyperlink link) {
+        throw readOnly();
+    }
+
+    public CellRangeAddress getArrayFormulaRange() {
+        if (arrayFormulaRange == null) {
+            String ref = new CellReference(this).formatAsString();
+            throw new IllegalStateException("Cell " + ref + " is not part of an array formula.");
+        }
+        return arrayFormulaRange.copy();
+    }
+
+    public boolean isPartOfArrayFormulaGroup() {
+        return arrayFormulaRange != null;
+    }
+
+    public String toString() {
+        return new CellReference(this).formatAsString();
+    }
+}
@@ -0,0 +1,259 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.notCopied;
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Color;
+import org.apache.poi.ss.usermodel.Font;
+
+/**
+ * The read only copy of a cell style of a {@link WorkbookSnapshot}
+ */
+final class SnapshotCellStyle implements CellStyle {
+
+    private final short index;
+    private final short dataFormat;
+    private final String dataFormatString;
+    private final short fontIndex;
+    private final boolean hidden;
+    private final boolean locked;
+    private final short alignment;
+    private final boolean wrapText;
+    private final short verticalAlignment;
+    private final short rotation;
+    private final short indention;
+    private final short borderLeft;
+    private final short borderRight;
+    private final short borderTop;
+    private final short borderBottom;
+    private final short leftBorderColor;
+    private final short rightBorderColor;
+    private final short topBorderColor;
+    private final short bottomBorderColor;
+    private final short fillPattern;
+    private final short fillBackgroundColor;
+    private final short fillForegroundColor;
+
+    SnapshotCellStyle(CellStyle style) {
+        index = style.getIndex();
+        dataFormat = style.getDataFormat();
+        dataFormatString = style.getDataFormatString();
+        fontIndex = style.getFontIndex();
+        hidden = style.getHidden();
+        locked = style.getLocked();
+        alignment = style.getAlignment();
+        wrapText = style.getWrapText();
+        verticalAlignment = style.getVerticalAlignment();
+        rotation = style.getRotation();
+        indention = style.getIndention();
+        borderLeft = style.getBorderLeft();
+        borderRight = style.getBorderRight();
+        borderTop = style.getBorderTop();
+        borderBottom = style.getBorderBottom();
+        leftBorderColor = style.getLeftBorderColor();
+        rightBorderColor = style.getRightBorderColor();
+        topBorderColor = style.getTopBorderColor();
+        bottomBorderColor = style.getBottomBorderColor();
+        fillPattern = style.getFillPattern();
+        fillBackgroundColor = style.getFillBackgroundColor();
+        fillForegroundColor = style.getFillForegroundColor();
+    }
+
+    public short getIndex() {
+        return index;
+    }
+
+    public short getDataFormat() {
+        return dataFormat;
+    }
+
+    public String getDataFormatString() {
+        return dataFormatString;
+    }
+
+    public void setDataFormat(short fmt) {
+        throw readOnly();
+    }
+
+    public short getFontIndex() {
+        return fontIndex;
+    }
+
+    public void setFont(Font font) {
+        throw readOnly();
+    }
+
+    public boolean getHidden() {
+        return hidden;
+    }
+
+    public void setHidden(boolean hidden) {
+        throw readOnly();
+    }
+
+    public boolean getLocked() {
+        return locked;
+    }
+
+    public void setLocked(boolean locked) {
+        throw readOnly();
+    }
+
+    public short getAlignment() {
+        return alignment;
+    }
+
+    public void setAlignment(short align) {
+        throw readOnly();
+    }
+
+    public boolean getWrapText() {
+        return wrapText;
+    }
+
+    public void setWrapText(boolean wrapped) {
+        throw readOnly();
+    }
+
+    public short getVerticalAlignment() {
+        return verticalAlignment;
+    }
+
+    public void setVerticalAlignment(short align) {
+        throw readOnly();
+    }
+
+    public short getRotation() {
+        return rotation;
+    }
+
+    public void setRotation(short rotation) {
+        throw readOnly();
+    }
+
+    public short getIndention() {
+        return indention;
+    }
+
+    public void setIndention(short indent) {
+        throw readOnly();
+    }
+
+    public short getBorderLeft() {
+        return borderLeft;
+    }
+
+    public void setBorderLeft(short border) {
+        throw readOnly();
+    }
+
+    public short getBorderRight() {
+        return borderRight;
+    }
+
+    public void setBorderRight(short border) {
+        throw readOnly();
+    }
+
+    public short getBorderTop() {
+        return borderTop;
+    }
+
+    public void setBorderTop(short border) {
+        throw readOnly();
+    }
+
+    public short getBorderBottom() {
+        return borderBottom;
+    }
+
+    public void setBorderBottom(short border) {
+        throw readOnly();
+    }
+
+    public short getLeftBorderColor() {
+        return leftBorderColor;
+    }
+
+    public void setLeftBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getRightBorderColor() {
+        return rightBorderColor;
+    }
+
+    public void setRightBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getTopBorderColor() {
+        return topBorderColor;
+    }
+
+    public void setTopBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getBottomBorderColor() {
+        return bottomBorderColor;
+    }
+
+    public void setBottomBorderColor(short color) {
+        throw readOnly();
+    }
+
+    public short getFillPattern() {
+        return fillPattern;
+    }
+
+    public void setFillPattern(short fp) {
+        throw readOnly();
+    }
+
+    public short getFillBackgroundColor() {
+        return fillBackgroundColor;
+    }
+
+    public void setFillBackgroundColor(short bg) {
+        throw readOnly();
+    }
+
+    public Color getFillBackgroundColorColor() {
+        throw notCopied("colors");
+    }
+
+    public short getFillForegroundColor() {
+        return fillForegroundColor;
+    }
+
+    public void setFillForegroundColor(short bg) {
+        throw readOnly();
+    }
+
+    public Color getFillForegroundColorColor() {
+        throw notCopied("colors");
+    }
+
+    public void cloneStyleFrom(CellStyle source) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,84 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.RichTextString;
+
+/**
+ * The read only copy of a cell comment of a {@link WorkbookSnapshot}
+ */
+final class SnapshotComment implements Comment {
+
+    private final int row;
+    private final int column;
+    private final boolean visible;
+    private final String author;
+    private final SnapshotRichTextString string;
+
+    SnapshotComment(Comment comment) {
+        row = comment.getRow();
+        column = comment.getColumn();
+        visible = comment.isVisible();
+        author = comment.getAuthor();
+        RichTextString text = comment.getString();
+        string = text == null ? null : new SnapshotRichTextString(text);
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void setVisible(boolean visible) {
+        throw readOnly();
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        throw readOnly();
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public void setColumn(int col) {
+        throw readOnly();
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        throw readOnly();
+    }
+
+    public RichTextString getString() {
+        return string;
+    }
+
+    public void setString(RichTextString string) {
+        throw readOnly();
+    }
+}
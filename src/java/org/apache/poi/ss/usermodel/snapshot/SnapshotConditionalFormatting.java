@@ -0,0 +1,135 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.ConditionalFormatting;
+import org.apache.poi.ss.usermodel.ConditionalFormattingRule;
+import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * The read only copy of the conditional formatting of a sheet of a
+ *  {@link WorkbookSnapshot}
+ */
+final class SnapshotConditionalFormatting implements SheetConditionalFormatting {
+
+    private final CellRangeAddress[][] ranges;
+    private final SnapshotConditionalFormattingRule[][] rules;
+
+    SnapshotConditionalFormatting(SheetConditionalFormatting formatting) {
+        int numFormattings = formatting.getNumConditionalFormattings();
+        ranges = new CellRangeAddress[numFormattings][];
+        rules = new SnapshotConditionalFormattingRule[numFormattings][];
+        for (int i = 0; i < numFormattings; i++) {
+            ConditionalFormatting cf = formatting.getConditionalFormattingAt(i);
+            CellRangeAddress[] regions = cf.getFormattingRanges();
+            ranges[i] = new CellRangeAddress[regions.length];
+            for (int j = 0; j < regions.length; j++) {
+                ranges[i][j] = regions[j].copy();
+            }
+            rules[i] = new SnapshotConditionalFormattingRule[cf.getNumberOfRules()];
+            for (int j = 0; j < rules[i].length; j++) {
+                rules[i][j] = new SnapshotConditionalFormattingRule(cf.getRule(j));
+            }
+        }
+    }
+
+    public int getNumConditionalFormattings() {
+        return ranges.length;
+    }
+
+    public ConditionalFormatting getConditionalFormattingAt(int index) {
+        if (index < 0 || index >= ranges.length) {
+            throw new IllegalArgumentException("Specified CF index " + index
+                    + " is outside the allowable range (0.." + (ranges.length - 1) + ")");
+        }
+        return new Formatting(index);
+    }
+
+    public int addConditionalFormatting(CellRangeAddress[] regions, ConditionalFormattingRule rule) {
+        throw readOnly();
+    }
+
+    public int addConditionalFormatting(CellRangeAddress[] regions, ConditionalFormattingRule rule1,
+            ConditionalFormattingRule rule2) {
+        throw readOnly();
+    }
+
+    public int addConditionalFormatting(CellRangeAddress[] regions, ConditionalFormattingRule[] cfRules) {
+        throw readOnly();
+    }
+
+    public int addConditionalFormatting(ConditionalFormatting cf) {
+        throw readOnly();
+    }
+
+    public ConditionalFormattingRule createConditionalFormattingRule(byte comparisonOperation, String formula1,
+            String formula2) {
+        throw readOnly();
+    }
+
+    public ConditionalFormattingRule createConditionalFormattingRule(byte comparisonOperation, String formula) {
+        throw readOnly();
+    }
+
+    public ConditionalFormattingRule createConditionalFormattingRule(String formula) {
+        throw readOnly();
+    }
+
+    public void removeConditionalFormatting(int index) {
+        throw readOnly();
+    }
+
+    /**
+     * One of the conditional formattings, with its ranges and rules
+     */
+    private final class Formatting implements ConditionalFormatting {
+
+        private final int index;
+
+        Formatting(int index) {
+            this.index = index;
+        }
+
+        public CellRangeAddress[] getFormattingRanges() {
+            CellRangeAddress[] result = new CellRangeAddress[ranges[index].length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ranges[index][i].copy();
+            }
+            return result;
+        }
+
+        public int getNumberOfRules() {
+            return rules[index].length;
+        }
+
+        public ConditionalFormattingRule getRule(int idx) {
+            return rules[index][idx];
+        }
+
+        public void setRule(int idx, ConditionalFormattingRule cfRule) {
+            throw readOnly();
+        }
+
+        public void addRule(ConditionalFormattingRule cfRule) {
+            throw readOnly();
+        }
+    }
+}
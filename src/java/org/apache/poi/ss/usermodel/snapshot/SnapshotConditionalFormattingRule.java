@@ -0,0 +1,92 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.BorderFormatting;
+import org.apache.poi.ss.usermodel.ConditionalFormattingRule;
+import org.apache.poi.ss.usermodel.FontFormatting;
+import org.apache.poi.ss.usermodel.PatternFormatting;
+
+/**
+ * The read only copy of a conditional formatting rule of a {@link WorkbookSnapshot}
+ */
+final class SnapshotConditionalFormattingRule implements ConditionalFormattingRule {
+
+    private final byte conditionType;
+    private final byte comparisonOperation;
+    private final String formula1;
+    private final String formula2;
+    private final SnapshotFontFormatting fontFormatting;
+    private final SnapshotBorderFormatting borderFormatting;
+    private final SnapshotPatternFormatting patternFormatting;
+
+    SnapshotConditionalFormattingRule(ConditionalFormattingRule rule) {
+        conditionType = rule.getConditionType();
+        comparisonOperation = rule.getComparisonOperation();
+        formula1 = rule.getFormula1();
+        formula2 = rule.getFormula2();
+        FontFormatting font = rule.getFontFormatting();
+        fontFormatting = font == null ? null : new SnapshotFontFormatting(font);
+        BorderFormatting border = rule.getBorderFormatting();
+        borderFormatting = border == null ? null : new SnapshotBorderFormatting(border);
+        PatternFormatting pattern = rule.getPatternFormatting();
+        patternFormatting = pattern == null ? null : new SnapshotPatternFormatting(pattern);
+    }
+
+    public byte getConditionType() {
+        return conditionType;
+    }
+
+    public byte getComparisonOperation() {
+        return comparisonOperation;
+    }
+
+    public String getFormula1() {
+        return formula1;
+    }
+
+    public String getFormula2() {
+        return formula2;
+    }
+
+    public FontFormatting getFontFormatting() {
+        return fontFormatting;
+    }
+
+    public FontFormatting createFontFormatting() {
+        throw readOnly();
+    }
+
+    public BorderFormatting getBorderFormatting() {
+        return borderFormatting;
+    }
+
+    public BorderFormatting createBorderFormatting() {
+        throw readOnly();
+    }
+
+    public PatternFormatting getPatternFormatting() {
+        return patternFormatting;
+    }
+
+    public PatternFormatting createPatternFormatting() {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,64 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.poi.ss.usermodel.DataFormat;
+
+/**
+ * The data formats of a {@link WorkbookSnapshot}, which are the built in
+ *  formats and those used by its cell styles
+ */
+final class SnapshotDataFormat implements DataFormat {
+
+    private final Map<Short, String> formats;
+    private final Map<String, Short> indexes;
+
+    SnapshotDataFormat(Map<Short, String> formats) {
+        this.formats = new HashMap<Short, String>(formats);
+        indexes = new HashMap<String, Short>();
+        // the lowest index wins if a format is defined twice, as when looking it up in a workbook
+        for (Map.Entry<Short, String> entry : new TreeMap<Short, String>(formats).entrySet()) {
+            if (entry.getValue() != null && !indexes.containsKey(entry.getValue())) {
+                indexes.put(entry.getValue(), entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return the index of the given format, which must already exist
+     *  since the formats of a snapshot cannot be added to
+     */
+    public short getFormat(String format) {
+        String pattern = format.toUpperCase().equals("TEXT") ? "@" : format;
+        Short index = indexes.get(pattern);
+        if (index == null) {
+            throw readOnly();
+        }
+        return index.shortValue();
+    }
+
+    public String getFormat(short index) {
+        return formats.get(Short.valueOf(index));
+    }
+}
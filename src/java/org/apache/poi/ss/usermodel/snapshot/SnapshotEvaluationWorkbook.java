@@ -0,0 +1,248 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.EvaluationCell;
+import org.apache.poi.ss.formula.EvaluationName;
+import org.apache.poi.ss.formula.EvaluationSheet;
+import org.apache.poi.ss.formula.EvaluationWorkbook;
+import org.apache.poi.ss.formula.FormulaParsingWorkbook;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.NameXPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.udf.UDFFinder;
+
+/**
+ * The {@link EvaluationWorkbook} of a {@link WorkbookSnapshot}. Everything it
+ *  returns was copied when the snapshot was created, so it can be used by
+ *  any number of evaluators at the same time.
+ */
+final class SnapshotEvaluationWorkbook implements EvaluationWorkbook, FormulaParsingWorkbook {
+
+    private final WorkbookSnapshot snapshot;
+    /**
+     * One for each sheet, since the evaluators keep the sheet indexes by
+     *  the identity of the sheets
+     */
+    private final Sheet[] sheets;
+    private final Map<Integer, ExternalSheet> externalSheets;
+    private final Map<Integer, Integer> sheetIndexes;
+    private final Map<Long, ExternalName> externalNames;
+    private final Map<Long, String> nameXTexts;
+    private final UDFFinder udfFinder;
+    private final SpreadsheetVersion spreadsheetVersion;
+
+    SnapshotEvaluationWorkbook(WorkbookSnapshot snapshot, FormulaCapture capture) {
+        this.snapshot = snapshot;
+        sheets = new Sheet[snapshot.getNumberOfSheets()];
+        for (int i = 0; i < sheets.length; i++) {
+            sheets[i] = new Sheet((SnapshotSheet) snapshot.getSheetAt(i), i);
+        }
+        externalSheets = new HashMap<Integer, ExternalSheet>(capture.externalSheets);
+        sheetIndexes = new HashMap<Integer, Integer>(capture.sheetIndexes);
+        externalNames = new HashMap<Long, ExternalName>(capture.externalNames);
+        nameXTexts = new HashMap<Long, String>(capture.nameXTexts);
+        udfFinder = capture.getUDFFinder();
+        spreadsheetVersion = capture.getSpreadsheetVersion();
+    }
+
+    /**
+     * @return the cell to evaluate for the given cell of the snapshot
+     */
+    EvaluationCell getEvaluationCell(SnapshotCell cell) {
+        return new Cell(cell, sheets[snapshot.getSheetIndex(cell.getSheet())]);
+    }
+
+    public String getSheetName(int sheetIndex) {
+        return snapshot.getSheetName(sheetIndex);
+    }
+
+    public int getSheetIndex(EvaluationSheet sheet) {
+        return ((Sheet) sheet)._index;
+    }
+
+    public int getSheetIndex(String sheetName) {
+        return snapshot.getSheetIndex(sheetName);
+    }
+
+    public EvaluationSheet getSheet(int sheetIndex) {
+        if (sheetIndex < 0 || sheetIndex >= sheets.length) {
+            throw new IllegalArgumentException("Sheet index (" + sheetIndex + ") is out of range (0.."
+                    + (sheets.length - 1) + ")");
+        }
+        return sheets[sheetIndex];
+    }
+
+    public ExternalSheet getExternalSheet(int externSheetIndex) {
+        return externalSheets.get(Integer.valueOf(externSheetIndex));
+    }
+
+    public int convertFromExternSheetIndex(int externSheetIndex) {
+        Integer sheetIndex = sheetIndexes.get(Integer.valueOf(externSheetIndex));
+        if (sheetIndex == null) {
+            throw new IllegalArgumentException("Extern sheet index (" + externSheetIndex
+                    + ") is not used by the formulas of the snapshot");
+        }
+        return sheetIndex.intValue();
+    }
+
+    public int getExternalSheetIndex(String sheetName) {
+        int sheetIndex = snapshot.getSheetIndex(sheetName);
+        for (Map.Entry<Integer, Integer> entry : sheetIndexes.entrySet()) {
+            if (entry.getValue().intValue() == sheetIndex) {
+                return entry.getKey().intValue();
+            }
+        }
+        throw new IllegalArgumentException("Sheet '" + sheetName + "' is not referred to by the formulas of the snapshot");
+    }
+
+    public int getExternalSheetIndex(String workbookName, String sheetName) {
+        throw new IllegalArgumentException("External workbook references are not supported by snapshots");
+    }
+
+    public ExternalName getExternalName(int externSheetIndex, int externNameIndex) {
+        return externalNames.get(FormulaCapture.getNameXKey(externSheetIndex, externNameIndex));
+    }
+
+    public EvaluationName getName(NamePtg namePtg) {
+        return snapshot.getNames().get(namePtg.getIndex());
+    }
+
+    public EvaluationName getName(String name, int sheetIndex) {
+        List<SnapshotName> names = snapshot.getNames();
+        for (int i = 0; i < names.size(); i++) {
+            SnapshotName snapshotName = names.get(i);
+            if (snapshotName.getSheetIndex() == sheetIndex && name.equalsIgnoreCase(snapshotName.getNameName())) {
+                return snapshotName;
+            }
+        }
+        return sheetIndex == -1 ? null : getName(name, -1);
+    }
+
+    public NameXPtg getNameXPtg(String name) {
+        return null;
+    }
+
+    public String resolveNameXText(NameXPtg ptg) {
+        return nameXTexts.get(FormulaCapture.getNameXKey(ptg.getSheetRefIndex(), ptg.getNameIndex()));
+    }
+
+    public Ptg[] getFormulaTokens(EvaluationCell cell) {
+        return ((Cell) cell)._cell.getFormulaTokens();
+    }
+
+    public UDFFinder getUDFFinder() {
+        return udfFinder;
+    }
+
+    public SpreadsheetVersion getSpreadsheetVersion() {
+        return spreadsheetVersion;
+    }
+
+    public void clearAllCachedResultValues() {
+        // nothing is cached
+    }
+
+    public void notifyUpdateCell(EvaluationCell cell) {
+        // the cells cannot be updated
+    }
+
+    /**
+     * A sheet under evaluation
+     */
+    private static final class Sheet implements EvaluationSheet {
+        private final SnapshotSheet _sheet;
+        final int _index;
+
+        Sheet(SnapshotSheet sheet, int index) {
+            _sheet = sheet;
+            _index = index;
+        }
+
+        public EvaluationCell getCell(int rowIndex, int columnIndex) {
+            SnapshotRow row = _sheet.getSnapshotRow(rowIndex);
+            if (row == null) {
+                return null;
+            }
+            SnapshotCell cell = row.getSnapshotCell(columnIndex);
+            if (cell == null) {
+                return null;
+            }
+            return new Cell(cell, this);
+        }
+    }
+
+    /**
+     * A cell under evaluation
+     */
+    private static final class Cell implements EvaluationCell {
+        final SnapshotCell _cell;
+        private final Sheet _sheet;
+
+        Cell(SnapshotCell cell, Sheet sheet) {
+            _cell = cell;
+            _sheet = sheet;
+        }
+
+        public Object getIdentityKey() {
+            // the cells of a snapshot are never replaced
+            return _cell;
+        }
+
+        public EvaluationSheet getSheet() {
+            return _sheet;
+        }
+
+        public int getRowIndex() {
+            return _cell.getRowIndex();
+        }
+
+        public int getColumnIndex() {
+            return _cell.getColumnIndex();
+        }
+
+        public int getCellType() {
+            return _cell.getCellType();
+        }
+
+        public double getNumericCellValue() {
+            return _cell.getNumericCellValue();
+        }
+
+        public String getStringCellValue() {
+            return _cell.getStringCellValue();
+        }
+
+        public boolean getBooleanCellValue() {
+            return _cell.getBooleanCellValue();
+        }
+
+        public int getErrorCellValue() {
+            return _cell.getErrorCellValue();
+        }
+
+        public int getCachedFormulaResultType() {
+            return _cell.getCachedFormulaResultType();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.Font;
+
+/**
+ * The read only copy of a font of a {@link WorkbookSnapshot}
+ */
+final class SnapshotFont implements Font {
+
+    private final short index;
+    private final String fontName;
+    private final short fontHeight;
+    private final boolean italic;
+    private final boolean strikeout;
+    private final short color;
+    private final short typeOffset;
+    private final byte underline;
+    private final int charSet;
+    private final short boldweight;
+
+    SnapshotFont(Font font) {
+        index = font.getIndex();
+        fontName = font.getFontName();
+        fontHeight = font.getFontHeight();
+        italic = font.getItalic();
+        strikeout = font.getStrikeout();
+        color = font.getColor();
+        typeOffset = font.getTypeOffset();
+        underline = font.getUnderline();
+        charSet = font.getCharSet();
+        boldweight = font.getBoldweight();
+    }
+
+    public short getIndex() {
+        return index;
+    }
+
+    public String getFontName() {
+        return fontName;
+    }
+
+    public void setFontName(String name) {
+        throw readOnly();
+    }
+
+    public short getFontHeight() {
+        return fontHeight;
+    }
+
+    public short getFontHeightInPoints() {
+        return (short) (fontHeight / 20);
+    }
+
+    public void setFontHeight(short height) {
+        throw readOnly();
+    }
+
+    public void setFontHeightInPoints(short height) {
+        throw readOnly();
+    }
+
+    public boolean getItalic() {
+        return italic;
+    }
+
+    public void setItalic(boolean italic) {
+        throw readOnly();
+    }
+
+    public boolean getStrikeout() {
+        return strikeout;
+    }
+
+    public void setStrikeout(boolean strikeout) {
+        throw readOnly();
+    }
+
+    public short getColor() {
+        return color;
+    }
+
+    public void setColor(short color) {
+        throw readOnly();
+    }
+
+    public short getTypeOffset() {
+        return typeOffset;
+    }
+
+    public void setTypeOffset(short offset) {
+        throw readOnly();
+    }
+
+    public byte getUnderline() {
+        return underline;
+    }
+
+    public void setUnderline(byte underline) {
+        throw readOnly();
+    }
+
+    public int getCharSet() {
+        return charSet;
+    }
+
+    public void setCharSet(byte charset) {
+        throw readOnly();
+    }
+
+    public void setCharSet(int charset) {
+        throw readOnly();
+    }
+
+    public short getBoldweight() {
+        return boldweight;
+    }
+
+    public void setBoldweight(short boldweight) {
+        throw readOnly();
+    }
+}
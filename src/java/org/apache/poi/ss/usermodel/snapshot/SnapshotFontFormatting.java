@@ -0,0 +1,93 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.FontFormatting;
+
+/**
+ * The read only copy of the font formatting of a conditional formatting rule of a
+ *  {@link WorkbookSnapshot}
+ */
+final class SnapshotFontFormatting implements FontFormatting {
+
+    private final short escapementType;
+    private final short fontColorIndex;
+    private final int fontHeight;
+    private final short underlineType;
+    private final boolean bold;
+    private final boolean italic;
+
+    SnapshotFontFormatting(FontFormatting formatting) {
+        escapementType = formatting.getEscapementType();
+        fontColorIndex = formatting.getFontColorIndex();
+        fontHeight = formatting.getFontHeight();
+        underlineType = formatting.getUnderlineType();
+        bold = formatting.isBold();
+        italic = formatting.isItalic();
+    }
+
+    public short getEscapementType() {
+        return escapementType;
+    }
+
+    public void setEscapementType(short escapementType) {
+        throw readOnly();
+    }
+
+    public short getFontColorIndex() {
+        return fontColorIndex;
+    }
+
+    public void setFontColorIndex(short color) {
+        throw readOnly();
+    }
+
+    public int getFontHeight() {
+        return fontHeight;
+    }
+
+    public void setFontHeight(int height) {
+        throw readOnly();
+    }
+
+    public short getUnderlineType() {
+        return underlineType;
+    }
+
+    public void setUnderlineType(short underlineType) {
+        throw readOnly();
+    }
+
+    public boolean isBold() {
+        return bold;
+    }
+
+    public boolean isItalic() {
+        return italic;
+    }
+
+    public void setFontStyle(boolean italic, boolean bold) {
+        throw readOnly();
+    }
+
+    public void resetFontStyle() {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,152 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.poi.ss.formula.EvaluationCell;
+import org.apache.poi.ss.formula.IStabilityClassifier;
+import org.apache.poi.ss.formula.WorkbookEvaluator;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+
+/**
+ * Evaluates the formulas of a {@link WorkbookSnapshot}, for any number of
+ *  threads at the same time.
+ * <p>
+ * A <code>WorkbookEvaluator</code> is not thread safe, so each evaluation
+ *  takes one from a pool, or creates one if all are in use. Since the cells
+ *  of a snapshot never change, the results which an evaluator caches stay
+ *  valid for as long as it lives.
+ * </p>
+ * <p>
+ * The snapshot is read only, so the methods which would store the results
+ *  in the cells are not supported.
+ * </p>
+ */
+final class SnapshotFormulaEvaluator implements FormulaEvaluator {
+
+    private final SnapshotEvaluationWorkbook workbook;
+    private final ConcurrentLinkedQueue<WorkbookEvaluator> evaluators;
+
+    SnapshotFormulaEvaluator(SnapshotEvaluationWorkbook workbook) {
+        this.workbook = workbook;
+        evaluators = new ConcurrentLinkedQueue<WorkbookEvaluator>();
+    }
+
+    /**
+     * Drops the pooled evaluators, and with them the results they cached
+     */
+    public void clearAllCachedResultValues() {
+        evaluators.clear();
+    }
+
+    public void notifySetFormula(Cell cell) {
+        throw readOnly();
+    }
+
+    public void notifyDeleteCell(Cell cell) {
+        throw readOnly();
+    }
+
+    public void notifyUpdateCell(Cell cell) {
+        throw readOnly();
+    }
+
+    public void evaluateAll() {
+        throw readOnly();
+    }
+
+    public int evaluateFormulaCell(Cell cell) {
+        throw readOnly();
+    }
+
+    public Cell evaluateInCell(Cell cell) {
+        throw readOnly();
+    }
+
+    public void setDebugEvaluationOutputForNextEval(boolean value) {
+        // the evaluators are shared between threads, so this could not apply to one evaluation
+    }
+
+    public CellValue evaluate(Cell cell) {
+        if (cell == null) {
+            return null;
+        }
+
+        switch (cell.getCellType()) {
+            case Cell.CELL_TYPE_BOOLEAN:
+                return CellValue.valueOf(cell.getBooleanCellValue());
+            case Cell.CELL_TYPE_ERROR:
+                return CellValue.getError(cell.getErrorCellValue());
+            case Cell.CELL_TYPE_FORMULA:
+                return evaluateFormulaCellValue(cell);
+            case Cell.CELL_TYPE_NUMERIC:
+                return new CellValue(cell.getNumericCellValue());
+            case Cell.CELL_TYPE_STRING:
+                return new CellValue(cell.getRichStringCellValue().getString());
+            case Cell.CELL_TYPE_BLANK:
+                return null;
+        }
+        throw new IllegalStateException("Bad cell type (" + cell.getCellType() + ")");
+    }
+
+    private CellValue evaluateFormulaCellValue(Cell cell) {
+        if (!(cell instanceof SnapshotCell)
+                || ((SnapshotSheet) cell.getSheet()).getSnapshot().getEvaluationWorkbook() != workbook) {
+            throw new IllegalArgumentException("The cell is not part of the snapshot of this evaluator");
+        }
+        ValueEval eval = evaluate(workbook.getEvaluationCell((SnapshotCell) cell));
+        if (eval instanceof NumberEval) {
+            NumberEval ne = (NumberEval) eval;
+            return new CellValue(ne.getNumberValue());
+        }
+        if (eval instanceof BoolEval) {
+            BoolEval be = (BoolEval) eval;
+            return CellValue.valueOf(be.getBooleanValue());
+        }
+        if (eval instanceof StringEval) {
+            StringEval ne = (StringEval) eval;
+            return new CellValue(ne.getStringValue());
+        }
+        if (eval instanceof ErrorEval) {
+            return CellValue.getError(((ErrorEval) eval).getErrorCode());
+        }
+        throw new RuntimeException("Unexpected eval class (" + eval.getClass().getName() + ")");
+    }
+
+    private ValueEval evaluate(EvaluationCell cell) {
+        WorkbookEvaluator evaluator = evaluators.poll();
+        if (evaluator == null) {
+            evaluator = new WorkbookEvaluator(workbook, IStabilityClassifier.TOTALLY_IMMUTABLE, null);
+        }
+        try {
+            return evaluator.evaluate(cell);
+        } finally {
+            evaluators.add(evaluator);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.Footer;
+import org.apache.poi.ss.usermodel.Header;
+import org.apache.poi.ss.usermodel.HeaderFooter;
+
+/**
+ * The read only copy of the header or footer of a sheet of a {@link WorkbookSnapshot}
+ */
+final class SnapshotHeaderFooter implements Header, Footer {
+
+    private final String left;
+    private final String center;
+    private final String right;
+
+    SnapshotHeaderFooter(HeaderFooter headerFooter) {
+        left = headerFooter.getLeft();
+        center = headerFooter.getCenter();
+        right = headerFooter.getRight();
+    }
+
+    public String getLeft() {
+        return left;
+    }
+
+    public void setLeft(String newLeft) {
+        throw readOnly();
+    }
+
+    public String getCenter() {
+        return center;
+    }
+
+    public void setCenter(String newCenter) {
+        throw readOnly();
+    }
+
+    public String getRight() {
+        return right;
+    }
+
+    public void setRight(String newRight) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,98 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.Hyperlink;
+
+/**
+ * The read only copy of a hyperlink of a {@link WorkbookSnapshot}
+ */
+final class SnapshotHyperlink implements Hyperlink {
+
+    private final int type;
+    private final String address;
+    private final String label;
+    private final int firstRow;
+    private final int lastRow;
+    private final int firstColumn;
+    private final int lastColumn;
+
+    SnapshotHyperlink(Hyperlink link) {
+        type = link.getType();
+        address = link.getAddress();
+        label = link.getLabel();
+        firstRow = link.getFirstRow();
+        lastRow = link.getLastRow();
+        firstColumn = link.getFirstColumn();
+        lastColumn = link.getLastColumn();
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        throw readOnly();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        throw readOnly();
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public void setFirstRow(int row) {
+        throw readOnly();
+    }
+
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    public void setLastRow(int row) {
+        throw readOnly();
+    }
+
+    public int getFirstColumn() {
+        return firstColumn;
+    }
+
+    public void setFirstColumn(int col) {
+        throw readOnly();
+    }
+
+    public int getLastColumn() {
+        return lastColumn;
+    }
+
+    public void setLastColumn(int col) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,182 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.unreadable;
+
+import org.apache.poi.ss.formula.EvaluationName;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * The read only copy of a defined name of a {@link WorkbookSnapshot}, which
+ *  is also the name seen by its formula evaluator
+ */
+final class SnapshotName implements Name, EvaluationName {
+
+    private final int index;
+    private final String nameName;
+    private final String refersToFormula;
+    private final RuntimeException refersToFailure;
+    private final int sheetIndex;
+    private final String sheetName;
+    private final String comment;
+    private final boolean functionName;
+    private final boolean deleted;
+    private final boolean hasFormula;
+    private final boolean range;
+    private final Ptg[] nameDefinition;
+    private final RuntimeException nameDefinitionFailure;
+
+    SnapshotName(Workbook workbook, int index, FormulaCapture capture) {
+        Name name = workbook.getNameAt(index);
+        this.index = index;
+        nameName = name.getNameName();
+        functionName = name.isFunctionName();
+        String formula = null;
+        RuntimeException failure = null;
+        if (!functionName) {
+            try {
+                formula = name.getRefersToFormula();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        refersToFormula = formula;
+        refersToFailure = failure;
+        sheetIndex = name.getSheetIndex();
+        sheetName = getSheetName(workbook, name);
+        comment = name.getComment();
+        deleted = isDeleted(name);
+
+        boolean formulaPresent = !functionName;
+        boolean rangePresent = false;
+        Ptg[] definition = null;
+        failure = null;
+        try {
+            EvaluationName evalName = capture.getName(index);
+            formulaPresent = evalName.hasFormula();
+            rangePresent = evalName.isRange();
+            definition = formulaPresent ? capture.copy(evalName.getNameDefinition()) : null;
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        hasFormula = formulaPresent;
+        range = rangePresent;
+        nameDefinition = definition;
+        nameDefinitionFailure = failure;
+    }
+
+    private static String getSheetName(Workbook workbook, Name name) {
+        if (name.getSheetIndex() >= 0) {
+            return workbook.getSheetName(name.getSheetIndex());
+        }
+        try {
+            return name.getSheetName();
+        } catch (RuntimeException e) {
+            // the definition of a workbook scoped name need not refer to a sheet
+            return null;
+        }
+    }
+
+    private static boolean isDeleted(Name name) {
+        try {
+            return name.isDeleted();
+        } catch (RuntimeException e) {
+            // XSSF parses the formula, which need not be supported
+            return false;
+        }
+    }
+
+    public String getNameName() {
+        return nameName;
+    }
+
+    public String getNameText() {
+        return nameName;
+    }
+
+    public void setNameName(String name) {
+        throw readOnly();
+    }
+
+    public String getRefersToFormula() {
+        if (refersToFailure != null) {
+            throw unreadable("formula of name " + nameName, refersToFailure);
+        }
+        return refersToFormula;
+    }
+
+    public void setRefersToFormula(String formulaText) {
+        throw readOnly();
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    public void setSheetIndex(int sheetId) {
+        throw readOnly();
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        throw readOnly();
+    }
+
+    public boolean isFunctionName() {
+        return functionName;
+    }
+
+    public void setFunction(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public boolean hasFormula() {
+        return hasFormula;
+    }
+
+    public boolean isRange() {
+        return range;
+    }
+
+    public Ptg[] getNameDefinition() {
+        if (nameDefinitionFailure != null) {
+            throw unreadable("formula of name " + nameName, nameDefinitionFailure);
+        }
+        return nameDefinition;
+    }
+
+    public NamePtg createPtg() {
+        return new NamePtg(index);
+    }
+}
@@ -0,0 +1,63 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.PatternFormatting;
+
+/**
+ * The read only copy of the pattern formatting of a conditional formatting rule of a
+ *  {@link WorkbookSnapshot}
+ */
+final class SnapshotPatternFormatting implements PatternFormatting {
+
+    private final short fillBackgroundColor;
+    private final short fillForegroundColor;
+    private final short fillPattern;
+
+    SnapshotPatternFormatting(PatternFormatting formatting) {
+        fillBackgroundColor = formatting.getFillBackgroundColor();
+        fillForegroundColor = formatting.getFillForegroundColor();
+        fillPattern = formatting.getFillPattern();
+    }
+
+    public short getFillBackgroundColor() {
+        return fillBackgroundColor;
+    }
+
+    public void setFillBackgroundColor(short bg) {
+        throw readOnly();
+    }
+
+    public short getFillForegroundColor() {
+        return fillForegroundColor;
+    }
+
+    public void setFillForegroundColor(short fg) {
+        throw readOnly();
+    }
+
+    public short getFillPattern() {
+        return fillPattern;
+    }
+
+    public void setFillPattern(short fp) {
+        throw readOnly();
+    }
+}
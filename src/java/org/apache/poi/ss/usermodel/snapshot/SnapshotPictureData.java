@@ -0,0 +1,51 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import org.apache.poi.ss.usermodel.PictureData;
+
+/**
+ * The copy of a picture of a {@link WorkbookSnapshot}
+ */
+final class SnapshotPictureData implements PictureData {
+
+    private final byte[] data;
+    private final String extension;
+    private final String mimeType;
+
+    SnapshotPictureData(PictureData picture) {
+        data = picture.getData().clone();
+        extension = picture.suggestFileExtension();
+        mimeType = picture.getMimeType();
+    }
+
+    /**
+     * @return a copy of the bytes of the picture
+     */
+    public byte[] getData() {
+        return data.clone();
+    }
+
+    public String suggestFileExtension() {
+        return extension;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+}
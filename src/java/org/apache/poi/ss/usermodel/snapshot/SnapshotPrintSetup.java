@@ -0,0 +1,212 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.PrintSetup;
+
+/**
+ * The read only copy of the print setup of a sheet of a {@link WorkbookSnapshot}
+ */
+final class SnapshotPrintSetup implements PrintSetup {
+
+    private final short paperSize;
+    private final short scale;
+    private final short pageStart;
+    private final short fitWidth;
+    private final short fitHeight;
+    private final boolean leftToRight;
+    private final boolean landscape;
+    private final boolean validSettings;
+    private final boolean noColor;
+    private final boolean draft;
+    private final boolean notes;
+    private final boolean noOrientation;
+    private final boolean usePage;
+    private final short hResolution;
+    private final short vResolution;
+    private final double headerMargin;
+    private final double footerMargin;
+    private final short copies;
+
+    SnapshotPrintSetup(PrintSetup printSetup) {
+        paperSize = printSetup.getPaperSize();
+        scale = printSetup.getScale();
+        pageStart = printSetup.getPageStart();
+        fitWidth = printSetup.getFitWidth();
+        fitHeight = printSetup.getFitHeight();
+        leftToRight = printSetup.getLeftToRight();
+        landscape = printSetup.getLandscape();
+        validSettings = printSetup.getValidSettings();
+        noColor = printSetup.getNoColor();
+        draft = printSetup.getDraft();
+        notes = printSetup.getNotes();
+        noOrientation = printSetup.getNoOrientation();
+        usePage = printSetup.getUsePage();
+        hResolution = printSetup.getHResolution();
+        vResolution = printSetup.getVResolution();
+        headerMargin = printSetup.getHeaderMargin();
+        footerMargin = printSetup.getFooterMargin();
+        copies = printSetup.getCopies();
+    }
+
+    public short getPaperSize() {
+        return paperSize;
+    }
+
+    public void setPaperSize(short size) {
+        throw readOnly();
+    }
+
+    public short getScale() {
+        return scale;
+    }
+
+    public void setScale(short scale) {
+        throw readOnly();
+    }
+
+    public short getPageStart() {
+        return pageStart;
+    }
+
+    public void setPageStart(short start) {
+        throw readOnly();
+    }
+
+    public short getFitWidth() {
+        return fitWidth;
+    }
+
+    public void setFitWidth(short width) {
+        throw readOnly();
+    }
+
+    public short getFitHeight() {
+        return fitHeight;
+    }
+
+    public void setFitHeight(short height) {
+        throw readOnly();
+    }
+
+    public boolean getLeftToRight() {
+        return leftToRight;
+    }
+
+    public void setLeftToRight(boolean ltor) {
+        throw readOnly();
+    }
+
+    public boolean getLandscape() {
+        return landscape;
+    }
+
+    public void setLandscape(boolean ls) {
+        throw readOnly();
+    }
+
+    public boolean getValidSettings() {
+        return validSettings;
+    }
+
+    public void setValidSettings(boolean valid) {
+        throw readOnly();
+    }
+
+    public boolean getNoColor() {
+        return noColor;
+    }
+
+    public void setNoColor(boolean mono) {
+        throw readOnly();
+    }
+
+    public boolean getDraft() {
+        return draft;
+    }
+
+    public void setDraft(boolean d) {
+        throw readOnly();
+    }
+
+    public boolean getNotes() {
+        return notes;
+    }
+
+    public void setNotes(boolean printnotes) {
+        throw readOnly();
+    }
+
+    public boolean getNoOrientation() {
+        return noOrientation;
+    }
+
+    public void setNoOrientation(boolean orientation) {
+        throw readOnly();
+    }
+
+    public boolean getUsePage() {
+        return usePage;
+    }
+
+    public void setUsePage(boolean page) {
+        throw readOnly();
+    }
+
+    public short getHResolution() {
+        return hResolution;
+    }
+
+    public void setHResolution(short resolution) {
+        throw readOnly();
+    }
+
+    public short getVResolution() {
+        return vResolution;
+    }
+
+    public void setVResolution(short resolution) {
+        throw readOnly();
+    }
+
+    public double getHeaderMargin() {
+        return headerMargin;
+    }
+
+    public void setHeaderMargin(double headermargin) {
+        throw readOnly();
+    }
+
+    public double getFooterMargin() {
+        return footerMargin;
+    }
+
+    public void setFooterMargin(double footermargin) {
+        throw readOnly();
+    }
+
+    public short getCopies() {
+        return copies;
+    }
+
+    public void setCopies(short copies) {
+        throw readOnly();
+    }
+}
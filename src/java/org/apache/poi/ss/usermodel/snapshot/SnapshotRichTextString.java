@@ -0,0 +1,93 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.RichTextString;
+
+/**
+ * The read only copy of the text of a cell of a {@link WorkbookSnapshot},
+ *  with the positions of its formatting runs
+ */
+final class SnapshotRichTextString implements RichTextString {
+
+    private static final int[] NO_RUNS = { };
+
+    private final String string;
+    private final int[] runs;
+
+    SnapshotRichTextString(RichTextString text) {
+        string = text.getString();
+        int numRuns = text.numFormattingRuns();
+        if (numRuns == 0) {
+            runs = NO_RUNS;
+        } else {
+            runs = new int[numRuns];
+            for (int i = 0; i < numRuns; i++) {
+                runs[i] = text.getIndexOfFormattingRun(i);
+            }
+        }
+    }
+
+    SnapshotRichTextString(String string) {
+        this.string = string;
+        runs = NO_RUNS;
+    }
+
+    public String getString() {
+        return string;
+    }
+
+    public int length() {
+        return string.length();
+    }
+
+    public int numFormattingRuns() {
+        return runs.length;
+    }
+
+    public int getIndexOfFormattingRun(int index) {
+        return runs[index];
+    }
+
+    public void applyFont(int startIndex, int endIndex, short fontIndex) {
+        throw readOnly();
+    }
+
+    public void applyFont(int startIndex, int endIndex, Font font) {
+        throw readOnly();
+    }
+
+    public void applyFont(Font font) {
+        throw readOnly();
+    }
+
+    public void applyFont(short fontIndex) {
+        throw readOnly();
+    }
+
+    public void clearFormatting() {
+        throw readOnly();
+    }
+
+    public String toString() {
+        return string;
+    }
+}
@@ -0,0 +1,232 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * The read only copy of a row of a {@link WorkbookSnapshot}. As in
+ *  <code>HSSFRow</code>, the cells are held in an array indexed by column.
+ */
+final class SnapshotRow implements Row {
+
+    private static final SnapshotCell[] NO_CELLS = { };
+
+    private final SnapshotSheet sheet;
+    private final int rowNum;
+    private final short height;
+    private final float heightInPoints;
+    private final boolean zeroHeight;
+    private final boolean formatted;
+    private final SnapshotCellStyle rowStyle;
+    private final SnapshotCell[] cells;
+    private final int physicalNumberOfCells;
+
+    SnapshotRow(SnapshotSheet sheet, Row row, int sheetIndex, FormulaCapture capture) {
+        this.sheet = sheet;
+        rowNum = row.getRowNum();
+        height = row.getHeight();
+        heightInPoints = row.getHeightInPoints();
+        zeroHeight = row.getZeroHeight();
+        formatted = row.isFormatted();
+        rowStyle = formatted ? getRowStyle(sheet.getSnapshot(), row) : null;
+
+        int lastCellNum = row.getLastCellNum();
+        cells = lastCellNum <= 0 ? NO_CELLS : new SnapshotCell[lastCellNum];
+        int count = 0;
+        for (Cell cell : row) {
+            cells[cell.getColumnIndex()] = new SnapshotCell(this, cell, sheetIndex, capture);
+            count++;
+        }
+        physicalNumberOfCells = count;
+    }
+
+    private static SnapshotCellStyle getRowStyle(WorkbookSnapshot snapshot, Row row) {
+        try {
+            return snapshot.getStyle(row.getRowStyle());
+        } catch (RuntimeException e) {
+            // some files have formatted rows with styles which do not exist
+            return null;
+        }
+    }
+
+    WorkbookSnapshot getSnapshot() {
+        return sheet.getSnapshot();
+    }
+
+    SnapshotSheet getSnapshotSheet() {
+        return sheet;
+    }
+
+    public Sheet getSheet() {
+        return sheet;
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public void setRowNum(int rowNum) {
+        throw readOnly();
+    }
+
+    public Cell createCell(int column) {
+        throw readOnly();
+    }
+
+    public Cell createCell(int column, int type) {
+        throw readOnly();
+    }
+
+    public void removeCell(Cell cell) {
+        throw readOnly();
+    }
+
+    SnapshotCell getSnapshotCell(int cellnum) {
+        if (cellnum < 0 || cellnum >= cells.length) {
+            return null;
+        }
+        return cells[cellnum];
+    }
+
+    public Cell getCell(int cellnum) {
+        return getCell(cellnum, sheet.getWorkbook().getMissingCellPolicy());
+    }
+
+    public Cell getCell(int cellnum, MissingCellPolicy policy) {
+        SnapshotCell cell = getSnapshotCell(cellnum);
+        if (policy == RETURN_NULL_AND_BLANK) {
+            return cell;
+        }
+        if (policy == RETURN_BLANK_AS_NULL) {
+            if (cell != null && cell.getCellType() == Cell.CELL_TYPE_BLANK) {
+                return null;
+            }
+            return cell;
+        }
+        if (policy == CREATE_NULL_AS_BLANK) {
+            if (cell == null) {
+                // the snapshot cannot change, so the blank cell is not added to the row
+                return new SnapshotCell(this, cellnum, sheet.getSnapshot().getStyle((short) 0));
+            }
+            return cell;
+        }
+        throw new IllegalArgumentException("Illegal policy " + policy + " (" + policy.id + ")");
+    }
+
+    public short getFirstCellNum() {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != null) {
+                return (short) i;
+            }
+        }
+        return -1;
+    }
+
+    public short getLastCellNum() {
+        return physicalNumberOfCells == 0 ? -1 : (short) cells.length;
+    }
+
+    public int getPhysicalNumberOfCells() {
+        return physicalNumberOfCells;
+    }
+
+    public short getHeight() {
+        return height;
+    }
+
+    public float getHeightInPoints() {
+        return heightInPoints;
+    }
+
+    public void setHeight(short height) {
+        throw readOnly();
+    }
+
+    public void setHeightInPoints(float height) {
+        throw readOnly();
+    }
+
+    public boolean getZeroHeight() {
+        return zeroHeight;
+    }
+
+    public void setZeroHeight(boolean zHeight) {
+        throw readOnly();
+    }
+
+    public boolean isFormatted() {
+        return formatted;
+    }
+
+    public CellStyle getRowStyle() {
+        return rowStyle;
+    }
+
+    public void setRowStyle(CellStyle style) {
+        throw readOnly();
+    }
+
+    public Iterator<Cell> cellIterator() {
+        return new CellIterator();
+    }
+
+    public Iterator<Cell> iterator() {
+        return cellIterator();
+    }
+
+    /**
+     * Iterates over the cells of the row which exist, in column order
+     */
+    private final class CellIterator implements Iterator<Cell> {
+        private int next = findNext(0);
+
+        private int findNext(int from) {
+            int i = from;
+            while (i < cells.length && cells[i] == null) {
+                i++;
+            }
+            return i;
+        }
+
+        public boolean hasNext() {
+            return next < cells.length;
+        }
+
+        public Cell next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("At last element");
+            }
+            Cell result = cells[next];
+            next = findNext(next + 1);
+            return result;
+        }
+
+        public void remove() {
+            throw readOnly();
+        }
+    }
+}
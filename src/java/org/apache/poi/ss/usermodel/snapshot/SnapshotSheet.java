@@ -0,0 +1,698 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import static org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot.readOnly;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.poi.hssf.usermodel.HSSFComment;
+import org.apache.poi.hssf.usermodel.HSSFShape;
+import org.apache.poi.hssf.usermodel.HSSFShapeContainer;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.util.PaneInformation;
+import org.apache.poi.ss.usermodel.AutoFilter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellRange;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Footer;
+import org.apache.poi.ss.usermodel.Header;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.PrintSetup;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * The read only copy of a sheet of a {@link WorkbookSnapshot}
+ */
+final class SnapshotSheet implements Sheet {
+
+    /**
+     * The widths, styles and hidden flags are copied for at least this many
+     *  columns, and more if cells are used beyond them
+     */
+    private static final int MIN_COPIED_COLUMNS = 256;
+
+    private final WorkbookSnapshot snapshot;
+    private final String sheetName;
+    private final boolean hidden;
+    private final boolean veryHidden;
+    private final boolean selected;
+    private final SortedMap<Integer, SnapshotRow> rows;
+    private final CellRangeAddress[] mergedRegions;
+
+    private final int[] columnWidths;
+    private final boolean[] columnHidden;
+    private final SnapshotCellStyle[] columnStyles;
+    private final int defaultColumnWidth;
+    private final short defaultRowHeight;
+    private final float defaultRowHeightInPoints;
+
+    private final boolean rightToLeft;
+    private final boolean forceFormulaRecalculation;
+    private final boolean displayZeros;
+    private final boolean displayGridlines;
+    private final boolean displayFormulas;
+    private final boolean displayRowColHeadings;
+    private final boolean protect;
+    private final boolean scenarioProtect;
+    private final short topRow;
+    private final short leftCol;
+    private final PaneInformation paneInformation;
+
+    private final boolean horizontallyCenter;
+    private final boolean verticallyCenter;
+    private final boolean autobreaks;
+    private final boolean displayGuts;
+    private final boolean fitToPage;
+    private final boolean rowSumsBelow;
+    private final boolean rowSumsRight;
+    private final boolean printGridlines;
+    private final double[] margins;
+    private final int[] rowBreaks;
+    private final int[] columnBreaks;
+    private final CellRangeAddress repeatingRows;
+    private final CellRangeAddress repeatingColumns;
+    private final String printArea;
+    private final SnapshotPrintSetup printSetup;
+    private final SnapshotHeaderFooter header;
+    private final SnapshotHeaderFooter footer;
+    private final Map<Long, SnapshotComment> comments;
+    private final Map<Long, SnapshotHyperlink> hyperlinks;
+    private final SnapshotConditionalFormatting conditionalFormatting;
+
+    SnapshotSheet(WorkbookSnapshot snapshot, Workbook workbook, int sheetIndex, FormulaCapture capture) {
+        this.snapshot = snapshot;
+        Sheet sheet = workbook.getSheetAt(sheetIndex);
+        sheetName = sheet.getSheetName();
+        hidden = workbook.isSheetHidden(sheetIndex);
+        veryHidden = workbook.isSheetVeryHidden(sheetIndex);
+        selected = sheet.isSelected();
+
+        TreeMap<Integer, SnapshotRow> rowMap = new TreeMap<Integer, SnapshotRow>();
+        int numberOfColumns = MIN_COPIED_COLUMNS;
+        for (Row row : sheet) {
+            rowMap.put(Integer.valueOf(row.getRowNum()), new SnapshotRow(this, row, sheetIndex, capture));
+            numberOfColumns = Math.max(numberOfColumns, row.getLastCellNum());
+        }
+        rows = Collections.unmodifiableSortedMap(rowMap);
+
+        mergedRegions = new CellRangeAddress[sheet.getNumMergedRegions()];
+        for (int i = 0; i < mergedRegions.length; i++) {
+            mergedRegions[i] = sheet.getMergedRegion(i).copy();
+        }
+
+        columnWidths = new int[numberOfColumns];
+        columnHidden = new boolean[numberOfColumns];
+        columnStyles = new SnapshotCellStyle[numberOfColumns];
+        for (int i = 0; i < numberOfColumns; i++) {
+            columnWidths[i] = sheet.getColumnWidth(i);
+            columnHidden[i] = sheet.isColumnHidden(i);
+            columnStyles[i] = getColumnStyle(snapshot, sheet, i);
+        }
+        defaultColumnWidth = sheet.getDefaultColumnWidth();
+        defaultRowHeight = sheet.getDefaultRowHeight();
+        defaultRowHeightInPoints = sheet.getDefaultRowHeightInPoints();
+
+        rightToLeft = sheet.isRightToLeft();
+        forceFormulaRecalculation = sheet.getForceFormulaRecalculation();
+        displayZeros = sheet.isDisplayZeros();
+        displayGridlines = sheet.isDisplayGridlines();
+        displayFormulas = sheet.isDisplayFormulas();
+        displayRowColHeadings = sheet.isDisplayRowColHeadings();
+        protect = sheet.getProtect();
+        scenarioProtect = sheet.getScenarioProtect();
+        topRow = sheet.getTopRow();
+        leftCol = sheet.getLeftCol();
+        paneInformation = sheet.getPaneInformation();
+
+        horizontallyCenter = sheet.getHorizontallyCenter();
+        verticallyCenter = sheet.getVerticallyCenter();
+        autobreaks = sheet.getAutobreaks();
+        displayGuts = sheet.getDisplayGuts();
+        fitToPage = sheet.getFitToPage();
+        rowSumsBelow = sheet.getRowSumsBelow();
+        rowSumsRight = sheet.getRowSumsRight();
+        printGridlines = sheet.isPrintGridlines();
+        margins = new double[FooterMargin + 1];
+        for (short i = 0; i < margins.length; i++) {
+            margins[i] = sheet.getMargin(i);
+        }
+        rowBreaks = sheet.getRowBreaks().clone();
+        columnBreaks = sheet.getColumnBreaks().clone();
+        repeatingRows = copy(sheet.getRepeatingRows());
+        repeatingColumns = copy(sheet.getRepeatingColumns());
+        printArea = workbook.getPrintArea(sheetIndex);
+        printSetup = new SnapshotPrintSetup(sheet.getPrintSetup());
+        header = new SnapshotHeaderFooter(sheet.getHeader());
+        footer = new SnapshotHeaderFooter(sheet.getFooter());
+        conditionalFormatting = new SnapshotConditionalFormatting(sheet.getSheetConditionalFormatting());
+
+        comments = new HashMap<Long, SnapshotComment>();
+        hyperlinks = new HashMap<Long, SnapshotHyperlink>();
+        if (sheet instanceof HSSFSheet) {
+            // looking up the comment of each cell would add a drawing to the sheets without one
+            HSSFShapeContainer patriarch = ((HSSFSheet) sheet).getDrawingPatriarch();
+            if (patriarch != null) {
+                addComments(patriarch);
+            }
+        }
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                if (!(sheet instanceof HSSFSheet)) {
+                    addComment(getCellComment(cell));
+                }
+                Hyperlink link = getHyperlink(cell);
+                if (link != null) {
+                    hyperlinks.put(getCellKey(cell.getRowIndex(), cell.getColumnIndex()), new SnapshotHyperlink(link));
+                }
+            }
+        }
+    }
+
+    private static CellRangeAddress copy(CellRangeAddress range) {
+        return range == null ? null : range.copy();
+    }
+
+    private static Long getCellKey(int row, int column) {
+        return Long.valueOf(((long) row << 32) | (column & 0xFFFFFFFFL));
+    }
+
+    private void addComments(HSSFShapeContainer container) {
+        for (HSSFShape shape : container.getChildren()) {
+            if (shape instanceof HSSFComment) {
+                addComment((HSSFComment) shape);
+            } else if (shape instanceof HSSFShapeContainer) {
+                addComments((HSSFShapeContainer) shape);
+            }
+        }
+    }
+
+    private void addComment(Comment comment) {
+        if (comment != null) {
+            comments.put(getCellKey(comment.getRow(), comment.getColumn()), new SnapshotComment(comment));
+        }
+    }
+
+    private static Comment getCellComment(Cell cell) {
+        try {
+            return cell.getCellComment();
+        } catch (RuntimeException e) {
+            // the comment cannot be read, and so is left out of the snapshot
+            return null;
+        }
+    }
+
+    private static Hyperlink getHyperlink(Cell cell) {
+        try {
+            return cell.getHyperlink();
+        } catch (RuntimeException e) {
+            // the hyperlink cannot be read, and so is left out of the snapshot
+            return null;
+        }
+    }
+
+    private static SnapshotCellStyle getColumnStyle(WorkbookSnapshot snapshot, Sheet sheet, int column) {
+        try {
+            return snapshot.getStyle(sheet.getColumnStyle(column));
+        } catch (RuntimeException e) {
+            // the style is missing from the workbook, and so from the snapshot
+            return null;
+        }
+    }
+
+    WorkbookSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    boolean isHidden() {
+        return hidden;
+    }
+
+    boolean isVeryHidden() {
+        return veryHidden;
+    }
+
+    SnapshotRow getSnapshotRow(int rownum) {
+        return rows.get(Integer.valueOf(rownum));
+    }
+
+    String getPrintArea() {
+        return printArea;
+    }
+
+    Hyperlink getHyperlink(int row, int column) {
+        return hyperlinks.get(getCellKey(row, column));
+    }
+
+    private static boolean contains(int[] breaks, int index) {
+        for (int i = 0; i < breaks.length; i++) {
+            if (breaks[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Workbook getWorkbook() {
+        return snapshot;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public boolean isSelected() {
+        return selected;
+    }
+
+    public void setSelected(boolean value) {
+        throw readOnly();
+    }
+
+    public Row createRow(int rownum) {
+        throw readOnly();
+    }
+
+    public void removeRow(Row row) {
+        throw readOnly();
+    }
+
+    public Row getRow(int rownum) {
+        return getSnapshotRow(rownum);
+    }
+
+    public int getPhysicalNumberOfRows() {
+        return rows.size();
+    }
+
+    public int getFirstRowNum() {
+        return rows.isEmpty() ? 0 : rows.firstKey().intValue();
+    }
+
+    public int getLastRowNum() {
+        return rows.isEmpty() ? 0 : rows.lastKey().intValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Iterator<Row> rowIterator() {
+        return (Iterator<Row>) (Iterator<? extends Row>) rows.values().iterator();
+    }
+
+    public Iterator<Row> iterator() {
+        return rowIterator();
+    }
+
+    public boolean isColumnHidden(int columnIndex) {
+        return columnIndex < columnHidden.length && columnHidden[columnIndex];
+    }
+
+    public void setColumnHidden(int columnIndex, boolean hidden) {
+        throw readOnly();
+    }
+
+    public int getColumnWidth(int columnIndex) {
+        if (columnIndex < columnWidths.length) {
+            return columnWidths[columnIndex];
+        }
+        return defaultColumnWidth * 256;
+    }
+
+    public void setColumnWidth(int columnIndex, int width) {
+        throw readOnly();
+    }
+
+    public CellStyle getColumnStyle(int column) {
+        return column < columnStyles.length ? columnStyles[column] : null;
+    }
+
+    public void setDefaultColumnStyle(int column, CellStyle style) {
+        throw readOnly();
+    }
+
+    public int getDefaultColumnWidth() {
+        return defaultColumnWidth;
+    }
+
+    public void setDefaultColumnWidth(int width) {
+        throw readOnly();
+    }
+
+    public short getDefaultRowHeight() {
+        return defaultRowHeight;
+    }
+
+    public float getDefaultRowHeightInPoints() {
+        return defaultRowHeightInPoints;
+    }
+
+    public void setDefaultRowHeight(short height) {
+        throw readOnly();
+    }
+
+    public void setDefaultRowHeightInPoints(float height) {
+        throw readOnly();
+    }
+
+    public boolean isRightToLeft() {
+        return rightToLeft;
+    }
+
+    public void setRightToLeft(boolean value) {
+        throw readOnly();
+    }
+
+    public int getNumMergedRegions() {
+        return mergedRegions.length;
+    }
+
+    public CellRangeAddress getMergedRegion(int index) {
+        return mergedRegions[index].copy();
+    }
+
+    public int addMergedRegion(CellRangeAddress region) {
+        throw readOnly();
+    }
+
+    public void removeMergedRegion(int index) {
+        throw readOnly();
+    }
+
+    public boolean getHorizontallyCenter() {
+        return horizontallyCenter;
+    }
+
+    public void setHorizontallyCenter(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getVerticallyCenter() {
+        return verticallyCenter;
+    }
+
+    public void setVerticallyCenter(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getForceFormulaRecalculation() {
+        return forceFormulaRecalculation;
+    }
+
+    public void setForceFormulaRecalculation(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getAutobreaks() {
+        return autobreaks;
+    }
+
+    public void setAutobreaks(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getDisplayGuts() {
+        return displayGuts;
+    }
+
+    public void setDisplayGuts(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean isDisplayZeros() {
+        return displayZeros;
+    }
+
+    public void setDisplayZeros(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getFitToPage() {
+        return fitToPage;
+    }
+
+    public void setFitToPage(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getRowSumsBelow() {
+        return rowSumsBelow;
+    }
+
+    public void setRowSumsBelow(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getRowSumsRight() {
+        return rowSumsRight;
+    }
+
+    public void setRowSumsRight(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean isPrintGridlines() {
+        return printGridlines;
+    }
+
+    public void setPrintGridlines(boolean show) {
+        throw readOnly();
+    }
+
+    public boolean isDisplayGridlines() {
+        return displayGridlines;
+    }
+
+    public void setDisplayGridlines(boolean show) {
+        throw readOnly();
+    }
+
+    public boolean isDisplayFormulas() {
+        return displayFormulas;
+    }
+
+    public void setDisplayFormulas(boolean show) {
+        throw readOnly();
+    }
+
+    public boolean isDisplayRowColHeadings() {
+        return displayRowColHeadings;
+    }
+
+    public void setDisplayRowColHeadings(boolean show) {
+        throw readOnly();
+    }
+
+    public PrintSetup getPrintSetup() {
+        return printSetup;
+    }
+
+    public Header getHeader() {
+        return header;
+    }
+
+    public Footer getFooter() {
+        return footer;
+    }
+
+    public double getMargin(short margin) {
+        if (margin < 0 || margin >= margins.length) {
+            throw new IllegalArgumentException("Unknown margin constant:  " + margin);
+        }
+        return margins[margin];
+    }
+
+    public void setMargin(short margin, double size) {
+        throw readOnly();
+    }
+
+    public boolean getProtect() {
+        return protect;
+    }
+
+    public boolean getScenarioProtect() {
+        return scenarioProtect;
+    }
+
+    public void protectSheet(String password) {
+        throw readOnly();
+    }
+
+    public void setZoom(int numerator, int denominator) {
+        throw readOnly();
+    }
+
+    public short getTopRow() {
+        return topRow;
+    }
+
+    public short getLeftCol() {
+        return leftCol;
+    }
+
+    public void showInPane(short toprow, short leftcol) {
+        throw readOnly();
+    }
+
+    public void shiftRows(int startRow, int endRow, int n) {
+        throw readOnly();
+    }
+
+    public void shiftRows(int startRow, int endRow, int n, boolean copyRowHeight, boolean resetOriginalRowHeight) {
+        throw readOnly();
+    }
+
+    public void createFreezePane(int colSplit, int rowSplit, int leftmostColumn, int topRow) {
+        throw readOnly();
+    }
+
+    public void createFreezePane(int colSplit, int rowSplit) {
+        throw readOnly();
+    }
+
+    public void createSplitPane(int xSplitPos, int ySplitPos, int leftmostColumn, int topRow, int activePane) {
+        throw readOnly();
+    }
+
+    public PaneInformation getPaneInformation() {
+        return paneInformation;
+    }
+
+    public boolean isRowBroken(int row) {
+        return contains(rowBreaks, row);
+    }
+
+    public int[] getRowBreaks() {
+        return rowBreaks.clone();
+    }
+
+    public void setRowBreak(int row) {
+        throw readOnly();
+    }
+
+    public void removeRowBreak(int row) {
+        throw readOnly();
+    }
+
+    public boolean isColumnBroken(int column) {
+        return contains(columnBreaks, column);
+    }
+
+    public int[] getColumnBreaks() {
+        return columnBreaks.clone();
+    }
+
+    public void setColumnBreak(int column) {
+        throw readOnly();
+    }
+
+    public void removeColumnBreak(int column) {
+        throw readOnly();
+    }
+
+    public void setColumnGroupCollapsed(int columnNumber, boolean collapsed) {
+        throw readOnly();
+    }
+
+    public void groupColumn(int fromColumn, int toColumn) {
+        throw readOnly();
+    }
+
+    public void ungroupColumn(int fromColumn, int toColumn) {
+        throw readOnly();
+    }
+
+    public void groupRow(int fromRow, int toRow) {
+        throw readOnly();
+    }
+
+    public void ungroupRow(int fromRow, int toRow) {
+        throw readOnly();
+    }
+
+    public void setRowGroupCollapsed(int row, boolean collapse) {
+        throw readOnly();
+    }
+
+    public void autoSizeColumn(int column) {
+        throw readOnly();
+    }
+
+    public void autoSizeColumn(int column, boolean useMergedCells) {
+        throw readOnly();
+    }
+
+    public Comment getCellComment(int row, int column) {
+        return comments.get(getCellKey(row, column));
+    }
+
+    public Drawing createDrawingPatriarch() {
+        throw readOnly();
+    }
+
+    public CellRange<? extends Cell> setArrayFormula(String formula, CellRangeAddress range) {
+        throw readOnly();
+    }
+
+    public CellRange<? extends Cell> removeArrayFormula(Cell cell) {
+        throw readOnly();
+    }
+
+    public DataValidationHelper getDataValidationHelper() {
+        throw readOnly();
+    }
+
+    public void addValidationData(DataValidation dataValidation) {
+        throw readOnly();
+    }
+
+    public AutoFilter setAutoFilter(CellRangeAddress range) {
+        throw readOnly();
+    }
+
+    public SheetConditionalFormatting getSheetConditionalFormatting() {
+        return conditionalFormatting;
+    }
+
+    public CellRangeAddress getRepeatingRows() {
+        return copy(repeatingRows);
+    }
+
+    public CellRangeAddress getRepeatingColumns() {
+        return copy(repeatingColumns);
+    }
+
+    public void setRepeatingRows(CellRangeAddress rowRangeRef) {
+        throw readOnly();
+    }
+
+    public void setRepeatingColumns(CellRangeAddress columnRangeRef) {
+        throw readOnly();
+    }
+}
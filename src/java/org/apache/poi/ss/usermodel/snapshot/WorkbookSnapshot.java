@@ -0,0 +1,524 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.formula.EvaluationWorkbook;
+import org.apache.poi.ss.formula.WorkbookEvaluatorProvider;
+import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Date1904Support;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.PictureData;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * A read only copy of a workbook, which many threads can read at the same
+ *  time without any synchronization.
+ * <p>
+ * {@link #create(Workbook)} copies the sheets, rows and cells of a workbook,
+ *  with their values, formulas and cached formula results, comments and
+ *  hyperlinks, its cell styles, fonts, data formats, names and pictures, and
+ *  the page setup, outline settings and conditional formatting of its sheets.
+ *  Later changes to the workbook do not affect the snapshot, which never
+ *  changes: the methods which would change it throw an
+ *  <code>UnsupportedOperationException</code>, as do those for the colors
+ *  of its cell styles, which are only copied as indexes, and for writing it.
+ * </p>
+ * <p>
+ * The formulas can be evaluated with {@link #getFormulaEvaluator()}, which is
+ *  thread safe as well. Since the cells are read only, it does not store the
+ *  results in them.
+ * </p>
+ * <p>
+ * The workbook being copied must not be changed by other threads while the
+ *  snapshot is created.
+ * </p>
+ */
+public final class WorkbookSnapshot implements Workbook {
+
+    private final List<SnapshotSheet> sheets;
+    private final Map<Short, SnapshotFont> fonts;
+    private final short numberOfFonts;
+    private final List<SnapshotCellStyle> styles;
+    private final List<SnapshotName> names;
+    private final List<SnapshotPictureData> pictures;
+    private final SnapshotDataFormat dataFormat;
+    private final int activeSheetIndex;
+    private final int firstVisibleTab;
+    private final boolean hidden;
+    private final boolean forceFormulaRecalculation;
+    private final MissingCellPolicy missingCellPolicy;
+    private final boolean date1904;
+    private final SnapshotEvaluationWorkbook evaluationWorkbook;
+    private final SnapshotFormulaEvaluator formulaEvaluator;
+
+    /**
+     * Copies the given workbook
+     *
+     * @param workbook a workbook which can evaluate its formulas, such as
+     *  an <code>HSSFWorkbook</code> or an <code>XSSFWorkbook</code>
+     * @return the snapshot of the workbook as it is now
+     */
+    public static WorkbookSnapshot create(Workbook workbook) {
+        if (workbook instanceof WorkbookSnapshot) {
+            return (WorkbookSnapshot) workbook;
+        }
+        FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        if (!(evaluator instanceof WorkbookEvaluatorProvider)) {
+            throw new IllegalArgumentException("Unexpected workbook type (" + workbook.getClass().getName() + ")");
+        }
+        EvaluationWorkbook source = ((WorkbookEvaluatorProvider) evaluator)._getWorkbookEvaluator().getWorkbook();
+        return new WorkbookSnapshot(workbook, source);
+    }
+
+    private WorkbookSnapshot(Workbook workbook, EvaluationWorkbook source) {
+        FormulaCapture capture = new FormulaCapture(source);
+
+        numberOfFonts = workbook.getNumberOfFonts();
+        fonts = new HashMap<Short, SnapshotFont>();
+        for (short i = 0; i < numberOfFonts; i++) {
+            fonts.put(Short.valueOf(i), new SnapshotFont(workbook.getFontAt(i)));
+        }
+        short numberOfStyles = workbook.getNumCellStyles();
+        Map<Short, String> formats = new HashMap<Short, String>();
+        for (int i = 0; i < BuiltinFormats.getAll().length; i++) {
+            formats.put(Short.valueOf((short) i), BuiltinFormats.getBuiltinFormat(i));
+        }
+        styles = new ArrayList<SnapshotCellStyle>(numberOfStyles);
+        for (short i = 0; i < numberOfStyles; i++) {
+            CellStyle style;
+            try {
+                style = workbook.getCellStyleAt(i);
+            } catch (RuntimeException e) {
+                // nor can the cells which use it provide it
+                styles.add(null);
+                continue;
+            }
+            Short fontIndex = Short.valueOf(style.getFontIndex());
+            if (!fonts.containsKey(fontIndex)) {
+                fonts.put(fontIndex, new SnapshotFont(workbook.getFontAt(fontIndex.shortValue())));
+            }
+            SnapshotCellStyle copy = new SnapshotCellStyle(style);
+            formats.put(Short.valueOf(copy.getDataFormat()), copy.getDataFormatString());
+            styles.add(copy);
+        }
+        dataFormat = new SnapshotDataFormat(formats);
+
+        int numberOfNames = workbook.getNumberOfNames();
+        names = new ArrayList<SnapshotName>(numberOfNames);
+        for (int i = 0; i < numberOfNames; i++) {
+            names.add(new SnapshotName(workbook, i, capture));
+        }
+
+        List<SnapshotPictureData> pictureList = new ArrayList<SnapshotPictureData>();
+        for (PictureData picture : workbook.getAllPictures()) {
+            pictureList.add(new SnapshotPictureData(picture));
+        }
+        pictures = Collections.unmodifiableList(pictureList);
+
+        int numberOfSheets = workbook.getNumberOfSheets();
+        sheets = new ArrayList<SnapshotSheet>(numberOfSheets);
+        for (int i = 0; i < numberOfSheets; i++) {
+            sheets.add(new SnapshotSheet(this, workbook, i, capture));
+        }
+
+        int active = 0;
+        int firstVisible = 0;
+        try {
+            active = workbook.getActiveSheetIndex();
+            firstVisible = workbook.getFirstVisibleTab();
+        } catch (RuntimeException e) {
+            // some XSSF workbooks have no book views, which are then the first sheet
+        }
+        activeSheetIndex = active;
+        firstVisibleTab = firstVisible;
+        hidden = isHidden(workbook);
+        forceFormulaRecalculation = workbook.getForceFormulaRecalculation();
+        missingCellPolicy = workbook.getMissingCellPolicy();
+        date1904 = isDate1904(workbook);
+
+        evaluationWorkbook = new SnapshotEvaluationWorkbook(this, capture);
+        formulaEvaluator = new SnapshotFormulaEvaluator(evaluationWorkbook);
+    }
+
+    private static boolean isHidden(Workbook workbook) {
+        try {
+            return workbook.isHidden();
+        } catch (RuntimeException e) {
+            // XSSF does not implement it yet
+            return false;
+        }
+    }
+
+    /**
+     * The date system is not part of the usermodel interfaces, so it is read
+     *  from the workbooks which provide it, and is otherwise the 1900 one
+     */
+    private static boolean isDate1904(Workbook workbook) {
+        return workbook instanceof Date1904Support && ((Date1904Support) workbook).isDate1904();
+    }
+
+    static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Workbook snapshots are read only");
+    }
+
+    static UnsupportedOperationException notCopied(String what) {
+        return new UnsupportedOperationException("Workbook snapshots do not include " + what);
+    }
+
+    /**
+     * @return the exception for a property which the copied workbook failed
+     *  to provide, thrown when the property of the snapshot is read
+     */
+    static IllegalStateException unreadable(String what, RuntimeException cause) {
+        return new IllegalStateException("The " + what + " could not be read from the copied workbook", cause);
+    }
+
+    SnapshotEvaluationWorkbook getEvaluationWorkbook() {
+        return evaluationWorkbook;
+    }
+
+    boolean isDate1904() {
+        return date1904;
+    }
+
+    SnapshotCellStyle getStyle(short index) {
+        if (index < 0 || index >= styles.size()) {
+            return null;
+        }
+        return styles.get(index);
+    }
+
+    /**
+     * @return the snapshot of the given style of the copied workbook
+     */
+    SnapshotCellStyle getStyle(CellStyle style) {
+        return style == null ? null : getStyle(style.getIndex());
+    }
+
+    UDFFinder getUDFFinder() {
+        return evaluationWorkbook.getUDFFinder();
+    }
+
+    /**
+     * Returns the evaluator of the formulas of this snapshot. It can be used
+     *  by many threads at the same time.
+     */
+    public FormulaEvaluator getFormulaEvaluator() {
+        return formulaEvaluator;
+    }
+
+    public int getActiveSheetIndex() {
+        return activeSheetIndex;
+    }
+
+    public void setActiveSheet(int sheetIndex) {
+        throw readOnly();
+    }
+
+    public int getFirstVisibleTab() {
+        return firstVisibleTab;
+    }
+
+    public void setFirstVisibleTab(int sheetIndex) {
+        throw readOnly();
+    }
+
+    public void setSheetOrder(String sheetname, int pos) {
+        throw readOnly();
+    }
+
+    public void setSelectedTab(int index) {
+        throw readOnly();
+    }
+
+    public void setSheetName(int sheet, String name) {
+        throw readOnly();
+    }
+
+    public String getSheetName(int sheet) {
+        return getSheetAt(sheet).getSheetName();
+    }
+
+    public int getSheetIndex(String name) {
+        for (int i = 0; i < sheets.size(); i++) {
+            if (sheets.get(i).getSheetName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getSheetIndex(Sheet sheet) {
+        for (int i = 0; i < sheets.size(); i++) {
+            if (sheets.get(i) == sheet) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Sheet createSheet() {
+        throw readOnly();
+    }
+
+    public Sheet createSheet(String sheetname) {
+        throw readOnly();
+    }
+
+    public Sheet cloneSheet(int sheetNum) {
+        throw readOnly();
+    }
+
+    public int getNumberOfSheets() {
+        return sheets.size();
+    }
+
+    public Sheet getSheetAt(int index) {
+        if (index < 0 || index >= sheets.size()) {
+            throw new IllegalArgumentException("Sheet index (" + index + ") is out of range (0.."
+                    + (sheets.size() - 1) + ")");
+        }
+        return sheets.get(index);
+    }
+
+    public Sheet getSheet(String name) {
+        int index = getSheetIndex(name);
+        return index == -1 ? null : sheets.get(index);
+    }
+
+    public void removeSheetAt(int index) {
+        throw readOnly();
+    }
+
+    public void setRepeatingRowsAndColumns(int sheetIndex, int startColumn, int endColumn, int startRow, int endRow) {
+        throw readOnly();
+    }
+
+    public Font createFont() {
+        throw readOnly();
+    }
+
+    public Font findFont(short boldWeight, short color, short fontHeight, String name, boolean italic,
+            boolean strikeout, short typeOffset, byte underline) {
+        for (short i = 0; i < numberOfFonts; i++) {
+            SnapshotFont font = fonts.get(Short.valueOf(i));
+            if (font.getBoldweight() == boldWeight
+                    && font.getColor() == color
+                    && font.getFontHeight() == fontHeight
+                    && font.getFontName().equals(name)
+                    && font.getItalic() == italic
+                    && font.getStrikeout() == strikeout
+                    && font.getTypeOffset() == typeOffset
+                    && font.getUnderline() == underline) {
+                return font;
+            }
+        }
+        return null;
+    }
+
+    public short getNumberOfFonts() {
+        return numberOfFonts;
+    }
+
+    public Font getFontAt(short idx) {
+        SnapshotFont font = fonts.get(Short.valueOf(idx));
+        if (font == null) {
+            throw new IllegalArgumentException("No font at index " + idx);
+        }
+        return font;
+    }
+
+    public CellStyle createCellStyle() {
+        throw readOnly();
+    }
+
+    public short getNumCellStyles() {
+        return (short) styles.size();
+    }
+
+    public CellStyle getCellStyleAt(short idx) {
+        SnapshotCellStyle style = getStyle(idx);
+        if (style == null) {
+            throw new IllegalArgumentException("No cell style at index " + idx);
+        }
+        return style;
+    }
+
+    public void write(OutputStream stream) {
+        throw notCopied("the records needed to write them");
+    }
+
+    public int getNumberOfNames() {
+        return names.size();
+    }
+
+    public Name getName(String name) {
+        int index = getNameIndex(name);
+        return index == -1 ? null : names.get(index);
+    }
+
+    public Name getNameAt(int nameIndex) {
+        if (nameIndex < 0 || nameIndex >= names.size()) {
+            throw new IllegalArgumentException("Name index (" + nameIndex + ") is out of range (0.."
+                    + (names.size() - 1) + ")");
+        }
+        return names.get(nameIndex);
+    }
+
+    List<SnapshotName> getNames() {
+        return names;
+    }
+
+    public Name createName() {
+        throw readOnly();
+    }
+
+    public int getNameIndex(String name) {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).getNameName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void removeName(int index) {
+        throw readOnly();
+    }
+
+    public void removeName(String name) {
+        throw readOnly();
+    }
+
+    public void setPrintArea(int sheetIndex, String reference) {
+        throw readOnly();
+    }
+
+    public void setPrintArea(int sheetIndex, int startColumn, int endColumn, int startRow, int endRow) {
+        throw readOnly();
+    }
+
+    public String getPrintArea(int sheetIndex) {
+        return ((SnapshotSheet) getSheetAt(sheetIndex)).getPrintArea();
+    }
+
+    public void removePrintArea(int sheetIndex) {
+        throw readOnly();
+    }
+
+    public MissingCellPolicy getMissingCellPolicy() {
+        return missingCellPolicy;
+    }
+
+    public void setMissingCellPolicy(MissingCellPolicy missingCellPolicy) {
+        throw readOnly();
+    }
+
+    /**
+     * @return the data formats of the snapshot, which cannot add formats
+     */
+    public DataFormat createDataFormat() {
+        return dataFormat;
+    }
+
+    public int addPicture(byte[] pictureData, int format) {
+        throw readOnly();
+    }
+
+    public List<? extends PictureData> getAllPictures() {
+        return pictures;
+    }
+
+    /**
+     * @return a helper which only provides the data formats and the formula
+     *  evaluator of the snapshot
+     */
+    public CreationHelper getCreationHelper() {
+        return new CreationHelper() {
+            public RichTextString createRichTextString(String text) {
+                throw readOnly();
+            }
+            public DataFormat createDataFormat() {
+                return dataFormat;
+            }
+            public Hyperlink createHyperlink(int type) {
+                throw readOnly();
+            }
+            public FormulaEvaluator createFormulaEvaluator() {
+                return formulaEvaluator;
+            }
+            public ClientAnchor createClientAnchor() {
+                throw readOnly();
+            }
+        };
+    }
+
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    public void setHidden(boolean hiddenFlag) {
+        throw readOnly();
+    }
+
+    public boolean isSheetHidden(int sheetIx) {
+        return ((SnapshotSheet) getSheetAt(sheetIx)).isHidden();
+    }
+
+    public boolean isSheetVeryHidden(int sheetIx) {
+        return ((SnapshotSheet) getSheetAt(sheetIx)).isVeryHidden();
+    }
+
+    public void setSheetHidden(int sheetIx, boolean hidden) {
+        throw readOnly();
+    }
+
+    public void setSheetHidden(int sheetIx, int hidden) {
+        throw readOnly();
+    }
+
+    public void addToolPack(UDFFinder toopack) {
+        throw readOnly();
+    }
+
+    public void setForceFormulaRecalculation(boolean value) {
+        throw readOnly();
+    }
+
+    public boolean getForceFormulaRecalculation() {
+        return forceFormulaRecalculation;
+    }
+}
@@ -0,0 +1,517 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Computes the widths needed to fit the contents of columns, for many
+ *  columns or large sheets.
+ * <p>
+ * By default the text is measured with the glyph advances of the font
+ *  metrics file also used by <tt>StaticFontMetrics</tt>, as loaded by
+ *  {@link FontMetricsProperties}. This needs neither
+ *  AWT nor any fonts installed, and is much faster than laying out the text,
+ *  but only gives an estimate: the tables hold whole pixel widths of 10 point
+ *  bold letters and digits, and the other characters are given typical
+ *  proportions. Fonts which are not in the tables are measured as Arial.
+ *  Call {@link #setUseFontMetrics(boolean)} with <code>false</code> to get
+ *  the exact measurement of {@link SheetUtil#getColumnWidth(Sheet, int, boolean)}
+ *  instead.
+ * </p>
+ * <p>
+ * On large sheets, {@link #setSampleSize(int)} limits the number of rows which
+ *  are looked at, and {@link #setExecutor(Executor)} lets several columns be
+ *  measured at the same time. The sheet must not be changed meanwhile.
+ * </p>
+ * <p>
+ * Widths are returned in the units of {@link SheetUtil}, that is in widths
+ *  of the character '0' of the default font.
+ * </p>
+ */
+public class ColumnWidthCalculator {
+
+    /**
+     * Added to the text measured, as {@link SheetUtil} does
+     */
+    private static final char defaultChar = '0';
+
+    /**
+     * This is the multiple that the font height is scaled by when determining the
+     * boundary of rotated text.
+     */
+    private static final double fontHeightMultiple = 2.0;
+
+    /**
+     * The font tables are for 10 point fonts
+     */
+    private static final double TABLE_POINTS = 10.0;
+
+    /**
+     * Used for the fonts missing from the font metrics file
+     */
+    private static final String FALLBACK_FONT = "Arial";
+
+    /**
+     * The font metrics file only holds letters and digits. Other ASCII characters
+     *  get these widths, in thousandths of an em of Helvetica, relative to its
+     *  digits, which are 556 wide. The last is the non breaking space.
+     */
+    private static final String OTHER_CHARS = " !\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~\u00A0";
+    private static final int[] OTHER_CHAR_WIDTHS = {
+        278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389, 584, 278, 333, 278, 278,
+        278, 278, 584, 584, 584, 556, 1015, 278, 278, 278, 469, 556, 333, 334, 260, 334,
+        584, 278,
+    };
+    private static final int DIGIT_WIDTH = 556;
+
+    /** Our cache of glyph tables we've already built, by font name and style */
+    private static final Map<String, GlyphTable> glyphTables = new HashMap<String, GlyphTable>();
+
+    private boolean useFontMetrics = true;
+    private boolean useMergedCells;
+    private int sampleSize;
+    private Executor executor;
+
+    /**
+     * Whether to measure text with the font metrics tables, the default, or
+     *  lay it out with AWT as {@link SheetUtil} does
+     */
+    public void setUseFontMetrics(boolean useFontMetrics) {
+        this.useFontMetrics = useFontMetrics;
+    }
+
+    /**
+     * Whether to use the contents of merged cells. Default is to ignore them.
+     */
+    public void setUseMergedCells(boolean useMergedCells) {
+        this.useMergedCells = useMergedCells;
+    }
+
+    /**
+     * Limits the number of rows looked at in each column. The rows are spread
+     *  evenly between the first and the last row of the sheet, and always
+     *  include the first row.
+     *
+     * @param sampleSize the maximum number of rows, or zero for all rows
+     */
+    public void setSampleSize(int sampleSize) {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("Sample size must not be negative, was " + sampleSize);
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Sets the executor which measures the columns given to
+     *  {@link #getColumnWidths(Sheet, int[])} and
+     *  {@link #autoSizeColumns(Sheet, int[])}, one task per column.
+     *  By default they are measured one after the other by the calling thread.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Compute width of a column and return the result
+     *
+     * @param sheet the sheet to calculate
+     * @param column    0-based index of the column
+     * @return  the width, or -1 if there is nothing to measure
+     */
+    public double getColumnWidth(Sheet sheet, int column) {
+        return new ColumnMeasure(sheet, column).measure();
+    }
+
+    /**
+     * Compute the widths of several columns and return the results
+     *
+     * @param sheet the sheet to calculate
+     * @param columns   0-based indexes of the columns
+     * @return  the width of each column, or -1 for those with nothing to measure
+     */
+    public double[] getColumnWidths(Sheet sheet, int[] columns) {
+        double[] result = new double[columns.length];
+        if (executor == null) {
+            for (int i = 0; i < columns.length; i++) {
+                result[i] = getColumnWidth(sheet, columns[i]);
+            }
+            return result;
+        }
+
+        List<FutureTask<Double>> tasks = new ArrayList<FutureTask<Double>>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            final ColumnMeasure measure = new ColumnMeasure(sheet, columns[i]);
+            FutureTask<Double> task = new FutureTask<Double>(new Callable<Double>() {
+                public Double call() {
+                    return Double.valueOf(measure.measure());
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+        for (int i = 0; i < columns.length; i++) {
+            try {
+                result[i] = tasks.get(i).get().doubleValue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while measuring column " + columns[i], e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adjusts the width of the columns to fit their contents, as
+     *  {@link Sheet#autoSizeColumn(int)} does
+     *
+     * @param sheet the sheet to adjust
+     * @param columns   0-based indexes of the columns
+     */
+    public void autoSizeColumns(Sheet sheet, int[] columns) {
+        double[] widths = getColumnWidths(sheet, columns);
+        for (int i = 0; i < columns.length; i++) {
+            double width = widths[i];
+            if (width != -1) {
+                width *= 256;
+                int maxColumnWidth = 255*256; // The maximum column width for an individual cell is 255 characters
+                if (width > maxColumnWidth) {
+                    width = maxColumnWidth;
+                }
+                sheet.setColumnWidth(columns[i], (int)(width));
+            }
+        }
+    }
+
+    /**
+     * The state needed to measure one column. The formatter and the fonts
+     *  looked up are not shared, so that columns can be measured by
+     *  different threads.
+     */
+    private final class ColumnMeasure {
+        private final Sheet sheet;
+        private final Workbook wb;
+        private final int column;
+        private final DataFormatter formatter = new DataFormatter();
+        /** the merged regions which include the column */
+        private final List<CellRangeAddress> regions = new ArrayList<CellRangeAddress>();
+        /** the scaled glyph tables, by font index */
+        private final Map<Short, ScaledFont> fonts = new HashMap<Short, ScaledFont>();
+        private double defaultCharWidth;
+
+        ColumnMeasure(Sheet sheet, int column) {
+            this.sheet = sheet;
+            this.wb = sheet.getWorkbook();
+            this.column = column;
+        }
+
+        double measure() {
+            for (int i = 0; i < sheet.getNumMergedRegions(); i++) {
+                CellRangeAddress region = sheet.getMergedRegion(i);
+                if (region.getFirstColumn() <= column && region.getLastColumn() >= column) {
+                    regions.add(region);
+                }
+            }
+            if (useFontMetrics) {
+                defaultCharWidth = getFont((short) 0).getCharWidth(defaultChar);
+            } else {
+                defaultCharWidth = SheetUtil.getDefaultCharWidth(wb);
+            }
+
+            double width = -1;
+            int firstRow = sheet.getFirstRowNum();
+            int rowCount = sheet.getLastRowNum() - firstRow + 1;
+            if (sampleSize == 0 || rowCount <= sampleSize) {
+                for (Row row : sheet) {
+                    width = Math.max(width, getCellWidth(row));
+                }
+            } else {
+                double step = (double) rowCount / sampleSize;
+                for (int i = 0; i < sampleSize; i++) {
+                    Row row = sheet.getRow(firstRow + (int) (i * step));
+                    if (row != null) {
+                        width = Math.max(width, getCellWidth(row));
+                    }
+                }
+            }
+            return width;
+        }
+
+        private double getCellWidth(Row row) {
+            Cell cell = row.getCell(column);
+            if (cell == null) {
+                return -1;
+            }
+
+            int colspan = 1;
+            for (CellRangeAddress region : regions) {
+                if (region.getFirstRow() <= row.getRowNum() && region.getLastRow() >= row.getRowNum()) {
+                    if (!useMergedCells) {
+                        // If we're not using merged cells, skip this one and move on to the next.
+                        return -1;
+                    }
+                    cell = row.getCell(region.getFirstColumn());
+                    colspan = 1 + region.getLastColumn() - region.getFirstColumn();
+                }
+            }
+            if (cell == null) {
+                return -1;
+            }
+            if (!useFontMetrics) {
+                return SheetUtil.getCellWidth(cell, colspan, (int) defaultCharWidth, formatter);
+            }
+
+            CellStyle style = cell.getCellStyle();
+            int cellType = cell.getCellType();
+
+            // for formula cells we compute the cell width for the cached formula result
+            if(cellType == Cell.CELL_TYPE_FORMULA) cellType = cell.getCachedFormulaResultType();
+
+            String text;
+            if (cellType == Cell.CELL_TYPE_STRING) {
+                text = cell.getRichStringCellValue().getString();
+            } else if (cellType == Cell.CELL_TYPE_NUMERIC) {
+                // Try to get it formatted to look the same as excel
+                try {
+                    text = formatter.formatCellValue(cell, SheetUtil.dummyEvaluator);
+                } catch (Exception e) {
+                    text = String.valueOf(cell.getNumericCellValue());
+                }
+            } else if (cellType == Cell.CELL_TYPE_BOOLEAN) {
+                text = String.valueOf(cell.getBooleanCellValue()).toUpperCase();
+            } else {
+                return -1;
+            }
+
+            ScaledFont font = getFont(style.getFontIndex());
+            double width = -1;
+            int start = 0;
+            while (start <= text.length()) {
+                int end = text.indexOf('\n', start);
+                if (end < 0) {
+                    end = text.length();
+                }
+                double advance = font.getStringWidth(text, start, end) + font.getCharWidth(defaultChar);
+                double lineWidth;
+                if (style.getRotation() != 0) {
+                    // the bounds of the line rotated, with its height scaled as in SheetUtil
+                    double angle = style.getRotation()*2.0*Math.PI/360.0;
+                    lineWidth = Math.abs(advance * Math.cos(angle))
+                            + Math.abs(font.getHeight() * fontHeightMultiple * Math.sin(angle));
+                } else {
+                    lineWidth = advance;
+                }
+                width = Math.max(width, ((lineWidth / colspan) / defaultCharWidth) + style.getIndention());
+                start = end + 1;
+            }
+            return width;
+        }
+
+        private ScaledFont getFont(short index) {
+            Short key = Short.valueOf(index);
+            ScaledFont result = fonts.get(key);
+            if (result == null) {
+                Font font = wb.getFontAt(index);
+                GlyphTable table = getGlyphTable(font.getFontName(),
+                        font.getBoldweight() == Font.BOLDWEIGHT_BOLD, font.getItalic());
+                result = new ScaledFont(table, font.getFontHeightInPoints() / TABLE_POINTS);
+                fonts.put(key, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A glyph table scaled to the size of a font
+     */
+    private static final class ScaledFont {
+        private final GlyphTable table;
+        private final double scale;
+
+        ScaledFont(GlyphTable table, double scale) {
+            this.table = table;
+            this.scale = scale;
+        }
+
+        double getCharWidth(char c) {
+            return table.getCharWidth(c) * scale;
+        }
+
+        double getStringWidth(String text, int start, int end) {
+            double width = 0;
+            for (int i = start; i < end; i++) {
+                width += table.getCharWidth(text.charAt(i));
+            }
+            return width * scale;
+        }
+
+        double getHeight() {
+            return table.height * scale;
+        }
+    }
+
+    /**
+     * The advances of the characters of a 10 point font
+     */
+    private static final class GlyphTable {
+        private final double height;
+        private final double[] widths = new double[256];
+        private final double digitWidth;
+
+        /**
+         * @param characters the characters listed by the font metrics file
+         * @param charWidths their widths, or <code>null</code> if the font is not known
+         */
+        GlyphTable(double height, String[] characters, String[] charWidths) {
+            this.height = height;
+            double digit = height / 2;
+            if (characters != null) {
+                for (int i = 0; i < characters.length; i++) {
+                    if (characters[i].length() == 1 && characters[i].charAt(0) == defaultChar) {
+                        digit = Integer.parseInt(charWidths[i]);
+                    }
+                }
+            }
+            digitWidth = digit;
+
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = digit;
+            }
+            for (int i = 0; i < OTHER_CHARS.length(); i++) {
+                widths[OTHER_CHARS.charAt(i)] = digit * OTHER_CHAR_WIDTHS[i] / DIGIT_WIDTH;
+            }
+            if (characters != null) {
+                for (int i = 0; i < characters.length; i++) {
+                    if (characters[i].length() == 1 && characters[i].charAt(0) < widths.length) {
+                        widths[characters[i].charAt(0)] = Integer.parseInt(charWidths[i]);
+                    }
+                }
+            }
+        }
+
+        double getCharWidth(char c) {
+            if (c < widths.length) {
+                return widths[c];
+            }
+            if (isWide(c)) {
+                return digitWidth * 2;
+            }
+            return digitWidth;
+        }
+
+        /**
+         * @return whether the character is an East Asian ideograph, syllable or
+         *  full width form, which take up about twice the width of a digit
+         */
+        private static boolean isWide(char c) {
+            return (c >= '\u2E80' && c <= '\uD7A3')
+                    || (c >= '\uF900' && c <= '\uFAFF')
+                    || (c >= '\uFF00' && c <= '\uFF60');
+        }
+    }
+
+    /**
+     * Looks up the glyph table of a font, or of the nearest font known
+     */
+    private static synchronized GlyphTable getGlyphTable(String fontName, boolean bold, boolean italic) {
+        String fontStyle = "";
+        if (!bold && !italic)
+            fontStyle += "plain";
+        if (bold)
+            fontStyle += "bold";
+        if (italic)
+            fontStyle += "italic";
+
+        String key = fontName + "." + fontStyle;
+        GlyphTable result = glyphTables.get(key);
+        if (result == null) {
+            Properties props = FontMetricsProperties.getFontMetricsProps();
+            result = createGlyphTable(props, fontName, fontStyle);
+            if (result == null) {
+                result = createGlyphTable(props, FALLBACK_FONT, fontStyle);
+            }
+            if (result == null) {
+                // the Arial widths at 10 points, for want of anything better
+                result = new GlyphTable(13, null, null);
+            }
+            glyphTables.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the glyph table of the font, with or without the style, or
+     *  <code>null</code> if neither is in the font metrics file
+     */
+    private static GlyphTable createGlyphTable(Properties props, String fontName, String fontStyle) {
+        // Some fonts support plain/bold/italic/bolditalic variants
+        // Others have different font instances for bold etc
+        // (eg font.dialog.plain.* vs font.Californian FB Bold.*)
+        String[] names = { fontName, fontName + "." + fontStyle };
+        for (String name : names) {
+            String heightStr = props.getProperty("font." + name + ".height");
+            String widthsStr = props.getProperty("font." + name + ".widths");
+            String charactersStr = props.getProperty("font." + name + ".characters");
+            if (heightStr == null || widthsStr == null || charactersStr == null) {
+                continue;
+            }
+            String[] characters = split(charactersStr);
+            String[] widths = split(widthsStr);
+            if (characters.length != widths.length) {
+                throw new RuntimeException("Number of characters does not number of widths for font " + name);
+            }
+            return new GlyphTable(Integer.parseInt(heightStr), characters, widths);
+        }
+        return null;
+    }
+
+    private static String[] split(String text) {
+        StringTokenizer tok = new StringTokenizer(text, ",");
+        String[] result = new String[tok.countTokens()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = tok.nextToken().trim();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.apache.poi.util.Internal;
+
+/**
+ * Loads the table of font metrics shared by {@link ColumnWidthCalculator} and
+ *  the HSSF usermodel's static font metrics. The table is read once, from the
+ *  file named by the <tt>font.metrics.filename</tt> system property if it is
+ *  set, otherwise from <tt>/font_metrics.properties</tt> on the classpath.
+ */
+@Internal
+public final class FontMetricsProperties {
+    /** The font metrics property file we're using */
+    private static Properties fontMetricsProps;
+
+    private FontMetricsProperties() {
+        // no instances of this class
+    }
+
+    /**
+     * @return the font metrics, loaded on the first call
+     */
+    public static synchronized Properties getFontMetricsProps() {
+        // If we haven't already identified out font metrics file,
+        // figure out which one to use and load it
+        if (fontMetricsProps == null) {
+            Properties props = new Properties();
+            InputStream metricsIn = null;
+            try {
+                // Check to see if the font metric file was specified
+                // as a system property
+                String propFileName = null;
+                try {
+                    propFileName = System.getProperty("font.metrics.filename");
+                } catch (SecurityException e) {
+                }
+
+                if (propFileName != null) {
+                    File file = new File(propFileName);
+                    if (!file.exists())
+                        throw new FileNotFoundException(
+                                "font_metrics.properties not found at path "
+                                        + file.getAbsolutePath());
+                    metricsIn = new FileInputStream(file);
+                } else {
+                    // Use the built-in font metrics file off the classpath
+                    metricsIn = FontMetricsProperties.class.getResourceAsStream("/font_metrics.properties");
+                    if (metricsIn == null)
+                        throw new FileNotFoundException(
+                                "font_metrics.properties not found in classpath");
+                }
+                props.load(metricsIn);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not load font metrics: " + e.getMessage());
+            } finally {
+                if (metricsIn != null) {
+                    try {
+                        metricsIn.close();
+                    } catch (IOException ignore) {
+                    }
+                }
+            }
+            fontMetricsProps = props;
+        }
+        return fontMetricsProps;
+    }
+}
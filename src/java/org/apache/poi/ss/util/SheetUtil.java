@@ -54,7 +54,7 @@ public class SheetUtil {
      *
      *  See Bugzilla #50021
      */
-    private static final FormulaEvaluator dummyEvaluator = new FormulaEvaluator(){
+    static final FormulaEvaluator dummyEvaluator = new FormulaEvaluator(){
         public void clearAllCachedResultValues(){}
         public void notifySetFormula(Cell cell) {}
         public void notifyDeleteCell(Cell cell) {}
@@ -88,7 +88,6 @@ public class SheetUtil {
     public static double getCellWidth(Cell cell, int defaultCharWidth, DataFormatter formatter, boolean useMergedCells) {
 
         Sheet sheet = cell.getSheet();
-        Workbook wb = sheet.getWorkbook();
         Row row = cell.getRow();
         int column = cell.getColumnIndex();
 
@@ -104,7 +103,20 @@ public class SheetUtil {
                 colspan = 1 + region.getLastColumn() - region.getFirstColumn();
             }
         }
+        return getCellWidth(cell, colspan, defaultCharWidth, formatter);
+    }
 
+    /**
+     * Compute width of a single cell, once any merged region has been resolved
+     *
+     * @param cell the cell whose width is to be calculated
+     * @param colspan the number of columns the cell spans
+     * @param defaultCharWidth the width of a single character
+     * @param formatter formatter used to prepare the text to be measured
+     * @return  the width in pixels
+     */
+    static double getCellWidth(Cell cell, int colspan, int defaultCharWidth, DataFormatter formatter) {
+        Workbook wb = cell.getSheet().getWorkbook();
         CellStyle style = cell.getCellStyle();
         int cellType = cell.getCellType();
 
@@ -196,17 +208,8 @@ public class SheetUtil {
      * @return  the width in pixels
      */
     public static double getColumnWidth(Sheet sheet, int column, boolean useMergedCells){
-        AttributedString str;
-        TextLayout layout;
-
-        Workbook wb = sheet.getWorkbook();
         DataFormatter formatter = new DataFormatter();
-        Font defaultFont = wb.getFontAt((short) 0);
-
-        str = new AttributedString(String.valueOf(defaultChar));
-        copyAttributes(defaultFont, str, 0, 1);
-        layout = new TextLayout(str.getIterator(), fontRenderContext);
-        int defaultCharWidth = (int)layout.getAdvance();
+        int defaultCharWidth = getDefaultCharWidth(sheet.getWorkbook());
 
         double width = -1;
         for (Row row : sheet) {
@@ -233,17 +236,8 @@ public class SheetUtil {
      * @return  the width in pixels
      */
     public static double getColumnWidth(Sheet sheet, int column, boolean useMergedCells, int firstRow, int lastRow){
-        AttributedString str;
-        TextLayout layout;
-
-        Workbook wb = sheet.getWorkbook();
         DataFormatter formatter = new DataFormatter();
-        Font defaultFont = wb.getFontAt((short) 0);
-
-        str = new AttributedString(String.valueOf(defaultChar));
-        copyAttributes(defaultFont, str, 0, 1);
-        layout = new TextLayout(str.getIterator(), fontRenderContext);
-        int defaultCharWidth = (int)layout.getAdvance();
+        int defaultCharWidth = getDefaultCharWidth(sheet.getWorkbook());
 
         double width = -1;
         for (int rowIdx = firstRow; rowIdx <= lastRow; ++rowIdx) {
@@ -263,6 +257,19 @@ public class SheetUtil {
         return width;
     }
 
+    /**
+     * Measure the width of the default character in the first font of the
+     *  workbook, which is the unit column widths are expressed in
+     */
+    static int getDefaultCharWidth(Workbook wb) {
+        Font defaultFont = wb.getFontAt((short) 0);
+
+        AttributedString str = new AttributedString(String.valueOf(defaultChar));
+        copyAttributes(defaultFont, str, 0, 1);
+        TextLayout layout = new TextLayout(str.getIterator(), fontRenderContext);
+        return (int)layout.getAdvance();
+    }
+
     /**
      * Copy text attributes from the supplied Font to Java2D AttributedString
      */
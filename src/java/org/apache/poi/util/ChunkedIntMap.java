@@ -0,0 +1,323 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A map of non-negative int keys to objects, stored in fixed size chunks of
+ * a plain array which are only allocated when a key within their range is
+ * used.<p/>
+ *
+ * Intended as a replacement for <tt>TreeMap&lt;Integer, V&gt;</tt> for
+ * row and column indexes: the keys are not boxed and there is no entry
+ * object per value, so a densely populated map costs little more than an
+ * array reference per key.  Iteration is always in ascending key order.<p/>
+ *
+ * Not thread safe; iterators fail fast with a
+ * {@link ConcurrentModificationException} like those of the java.util
+ * collections.
+ */
+@Internal
+public final class ChunkedIntMap<V> implements Iterable<V> {
+
+    private static final Object[][] EMPTY_CHUNKS = { };
+    private static final int[] EMPTY_SIZES = { };
+
+    private final int _chunkBits;
+    private final int _chunkMask;
+
+    /** lazily allocated chunks, <code>_chunks[key >> _chunkBits][key & _chunkMask]</code> */
+    private Object[][] _chunks;
+    /** the number of values held in each chunk */
+    private int[] _chunkSizes;
+    private int _size;
+    private int _firstKey;
+    private int _lastKey;
+    private int _modCount;
+
+    /**
+     * @param chunkBits the number of bits of the key which select an entry
+     *  within a chunk, i.e. each chunk holds <tt>2^chunkBits</tt> entries
+     */
+    public ChunkedIntMap(int chunkBits) {
+        if (chunkBits < 1 || chunkBits > 16) {
+            throw new IllegalArgumentException("chunkBits must be between 1 and 16");
+        }
+        _chunkBits = chunkBits;
+        _chunkMask = (1 << chunkBits) - 1;
+        clear();
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * @return the value mapped to the key, or <code>null</code> if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key < 0) {
+            return null;
+        }
+        int chunkIx = key >> _chunkBits;
+        if (chunkIx >= _chunks.length) {
+            return null;
+        }
+        Object[] chunk = _chunks[chunkIx];
+        return chunk == null ? null : (V)chunk[key & _chunkMask];
+    }
+
+    /**
+     * @return the value previously mapped to the key, or <code>null</code> if there was none
+     * @throws IllegalArgumentException if the key is negative or the value is <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key must not be negative, but was " + key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        int chunkIx = key >> _chunkBits;
+        if (chunkIx >= _chunks.length) {
+            int newLength = Math.max(chunkIx + 1, _chunks.length * 2);
+            Object[][] newChunks = new Object[newLength][];
+            System.arraycopy(_chunks, 0, newChunks, 0, _chunks.length);
+            int[] newSizes = new int[newLength];
+            System.arraycopy(_chunkSizes, 0, newSizes, 0, _chunkSizes.length);
+            _chunks = newChunks;
+            _chunkSizes = newSizes;
+        }
+        Object[] chunk = _chunks[chunkIx];
+        if (chunk == null) {
+            chunk = new Object[_chunkMask + 1];
+            _chunks[chunkIx] = chunk;
+        }
+        int ix = key & _chunkMask;
+        V prev = (V)chunk[ix];
+        chunk[ix] = value;
+        if (prev == null) {
+            _chunkSizes[chunkIx]++;
+            if (_size == 0) {
+                _firstKey = key;
+                _lastKey = key;
+            } else if (key < _firstKey) {
+                _firstKey = key;
+            } else if (key > _lastKey) {
+                _lastKey = key;
+            }
+            _size++;
+            _modCount++;
+        }
+        return prev;
+    }
+
+    /**
+     * @return the value which was mapped to the key, or <code>null</code> if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key < 0) {
+            return null;
+        }
+        int chunkIx = key >> _chunkBits;
+        if (chunkIx >= _chunks.length) {
+            return null;
+        }
+        Object[] chunk = _chunks[chunkIx];
+        if (chunk == null) {
+            return null;
+        }
+        int ix = key & _chunkMask;
+        V prev = (V)chunk[ix];
+        if (prev == null) {
+            return null;
+        }
+        chunk[ix] = null;
+        if (--_chunkSizes[chunkIx] == 0) {
+            // release the memory of chunks which are no longer used
+            _chunks[chunkIx] = null;
+        }
+        _size--;
+        _modCount++;
+        if (_size > 0) {
+            if (key == _firstKey) {
+                _firstKey = nextKey(key + 1);
+            } else if (key == _lastKey) {
+                _lastKey = previousKey(key - 1);
+            }
+        }
+        return prev;
+    }
+
+    public void clear() {
+        _chunks = EMPTY_CHUNKS;
+        _chunkSizes = EMPTY_SIZES;
+        _size = 0;
+        _modCount++;
+    }
+
+    /**
+     * @return the lowest key in this map
+     * @throws NoSuchElementException if the map is empty
+     */
+    public int firstKey() {
+        if (_size == 0) {
+            throw new NoSuchElementException();
+        }
+        return _firstKey;
+    }
+
+    /**
+     * @return the highest key in this map
+     * @throws NoSuchElementException if the map is empty
+     */
+    public int lastKey() {
+        if (_size == 0) {
+            throw new NoSuchElementException();
+        }
+        return _lastKey;
+    }
+
+    /**
+     * Equivalent of <tt>headMap(key).size()</tt> for a SortedMap, i.e. the
+     * position <tt>key</tt> has (or would have) among the sorted keys.
+     *
+     * @return the number of keys strictly less than the specified key
+     */
+    public int countKeysBelow(int key) {
+        if (_size == 0 || key <= _firstKey) {
+            return 0;
+        }
+        if (key > _lastKey) {
+            return _size;
+        }
+        int chunkIx = key >> _chunkBits;
+        int result = 0;
+        for (int i = 0; i < chunkIx; i++) {
+            result += _chunkSizes[i];
+        }
+        Object[] chunk = _chunks[chunkIx];
+        if (chunk != null) {
+            for (int i = key & _chunkMask; --i >= 0; ) {
+                if (chunk[i] != null) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the lowest key greater than or equal to <tt>fromKey</tt>, or -1 if there is none
+     */
+    private int nextKey(int fromKey) {
+        int chunkIx = fromKey >> _chunkBits;
+        int ix = fromKey & _chunkMask;
+        for (; chunkIx < _chunks.length; chunkIx++, ix = 0) {
+            Object[] chunk = _chunks[chunkIx];
+            if (chunk == null) {
+                continue;
+            }
+            for (; ix < chunk.length; ix++) {
+                if (chunk[ix] != null) {
+                    return (chunkIx << _chunkBits) | ix;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the highest key less than or equal to <tt>fromKey</tt>, or -1 if there is none
+     */
+    private int previousKey(int fromKey) {
+        int chunkIx = fromKey >> _chunkBits;
+        int ix = fromKey & _chunkMask;
+        for (; chunkIx >= 0; chunkIx--, ix = _chunkMask) {
+            Object[] chunk = _chunks[chunkIx];
+            if (chunk == null) {
+                continue;
+            }
+            for (; ix >= 0; ix--) {
+                if (chunk[ix] != null) {
+                    return (chunkIx << _chunkBits) | ix;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return an iterator over the values of this map in ascending key order.
+     *  {@link Iterator#remove()} is supported.
+     */
+    public Iterator<V> iterator() {
+        return new ValueIterator();
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private int _nextKey;
+        private int _lastReturnedKey;
+        private int _expectedModCount;
+
+        public ValueIterator() {
+            _nextKey = _size == 0 ? -1 : _firstKey;
+            _lastReturnedKey = -1;
+            _expectedModCount = _modCount;
+        }
+
+        public boolean hasNext() {
+            return _nextKey >= 0;
+        }
+
+        public V next() {
+            if (_nextKey < 0) {
+                throw new NoSuchElementException();
+            }
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            V result = get(_nextKey);
+            _lastReturnedKey = _nextKey;
+            _nextKey = _nextKey == _lastKey ? -1 : nextKey(_nextKey + 1);
+            return result;
+        }
+
+        public void remove() {
+            if (_lastReturnedKey < 0) {
+                throw new IllegalStateException();
+            }
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            ChunkedIntMap.this.remove(_lastReturnedKey);
+            _lastReturnedKey = -1;
+            _expectedModCount = _modCount;
+        }
+    }
+}
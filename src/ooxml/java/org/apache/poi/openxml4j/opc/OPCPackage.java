@@ -118,6 +118,11 @@ public abstract class OPCPackage implements RelationshipSource, Closeable {
 	 */
 	protected boolean isDirty = false;
 
+	/**
+	 * Flag if the parts created or rewritten keep their data in temporary files.
+	 */
+	private boolean useTempFilePackageParts = false;
+
 	/**
 	 * File path of this package.
 	 */
@@ -1358,6 +1363,36 @@ public abstract class OPCPackage implements RelationshipSource, Closeable {
 		return packageAccess;
 	}
 
+	/**
+	 * Controls whether the parts of this package which are created or rewritten
+	 * from now on keep their data in temporary files instead of in memory.<p/>
+	 *
+	 * By default a part which is written to, for example a sheet when a
+	 * workbook is saved, is held as a byte array until the package has been
+	 * saved, so saving a large document needs heap for all of its serialized
+	 * parts at once. With temporary file parts, each part is streamed to disk
+	 * as it is committed and then copied into the zip stream, so the memory
+	 * needed is only that of the copy buffers, whatever the document size.
+	 *
+	 * The temporary files are deleted when the part is removed or the package
+	 * is closed or reverted, otherwise when the JVM exits.
+	 *
+	 * @param tempFilePackageParts <code>true</code> to use temporary files
+	 * @see org.apache.poi.util.TempFile
+	 */
+	public void setUseTempFilePackageParts(boolean tempFilePackageParts) {
+		useTempFilePackageParts = tempFilePackageParts;
+	}
+
+	/**
+	 * @return whether the new parts of this package keep their data in
+	 *  temporary files
+	 * @see #setUseTempFilePackageParts(boolean)
+	 */
+	public boolean useTempFilePackageParts() {
+		return useTempFilePackageParts;
+	}
+
 	/**
 	 * Validates the package compliance with the OPC specifications.
 	 *
@@ -505,7 +505,8 @@ public abstract class PackagePart implements RelationshipSource {
 
 	/**
 	 * Get the output stream of this part. If the part is originally embedded in
-	 * Zip package, it'll be transform intot a <i>MemoryPackagePart</i> in
+	 * Zip package, it'll be transform intot a <i>MemoryPackagePart</i> (or a
+	 * <i>TempFilePackagePart</i>, see {@link OPCPackage#setUseTempFilePackageParts(boolean)}) in
 	 * order to write inside (the standard Java API doesn't allow to write in
 	 * the file)
 	 *
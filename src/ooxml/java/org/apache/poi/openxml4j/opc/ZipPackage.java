@@ -35,6 +35,7 @@ import org.apache.poi.openxml4j.opc.internal.ContentTypeManager;
 import org.apache.poi.openxml4j.opc.internal.FileHelper;
 import org.apache.poi.openxml4j.opc.internal.MemoryPackagePart;
 import org.apache.poi.openxml4j.opc.internal.PartMarshaller;
+import org.apache.poi.openxml4j.opc.internal.TempFilePackagePart;
 import org.apache.poi.openxml4j.opc.internal.ZipContentTypeManager;
 import org.apache.poi.openxml4j.opc.internal.ZipHelper;
 import org.apache.poi.openxml4j.opc.internal.marshallers.ZipPackagePropertiesMarshaller;
@@ -255,7 +256,8 @@ public final class ZipPackage extends Package {
 	}
 
 	/**
-	 * Create a new MemoryPackagePart from the specified URI and content type
+	 * Create a new MemoryPackagePart, or TempFilePackagePart if
+	 * {@link #useTempFilePackageParts()}, from the specified URI and content type
 	 *
 	 *
 	 * aram partName The part URI.
@@ -274,6 +276,10 @@ public final class ZipPackage extends Package {
 			throw new IllegalArgumentException("partName");
 
 		try {
+			if (useTempFilePackageParts()) {
+				return new TempFilePackagePart(this, partName, contentType,
+						loadRelationships);
+			}
 			return new MemoryPackagePart(this, partName, contentType,
 					loadRelationships);
 		} catch (InvalidFormatException e) {
@@ -292,6 +298,11 @@ public final class ZipPackage extends Package {
 	protected void removePartImpl(PackagePartName partName) {
 		if (partName == null)
 			throw new IllegalArgumentException("partUri");
+
+		PackagePart part = partList.get(partName);
+		if (part instanceof TempFilePackagePart) {
+			((TempFilePackagePart) part).clear();
+		}
 	}
 
 	/**
@@ -302,6 +313,19 @@ public final class ZipPackage extends Package {
 		// Do nothing
 	}
 
+	/**
+	 * Save and close the package, then delete the temporary files of its
+	 * parts, if any.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			clearTempFileParts();
+		}
+	}
+
 	/**
 	 * Close and save the package.
 	 *
@@ -375,6 +399,21 @@ public final class ZipPackage extends Package {
 		} catch (IOException e) {
 			// Do nothing, user dont have to know
 		}
+		clearTempFileParts();
+	}
+
+	/**
+	 * Delete the temporary files of all the parts which have one.
+	 */
+	private void clearTempFileParts() {
+		if (partList == null) {
+			return;
+		}
+		for (PackagePart part : partList.values()) {
+			if (part instanceof TempFilePackagePart) {
+				((TempFilePackagePart) part).clear();
+			}
+		}
 	}
 
 	/**
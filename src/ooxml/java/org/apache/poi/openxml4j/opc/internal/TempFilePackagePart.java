@@ -0,0 +1,143 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.openxml4j.opc.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JRuntimeException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.openxml4j.opc.internal.marshallers.ZipPartMarshaller;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.TempFile;
+
+/**
+ * Package part which keeps its data in a temporary file rather than in a
+ * byte array, so that writing a large part (e.g. a sheet) only needs a
+ * buffer's worth of memory, both when the part is committed and when it is
+ * copied into the saved package.<p/>
+ *
+ * Unlike {@link MemoryPackagePart}, each call to {@link #getOutputStream()}
+ * replaces the content of the part instead of appending to it.
+ *
+ * @see org.apache.poi.openxml4j.opc.OPCPackage#setUseTempFilePackageParts(boolean)
+ */
+public final class TempFilePackagePart extends PackagePart {
+
+	/**
+	 * Storage for the part data, <code>null</code> until something is written.
+	 */
+	private File tempFile;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pack
+	 *            The owner package.
+	 * @param partName
+	 *            The part name.
+	 * @param contentType
+	 *            The content type.
+	 * @param loadRelationships
+	 *            Specify if the relationships will be loaded.
+	 * @throws InvalidFormatException
+	 *             If the specified URI is not OPC compliant.
+	 */
+	public TempFilePackagePart(OPCPackage pack, PackagePartName partName,
+			String contentType, boolean loadRelationships)
+			throws InvalidFormatException {
+		super(pack, partName, new ContentType(contentType), loadRelationships);
+	}
+
+	@Override
+	protected InputStream getInputStreamImpl() throws IOException {
+		if (tempFile == null) {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+		return new FileInputStream(tempFile);
+	}
+
+	@Override
+	protected OutputStream getOutputStreamImpl() {
+		try {
+			if (tempFile == null) {
+				tempFile = TempFile.createTempFile("poi-package-part-", ".tmp");
+			}
+			return new BufferedOutputStream(new FileOutputStream(tempFile),
+					ZipHelper.READ_WRITE_FILE_BUFFER_SIZE);
+		} catch (IOException e) {
+			throw new OpenXML4JRuntimeException("Can't create the temporary file of part "
+					+ getPartName().getName() + ": " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public long getSize() {
+		return tempFile == null ? 0 : tempFile.length();
+	}
+
+	/**
+	 * Discards the data of this part and deletes its temporary file.
+	 */
+	public void clear() {
+		if (tempFile != null) {
+			tempFile.delete();
+			tempFile = null;
+		}
+	}
+
+	@Override
+	public boolean save(OutputStream os) throws OpenXML4JException {
+		return new ZipPartMarshaller().marshall(this, os);
+	}
+
+	@Override
+	public boolean load(InputStream ios) throws InvalidFormatException {
+		OutputStream out = getOutputStreamImpl();
+		try {
+			try {
+				IOUtils.copy(ios, out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new InvalidFormatException(e.getMessage());
+		}
+		return true;
+	}
+
+	@Override
+	public void close() {
+		// Do nothing
+	}
+
+	@Override
+	public void flush() {
+		// Do nothing
+	}
+}
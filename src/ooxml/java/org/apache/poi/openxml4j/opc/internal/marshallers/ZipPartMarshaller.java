@@ -74,16 +74,16 @@ public final class ZipPartMarshaller implements PartMarshaller {
 			// Create next zip entry
 			zos.putNextEntry(partEntry);
 
-			// Saving data in the ZIP file
+			// Saving data in the ZIP file, one buffer at a time
 			InputStream ins = part.getInputStream();
-			byte[] buff = new byte[ZipHelper.READ_WRITE_FILE_BUFFER_SIZE];
-			while (ins.available() > 0) {
-				int resultRead = ins.read(buff);
-				if (resultRead == -1) {
-					// End of file reached
-					break;
+			try {
+				byte[] buff = new byte[ZipHelper.READ_WRITE_FILE_BUFFER_SIZE];
+				int resultRead;
+				while ((resultRead = ins.read(buff)) != -1) {
+					zos.write(buff, 0, resultRead);
 				}
-				zos.write(buff, 0, resultRead);
+			} finally {
+				ins.close();
 			}
 			zos.closeEntry();
 		} catch (IOException ioe) {
@@ -0,0 +1,226 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.eventusermodel;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import org.apache.poi.util.TempFile;
+
+/**
+ * Read only list of strings, packed one after the other into a byte
+ *  arena with an int offset per string, in place of one String object
+ *  per entry.<p/>
+ *
+ * The chars are stored in the "modified UTF-8" of
+ *  {@link java.io.DataOutput#writeUTF(String)}, so each takes 1 to 3
+ *  bytes, and any Java String (even one with unpaired surrogates)
+ *  comes back unchanged. The arena is built up in blocks on the heap.
+ *  If a spill threshold is given, once the arena grows beyond it, the
+ *  arena is moved to a temporary file, which is memory mapped once
+ *  all the strings have been added.<p/>
+ *
+ * The strings can take up at most 2GB once packed. Strings are
+ *  decoded on every {@link #get(int)}.
+ */
+final class PackedStringList extends AbstractList<String> implements RandomAccess {
+    private static final int BLOCK_BITS = 16;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int MAPPING_BITS = 30;
+    private static final int MAPPING_MASK = (1 << MAPPING_BITS) - 1;
+
+    private final long spillThreshold;
+
+    /** end offset in the arena of each string; the start is the end of the previous one */
+    private int[] ends;
+    private int size;
+    /** number of bytes in the arena */
+    private int length;
+
+    /** the arena while on the heap */
+    private byte[][] blocks = new byte[16][];
+    /** where the arena is written while being spilled */
+    private File spillFile;
+    private OutputStream spillStream;
+    /** the spilled arena, once all strings are in */
+    private MappedByteBuffer[] mappings;
+
+    /**
+     * @param expectedSize the number of strings expected, to size the index
+     * @param spillThreshold the arena size in bytes above which it is moved
+     *  to a temporary file, or -1 to always keep it on the heap
+     */
+    PackedStringList(int expectedSize, long spillThreshold) {
+        this.ends = new int[Math.max(expectedSize, 16)];
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * Adds a string to the end of the list
+     */
+    void append(CharSequence str) throws IOException {
+        if (mappings != null) {
+            throw new IllegalStateException("No more strings can be added");
+        }
+        int strLen = str.length();
+        long newLength = length;
+        for (int i = 0; i < strLen; i++) {
+            char c = str.charAt(i);
+            newLength += (c >= 0x0001 && c <= 0x007F) ? 1 : (c <= 0x07FF ? 2 : 3);
+        }
+        if (newLength > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The strings need more than 2GB packed");
+        }
+        if (spillStream == null && spillThreshold >= 0 && newLength > spillThreshold) {
+            spill();
+        }
+
+        for (int i = 0; i < strLen; i++) {
+            char c = str.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                put((byte) c);
+            } else if (c <= 0x07FF) {
+                put((byte) (0xC0 | ((c >> 6) & 0x1F)));
+                put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                put((byte) (0xE0 | ((c >> 12) & 0x0F)));
+                put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+
+        if (size == ends.length) {
+            int[] newEnds = new int[size * 2];
+            System.arraycopy(ends, 0, newEnds, 0, size);
+            ends = newEnds;
+        }
+        ends[size++] = length;
+    }
+
+    private void put(byte b) throws IOException {
+        if (spillStream != null) {
+            spillStream.write(b);
+        } else {
+            int blockIx = length >>> BLOCK_BITS;
+            if (blockIx == blocks.length) {
+                byte[][] newBlocks = new byte[blocks.length * 2][];
+                System.arraycopy(blocks, 0, newBlocks, 0, blocks.length);
+                blocks = newBlocks;
+            }
+            if (blocks[blockIx] == null) {
+                blocks[blockIx] = new byte[BLOCK_SIZE];
+            }
+            blocks[blockIx][length & BLOCK_MASK] = b;
+        }
+        length++;
+    }
+
+    /**
+     * Moves the arena so far to a temporary file, where the
+     *  following strings will be written too
+     */
+    private void spill() throws IOException {
+        spillFile = TempFile.createTempFile("poi-sst-", ".tmp");
+        spillStream = new BufferedOutputStream(new FileOutputStream(spillFile), BLOCK_SIZE);
+        for (int pos = 0; pos < length; pos += BLOCK_SIZE) {
+            spillStream.write(blocks[pos >>> BLOCK_BITS], 0, Math.min(BLOCK_SIZE, length - pos));
+        }
+        blocks = null;
+    }
+
+    /**
+     * To be called once all strings have been added. If the arena was
+     *  spilled to a file, the file is memory mapped for reading.
+     */
+    void finish() throws IOException {
+        if (spillStream == null || mappings != null) {
+            return;
+        }
+        spillStream.close();
+        RandomAccessFile raf = new RandomAccessFile(spillFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            int count = (length >>> MAPPING_BITS) + 1;
+            MappedByteBuffer[] maps = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i << MAPPING_BITS;
+                long end = Math.min(length, start + MAPPING_MASK + 1);
+                maps[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+            mappings = maps;
+        } finally {
+            raf.close();
+        }
+        // The mappings stay valid without the file, where the platform allows it
+        spillFile.delete();
+    }
+
+    /**
+     * @return whether the strings have been moved to a temporary file
+     */
+    boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (spillStream != null && mappings == null) {
+            throw new IllegalStateException("The strings are still being added");
+        }
+        int start = index == 0 ? 0 : ends[index - 1];
+        int end = ends[index];
+        char[] chars = new char[end - start];
+        int len = 0;
+        int pos = start;
+        while (pos < end) {
+            int b = byteAt(pos++);
+            if ((b & 0x80) == 0) {
+                chars[len++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[len++] = (char) (((b & 0x1F) << 6) | (byteAt(pos++) & 0x3F));
+            } else {
+                int b2 = byteAt(pos++);
+                int b3 = byteAt(pos++);
+                chars[len++] = (char) (((b & 0x0F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F));
+            }
+        }
+        return new String(chars, 0, len);
+    }
+
+    private int byteAt(int pos) {
+        if (mappings != null) {
+            return mappings[pos >>> MAPPING_BITS].get(pos & MAPPING_MASK) & 0xFF;
+        }
+        return blocks[pos >>> BLOCK_BITS][pos & BLOCK_MASK] & 0xFF;
+    }
+}
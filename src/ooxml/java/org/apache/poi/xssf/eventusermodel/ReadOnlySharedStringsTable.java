@@ -95,6 +95,17 @@ public class ReadOnlySharedStringsTable extends DefaultHandler {
      */
     private List<String> strings;
 
+    /**
+     * Whether the strings are packed into a {@link PackedStringList}
+     */
+    private final boolean compact;
+
+    /**
+     * The packed size in bytes above which compact strings are moved to
+     * a temporary file, or -1 to keep them on the heap
+     */
+    private final long spillThreshold;
+
     /**
      * @param pkg
      * @throws IOException
@@ -103,6 +114,38 @@ public class ReadOnlySharedStringsTable extends DefaultHandler {
      */
     public ReadOnlySharedStringsTable(OPCPackage pkg)
             throws IOException, SAXException {
+        this(pkg, false, -1);
+    }
+
+    /**
+     * @param compact whether to pack the strings into a single byte
+     *  arena, in place of one String object each. This takes a fraction
+     *  of the memory for tables with many strings, at the cost of
+     *  decoding the string on every {@link #getEntryAt(int)}.
+     */
+    public ReadOnlySharedStringsTable(OPCPackage pkg, boolean compact)
+            throws IOException, SAXException {
+        this(pkg, compact, -1);
+    }
+
+    /**
+     * Packs the strings into a single byte arena, like
+     *  {@link #ReadOnlySharedStringsTable(OPCPackage, boolean)}, and
+     *  moves the arena into a memory mapped temporary file if it grows
+     *  beyond the given size, so that it doesn't take up heap space.
+     *
+     * @param spillThreshold the packed size in bytes above which the
+     *  strings are moved to a temporary file
+     */
+    public ReadOnlySharedStringsTable(OPCPackage pkg, long spillThreshold)
+            throws IOException, SAXException {
+        this(pkg, true, spillThreshold);
+    }
+
+    private ReadOnlySharedStringsTable(OPCPackage pkg, boolean compact, long spillThreshold)
+            throws IOException, SAXException {
+        this.compact = compact;
+        this.spillThreshold = spillThreshold;
         ArrayList<PackagePart> parts =
                 pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
 
@@ -122,6 +165,8 @@ public class ReadOnlySharedStringsTable extends DefaultHandler {
      */
     public ReadOnlySharedStringsTable(PackagePart part, PackageRelationship rel_ignored)
             throws IOException, SAXException {
+        this.compact = false;
+        this.spillThreshold = -1;
         readFrom(part.getInputStream());
     }
 
@@ -195,7 +240,11 @@ public class ReadOnlySharedStringsTable extends DefaultHandler {
             String uniqueCount = attributes.getValue("uniqueCount");
             if(uniqueCount != null) this.uniqueCount = Integer.parseInt(uniqueCount);
 
-            this.strings = new ArrayList<String>(this.uniqueCount);
+            if (compact) {
+                this.strings = new PackedStringList(this.uniqueCount, spillThreshold);
+            } else {
+                this.strings = new ArrayList<String>(this.uniqueCount);
+            }
 
             characters = new StringBuffer();
         } else if ("si".equals(name)) {
@@ -208,7 +257,21 @@ public class ReadOnlySharedStringsTable extends DefaultHandler {
     public void endElement(String uri, String localName, String name)
             throws SAXException {
         if ("si".equals(name)) {
-            strings.add(characters.toString());
+            if (compact) {
+                try {
+                    ((PackedStringList)strings).append(characters);
+                } catch (IOException e) {
+                    throw new SAXException(e);
+                }
+            } else {
+                strings.add(characters.toString());
+            }
+        } else if ("sst".equals(name) && compact) {
+            try {
+                ((PackedStringList)strings).finish();
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
         } else if ("t".equals(name)) {
            tIsOpen = false;
         }
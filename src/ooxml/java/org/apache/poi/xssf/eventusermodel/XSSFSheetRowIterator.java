@@ -0,0 +1,536 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.eventusermodel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.POIXMLException;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+/**
+ * Pull style alternative to {@link XSSFSheetXMLHandler}: reads
+ *  the rows of a sheet#.xml sheet part one at a time, as they are
+ *  asked for, using a StAX stream reader.<p/>
+ *
+ * Only the current row is ever held in memory, and the rows are
+ *  plain value holders with no link back to a workbook, so a sheet
+ *  of any size can be read in constant memory. Typical use is
+ * <pre>
+ *  XSSFReader reader = new XSSFReader(pkg);
+ *  ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+ *  XSSFSheetRowIterator rows = new XSSFSheetRowIterator(
+ *        reader.getSheet(relId), reader.getStylesTable(), strings);
+ *  while (rows.hasNext()) {
+ *     SheetRow row = rows.next();
+ *     ...
+ *  }
+ * </pre>
+ *
+ * The sheet stream is closed once the last row has been read, or
+ *  by {@link #close()} if reading is given up early. Problems with
+ *  the XML are reported as {@link POIXMLException}s.<p/>
+ *
+ * A StAX implementation is needed at runtime; this is built into
+ *  Java 6 and later.
+ */
+public class XSSFSheetRowIterator implements Iterator<XSSFSheetRowIterator.SheetRow> {
+    private final InputStream sheetData;
+    private final XMLStreamReader reader;
+    private final StylesTable stylesTable;
+    private final ReadOnlySharedStringsTable sharedStringsTable;
+    private final DataFormatter formatter;
+
+    private SheetRow nextRow;
+    private int lastRowNum = -1;
+    private boolean finished;
+
+    // Gathers the text of the elements of the current cell
+    private final StringBuilder value = new StringBuilder();
+    private final StringBuilder formula = new StringBuilder();
+
+    /**
+     * @param sheetData the contents of a worksheet part
+     * @param styles Table of styles, used for formatting numbers, or
+     *  <code>null</code> if there is none
+     * @param strings Table of shared strings
+     */
+    public XSSFSheetRowIterator(
+            InputStream sheetData,
+            StylesTable styles,
+            ReadOnlySharedStringsTable strings) {
+        this(sheetData, styles, strings, new DataFormatter());
+    }
+
+    /**
+     * @param sheetData the contents of a worksheet part
+     * @param styles Table of styles, used for formatting numbers, or
+     *  <code>null</code> if there is none
+     * @param strings Table of shared strings
+     * @param dataFormatter used for the formatted values of the cells
+     */
+    public XSSFSheetRowIterator(
+            InputStream sheetData,
+            StylesTable styles,
+            ReadOnlySharedStringsTable strings,
+            DataFormatter dataFormatter) {
+        this.sheetData = sheetData;
+        this.stylesTable = styles;
+        this.sharedStringsTable = strings;
+        this.formatter = dataFormatter;
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            this.reader = factory.createXMLStreamReader(sheetData);
+        } catch (XMLStreamException e) {
+            throw new POIXMLException(e);
+        }
+    }
+
+    public boolean hasNext() {
+        if (nextRow == null && !finished) {
+            try {
+                nextRow = readRow();
+            } catch (XMLStreamException e) {
+                close();
+                throw new POIXMLException(e);
+            }
+            if (nextRow == null) {
+                close();
+            }
+        }
+        return nextRow != null;
+    }
+
+    public SheetRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SheetRow row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    /**
+     * Not supported, the sheet data is read only
+     */
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Stops reading, and closes the sheet stream. Called automatically
+     *  once all rows have been read.
+     */
+    public void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        nextRow = null;
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // nothing more to read, so of no interest
+        }
+        try {
+            sheetData.close();
+        } catch (IOException e) {
+            // nothing more to read, so of no interest
+        }
+    }
+
+    /**
+     * Skips forward to the next row element and reads it in full
+     *
+     * @return the row, or <code>null</code> if there are no more rows
+     */
+    private SheetRow readRow() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("row".equals(name)) {
+                    String r = reader.getAttributeValue(null, "r");
+                    int rowNum = r == null ? lastRowNum + 1 : Integer.parseInt(r) - 1;
+                    lastRowNum = rowNum;
+                    return new SheetRow(rowNum, readCells());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                // Nothing but headers, footers and the like after the data
+                if ("sheetData".equals(reader.getLocalName())) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the cells of the row element the reader is positioned on
+     */
+    private List<SheetCell> readCells() throws XMLStreamException {
+        List<SheetCell> cells = new ArrayList<SheetCell>();
+        int lastColumn = -1;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("c".equals(reader.getLocalName())) {
+                    SheetCell cell = readCell(lastColumn);
+                    lastColumn = cell.getColumnIndex();
+                    cells.add(cell);
+                } else {
+                    skipElement();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Reads the cell element the reader is positioned on
+     */
+    private SheetCell readCell(int lastColumn) throws XMLStreamException {
+        String ref = reader.getAttributeValue(null, "r");
+        String type = reader.getAttributeValue(null, "t");
+        String styleStr = reader.getAttributeValue(null, "s");
+
+        value.setLength(0);
+        formula.setLength(0);
+        boolean hasValue = false;
+        boolean hasFormula = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("v".equals(name)) {
+                    hasValue = true;
+                    value.append(reader.getElementText());
+                } else if ("f".equals(name)) {
+                    hasFormula = true;
+                    // Cells using a shared formula have no text of their own
+                    formula.append(reader.getElementText());
+                } else if ("is".equals(name)) {
+                    hasValue = true;
+                    readInlineString();
+                } else {
+                    skipElement();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+
+        int column = ref == null ? lastColumn + 1 : columnIndex(ref);
+        if (ref == null) {
+            ref = new CellReference(lastRowNum, column).formatAsString();
+        }
+        String formulaStr = hasFormula && formula.length() > 0 ? formula.toString() : null;
+        String valueStr = value.toString();
+
+        if (!hasValue) {
+            return new SheetCell(ref, column, Cell.CELL_TYPE_BLANK, hasFormula, formulaStr,
+                    0, null, -1, null, formatter);
+        }
+        if ("s".equals(type)) {
+            String str = sharedStringsTable.getEntryAt(Integer.parseInt(valueStr.trim()));
+            return new SheetCell(ref, column, Cell.CELL_TYPE_STRING, hasFormula, formulaStr,
+                    0, str, -1, null, formatter);
+        }
+        if ("inlineStr".equals(type) || "str".equals(type) || "d".equals(type)) {
+            return new SheetCell(ref, column, Cell.CELL_TYPE_STRING, hasFormula, formulaStr,
+                    0, valueStr, -1, null, formatter);
+        }
+        if ("b".equals(type)) {
+            boolean b = valueStr.length() > 0 && valueStr.charAt(0) != '0';
+            return new SheetCell(ref, column, Cell.CELL_TYPE_BOOLEAN, hasFormula, formulaStr,
+                    b ? 1 : 0, b ? "TRUE" : "FALSE", -1, null, formatter);
+        }
+        if ("e".equals(type)) {
+            return new SheetCell(ref, column, Cell.CELL_TYPE_ERROR, hasFormula, formulaStr,
+                    0, valueStr, -1, null, formatter);
+        }
+
+        // A number, which may have a format from its style
+        short formatIndex = -1;
+        String formatString = null;
+        if (styleStr != null && stylesTable != null) {
+            XSSFCellStyle style = stylesTable.getStyleAt(Integer.parseInt(styleStr));
+            formatIndex = style.getDataFormat();
+            formatString = style.getDataFormatString();
+            if (formatString == null) {
+                formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+            }
+        }
+        return new SheetCell(ref, column, Cell.CELL_TYPE_NUMERIC, hasFormula, formulaStr,
+                Double.parseDouble(valueStr), valueStr, formatIndex, formatString, formatter);
+    }
+
+    /**
+     * Gathers the text of all the runs of an inline string, but not
+     *  of its phonetic runs
+     */
+    private void readInlineString() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("t".equals(name)) {
+                    value.append(reader.getElementText());
+                } else if ("rPh".equals(name)) {
+                    skipElement();
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Moves the reader to the end of the element it is positioned on
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Column index of a cell reference such as "AB12", without the
+     *  cost of a full {@link CellReference}
+     */
+    private static int columnIndex(String ref) {
+        int col = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    /**
+     * One row of a sheet, as read by {@link XSSFSheetRowIterator}.
+     *  Only the cells present in the file are included, in column order.
+     */
+    public static final class SheetRow implements Iterable<SheetCell> {
+        private final int rowNum;
+        private final List<SheetCell> cells;
+
+        SheetRow(int rowNum, List<SheetCell> cells) {
+            this.rowNum = rowNum;
+            this.cells = Collections.unmodifiableList(cells);
+        }
+
+        /**
+         * @return the zero based row number
+         */
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        public List<SheetCell> getCells() {
+            return cells;
+        }
+
+        public Iterator<SheetCell> iterator() {
+            return cells.iterator();
+        }
+
+        /**
+         * @param columnIndex zero based column index
+         * @return the cell in that column, or <code>null</code> if the
+         *  row has none
+         */
+        public SheetCell getCell(int columnIndex) {
+            for (SheetCell cell : cells) {
+                if (cell.getColumnIndex() == columnIndex) {
+                    return cell;
+                }
+                if (cell.getColumnIndex() > columnIndex) {
+                    break;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One cell of a sheet, as read by {@link XSSFSheetRowIterator}.
+     *  For formula cells, the values are those of the result saved
+     *  in the file.
+     */
+    public static final class SheetCell {
+        private final String reference;
+        private final int columnIndex;
+        private final int cellType;
+        private final boolean isFormula;
+        private final String formula;
+        private final double numericValue;
+        private final String stringValue;
+        private final short formatIndex;
+        private final String formatString;
+        private final DataFormatter formatter;
+        private String formattedValue;
+
+        SheetCell(String reference, int columnIndex, int cellType, boolean isFormula, String formula,
+                double numericValue, String stringValue, int formatIndex, String formatString,
+                DataFormatter formatter) {
+            this.reference = reference;
+            this.columnIndex = columnIndex;
+            this.cellType = cellType;
+            this.isFormula = isFormula;
+            this.formula = formula;
+            this.numericValue = numericValue;
+            this.stringValue = stringValue;
+            this.formatIndex = (short)formatIndex;
+            this.formatString = formatString;
+            this.formatter = formatter;
+        }
+
+        /**
+         * @return the cell reference, such as "B7"
+         */
+        public String getReference() {
+            return reference;
+        }
+
+        /**
+         * @return the zero based column index
+         */
+        public int getColumnIndex() {
+            return columnIndex;
+        }
+
+        /**
+         * @return the type of the value, one of
+         *  {@link Cell#CELL_TYPE_NUMERIC}, {@link Cell#CELL_TYPE_STRING},
+         *  {@link Cell#CELL_TYPE_BOOLEAN}, {@link Cell#CELL_TYPE_ERROR}
+         *  or {@link Cell#CELL_TYPE_BLANK}. For formula cells, this is
+         *  the type of the saved result.
+         */
+        public int getCellType() {
+            return cellType;
+        }
+
+        public boolean isFormula() {
+            return isFormula;
+        }
+
+        /**
+         * @return the formula text, or <code>null</code> if this isn't a
+         *  formula cell, or it uses a shared formula defined by another cell
+         */
+        public String getFormula() {
+            return formula;
+        }
+
+        /**
+         * @return the value of numeric cells, 1 or 0 for boolean cells,
+         *  and 0 otherwise
+         */
+        public double getNumericValue() {
+            return numericValue;
+        }
+
+        public boolean getBooleanValue() {
+            return cellType == Cell.CELL_TYPE_BOOLEAN && numericValue != 0;
+        }
+
+        /**
+         * @return the text of string cells, the error code (such as
+         *  "#DIV/0!") of error cells, "TRUE" or "FALSE" for boolean cells,
+         *  the raw value of numeric cells, and <code>null</code> for
+         *  blank cells
+         */
+        public String getStringValue() {
+            return stringValue;
+        }
+
+        /**
+         * @return the index of the number format applied to the cell,
+         *  or -1 if there is none
+         */
+        public short getDataFormat() {
+            return formatIndex;
+        }
+
+        /**
+         * @return the number format applied to the cell, or
+         *  <code>null</code> if there is none
+         */
+        public String getDataFormatString() {
+            return formatString;
+        }
+
+        /**
+         * @return the value as Excel would display it, with numbers
+         *  formatted by the {@link DataFormatter} of the iterator. The
+         *  formatting is only done on the first call.
+         */
+        public String getFormattedValue() {
+            if (formattedValue == null) {
+                if (cellType == Cell.CELL_TYPE_BLANK) {
+                    formattedValue = "";
+                } else if (cellType == Cell.CELL_TYPE_NUMERIC) {
+                    if (formatString == null) {
+                        formattedValue = formatter.formatRawCellContents(numericValue, 0, "General");
+                    } else {
+                        formattedValue = formatter.formatRawCellContents(
+                                numericValue, formatIndex, formatString);
+                    }
+                } else {
+                    formattedValue = stringValue;
+                }
+            }
+            return formattedValue;
+        }
+
+        public String toString() {
+            return reference + "=" + getFormattedValue();
+        }
+    }
+}
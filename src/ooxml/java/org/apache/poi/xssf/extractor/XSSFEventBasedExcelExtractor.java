@@ -73,7 +73,8 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor {
 		}
 		POIXMLTextExtractor extractor =
 			new XSSFEventBasedExcelExtractor(args[0]);
-		System.out.println(extractor.getText());
+		extractor.writeText(System.out);
+		System.out.println();
 	}
 
 	/**
@@ -160,24 +161,8 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor {
     */
    public String getText() {
        try {
-          ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(container);
-          XSSFReader xssfReader = new XSSFReader(container);
-          StylesTable styles = xssfReader.getStylesTable();
-          XSSFReader.SheetIterator iter = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
-   
-          StringBuffer text = new StringBuffer();
-          SheetTextExtractor sheetExtractor = new SheetTextExtractor(text);
-          
-          while (iter.hasNext()) {
-              InputStream stream = iter.next();
-              if(includeSheetNames) {
-                 text.append(iter.getSheetName());
-                 text.append('\n');
-              }
-              processSheet(sheetExtractor, styles, strings, stream);
-              stream.close();
-          }
-          
+          StringBuilder text = new StringBuilder();
+          extractText(text);
           return text.toString();
        } catch(IOException e) {
           System.err.println(e);
@@ -190,12 +175,71 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor {
           return null;
        }
    }
+
+   /**
+    * Processes the file and writes out the text, one row at a
+    *  time as the sheets are parsed
+    */
+   public void writeText(Appendable text) throws IOException {
+       try {
+          extractText(text);
+       } catch(SAXException se) {
+          IOException e = new IOException("Unable to parse the sheets - " + se.getMessage());
+          e.initCause(se);
+          throw e;
+       } catch(OpenXML4JException o4je) {
+          IOException e = new IOException("Unable to read the package - " + o4je.getMessage());
+          e.initCause(o4je);
+          throw e;
+       }
+   }
+
+   private void extractText(Appendable text) throws IOException, SAXException, OpenXML4JException {
+       ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(container);
+       XSSFReader xssfReader = new XSSFReader(container);
+       StylesTable styles = xssfReader.getStylesTable();
+       XSSFReader.SheetIterator iter = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+
+       SheetTextExtractor sheetExtractor = new SheetTextExtractor(text);
+
+       while (iter.hasNext()) {
+           InputStream stream = iter.next();
+           if(includeSheetNames) {
+              text.append(iter.getSheetName());
+              text.append('\n');
+           }
+           try {
+              processSheet(sheetExtractor, styles, strings, stream);
+           } catch(OutputException e) {
+              throw e.getCause();
+           } finally {
+              stream.close();
+           }
+       }
+   }
+
+   /**
+    * Carries an IOException from the output through the
+    *  SheetContentsHandler callbacks, which cannot throw it
+    */
+   private static final class OutputException extends RuntimeException {
+      public OutputException(IOException cause) {
+         super(cause);
+      }
+      public IOException getCause() {
+         return (IOException)super.getCause();
+      }
+   }
    
    protected class SheetTextExtractor implements SheetContentsHandler {
-      private final StringBuffer output;
+      private final Appendable output;
       private boolean firstCellOfRow = true;
       
       protected SheetTextExtractor(StringBuffer output) {
+         this((Appendable)output);
+      }
+      
+      protected SheetTextExtractor(Appendable output) {
          this.output = output;
       }
       
@@ -204,16 +248,28 @@ public class XSSFEventBasedExcelExtractor extends POIXMLTextExtractor {
       }
       
       public void endRow() {
-         output.append('\n');
+         append('\n');
       }
 
       public void cell(String cellRef, String formattedValue) {
          if(firstCellOfRow) {
             firstCellOfRow = false;
          } else {
-            output.append('\t');
+            append('\t');
+         }
+         try {
+            output.append(formattedValue);
+         } catch(IOException e) {
+            throw new OutputException(e);
+         }
+      }
+
+      private void append(char c) {
+         try {
+            output.append(c);
+         } catch(IOException e) {
+            throw new OutputException(e);
          }
-         output.append(formattedValue);
       }
       
       public void headerFooter(String text, boolean isHeader, String tagName) {
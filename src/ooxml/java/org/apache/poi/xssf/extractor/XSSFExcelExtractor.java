@@ -75,7 +75,8 @@ public class XSSFExcelExtractor extends POIXMLTextExtractor implements org.apach
 		}
 		POIXMLTextExtractor extractor =
 			new XSSFExcelExtractor(args[0]);
-		System.out.println(extractor.getText());
+		extractor.writeText(System.out);
+		System.out.println();
 	}
 
 	/**
@@ -116,6 +117,13 @@ public class XSSFExcelExtractor extends POIXMLTextExtractor implements org.apach
     * Retreives the text contents of the file
     */
    public String getText() {
+      return writeTextToString();
+   }
+
+   /**
+    * Writes the text contents of the file, one row at a time
+    */
+   public void writeText(Appendable text) throws IOException {
       DataFormatter formatter;
       if(locale == null) {
          formatter = new DataFormatter();
@@ -123,7 +131,6 @@ public class XSSFExcelExtractor extends POIXMLTextExtractor implements org.apach
          formatter = new DataFormatter(locale);
       }
       
-      StringBuffer text = new StringBuffer();
       for(int i=0; i<workbook.getNumberOfSheets(); i++) {
 			XSSFSheet sheet = workbook.getSheetAt(i);
 			if(includeSheetNames) {
@@ -194,14 +201,12 @@ public class XSSFExcelExtractor extends POIXMLTextExtractor implements org.apach
 				);
 			}
 		}
-
-		return text.toString();
 	}
 	
-   private void handleStringCell(StringBuffer text, Cell cell) {
+   private void handleStringCell(Appendable text, Cell cell) throws IOException {
       text.append(cell.getRichStringCellValue().getString());
    }
-   private void handleNonStringCell(StringBuffer text, Cell cell, DataFormatter formatter) {
+   private void handleNonStringCell(Appendable text, Cell cell, DataFormatter formatter) throws IOException {
       int type = cell.getCellType();
       if (type == Cell.CELL_TYPE_FORMULA) {
          type = cell.getCachedFormulaResultType();
@@ -32,6 +32,7 @@ import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder;
 import org.apache.poi.xssf.usermodel.extensions.XSSFCellFill;
 import org.apache.poi.POIXMLDocumentPart;
 import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorder;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBorders;
@@ -68,6 +69,42 @@ public class StylesTable extends POIXMLDocumentPart {
 
 	private final List<CTDxf> dxfs = new ArrayList<CTDxf>();
 
+	/*
+	 * Hash indexes of the fonts, fills, borders and cell xfs lists above, so that
+	 * registering a style does not need a linear search.
+	 *
+	 * Fonts, fills and borders are keyed by a snapshot of their xml, as that is
+	 * what their equals() compares. They are often changed in place after being
+	 * registered, so each one reports the changes made through its setters, and
+	 * is indexed again under its new xml. Cell xfs are matched by identity, like
+	 * List.indexOf does for xmlbeans objects.
+	 */
+	private final StyleIndex<XSSFFont> fontIndex = new StyleIndex<XSSFFont>(fonts) {
+		protected XmlObject getBean(XSSFFont font) {
+			return font.getCTFont();
+		}
+		protected void setChangeListener(XSSFFont font, StyleChangeListener listener) {
+			font.setChangeListener(listener);
+		}
+	};
+	private final StyleIndex<XSSFCellFill> fillIndex = new StyleIndex<XSSFCellFill>(fills) {
+		protected XmlObject getBean(XSSFCellFill fill) {
+			return fill.getCTFill();
+		}
+		protected void setChangeListener(XSSFCellFill fill, StyleChangeListener listener) {
+			fill.setChangeListener(listener);
+		}
+	};
+	private final StyleIndex<XSSFCellBorder> borderIndex = new StyleIndex<XSSFCellBorder>(borders) {
+		protected XmlObject getBean(XSSFCellBorder border) {
+			return border.getCTBorder();
+		}
+		protected void setChangeListener(XSSFCellBorder border, StyleChangeListener listener) {
+			border.setChangeListener(listener);
+		}
+	};
+	private final Map<CTXf, Integer> xfIndexes = new IdentityHashMap<CTXf, Integer>();
+
 	/**
 	 * The first style id available for use as a custom style
 	 */
@@ -136,26 +173,30 @@ public class StylesTable extends POIXMLDocumentPart {
 				for (CTFont font : ctfonts.getFontArray()) {
 				   // Create the font and save it. Themes Table supplied later
 					XSSFFont f = new XSSFFont(font, idx);
-					fonts.add(f);
+					addFont(f);
 					idx++;
 				}
 			}
             CTFills ctfills = styleSheet.getFills();
             if(ctfills != null){
                 for (CTFill fill : ctfills.getFillArray()) {
-                    fills.add(new XSSFCellFill(fill));
+                    addFill(new XSSFCellFill(fill));
                 }
             }
 
             CTBorders ctborders = styleSheet.getBorders();
             if(ctborders != null) {
                 for (CTBorder border : ctborders.getBorderArray()) {
-                    borders.add(new XSSFCellBorder(border));
+                    addBorder(new XSSFCellBorder(border));
                 }
             }
 
             CTCellXfs cellXfs = styleSheet.getCellXfs();
-            if(cellXfs != null) xfs.addAll(Arrays.asList(cellXfs.getXfArray()));
+            if(cellXfs != null) {
+                for (CTXf xf : cellXfs.getXfArray()) {
+                    addCellXf(xf);
+                }
+            }
 
             CTCellStyleXfs cellStyleXfs = styleSheet.getCellStyleXfs();
             if(cellStyleXfs != null) styleXfs.addAll(Arrays.asList(cellStyleXfs.getXfArray()));
@@ -211,18 +252,13 @@ public class StylesTable extends POIXMLDocumentPart {
 	 *  {@link XSSFFont#registerTo(StylesTable)}
 	 */
 	public int putFont(XSSFFont font, boolean forceRegistration) {
-		int idx = -1;
 		if(!forceRegistration) {
-			idx = fonts.indexOf(font);
-		}
-
-		if (idx != -1) {
-			return idx;
+			int idx = fontIndex.indexOf(font);
+			if (idx != -1) {
+				return idx;
+			}
 		}
-		
-		idx = fonts.size();
-		fonts.add(font);
-		return idx;
+		return addFont(font);
 	}
 	public int putFont(XSSFFont font) {
 		return putFont(font, false);
@@ -241,10 +277,11 @@ public class StylesTable extends POIXMLDocumentPart {
 	public int putStyle(XSSFCellStyle style) {
 		CTXf mainXF = style.getCoreXf();
 
-		if(! xfs.contains(mainXF)) {
-			xfs.add(mainXF);
+		Integer idx = xfIndexes.get(mainXF);
+		if (idx != null) {
+			return idx.intValue();
 		}
-		return xfs.indexOf(mainXF);
+		return addCellXf(mainXF);
 	}
 
 	public XSSFCellBorder getBorderAt(int idx) {
@@ -252,13 +289,12 @@ public class StylesTable extends POIXMLDocumentPart {
 	}
 
 	public int putBorder(XSSFCellBorder border) {
-		int idx = borders.indexOf(border);
+		int idx = borderIndex.indexOf(border);
 		if (idx != -1) {
 			return idx;
 		}
-		borders.add(border);
 		border.setThemesTable(theme);
-		return borders.size() - 1;
+		return addBorder(border);
 	}
 
 	public XSSFCellFill getFillAt(int idx) {
@@ -282,23 +318,37 @@ public class StylesTable extends POIXMLDocumentPart {
 	}
 
 	public int putFill(XSSFCellFill fill) {
-		int idx = fills.indexOf(fill);
+		int idx = fillIndex.indexOf(fill);
 		if (idx != -1) {
 			return idx;
 		}
-		fills.add(fill);
-		return fills.size() - 1;
+		return addFill(fill);
 	}
 
 	public CTXf getCellXfAt(int idx) {
 		return xfs.get(idx);
 	}
 	public int putCellXf(CTXf cellXf) {
-		xfs.add(cellXf);
+		addCellXf(cellXf);
 		return xfs.size();
 	}
    public void replaceCellXfAt(int idx, CTXf cellXf) {
-      xfs.set(idx, cellXf);
+      CTXf old = xfs.set(idx, cellXf);
+      Integer oldIdx = xfIndexes.get(old);
+      if (oldIdx != null && oldIdx.intValue() == idx) {
+         xfIndexes.remove(old);
+         // the replaced xf may still be used further down the list
+         for (int i = idx + 1; i < xfs.size(); i++) {
+            if (xfs.get(i) == old) {
+               xfIndexes.put(old, Integer.valueOf(i));
+               break;
+            }
+         }
+      }
+      oldIdx = xfIndexes.get(cellXf);
+      if (oldIdx == null || oldIdx.intValue() > idx) {
+         xfIndexes.put(cellXf, Integer.valueOf(idx));
+      }
    }
 
 	public CTXf getCellStyleXfAt(int idx) {
@@ -447,20 +497,48 @@ public class StylesTable extends POIXMLDocumentPart {
 	private void initialize() {
 		//CTFont ctFont = createDefaultFont();
 		XSSFFont xssfFont = createDefaultFont();
-		fonts.add(xssfFont);
+		addFont(xssfFont);
 
 		CTFill[] ctFill = createDefaultFills();
-		fills.add(new XSSFCellFill(ctFill[0]));
-		fills.add(new XSSFCellFill(ctFill[1]));
+		addFill(new XSSFCellFill(ctFill[0]));
+		addFill(new XSSFCellFill(ctFill[1]));
 
 		CTBorder ctBorder = createDefaultBorder();
-		borders.add(new XSSFCellBorder(ctBorder));
+		addBorder(new XSSFCellBorder(ctBorder));
 
 		CTXf styleXf = createDefaultXf();
 		styleXfs.add(styleXf);
 		CTXf xf = createDefaultXf();
 		xf.setXfId(0);
+		addCellXf(xf);
+	}
+
+	private int addFont(XSSFFont font) {
+		fonts.add(font);
+		return fonts.size() - 1;
+	}
+
+	private int addFill(XSSFCellFill fill) {
+		fills.add(fill);
+		return fills.size() - 1;
+	}
+
+	private int addBorder(XSSFCellBorder border) {
+		borders.add(border);
+		return borders.size() - 1;
+	}
+
+	/*
+	 * An xf already in the index keeps pointing to its first occurrence, as
+	 * indexOf() would.
+	 */
+	private int addCellXf(CTXf xf) {
+		int idx = xfs.size();
 		xfs.add(xf);
+		if (!xfIndexes.containsKey(xf)) {
+			xfIndexes.put(xf, Integer.valueOf(idx));
+		}
+		return idx;
 	}
 
 	private static CTXf createDefaultXf() {
@@ -540,4 +618,119 @@ public class StylesTable extends POIXMLDocumentPart {
 		}
 		return null;
 	}
+
+	/**
+	 * Index of one of the font, fill or border lists, mapping a snapshot of the
+	 * xml of each entry to the positions which hold it. The list itself stays
+	 * the master copy: entries added to or removed from its end are indexed
+	 * lazily, and an entry is indexed again once it reports a change through its
+	 * setters. A match is checked against the current xml of the entry found, as
+	 * changes made to the xml beans directly are not reported.
+	 */
+	private static abstract class StyleIndex<T> implements StyleChangeListener {
+		private final List<T> list;
+		private final List<T> indexed = new ArrayList<T>();
+		private final List<String> snapshots = new ArrayList<String>();
+		private final Map<String, List<Integer>> positions = new HashMap<String, List<Integer>>();
+		/** the positions of each indexed entry, by identity */
+		private final Map<Object, List<Integer>> entryPositions = new IdentityHashMap<Object, List<Integer>>();
+		/** the entries which reported a change since the last lookup */
+		private final Map<Object, Boolean> changed = new IdentityHashMap<Object, Boolean>();
+
+		StyleIndex(List<T> list) {
+			this.list = list;
+		}
+
+		protected abstract XmlObject getBean(T entry);
+
+		protected abstract void setChangeListener(T entry, StyleChangeListener listener);
+
+		public void styleChanged(Object style) {
+			changed.put(style, Boolean.TRUE);
+		}
+
+		/**
+		 * @return the position of an entry with the same xml, or -1 if there
+		 *  is none
+		 */
+		int indexOf(T entry) {
+			catchUp();
+			String xml = getBean(entry).toString();
+			List<Integer> found = positions.get(xml);
+			while (found != null) {
+				int pos = found.get(0).intValue();
+				T current = list.get(pos);
+				if (current == indexed.get(pos) && getBean(current).toString().equals(xml)) {
+					return pos;
+				}
+				// Swapped in the list, or its xml bean was changed directly
+				unindex(pos);
+				index(pos);
+				found = positions.get(xml);
+			}
+			return -1;
+		}
+
+		/**
+		 * Indexes the entries added or changed since the last lookup
+		 */
+		private void catchUp() {
+			while (indexed.size() > list.size()) {
+				int pos = indexed.size() - 1;
+				unindex(pos);
+				indexed.remove(pos);
+				snapshots.remove(pos);
+			}
+			while (indexed.size() < list.size()) {
+				indexed.add(null);
+				snapshots.add(null);
+				index(indexed.size() - 1);
+			}
+			if (!changed.isEmpty()) {
+				for (Object style : changed.keySet()) {
+					List<Integer> found = entryPositions.get(style);
+					if (found != null) {
+						for (Integer pos : new ArrayList<Integer>(found)) {
+							unindex(pos.intValue());
+							index(pos.intValue());
+						}
+					}
+				}
+				changed.clear();
+			}
+		}
+
+		private void index(int pos) {
+			T entry = list.get(pos);
+			String xml = getBean(entry).toString();
+			indexed.set(pos, entry);
+			snapshots.set(pos, xml);
+			addPosition(positions, xml, pos);
+			addPosition(entryPositions, entry, pos);
+			setChangeListener(entry, this);
+		}
+
+		private void unindex(int pos) {
+			removePosition(positions, snapshots.get(pos), pos);
+			removePosition(entryPositions, indexed.get(pos), pos);
+		}
+
+		private static <K> void addPosition(Map<K, List<Integer>> map, K key, int pos) {
+			List<Integer> found = map.get(key);
+			if (found == null) {
+				found = new ArrayList<Integer>(1);
+				map.put(key, found);
+			}
+			int insertAt = -Collections.binarySearch(found, Integer.valueOf(pos)) - 1;
+			found.add(insertAt, Integer.valueOf(pos));
+		}
+
+		private static <K> void removePosition(Map<K, List<Integer>> map, K key, int pos) {
+			List<Integer> found = map.get(key);
+			found.remove(Integer.valueOf(pos));
+			if (found.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
 }
@@ -23,6 +23,8 @@ import java.io.*;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import org.apache.poi.xssf.model.SharedStringsTable;
+
 /**
  * Sheet writer that supports gzip compression of the temp files.
  */
@@ -32,6 +34,13 @@ public class GZIPSheetDataWriter extends SheetDataWriter {
         super();
     }
 
+    /**
+     * @param sharedStringsTable the shared strings table, or null if inline text is used
+     */
+    public GZIPSheetDataWriter(SharedStringsTable sharedStringsTable) throws IOException {
+        super(sharedStringsTable);
+    }
+
     /**
      * @return temp file to write sheet data
      */
@@ -18,6 +18,7 @@
 package org.apache.poi.xssf.streaming;
 
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.Date1904Support;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -25,6 +26,7 @@ import org.apache.poi.ss.usermodel.Name;
 import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.PictureData;
 import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 
@@ -49,7 +51,7 @@ import org.apache.poi.ss.util.CellRangeAddress;
  *
  * @author Alex Geller, Four J's Development Tools
 */
-public class SXSSFWorkbook implements Workbook
+public class SXSSFWorkbook implements Workbook, Date1904Support
 {
     /**
      * Specifies how many rows can be accessed at most via getRow().
@@ -72,6 +74,12 @@ public class SXSSFWorkbook implements Workbook
      */
     private boolean _compressTmpFiles = false;
 
+    /**
+     * shared string table - a cache of strings in this workbook,
+     * <code>null</code> if string cell values are written inline
+     */
+    private SharedStringsTable _sharedStringSource;
+
     /**
      * Construct a new workbook
      */
@@ -165,15 +173,50 @@ public class SXSSFWorkbook implements Workbook
      * @param compressTmpFiles whether to use gzip compression for temporary files
      */
     public SXSSFWorkbook(XSSFWorkbook workbook, int rowAccessWindowSize, boolean compressTmpFiles){
+    	this(workbook,rowAccessWindowSize, compressTmpFiles, false);
+    }
+
+    /**
+     * Constructs an workbook from an existing workbook.
+     * <p>
+     * When a new node is created via createRow() and the total number
+     * of unflushed records would exceed the specified value, then the
+     * row with the lowest index value is flushed and cannot be accessed
+     * via getRow() anymore.
+     * </p>
+     * <p>
+     * A value of -1 indicates unlimited access. In this case all
+     * records that have not been flushed by a call to flush() are available
+     * for random access.
+     * <p>
+     * <p></p>
+     * A value of 0 is not allowed because it would flush any newly created row
+     * without having a chance to specify any cells.
+     * </p>
+     * <p>
+     * If <code>useSharedStringsTable</code> is set, string cell values are written as
+     * indexes into the shared strings table of the workbook rather than as inline strings.
+     * Each distinct string is then stored only once, which makes the output considerably
+     * smaller when the same strings are repeated, at the cost of keeping every distinct
+     * string in memory until the workbook is written.
+     * </p>
+     *
+     * @param rowAccessWindowSize
+     * @param compressTmpFiles whether to use gzip compression for temporary files
+     * @param useSharedStringsTable whether to use a shared strings table
+     */
+    public SXSSFWorkbook(XSSFWorkbook workbook, int rowAccessWindowSize, boolean compressTmpFiles, boolean useSharedStringsTable){
     	setRandomAccessWindowSize(rowAccessWindowSize);
     	setCompressTempFiles(compressTmpFiles);
     	if (workbook == null)
     	{
     		_wb=new XSSFWorkbook();
+    		_sharedStringSource = useSharedStringsTable ? _wb.getSharedStringSource() : null;
     	}
     	else
     	{
     		_wb=workbook;
+    		_sharedStringSource = useSharedStringsTable ? _wb.getSharedStringSource() : null;
             for ( int i = 0; i < _wb.getNumberOfSheets(); i++ )
             {
                 XSSFSheet sheet = _wb.getSheetAt( i );
@@ -236,9 +279,9 @@ public class SXSSFWorkbook implements Workbook
 
     SheetDataWriter createSheetDataWriter() throws IOException {
         if(_compressTmpFiles) {
-            return new GZIPSheetDataWriter();
+            return new GZIPSheetDataWriter(_sharedStringSource);
         } else {
-            return new SheetDataWriter();
+            return new SheetDataWriter(_sharedStringSource);
         }
     }
 
@@ -995,6 +1038,14 @@ public class SXSSFWorkbook implements Workbook
         return _wb.isHidden();
     }
 
+    /**
+     * @return <code>true</code> if the dates of this workbook are counted from 1904
+     */
+    public boolean isDate1904()
+    {
+        return _wb.isDate1904();
+    }
+
     /**
      * @param hiddenFlag pass <code>false</code> to make the workbook visible in the GUI
      */
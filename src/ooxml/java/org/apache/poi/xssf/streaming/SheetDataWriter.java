@@ -23,7 +23,10 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FormulaError;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
 import org.apache.xmlbeans.XmlCursor;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.STXstring;
 
 import javax.xml.namespace.QName;
@@ -46,11 +49,29 @@ public class SheetDataWriter {
     int _numberOfCellsOfLastFlushedRow; // meaningful only of _numberOfFlushedRows>0
     int _numberLastFlushedRow = -1; // meaningful only of _numberOfFlushedRows>0
 
+    /**
+     * Table of strings shared across this workbook.
+     * If two cells contain the same string, then the cell value is the same index into SharedStringsTable
+     */
+    private SharedStringsTable _sharedStringSource;
+
     public SheetDataWriter() throws IOException {
         _fd = createTempFile();
         _out = createWriter(_fd);
     }
 
+    /**
+     * Create a writer which stores string cell values in the supplied shared strings table
+     * instead of writing them as inline strings.
+     *
+     * @param sharedStringsTable the shared strings table of the workbook,
+     *  or <code>null</code> to write inline strings
+     */
+    public SheetDataWriter(SharedStringsTable sharedStringsTable) throws IOException {
+        this();
+        _sharedStringSource = sharedStringsTable;
+    }
+
     /**
      * Create a temp file to write sheet data. 
      * By default, temp files are created in the default temporary-file directory
@@ -188,6 +209,16 @@ public class SheetDataWriter {
                 break;
             }
             case Cell.CELL_TYPE_STRING: {
+                if (_sharedStringSource != null) {
+                    XSSFRichTextString rt = new XSSFRichTextString(cell.getStringCellValue());
+                    int sRef = _sharedStringSource.addEntry(rt.getCTRst());
+
+                    _out.write(" t=\"" + STCellType.S + "\">");
+                    _out.write("<v>");
+                    _out.write(String.valueOf(sRef));
+                    _out.write("</v>");
+                    break;
+                }
                 _out.write(" t=\"inlineStr\">");
                 _out.write("<is><t");
                 if(hasLeadingTrailingSpaces(cell.getStringCellValue())) {
@@ -17,6 +17,10 @@
 
 package org.apache.poi.xssf.usermodel;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import org.apache.poi.ss.formula.functions.FreeRefFunction;
 import org.apache.poi.ss.formula.ptg.NamePtg;
 import org.apache.poi.ss.formula.ptg.NameXPtg;
@@ -30,9 +34,13 @@ import org.apache.poi.ss.formula.FormulaParser;
 import org.apache.poi.ss.formula.FormulaParsingWorkbook;
 import org.apache.poi.ss.formula.FormulaRenderingWorkbook;
 import org.apache.poi.ss.formula.FormulaType;
+import org.apache.poi.ss.formula.SharedFormula;
 import org.apache.poi.ss.formula.udf.UDFFinder;
 import org.apache.poi.ss.formula.udf.IndexedUDFFinder;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCellFormula;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTDefinedName;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellFormulaType;
 
 /**
  * Internal POI use only
@@ -42,6 +50,17 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTDefinedName;
 public final class XSSFEvaluationWorkbook implements FormulaRenderingWorkbook, EvaluationWorkbook, FormulaParsingWorkbook {
 
 	private final XSSFWorkbook _uBook;
+	/**
+	 * Parsed formula tokens, keyed by {@link EvaluationCell#getIdentityKey()}.  Parsing the
+	 * formula text is by far the most expensive part of evaluating a typical XSSF formula cell,
+	 * so each formula is only parsed once (until the cell is reported as changed)
+	 */
+	private final Map<Object, Ptg[]> _formulaTokensByCell;
+	/**
+	 * Parsed tokens of the master formula of each shared formula group, keyed by the
+	 * (detached) master formula bean held by the owning sheet
+	 */
+	private final Map<CTCellFormula, SharedFormulaTokens> _sharedFormulaTokens;
 
 	public static XSSFEvaluationWorkbook create(XSSFWorkbook book) {
 		if (book == null) {
@@ -52,6 +71,8 @@ public final class XSSFEvaluationWorkbook implements FormulaRenderingWorkbook, E
 
 	private XSSFEvaluationWorkbook(XSSFWorkbook book) {
 		_uBook = book;
+		_formulaTokensByCell = new HashMap<Object, Ptg[]>();
+		_sharedFormulaTokens = new IdentityHashMap<CTCellFormula, SharedFormulaTokens>();
 	}
 
 	private int convertFromExternalSheetIndex(int externSheetIndex) {
@@ -143,9 +164,53 @@ public final class XSSFEvaluationWorkbook implements FormulaRenderingWorkbook, E
 		return new Name(_uBook.getNameAt(ix), ix, this);
 	}
 	public Ptg[] getFormulaTokens(EvaluationCell evalCell) {
-		XSSFCell cell = ((XSSFEvaluationCell)evalCell).getXSSFCell();
-		XSSFEvaluationWorkbook frBook = XSSFEvaluationWorkbook.create(_uBook);
-		return FormulaParser.parse(cell.getCellFormula(), frBook, FormulaType.CELL, _uBook.getSheetIndex(cell.getSheet()));
+		Object key = evalCell.getIdentityKey();
+		Ptg[] ptgs = _formulaTokensByCell.get(key);
+		if (ptgs == null) {
+			ptgs = parseFormulaTokens(((XSSFEvaluationCell)evalCell).getXSSFCell());
+			_formulaTokensByCell.put(key, ptgs);
+		}
+		return ptgs;
+	}
+
+	private Ptg[] parseFormulaTokens(XSSFCell cell) {
+		XSSFSheet sheet = cell.getSheet();
+		CTCellFormula f = cell.getCTCell().getF();
+		if (f != null && f.getT() == STCellFormulaType.SHARED) {
+			CTCellFormula master = sheet.getSharedFormula((int)f.getSi());
+			if (master != null) {
+				// convert the tokens of the master formula directly, rather than going through
+				// XSSFCell.getCellFormula() which parses, renders and then re-parses
+				SharedFormulaTokens sft = getSharedFormulaTokens(master, _uBook.getSheetIndex(sheet));
+				SharedFormula sf = new SharedFormula(SpreadsheetVersion.EXCEL2007);
+				return sf.convertSharedFormulas(sft.getPtgs(),
+						cell.getRowIndex() - sft.getFirstRow(), cell.getColumnIndex() - sft.getFirstColumn());
+			}
+			// else fall through - XSSFCell will report the missing master cell
+		}
+		return FormulaParser.parse(cell.getCellFormula(), this, FormulaType.CELL, _uBook.getSheetIndex(sheet));
+	}
+
+	private SharedFormulaTokens getSharedFormulaTokens(CTCellFormula master, int sheetIndex) {
+		String formula = master.getStringValue();
+		String ref = master.getRef();
+		SharedFormulaTokens result = _sharedFormulaTokens.get(master);
+		// the master formula text and range get updated in place when rows are shifted
+		if (result == null || !result.isFor(formula, ref)) {
+			Ptg[] ptgs = FormulaParser.parse(formula, this, FormulaType.CELL, sheetIndex);
+			result = new SharedFormulaTokens(formula, ref, ptgs);
+			_sharedFormulaTokens.put(master, result);
+		}
+		return result;
+	}
+
+	public void clearAllCachedResultValues() {
+		_formulaTokensByCell.clear();
+		_sharedFormulaTokens.clear();
+	}
+
+	public void notifyUpdateCell(EvaluationCell cell) {
+		_formulaTokensByCell.remove(cell.getIdentityKey());
 	}
 
     public UDFFinder getUDFFinder(){
@@ -192,6 +257,34 @@ public final class XSSFEvaluationWorkbook implements FormulaRenderingWorkbook, E
 		}
 	}
 
+	private static final class SharedFormulaTokens {
+
+		private final String _formula;
+		private final String _ref;
+		private final CellRangeAddress _range;
+		private final Ptg[] _ptgs;
+
+		public SharedFormulaTokens(String formula, String ref, Ptg[] ptgs) {
+			_formula = formula;
+			_ref = ref;
+			_range = CellRangeAddress.valueOf(ref);
+			_ptgs = ptgs;
+		}
+
+		public boolean isFor(String formula, String ref) {
+			return _formula.equals(formula) && _ref.equals(ref);
+		}
+		public Ptg[] getPtgs() {
+			return _ptgs;
+		}
+		public int getFirstRow() {
+			return _range.getFirstRow();
+		}
+		public int getFirstColumn() {
+			return _range.getFirstColumn();
+		}
+	}
+
 	public SpreadsheetVersion getSpreadsheetVersion(){
 		return SpreadsheetVersion.EXCEL2007;
 	}
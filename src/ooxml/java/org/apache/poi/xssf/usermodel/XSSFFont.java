@@ -24,6 +24,7 @@ import org.apache.poi.ss.usermodel.FontFamily;
 import org.apache.poi.ss.usermodel.FontScheme;
 import org.apache.poi.ss.usermodel.FontUnderline;
 import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.xssf.model.StyleChangeListener;
 import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.model.ThemesTable;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTBooleanProperty;
@@ -63,6 +64,10 @@ public class XSSFFont implements Font {
     private ThemesTable _themes;
     private CTFont _ctFont;
     private short _index;
+    /**
+     * Told about the changes made through the setters
+     */
+    private StyleChangeListener _changeListener;
 
     /**
      * Create a new XSSFFont
@@ -79,6 +84,22 @@ public class XSSFFont implements Font {
         _index = (short)index;
     }
 
+    /**
+     * Sets the listener told whenever the font is changed through its
+     *  setters, which {@link StylesTable} uses to keep its index of
+     *  fonts up to date. Changes made to the XML bean aren't reported.
+     */
+    @Internal
+    public void setChangeListener(StyleChangeListener listener) {
+        _changeListener = listener;
+    }
+
+    private void changed() {
+        if (_changeListener != null) {
+            _changeListener.styleChanged(this);
+        }
+    }
+
     /**
      * Create a new XSSFont. This method is protected to be used only by XSSFWorkbook
      */
@@ -271,6 +292,7 @@ public class XSSFFont implements Font {
      * @param bold - boldness to use
      */
     public void setBold(boolean bold) {
+        changed();
         if(bold){
             CTBooleanProperty ctBold = _ctFont.sizeOfBArray() == 0 ? _ctFont.addNewB() : _ctFont.getBArray(0);
             ctBold.setVal(bold);
@@ -330,6 +352,7 @@ public class XSSFFont implements Font {
      * @param charSet
      */
     public void setCharSet(FontCharset charSet) {
+       changed();
        CTIntProperty charsetProperty;
        if(_ctFont.sizeOfCharsetArray() == 0) {
           charsetProperty = _ctFont.addNewCharset();
@@ -349,6 +372,7 @@ public class XSSFFont implements Font {
      * @see IndexedColors
      */
     public void setColor(short color) {
+        changed();
         CTColor ctColor = _ctFont.sizeOfColorArray() == 0 ? _ctFont.addNewColor() : _ctFont.getColorArray(0);
         switch (color) {
             case Font.COLOR_NORMAL: {
@@ -370,6 +394,7 @@ public class XSSFFont implements Font {
      * @param color - color to use
      */
     public void setColor(XSSFColor color) {
+        changed();
         if(color == null) _ctFont.setColorArray(null);
         else {
             CTColor ctColor = _ctFont.sizeOfColorArray() == 0 ? _ctFont.addNewColor() : _ctFont.getColorArray(0);
@@ -392,6 +417,7 @@ public class XSSFFont implements Font {
      * @param height - height in points
      */
     public void setFontHeight(double height) {
+        changed();
         CTFontSize fontSize = _ctFont.sizeOfSzArray() == 0 ? _ctFont.addNewSz() : _ctFont.getSzArray(0);
         fontSize.setVal(height);
     }
@@ -411,6 +437,7 @@ public class XSSFFont implements Font {
      * @param theme - theme color to use
      */
     public void setThemeColor(short theme) {
+        changed();
         CTColor ctColor = _ctFont.sizeOfColorArray() == 0 ? _ctFont.addNewColor() : _ctFont.getColorArray(0);
         ctColor.setTheme(theme);
     }
@@ -427,6 +454,7 @@ public class XSSFFont implements Font {
      * @see #DEFAULT_FONT_NAME
      */
     public void setFontName(String name) {
+        changed();
         CTFontName fontName = _ctFont.sizeOfNameArray() == 0 ? _ctFont.addNewName() : _ctFont.getNameArray(0);
         fontName.setVal(name == null ? DEFAULT_FONT_NAME : name);
     }
@@ -439,6 +467,7 @@ public class XSSFFont implements Font {
      * @param italic - value for italics or not
      */
     public void setItalic(boolean italic) {
+        changed();
         if(italic){
             CTBooleanProperty bool = _ctFont.sizeOfIArray() == 0 ? _ctFont.addNewI() : _ctFont.getIArray(0);
             bool.setVal(italic);
@@ -455,6 +484,7 @@ public class XSSFFont implements Font {
      * @param strikeout - value for strikeout or not
      */
     public void setStrikeout(boolean strikeout) {
+        changed();
         if(!strikeout) _ctFont.setStrikeArray(null);
         else {
             CTBooleanProperty strike = _ctFont.sizeOfStrikeArray() == 0 ? _ctFont.addNewStrike() : _ctFont.getStrikeArray(0);
@@ -473,6 +503,7 @@ public class XSSFFont implements Font {
      * @see #SS_SUB
      */
     public void setTypeOffset(short offset) {
+        changed();
         if(offset == Font.SS_NONE){
             _ctFont.setVertAlignArray(null);
         } else {
@@ -510,6 +541,7 @@ public class XSSFFont implements Font {
      * @param underline - FontUnderline enum value
      */
     public void setUnderline(FontUnderline underline) {
+        changed();
         if(underline == FontUnderline.NONE && _ctFont.sizeOfUArray() > 0){
             _ctFont.setUArray(null);
         } else {
@@ -563,6 +595,7 @@ public class XSSFFont implements Font {
      * @see FontScheme
      */
     public void setScheme(FontScheme scheme) {
+        changed();
         CTFontScheme ctFontScheme = _ctFont.sizeOfSchemeArray() == 0 ? _ctFont.addNewScheme() : _ctFont.getSchemeArray(0);
         STFontScheme.Enum val = STFontScheme.Enum.forInt(scheme.getValue());
         ctFontScheme.setVal(val);
@@ -575,7 +608,7 @@ public class XSSFFont implements Font {
      * @see org.apache.poi.ss.usermodel.FontFamily
      */
     public int getFamily() {
-        CTIntProperty family = _ctFont.sizeOfFamilyArray() == 0 ? _ctFont.addNewFamily() : _ctFont.getFamilyArray(0);
+        CTIntProperty family = _ctFont.sizeOfFamilyArray() == 0 ? null : _ctFont.getFamilyArray(0);
         return family == null ? FontFamily.NOT_APPLICABLE.getValue() : FontFamily.valueOf(family.getVal()).getValue();
     }
 
@@ -588,6 +621,7 @@ public class XSSFFont implements Font {
      * @see FontFamily
      */
     public void setFamily(int value) {
+        changed();
         CTIntProperty family = _ctFont.sizeOfFamilyArray() == 0 ? _ctFont.addNewFamily() : _ctFont.getFamilyArray(0);
         family.setVal(value);
     }
@@ -17,9 +17,12 @@
 
 package org.apache.poi.xssf.usermodel;
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
 import org.apache.poi.ss.formula.IStabilityClassifier;
 import org.apache.poi.ss.formula.WorkbookEvaluator;
+import org.apache.poi.ss.formula.WorkbookEvaluatorProvider;
 import org.apache.poi.ss.formula.eval.BoolEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
 import org.apache.poi.ss.formula.eval.NumberEval;
@@ -41,7 +44,7 @@ import org.apache.poi.ss.usermodel.Workbook;
  * @author Amol S. Deshmukh &lt; amolweb at ya hoo dot com &gt;
  * @author Josh Micich
  */
-public class XSSFFormulaEvaluator implements FormulaEvaluator {
+public class XSSFFormulaEvaluator implements FormulaEvaluator, WorkbookEvaluatorProvider {
 
 	private WorkbookEvaluator _bookEvaluator;
 	private XSSFWorkbook _book;
@@ -237,6 +240,17 @@ public class XSSFFormulaEvaluator implements FormulaEvaluator {
 	public static void evaluateAllFormulaCells(XSSFWorkbook wb) {
 	   HSSFFormulaEvaluator.evaluateAllFormulaCells((Workbook)wb);
 	}
+
+	/**
+	 * Evaluates all formula cells of the supplied workbook, with
+	 *  the sheets evaluated in parallel on the given executor.
+	 * See {@link HSSFFormulaEvaluator#evaluateAllFormulaCells(Workbook, ExecutorService)}
+	 *  for the details.
+	 */
+	public static void evaluateAllFormulaCells(XSSFWorkbook wb, ExecutorService executor) {
+	   HSSFFormulaEvaluator.evaluateAllFormulaCells((Workbook)wb, executor);
+	}
+
    /**
     * Loops over all cells in all sheets of the supplied
     *  workbook.
@@ -285,4 +299,8 @@ public class XSSFFormulaEvaluator implements FormulaEvaluator {
         _bookEvaluator.setDebugEvaluationOutputForNextEval(value);
     }
 
+    public WorkbookEvaluator _getWorkbookEvaluator() {
+        return _bookEvaluator;
+    }
+
 }
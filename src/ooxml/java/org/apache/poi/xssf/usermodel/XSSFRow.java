@@ -18,13 +18,13 @@
 package org.apache.poi.xssf.usermodel;
 
 import java.util.Iterator;
-import java.util.TreeMap;
 
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.ChunkedIntMap;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.POILogFactory;
 import org.apache.poi.util.POILogger;
@@ -46,9 +46,9 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
 
     /**
      * Cells of this row keyed by their column indexes.
-     * The TreeMap ensures that the cells are ordered by columnIndex in the ascending order.
+     * The map iterates over the cells ordered by columnIndex in the ascending order.
      */
-    private final TreeMap<Integer, XSSFCell> _cells;
+    private final ChunkedIntMap<XSSFCell> _cells;
 
     /**
      * the parent sheet
@@ -65,7 +65,8 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
     protected XSSFRow(CTRow row, XSSFSheet sheet) {
         _row = row;
         _sheet = sheet;
-        _cells = new TreeMap<Integer, XSSFCell>();
+        // chunks of 16 columns, rows are usually narrow but may start anywhere
+        _cells = new ChunkedIntMap<XSSFCell>(4);
         for (CTCell c : row.getCArray()) {
             XSSFCell cell = new XSSFCell(this, c);
             _cells.put(cell.getColumnIndex(), cell);
@@ -94,7 +95,7 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
      * @return an iterator over cells in this row.
      */
     public Iterator<Cell> cellIterator() {
-        return (Iterator<Cell>)(Iterator<? extends Cell>)_cells.values().iterator();
+        return (Iterator<Cell>)(Iterator<? extends Cell>)_cells.iterator();
     }
 
     /**
@@ -202,7 +203,7 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
     public XSSFCell getCell(int cellnum, MissingCellPolicy policy) {
     	if(cellnum < 0) throw new IllegalArgumentException("Cell index must be >= 0");
 
-        XSSFCell cell = (XSSFCell)_cells.get(cellnum);
+        XSSFCell cell = _cells.get(cellnum);
     	if(policy == RETURN_NULL_AND_BLANK) {
     		return cell;
     	}
@@ -445,7 +446,7 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
         if(_row.sizeOfCArray() != _cells.size()) isOrdered = false;
         else {
             int i = 0;
-            for (XSSFCell cell : _cells.values()) {
+            for (XSSFCell cell : _cells) {
                 CTCell c1 = cell.getCTCell();
                 CTCell c2 = _row.getCArray(i++); 
 
@@ -461,7 +462,7 @@ public class XSSFRow implements Row, Comparable<XSSFRow> {
         if(!isOrdered){
             CTCell[] cArray = new CTCell[_cells.size()];
             int i = 0;
-            for (XSSFCell c : _cells.values()) {
+            for (XSSFCell c : _cells) {
                 cArray[i++] = c.getCTCell();
             }
             _row.setCArray(cArray);
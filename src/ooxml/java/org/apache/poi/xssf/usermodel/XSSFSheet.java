@@ -48,6 +48,7 @@ import org.apache.poi.ss.util.CellRangeAddressList;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.ss.util.SSCellRange;
 import org.apache.poi.ss.util.SheetUtil;
+import org.apache.poi.util.ChunkedIntMap;
 import org.apache.poi.util.HexDump;
 import org.apache.poi.util.Internal;
 import org.apache.poi.util.POILogFactory;
@@ -76,7 +77,10 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
     protected CTSheet sheet;
     protected CTWorksheet worksheet;
 
-    private TreeMap<Integer, XSSFRow> _rows;
+    /**
+     * Rows of this sheet keyed by their row indexes, in ascending order.
+     */
+    private ChunkedIntMap<XSSFRow> _rows;
     private List<XSSFHyperlink> hyperlinks;
     private ColumnHelper columnHelper;
     private CommentsTable sheetComments;
@@ -88,6 +92,11 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
     private TreeMap<String,XSSFTable> tables;
     private List<CellRangeAddress> arrayFormulas;
     private XSSFDataValidationHelper dataValidationHelper;    
+    /**
+     * <code>true</code> while the worksheet xml of a lazily loaded sheet has not been parsed yet
+     * @see XSSFWorkbook#XSSFWorkbook(org.apache.poi.openxml4j.opc.OPCPackage, boolean)
+     */
+    private boolean readPending;
 
     /**
      * Creates new XSSFSheet   - called by XSSFWorkbook to create a sheet from scratch.
@@ -133,6 +142,24 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
         }
     }
 
+    /**
+     * Defers parsing the worksheet xml until {@link #ensureRead()} is called
+     */
+    void setReadPending() {
+        readPending = true;
+    }
+
+    /**
+     * Parses the worksheet xml if that was deferred, called by the workbook
+     * before it hands the sheet out.
+     */
+    void ensureRead() {
+        if (readPending) {
+            readPending = false;
+            onDocumentRead();
+        }
+    }
+
     protected void read(InputStream is) throws IOException {
         try {
             worksheet = WorksheetDocument.Factory.parse(is).getWorksheet();
@@ -171,7 +198,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
 
     @SuppressWarnings("deprecation") //YK: getXYZArray() array accessors are deprecated in xmlbeans with JDK 1.5 support
     private void initRows(CTWorksheet worksheet) {
-        _rows = new TreeMap<Integer, XSSFRow>();
+        _rows = newRowMap();
         tables = new TreeMap<String, XSSFTable>();
         sharedFormulas = new HashMap<Integer, CTCellFormula>();
         arrayFormulas = new ArrayList<CellRangeAddress>();
@@ -181,6 +208,14 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
         }
     }
 
+    /**
+     * Rows are mostly created in order and close together, so chunks of 64 rows
+     * keep the overhead per row to about an array slot.
+     */
+    private static ChunkedIntMap<XSSFRow> newRowMap() {
+        return new ChunkedIntMap<XSSFRow>(6);
+    }
+
     /**
      * Read hyperlink relations, link them with CTHyperlink beans in this worksheet
      * and initialize the internal array of XSSFHyperlink objects
@@ -531,7 +566,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
         	} else {
         		// get number of rows where row index < rownum
         		// --> this tells us where our row should go
-        		int idx = _rows.headMap(rownum).size();
+        		int idx = _rows.countKeysBelow(rownum);
         		ctRow = worksheet.getSheetData().insertNewRow(idx);
         	}
         }
@@ -866,6 +901,9 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
 
     public short getLeftCol() {
         String cellRef = worksheet.getSheetViews().getSheetViewArray(0).getTopLeftCell();
+        if(cellRef == null) {
+            return 0;
+        }
         CellReference cellReference = new CellReference(cellRef);
         return cellReference.getCol();
     }
@@ -1178,6 +1216,9 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
      */
     public short getTopRow() {
         String cellRef = getSheetTypeSheetView().getTopLeftCell();
+        if(cellRef == null) {
+            return 0;
+        }
         CellReference cellReference = new CellReference(cellRef);
         return (short) cellReference.getRow();
     }
@@ -1236,7 +1277,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
 
     private short getMaxOutlineLevelRows(){
         short outlineLevel=0;
-        for(XSSFRow xrow : _rows.values()){
+        for(XSSFRow xrow : _rows){
             outlineLevel=xrow.getCTRow().getOutlineLevel()>outlineLevel? xrow.getCTRow().getOutlineLevel(): outlineLevel;
         }
         return outlineLevel;
@@ -1459,7 +1500,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
 
         for(XSSFCell cell : cellsToDelete) row.removeCell(cell);
 
-        int idx = _rows.headMap(row.getRowNum()).size();
+        int idx = _rows.countKeysBelow(row.getRowNum());
         _rows.remove(row.getRowNum());
         worksheet.getSheetData().removeRow(idx);
     }
@@ -1538,7 +1579,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
      * Call getRowNum() on each row if you care which one it is.
      */
     public Iterator<Row> rowIterator() {
-        return (Iterator<Row>)(Iterator<? extends Row>) _rows.values().iterator();
+        return (Iterator<Row>)(Iterator<? extends Row>) _rows.iterator();
     }
 
     /**
@@ -2334,7 +2375,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
 
             if (removeRow(startRow, endRow, n, rownum)) {
             	// remove row from worksheet.getSheetData row array
-            	int idx = _rows.headMap(row.getRowNum()).size();
+            	int idx = _rows.countKeysBelow(row.getRowNum());
                 worksheet.getSheetData().removeRow(idx);
                 // remove row from _rows
                 it.remove();
@@ -2366,8 +2407,8 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
         rowShifter.updateConditionalFormatting(shifter);
 
         //rebuild the _rows map
-        TreeMap<Integer, XSSFRow> map = new TreeMap<Integer, XSSFRow>();
-        for(XSSFRow r : _rows.values()) {
+        ChunkedIntMap<XSSFRow> map = newRowMap();
+        for(XSSFRow r : _rows) {
             map.put(r.getRowNum(), r);
         }
         _rows = map;
@@ -2651,6 +2692,10 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
 
     @Override
     protected void commit() throws IOException {
+        if (readPending) {
+            // never accessed, so the package part is still up to date
+            return;
+        }
         PackagePart part = getPackagePart();
         OutputStream out = part.getOutputStream();
         write(out);
@@ -2683,7 +2728,7 @@ public class XSSFSheet extends POIXMLDocumentPart implements Sheet {
             worksheet.getHyperlinks().setHyperlinkArray(ctHls);
         }
 
-        for(XSSFRow row : _rows.values()){
+        for(XSSFRow row : _rows){
             row.onDocumentWrite();
         }
 
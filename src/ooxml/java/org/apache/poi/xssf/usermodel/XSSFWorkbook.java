@@ -43,6 +43,7 @@ import org.apache.poi.openxml4j.opc.PackagingURIHelper;
 import org.apache.poi.openxml4j.opc.TargetMode;
 import org.apache.poi.ss.formula.udf.IndexedUDFFinder;
 import org.apache.poi.ss.formula.udf.UDFFinder;
+import org.apache.poi.ss.usermodel.Date1904Support;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -64,7 +65,7 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.*;
  * will construct whether they are reading or writing a workbook.  It is also the
  * top level object for creating new sheets/etc.
  */
-public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<XSSFSheet> {
+public class XSSFWorkbook extends POIXMLDocument implements Workbook, Date1904Support, Iterable<XSSFSheet> {
     private static final Pattern COMMA_PATTERN = Pattern.compile(",");
 
     /**
@@ -159,6 +160,11 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
      */
     private XSSFCreationHelper _creationHelper;
 
+    /**
+     * whether the sheets of a workbook read from a package are only parsed on first access
+     */
+    private boolean lazySheets;
+
     /**
      * Create a new SpreadsheetML workbook.
      */
@@ -180,7 +186,27 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
      * @param pkg the OpenXML4J <code>OPC Package</code> object.
      */
     public XSSFWorkbook(OPCPackage pkg) throws IOException {
+        this(pkg, false);
+    }
+
+    /**
+     * Constructs a XSSFWorkbook object given a OpenXML4J <code>Package</code> object,
+     *  optionally deferring the parsing of each sheet until it is first accessed.
+     * <p>
+     * With lazy sheets, opening a workbook only parses the workbook part and
+     *  the shared parts such as styles and shared strings, so reading a single sheet
+     *  or the workbook properties of a large file does not pay for all of its sheets.
+     *  A sheet is parsed when it is returned by {@link #getSheetAt(int)},
+     *  {@link #getSheet(String)} or {@link #iterator()}, and sheets which were never
+     *  accessed are saved by copying their original xml.
+     * </p>
+     *
+     * @param pkg the OpenXML4J <code>OPC Package</code> object.
+     * @param lazySheets <code>true</code> to parse the sheets on first access
+     */
+    public XSSFWorkbook(OPCPackage pkg, boolean lazySheets) throws IOException {
         super(pkg);
+        this.lazySheets = lazySheets;
 
         //build a tree of POIXMLDocumentParts, this workbook being the root
         load(XSSFFactory.getInstance());
@@ -283,7 +309,11 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
                     continue;
                 }
                 sh.sheet = ctSheet;
-                sh.onDocumentRead();
+                if (lazySheets) {
+                    sh.setReadPending();
+                } else {
+                    sh.onDocumentRead();
+                }
                 sheets.add(sh);
             }
 
@@ -421,7 +451,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
     public XSSFSheet cloneSheet(int sheetNum) {
         validateSheetIndex(sheetNum);
 
-        XSSFSheet srcSheet = sheets.get(sheetNum);
+        XSSFSheet srcSheet = getSheetAt(sheetNum);
         String srcName = srcSheet.getSheetName();
         String clonedName = getUniqueSheetName(srcName);
 
@@ -816,6 +846,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
     public XSSFSheet getSheet(String name) {
         for (XSSFSheet sheet : sheets) {
             if (name.equalsIgnoreCase(sheet.getSheetName())) {
+                sheet.ensureRead();
                 return sheet;
             }
         }
@@ -832,7 +863,9 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
      */
     public XSSFSheet getSheetAt(int index) {
         validateSheetIndex(index);
-        return sheets.get(index);
+        XSSFSheet sheet = sheets.get(index);
+        sheet.ensureRead();
+        return sheet;
     }
 
     /**
@@ -887,7 +920,25 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
      * </code></pre>
      */
     public Iterator<XSSFSheet> iterator() {
-        return sheets.iterator();
+        if (!lazySheets) {
+            return sheets.iterator();
+        }
+        final Iterator<XSSFSheet> it = sheets.iterator();
+        return new Iterator<XSSFSheet>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public XSSFSheet next() {
+                XSSFSheet sheet = it.next();
+                sheet.ensureRead();
+                return sheet;
+            }
+
+            public void remove() {
+                it.remove();
+            }
+        };
     }
     /**
      * Are we a normal workbook (.xlsx), or a
@@ -1201,7 +1252,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
      */
     public void setSelectedTab(int index) {
         for (int i = 0 ; i < sheets.size() ; ++i) {
-            XSSFSheet sheet = sheets.get(i);
+            XSSFSheet sheet = getSheetAt(i);
             sheet.setSelected(i == index);
         }
     }
@@ -1373,7 +1424,7 @@ public class XSSFWorkbook extends POIXMLDocument implements Workbook, Iterable<X
      * </p>
      * @return true if the date systems used in the workbook starts in 1904
      */
-    protected boolean isDate1904(){
+    public boolean isDate1904(){
         CTWorkbookPr workbookPr = workbook.getWorkbookPr();
         return workbookPr != null && workbookPr.getDate1904();
     }
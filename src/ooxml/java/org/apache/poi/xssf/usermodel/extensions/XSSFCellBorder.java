@@ -18,6 +18,7 @@ package org.apache.poi.xssf.usermodel.extensions;
 
 
 import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.xssf.model.StyleChangeListener;
 import org.apache.poi.xssf.model.ThemesTable;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.util.Internal;
@@ -33,6 +34,10 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.STBorderStyle;
 public class XSSFCellBorder {
     private ThemesTable _theme;
     private CTBorder border;
+    /**
+     * Told about the changes made through the setters
+     */
+    private StyleChangeListener _changeListener;
 
     /**
      * Creates a Cell Border from the supplied XML definition
@@ -104,6 +109,7 @@ public class XSSFCellBorder {
      * @see BorderStyle
      */
     public void setBorderStyle(BorderSide side, BorderStyle style) {
+        changed();
         getBorder(side, true).setStyle(STBorderStyle.Enum.forInt(style.ordinal() + 1));
     }
 
@@ -135,6 +141,7 @@ public class XSSFCellBorder {
      * @param color - the color to use
      */
     public void setBorderColor(BorderSide side, XSSFColor color) {
+        changed();
         CTBorderPr borderPr = getBorder(side, true);
         if (color == null) borderPr.unsetColor();
         else
@@ -171,6 +178,23 @@ public class XSSFCellBorder {
         return borderPr;
     }
 
+    /**
+     * Sets the listener told whenever the border is changed through its
+     *  setters, which {@link org.apache.poi.xssf.model.StylesTable} uses
+     *  to keep its index of borders up to date. Changes made to the XML bean
+     *  aren't reported.
+     */
+    @Internal
+    public void setChangeListener(StyleChangeListener listener) {
+        _changeListener = listener;
+    }
+
+    private void changed() {
+        if (_changeListener != null) {
+            _changeListener.styleChanged(this);
+        }
+    }
+
 
     public int hashCode() {
         return border.toString().hashCode();
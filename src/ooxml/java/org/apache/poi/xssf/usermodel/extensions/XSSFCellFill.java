@@ -20,6 +20,7 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTColor;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFill;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTPatternFill;
 import org.openxmlformats.schemas.spreadsheetml.x2006.main.STPatternType;
+import org.apache.poi.xssf.model.StyleChangeListener;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.util.Internal;
 
@@ -30,6 +31,10 @@ import org.apache.poi.util.Internal;
 public final class XSSFCellFill {
 
     private CTFill _fill;
+    /**
+     * Told about the changes made through the setters
+     */
+    private StyleChangeListener _changeListener;
 
     /**
      * Creates a CellFill from the supplied parts
@@ -66,6 +71,7 @@ public final class XSSFCellFill {
      * @param index
      */
     public void setFillBackgroundColor(int index) {
+        changed();
         CTPatternFill ptrn = ensureCTPatternFill();
         CTColor ctColor = ptrn.isSetBgColor() ? ptrn.getBgColor() : ptrn.addNewBgColor();
         ctColor.setIndexed(index);
@@ -77,6 +83,7 @@ public final class XSSFCellFill {
      * @param color
      */
     public void setFillBackgroundColor(XSSFColor color) {
+        changed();
         CTPatternFill ptrn = ensureCTPatternFill();
         ptrn.setBgColor(color.getCTColor());
     }
@@ -100,6 +107,7 @@ public final class XSSFCellFill {
      * @param index - the color to use
      */
     public void setFillForegroundColor(int index) {
+        changed();
         CTPatternFill ptrn = ensureCTPatternFill();
         CTColor ctColor = ptrn.isSetFgColor() ? ptrn.getFgColor() : ptrn.addNewFgColor();
         ctColor.setIndexed(index);
@@ -111,6 +119,7 @@ public final class XSSFCellFill {
      * @param color - the color to use
      */
     public void setFillForegroundColor(XSSFColor color) {
+        changed();
         CTPatternFill ptrn = ensureCTPatternFill();
         ptrn.setFgColor(color.getCTColor());
     }
@@ -131,6 +140,7 @@ public final class XSSFCellFill {
      * @param patternType fill pattern to use
      */
     public void setPatternType(STPatternType.Enum patternType) {
+        changed();
         CTPatternFill ptrn = ensureCTPatternFill();
         ptrn.setPatternType(patternType);
     }
@@ -153,6 +163,23 @@ public final class XSSFCellFill {
         return _fill;
     }
 
+    /**
+     * Sets the listener told whenever the fill is changed through its
+     *  setters, which {@link org.apache.poi.xssf.model.StylesTable} uses
+     *  to keep its index of fills up to date. Changes made to the XML bean
+     *  aren't reported.
+     */
+    @Internal
+    public void setChangeListener(StyleChangeListener listener) {
+        _changeListener = listener;
+    }
+
+    private void changed() {
+        if (_changeListener != null) {
+            _changeListener.styleChanged(this);
+        }
+    }
+
 
     public int hashCode() {
         return _fill.toString().hashCode();
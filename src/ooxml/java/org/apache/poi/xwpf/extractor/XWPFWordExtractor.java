@@ -76,11 +76,19 @@ public class XWPFWordExtractor extends POIXMLTextExtractor {
 			new XWPFWordExtractor(POIXMLDocument.openPackage(
 					args[0]
 			));
-		System.out.println(extractor.getText());
+		extractor.writeText(System.out);
+		System.out.println();
 	}
 	
 	public String getText() {
-		StringBuffer text = new StringBuffer();
+		return writeTextToString();
+	}
+
+	/**
+	 * Writes out the text of the document, one paragraph
+	 *  at a time
+	 */
+	public void writeText(Appendable text) throws IOException {
 		XWPFHeaderFooterPolicy hfPolicy = document.getHeaderFooterPolicy();
 
 		// Start out with all headers
@@ -91,46 +99,46 @@ public class XWPFWordExtractor extends POIXMLTextExtractor {
 		while(i.hasNext()) {
 			XWPFParagraph paragraph = i.next();
 
-			try {
-				CTSectPr ctSectPr = null;
-				if (paragraph.getCTP().getPPr()!=null) {
-					ctSectPr = paragraph.getCTP().getPPr().getSectPr();
-				}
+			CTSectPr ctSectPr = null;
+			if (paragraph.getCTP().getPPr()!=null) {
+				ctSectPr = paragraph.getCTP().getPPr().getSectPr();
+			}
 
-				XWPFHeaderFooterPolicy headerFooterPolicy = null;
+			XWPFHeaderFooterPolicy headerFooterPolicy = null;
 
-				if (ctSectPr!=null) {
+			if (ctSectPr!=null) {
+				try {
 					headerFooterPolicy = new XWPFHeaderFooterPolicy(document, ctSectPr);
-					extractHeaders(text, headerFooterPolicy);
-				}
-
-				// Do the paragraph text
-				for(XWPFRun run : paragraph.getRuns()) {
-				   text.append(run.toString());
-				   if(run instanceof XWPFHyperlinkRun && fetchHyperlinks) {
-				      XWPFHyperlink link = ((XWPFHyperlinkRun)run).getHyperlink(document);
-				      if(link != null)
-				         text.append(" <" + link.getURL() + ">");
-				   }
+				} catch (IOException e) {
+					throw new POIXMLException(e);
+				} catch (XmlException e) {
+					throw new POIXMLException(e);
 				}
+				extractHeaders(text, headerFooterPolicy);
+			}
 
-				// Add comments
-				XWPFCommentsDecorator decorator = new XWPFCommentsDecorator(paragraph, null);
-				text.append(decorator.getCommentText()).append('\n');
-				
-				// Do endnotes and footnotes
-				String footnameText = paragraph.getFootnoteText();
-			   if(footnameText != null && footnameText.length() > 0) {
-			      text.append(footnameText + "\n");
+			// Do the paragraph text
+			for(XWPFRun run : paragraph.getRuns()) {
+			   text.append(run.toString());
+			   if(run instanceof XWPFHyperlinkRun && fetchHyperlinks) {
+			      XWPFHyperlink link = ((XWPFHyperlinkRun)run).getHyperlink(document);
+			      if(link != null)
+			         text.append(" <" + link.getURL() + ">");
 			   }
+			}
 
-				if (ctSectPr!=null) {
-					extractFooters(text, headerFooterPolicy);
-				}
-			} catch (IOException e) {
-				throw new POIXMLException(e);
-			} catch (XmlException e) {
-				throw new POIXMLException(e);
+			// Add comments
+			XWPFCommentsDecorator decorator = new XWPFCommentsDecorator(paragraph, null);
+			text.append(decorator.getCommentText()).append('\n');
+			
+			// Do endnotes and footnotes
+			String footnameText = paragraph.getFootnoteText();
+		   if(footnameText != null && footnameText.length() > 0) {
+		      text.append(footnameText + "\n");
+		   }
+
+			if (ctSectPr!=null) {
+				extractFooters(text, headerFooterPolicy);
 			}
 		}
 
@@ -142,11 +150,9 @@ public class XWPFWordExtractor extends POIXMLTextExtractor {
 		
 		// Finish up with all the footers
 		extractFooters(text, hfPolicy);
-		
-		return text.toString();
 	}
 
-	private void extractFooters(StringBuffer text, XWPFHeaderFooterPolicy hfPolicy) {
+	private void extractFooters(Appendable text, XWPFHeaderFooterPolicy hfPolicy) throws IOException {
 		if(hfPolicy.getFirstPageFooter() != null) {
 			text.append( hfPolicy.getFirstPageFooter().getText() );
 		}
@@ -158,7 +164,7 @@ public class XWPFWordExtractor extends POIXMLTextExtractor {
 		}
 	}
 
-	private void extractHeaders(StringBuffer text, XWPFHeaderFooterPolicy hfPolicy) {
+	private void extractHeaders(Appendable text, XWPFHeaderFooterPolicy hfPolicy) throws IOException {
 		if(hfPolicy.getFirstPageHeader() != null) {
 			text.append( hfPolicy.getFirstPageHeader().getText() );
 		}
@@ -30,7 +30,9 @@ import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
 import org.apache.poi.openxml4j.opc.internal.ContentTypeManager;
 import org.apache.poi.openxml4j.opc.internal.FileHelper;
+import org.apache.poi.openxml4j.opc.internal.MemoryPackagePart;
 import org.apache.poi.openxml4j.opc.internal.PackagePropertiesPart;
+import org.apache.poi.openxml4j.opc.internal.TempFilePackagePart;
 import org.apache.poi.util.TempFile;
 import org.apache.poi.util.POILogger;
 import org.apache.poi.util.POILogFactory;
@@ -138,6 +140,59 @@ public final class TestPackage extends TestCase {
         assertTrue(targetFile.delete());
 	}
 
+	/**
+	 * Test package creation with the part data kept in temporary files
+	 *  rather than in memory
+	 */
+	public void testCreatePackageAddPartTempFile() throws Exception {
+		File targetFile = OpenXML4JTestDataSamples.getOutputFile("TestCreatePackageTempFileTMP.docx");
+		File expectedFile = OpenXML4JTestDataSamples.getSampleFile("TestCreatePackageOUTPUT.docx");
+		if(targetFile.exists()) targetFile.delete();
+
+		OPCPackage pkg = OPCPackage.create(targetFile);
+		pkg.setUseTempFilePackageParts(true);
+		PackagePartName corePartName = PackagingURIHelper
+				.createPartName("/word/document.xml");
+		pkg.addRelationship(corePartName, TargetMode.INTERNAL,
+				PackageRelationshipTypes.CORE_DOCUMENT, "rId1");
+		PackagePart corePart = pkg.createPart(corePartName,
+				"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml");
+		assertTrue(corePart instanceof TempFilePackagePart);
+
+		// Other packages keep their parts in memory
+		OPCPackage other = OPCPackage.create(new ByteArrayOutputStream());
+		assertFalse(other.useTempFilePackageParts());
+		assertTrue(other.createPart(PackagingURIHelper.createPartName("/word/other.xml"), "text/xml")
+				instanceof MemoryPackagePart);
+
+		// Each output stream replaces the previous content of the part
+		OutputStream out = corePart.getOutputStream();
+		out.write("<to be overwritten/>".getBytes("UTF-8"));
+		out.close();
+
+		Document doc = DocumentHelper.createDocument();
+		Namespace nsWordprocessinML = new Namespace("w",
+				"http://schemas.openxmlformats.org/wordprocessingml/2006/main");
+		Element elDocument = doc.addElement(new QName("document", nsWordprocessinML));
+		Element elBody = elDocument.addElement(new QName("body", nsWordprocessinML));
+		Element elParagraph = elBody.addElement(new QName("p", nsWordprocessinML));
+		Element elRun = elParagraph.addElement(new QName("r", nsWordprocessinML));
+		Element elText = elRun.addElement(new QName("t", nsWordprocessinML));
+		elText.setText("Hello Open XML !");
+
+		out = corePart.getOutputStream();
+		StreamHelper.saveXmlInStream(doc, out);
+		out.close();
+		assertTrue(corePart.getSize() > 0);
+		pkg.close();
+
+		ZipFileAssert.assertEquals(expectedFile, targetFile);
+		assertTrue(targetFile.delete());
+
+		// The temporary file is gone once the package is closed
+		assertEquals(0, corePart.getSize());
+	}
+
 	/**
 	 * Tests that we can create a new package, add a core
 	 *  document and another part, save and re-load and
@@ -55,4 +55,42 @@ public final class TestReadOnlySharedStringsTable extends TestCase {
         }
 
 	}
+
+    public void testCompact() throws Exception {
+        OPCPackage pkg = OPCPackage.open(_ssTests.openResourceAsStream("SampleSS.xlsx"));
+        ReadOnlySharedStringsTable plain = new ReadOnlySharedStringsTable(pkg);
+        ReadOnlySharedStringsTable compact = new ReadOnlySharedStringsTable(pkg, true);
+        ReadOnlySharedStringsTable spilled = new ReadOnlySharedStringsTable(pkg, 10L);
+
+        assertTrue(((PackedStringList)spilled.getItems()).isSpilled());
+        assertFalse(((PackedStringList)compact.getItems()).isSpilled());
+        assertEquals(plain.getUniqueCount(), compact.getUniqueCount());
+        assertEquals(plain.getItems(), compact.getItems());
+        assertEquals(plain.getItems(), spilled.getItems());
+        for (int i = 0; i < plain.getUniqueCount(); i++) {
+            assertEquals(plain.getEntryAt(i), compact.getEntryAt(i));
+            assertEquals(plain.getEntryAt(i), spilled.getEntryAt(i));
+        }
+    }
+
+    public void testPackedStrings() throws Exception {
+        String[] strings = {
+                "", "plain", "\u0000 nul", "caf\u00e9", "\u20ac 1,50",
+                "\ud83d\ude00 pair", "lone \ud83d", "\uffff"
+        };
+        for (long threshold : new long[] { -1, 0, 20 }) {
+            PackedStringList list = new PackedStringList(2, threshold);
+            for (int n = 0; n < 100; n++) {
+                for (String str : strings) {
+                    list.append(str);
+                }
+            }
+            list.finish();
+            assertEquals(threshold >= 0, list.isSpilled());
+            assertEquals(100 * strings.length, list.size());
+            for (int i = 0; i < list.size(); i++) {
+                assertEquals(strings[i % strings.length], list.get(i));
+            }
+        }
+    }
 }
@@ -0,0 +1,150 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.eventusermodel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.NoSuchElementException;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.XSSFTestDataSamples;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetRowIterator.SheetCell;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetRowIterator.SheetRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Tests for {@link XSSFSheetRowIterator}
+ */
+public final class TestXSSFSheetRowIterator extends TestCase {
+
+    public void testSimpleSheet() throws Exception {
+        OPCPackage pkg = XSSFTestDataSamples.openSamplePackage("sample.xlsx");
+        XSSFReader r = new XSSFReader(pkg);
+        XSSFSheetRowIterator rows = new XSSFSheetRowIterator(
+                r.getSheetsData().next(), r.getStylesTable(), new ReadOnlySharedStringsTable(pkg));
+
+        StringBuilder text = new StringBuilder();
+        int count = 0;
+        while (rows.hasNext()) {
+            SheetRow row = rows.next();
+            assertEquals(count++, row.getRowNum());
+            for (SheetCell cell : row) {
+                if (cell.getColumnIndex() > 0) {
+                    text.append('\t');
+                }
+                text.append(cell.getFormattedValue());
+            }
+            text.append('\n');
+        }
+        assertTrue(text.toString().startsWith(
+                "Lorem\t111\n" +
+                "ipsum\t222\n" +
+                "dolor\t333\n"));
+        assertFalse(rows.hasNext());
+        try {
+            rows.next();
+            fail("expected exception");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    public void testCellTypes() throws Exception {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        XSSFSheet sheet = wb.createSheet();
+        CellStyle percent = wb.createCellStyle();
+        percent.setDataFormat(wb.createDataFormat().getFormat("0.0%"));
+
+        Row row = sheet.createRow(0);
+        row.createCell(0).setCellValue("text");
+        row.createCell(1).setCellValue(0.25);
+        row.getCell(1).setCellStyle(percent);
+        row.createCell(2).setCellValue(true);
+        row.createCell(4).setCellFormula("B1*2");
+        row.getCell(4).setCellValue(0.5);
+        row.createCell(5).setCellErrorValue((byte)7);
+        row.createCell(6).setCellStyle(percent);
+        sheet.createRow(5).createCell(3).setCellValue(42);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        wb.write(out);
+        OPCPackage pkg = OPCPackage.open(new ByteArrayInputStream(out.toByteArray()));
+        XSSFReader r = new XSSFReader(pkg);
+        XSSFSheetRowIterator rows = new XSSFSheetRowIterator(
+                r.getSheetsData().next(), r.getStylesTable(), new ReadOnlySharedStringsTable(pkg));
+
+        SheetRow first = rows.next();
+        assertEquals(0, first.getRowNum());
+        assertEquals(6, first.getCells().size());
+
+        SheetCell cell = first.getCell(0);
+        assertEquals("A1", cell.getReference());
+        assertEquals(Cell.CELL_TYPE_STRING, cell.getCellType());
+        assertEquals("text", cell.getStringValue());
+
+        cell = first.getCell(1);
+        assertEquals(Cell.CELL_TYPE_NUMERIC, cell.getCellType());
+        assertEquals(0.25, cell.getNumericValue(), 0.0);
+        assertEquals("0.0%", cell.getDataFormatString());
+        assertEquals("25.0%", cell.getFormattedValue());
+
+        cell = first.getCell(2);
+        assertEquals(Cell.CELL_TYPE_BOOLEAN, cell.getCellType());
+        assertTrue(cell.getBooleanValue());
+        assertEquals("TRUE", cell.getFormattedValue());
+
+        assertNull(first.getCell(3));
+
+        cell = first.getCell(4);
+        assertTrue(cell.isFormula());
+        assertEquals("B1*2", cell.getFormula());
+        assertEquals(Cell.CELL_TYPE_NUMERIC, cell.getCellType());
+        assertEquals(0.5, cell.getNumericValue(), 0.0);
+
+        cell = first.getCell(5);
+        assertEquals(Cell.CELL_TYPE_ERROR, cell.getCellType());
+        assertEquals("#DIV/0!", cell.getStringValue());
+
+        cell = first.getCell(6);
+        assertEquals(Cell.CELL_TYPE_BLANK, cell.getCellType());
+        assertEquals("", cell.getFormattedValue());
+
+        SheetRow second = rows.next();
+        assertEquals(5, second.getRowNum());
+        assertEquals("D6", second.getCell(3).getReference());
+        assertEquals("42", second.getCell(3).getFormattedValue());
+        assertFalse(rows.hasNext());
+    }
+
+    public void testClose() throws Exception {
+        OPCPackage pkg = XSSFTestDataSamples.openSamplePackage("sample.xlsx");
+        XSSFReader r = new XSSFReader(pkg);
+        XSSFSheetRowIterator rows = new XSSFSheetRowIterator(
+                r.getSheetsData().next(), r.getStylesTable(), new ReadOnlySharedStringsTable(pkg));
+        assertTrue(rows.hasNext());
+        rows.next();
+        rows.close();
+        assertFalse(rows.hasNext());
+    }
+}
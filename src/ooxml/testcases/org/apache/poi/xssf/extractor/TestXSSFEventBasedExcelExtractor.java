@@ -17,6 +17,7 @@
 
 package org.apache.poi.xssf.extractor;
 
+import java.io.StringWriter;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -160,4 +161,17 @@ public final class TestXSSFEventBasedExcelExtractor extends TestCase {
 			assertTrue(m.matches());			
 		}
 	}
+
+	public void testWriteText() throws Exception {
+		XSSFEventBasedExcelExtractor extractor = getExtractor("SampleSS.xlsx");
+		StringWriter out = new StringWriter();
+		extractor.writeText(out);
+		assertEquals(extractor.getText(), out.toString());
+
+		XSSFExcelExtractor userModelExtractor =
+			new XSSFExcelExtractor(XSSFTestDataSamples.openSampleWorkbook("SampleSS.xlsx"));
+		out = new StringWriter();
+		userModelExtractor.writeText(out);
+		assertEquals(userModelExtractor.getText(), out.toString());
+	}
 }
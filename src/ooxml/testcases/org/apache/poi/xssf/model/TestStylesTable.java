@@ -18,8 +18,13 @@
 package org.apache.poi.xssf.model;
 
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFFont;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.xssf.XSSFTestDataSamples;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellFill;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFill;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTFont;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTXf;
 
 import junit.framework.TestCase;
 
@@ -148,4 +153,114 @@ public final class TestStylesTable extends TestCase {
 		assertEquals(nf1, st.putNumberFormat("YYYY-mm-dd"));
 		assertEquals(nf2, st.putNumberFormat("YYYY-mm-DD"));
 	}
+
+	/**
+	 * The hash indexes must give the same answers as searching the lists did
+	 */
+	public void testStyleIndexes() {
+		XSSFWorkbook wb = new XSSFWorkbook();
+		StylesTable st = wb.getStylesSource();
+
+		// equal borders and fills are shared between styles
+		XSSFCellStyle[] styles = new XSSFCellStyle[200];
+		for (int i = 0; i < styles.length; i++) {
+			styles[i] = wb.createCellStyle();
+			styles[i].setBorderBottom((short)(i % 5));
+			styles[i].setFillForegroundColor((short)(i % 7));
+		}
+		assertEquals(1 + 5, st.getBorders().size());
+		assertEquals(2 + 7, st.getFills().size());
+		for (int i = 0; i < styles.length; i++) {
+			assertEquals(styles[i].getIndex(), st.putStyle(styles[i]));
+			assertEquals(styles[i % 35].getCoreXf().getBorderId(), styles[i].getCoreXf().getBorderId());
+			assertEquals(styles[i % 35].getCoreXf().getFillId(), styles[i].getCoreXf().getFillId());
+		}
+		int numXfs = st._getXfsSize();
+		assertEquals(st.putStyle(styles[10]), st.putStyle(styles[10]));
+		assertEquals(numXfs, st._getXfsSize());
+
+		// a replaced xf is no longer found at its old index
+		CTXf replacement = (CTXf)styles[3].getCoreXf().copy();
+		st.replaceCellXfAt(styles[3].getIndex(), replacement);
+		assertEquals(styles[3].getIndex(), st.putStyle(new XSSFCellStyle(styles[3].getIndex(), 0, st, null)));
+		assertEquals(numXfs, st.putStyle(styles[3]));
+
+		// fonts are typically changed after registration
+		XSSFFont font = wb.createFont();
+		font.setBold(true);
+		font.setFontName("Courier");
+		XSSFFont copy = new XSSFFont((CTFont)font.getCTFont().copy());
+		assertEquals(font.getIndex(), st.putFont(copy));
+		int forced = st.putFont(copy, true);
+		assertEquals(st.getFonts().size() - 1, forced);
+		assertEquals(copy, st.getFontAt(st.putFont(copy)));
+	}
+
+	/**
+	 * Fonts and fills changed after they were registered must be found by
+	 * their new content, and not by their old one
+	 */
+	public void testCustomisedStyleIndexes() {
+		XSSFWorkbook wb = new XSSFWorkbook();
+		StylesTable st = wb.getStylesSource();
+		int count = 10000;
+
+		XSSFFont[] fonts = new XSSFFont[count];
+		XSSFCellFill[] fills = new XSSFCellFill[count];
+		for (int i = 0; i < count; i++) {
+			// registered while equal to the default font, then customised
+			fonts[i] = wb.createFont();
+			fonts[i].setFontName("Font" + (i / 100));
+			fonts[i].setFontHeight(i % 100 + 1);
+
+			fills[i] = new XSSFCellFill();
+			fills[i].setFillForegroundColor(i);
+			assertEquals(2 + i, st.putFill(fills[i]));
+			fills[i].setFillBackgroundColor(i % 64);
+		}
+		int numFonts = st.getFonts().size();
+		int numFills = st.getFills().size();
+		assertEquals(1 + count, numFonts);
+		assertEquals(2 + count, numFills);
+
+		for (int i = 0; i < count; i++) {
+			XSSFFont font = new XSSFFont((CTFont)fonts[i].getCTFont().copy());
+			assertEquals(fonts[i].getIndex(), st.putFont(font));
+			XSSFCellFill fill = new XSSFCellFill((CTFill)fills[i].getCTFill().copy());
+			assertEquals(2 + i, st.putFill(fill));
+		}
+		assertEquals(numFonts, st.getFonts().size());
+		assertEquals(numFills, st.getFills().size());
+
+		// the content a fill had before it was changed is no longer found
+		XSSFCellFill old = new XSSFCellFill();
+		old.setFillForegroundColor(10);
+		assertEquals(numFills, st.putFill(old));
+	}
+
+	/**
+	 * Changes made directly to the xml bean of a registered fill are not
+	 * reported, but the fill must not be found by its old content either
+	 */
+	public void testStyleChangedThroughBean() {
+		XSSFWorkbook wb = new XSSFWorkbook();
+		StylesTable st = wb.getStylesSource();
+
+		XSSFCellFill fill = new XSSFCellFill();
+		fill.setFillForegroundColor(10);
+		int idx = st.putFill(fill);
+		XSSFCellFill same = new XSSFCellFill();
+		same.setFillForegroundColor(10);
+		assertEquals(idx, st.putFill(same));
+
+		fill.getCTFill().getPatternFill().getFgColor().setIndexed(11);
+		XSSFCellFill old = new XSSFCellFill();
+		old.setFillForegroundColor(10);
+		assertEquals(idx + 1, st.putFill(old));
+
+		// and is then found by its new content
+		XSSFCellFill changed = new XSSFCellFill();
+		changed.setFillForegroundColor(11);
+		assertEquals(idx, st.putFill(changed));
+	}
 }
@@ -22,6 +22,7 @@ package org.apache.poi.xssf.streaming;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.xssf.SXSSFITestDataProvider;
+import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
@@ -222,6 +223,34 @@ public final class TestSXSSFWorkbook extends BaseTestWorkbook {
 
     }
 
+    public void testSharedStringsTable(){
+        SXSSFWorkbook wb = new SXSSFWorkbook(null, 10, false, true);
+        int rowNum = 1000;
+        Sheet sh = wb.createSheet("S1");
+        for(int j = 0; j < rowNum; j++){
+            Row row = sh.createRow(j);
+            row.createCell(0).setCellValue("value" + (j % 10));
+            row.createCell(1).setCellValue(" leading & trailing <spaces> ");
+            row.createCell(2).setCellValue(j);
+        }
+
+        XSSFWorkbook xwb = (XSSFWorkbook)SXSSFITestDataProvider.instance.writeOutAndReadBack(wb);
+        SharedStringsTable sst = xwb.getSharedStringSource();
+        assertEquals(11, sst.getUniqueCount());
+        assertEquals(2 * rowNum, sst.getCount());
+
+        sh = xwb.getSheet("S1");
+        for(int j = 0; j < rowNum; j++){
+            Row row = sh.getRow(j);
+            assertNotNull("row[" + j + "]", row);
+            assertEquals("value" + (j % 10), row.getCell(0).getStringCellValue());
+            assertEquals(" leading & trailing <spaces> ", row.getCell(1).getStringCellValue());
+            assertEquals(j, (int)row.getCell(2).getNumericCellValue());
+        }
+
+        wb.dispose();
+    }
+
     static void assertWorkbookDispose(SXSSFWorkbook wb)
     {
         int rowNum = 1000;
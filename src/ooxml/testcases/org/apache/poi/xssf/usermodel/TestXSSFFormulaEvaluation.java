@@ -17,6 +17,7 @@
 
 package org.apache.poi.xssf.usermodel;
 
+import org.apache.poi.ss.formula.FormulaRenderer;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.xssf.XSSFITestDataProvider;
@@ -86,4 +87,46 @@ public final class TestXSSFFormulaEvaluation extends BaseTestFormulaEvaluator {
         }
 
     }
+
+    /**
+     * Formula tokens are cached by the evaluation workbook, make sure that changed
+     * formulas get re-parsed once the evaluator has been told about the change
+     */
+    public void testFormulaTokensCache() {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        XSSFSheet sheet = wb.createSheet();
+        XSSFRow row = sheet.createRow(0);
+        row.createCell(0).setCellValue(2.0);
+        row.createCell(1).setCellValue(3.0);
+        XSSFCell cell = row.createCell(2);
+        cell.setCellFormula("A1+B1");
+
+        XSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+        assertEquals(5.0, evaluator.evaluate(cell).getNumberValue(), 0.0);
+
+        cell.setCellFormula("A1*B1");
+        evaluator.notifySetFormula(cell);
+        assertEquals(6.0, evaluator.evaluate(cell).getNumberValue(), 0.0);
+
+        cell.setCellFormula("A1-B1");
+        evaluator.clearAllCachedResultValues();
+        assertEquals(-1.0, evaluator.evaluate(cell).getNumberValue(), 0.0);
+    }
+
+    /**
+     * Shared formulas are evaluated from the tokens of the master formula, make sure
+     * the results match those of the fully expanded formula text
+     */
+    public void testSharedFormulaTokens() {
+        XSSFWorkbook wb = (XSSFWorkbook)_testDataProvider.openSampleWorkbook("50096.xlsx");
+        XSSFFormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+        XSSFEvaluationWorkbook fpb = XSSFEvaluationWorkbook.create(wb);
+        XSSFRow row = wb.getSheetAt(0).getRow(1);
+        for (int i = 196; i < 300; i++) {
+            XSSFCell cell = row.getCell(i);
+            assertEquals(CellReference.convertNumToColString(i) + "1",
+                    FormulaRenderer.toFormulaString(fpb, fpb.getFormulaTokens(new XSSFEvaluationCell(cell))));
+            assertEquals(i + 1.0, evaluator.evaluate(cell).getNumberValue(), 0.0);
+        }
+    }
 }
@@ -23,10 +23,12 @@ import java.io.OutputStream;
 import java.util.List;
 import java.util.zip.CRC32;
 
+import org.apache.poi.POIXMLDocumentPart;
 import org.apache.poi.POIXMLProperties;
 import org.apache.poi.hssf.HSSFTestDataSamples;
 import org.apache.poi.openxml4j.opc.*;
 import org.apache.poi.openxml4j.opc.internal.PackagePropertiesPart;
+import org.apache.poi.openxml4j.opc.internal.TempFilePackagePart;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.util.TempFile;
 import org.apache.poi.xssf.XSSFITestDataProvider;
@@ -448,4 +450,63 @@ public final class TestXSSFWorkbook extends BaseTestWorkbook {
         assertEquals(IndexedColors.RED.index,
                 sh.getCTWorksheet().getSheetPr().getTabColor().getIndexed());
     }
+
+    /**
+     * Saving with the parts streamed through temporary files
+     */
+    public void testSaveWithTempFilePackageParts() {
+        XSSFWorkbook wb = XSSFTestDataSamples.openSampleWorkbook("Formatting.xlsx");
+        wb.getPackage().setUseTempFilePackageParts(true);
+        wb.getSheetAt(0).createRow(100).createCell(0).setCellValue("temp file part");
+        XSSFWorkbook wb2 = XSSFTestDataSamples.writeOutAndReadBack(wb);
+        assertEquals(3, wb2.getNumberOfSheets());
+        assertEquals("dd/mm/yyyy", wb2.getSheetAt(0).getRow(1).getCell(0).getStringCellValue());
+        assertEquals("temp file part", wb2.getSheetAt(0).getRow(100).getCell(0).getStringCellValue());
+
+        // the parts written by the save were moved to temporary files
+        PackagePart sheetPart = wb.getPackage().getPart(wb.getSheetAt(0).getPackagePart().getPartName());
+        assertTrue(sheetPart instanceof TempFilePackagePart);
+    }
+
+    /**
+     * Sheets of a workbook opened with lazy sheets are parsed on first access,
+     *  and saved unchanged if never accessed
+     */
+    public void testLazySheets() throws Exception {
+        XSSFWorkbook wb = new XSSFWorkbook(XSSFTestDataSamples.openSamplePackage("Formatting.xlsx"), true);
+        assertEquals(3, wb.getNumberOfSheets());
+        assertEquals("Sheet2", wb.getSheetName(1));
+        for (POIXMLDocumentPart p : wb.getRelations()) {
+            if (p instanceof XSSFSheet) {
+                assertNull(((XSSFSheet)p).worksheet);
+            }
+        }
+
+        XSSFSheet sheet = wb.getSheetAt(0);
+        assertNotNull(sheet.worksheet);
+        assertEquals("dd/mm/yyyy", sheet.getRow(1).getCell(0).getStringCellValue());
+        sheet.getRow(1).getCell(0).setCellValue("changed");
+        for (POIXMLDocumentPart p : wb.getRelations()) {
+            if (p instanceof XSSFSheet) {
+                assertEquals(p == sheet, ((XSSFSheet)p).worksheet != null);
+            }
+        }
+
+        XSSFWorkbook wb2 = XSSFTestDataSamples.writeOutAndReadBack(wb);
+        assertEquals(3, wb2.getNumberOfSheets());
+        assertEquals("changed", wb2.getSheetAt(0).getRow(1).getCell(0).getStringCellValue());
+        for (int i = 1; i < 3; i++) {
+            XSSFSheet expected = XSSFTestDataSamples.openSampleWorkbook("Formatting.xlsx").getSheetAt(i);
+            XSSFSheet actual = wb2.getSheetAt(i);
+            assertEquals(expected.getSheetName(), actual.getSheetName());
+            assertEquals(expected.getPhysicalNumberOfRows(), actual.getPhysicalNumberOfRows());
+        }
+
+        int count = 0;
+        for (XSSFSheet sh : wb) {
+            assertNotNull(sh.worksheet);
+            count++;
+        }
+        assertEquals(3, count);
+    }
 }
@@ -0,0 +1,44 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.xssf.usermodel;
+
+import org.apache.poi.xssf.XSSFITestDataProvider;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.snapshot.BaseTestWorkbookSnapshot;
+import org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot;
+
+public final class TestXSSFWorkbookSnapshot extends BaseTestWorkbookSnapshot {
+
+    public TestXSSFWorkbookSnapshot() {
+        super(XSSFITestDataProvider.instance);
+    }
+
+    /**
+     * The date system is read from the workbook, even when no cell holds a
+     *  whole date which would show it
+     */
+    public void testDate1904() {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        wb.getCTWorkbook().getWorkbookPr().setDate1904(true);
+        XSSFCell cell = wb.createSheet().createRow(0).createCell(0);
+        cell.setCellValue(0.5);
+
+        Workbook snapshot = WorkbookSnapshot.create(wb);
+        assertEquals(cell.getDateCellValue(), snapshot.getSheetAt(0).getRow(0).getCell(0).getDateCellValue());
+    }
+}
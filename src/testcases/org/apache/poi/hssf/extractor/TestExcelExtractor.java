@@ -19,6 +19,8 @@ package org.apache.poi.hssf.extractor;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 
 import junit.framework.TestCase;
 
@@ -167,6 +169,39 @@ public final class TestExcelExtractor extends TestCase {
 		);
 	}
 
+	public void testWriteText() throws Exception {
+		ExcelExtractor extractor = createExtractor("SampleSS.xls");
+		StringWriter out = new StringWriter();
+		extractor.writeText(out);
+		assertEquals(extractor.getText(), out.toString());
+
+		EventBasedExcelExtractor eventExtractor = new EventBasedExcelExtractor(
+				new POIFSFileSystem(
+						HSSFTestDataSamples.openSampleFileStream("SampleSS.xls")
+				)
+		);
+		out = new StringWriter();
+		eventExtractor.writeText(out);
+		assertEquals(eventExtractor.getText(), out.toString());
+
+		// Problems with the output are passed on as they are
+		Writer closed = new Writer() {
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				throw new IOException("output closed");
+			}
+			public void flush() {
+			}
+			public void close() {
+			}
+		};
+		try {
+			eventExtractor.writeText(closed);
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("output closed", e.getMessage());
+		}
+	}
+
 	public void testWithComments() {
 		ExcelExtractor extractor = createExtractor("SimpleWithComments.xls");
 		extractor.setIncludeSheetNames(false);
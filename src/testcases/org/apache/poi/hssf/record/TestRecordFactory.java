@@ -249,4 +249,26 @@ public final class TestRecordFactory extends TestCase {
 		}
 		assertEquals(5, outRecs.size());
 	}
+
+	/**
+	 * Every known record class must have a direct constructor call in the factory
+	 */
+	public void testAllKnownRecordsCreatable() {
+		short[] sids = RecordFactory.getAllKnownRecordSIDs();
+		assertTrue(sids.length > 100);
+		for (int i = 0; i < sids.length; i++) {
+			Class<? extends Record> recClass = RecordFactory.getRecordClass(sids[i]);
+			assertNotNull(recClass);
+			// use a large enough zero filled body for most records
+			RecordInputStream in = TestcaseRecordInputStream.create(sids[i], new byte[64]);
+			try {
+				Record r = RecordFactory.createSingleRecord(in);
+				assertEquals(recClass, r.getClass());
+			} catch (RecordFormatException e) {
+				// record needs real data, but was still dispatched to the right class
+			}
+		}
+		assertNull(RecordFactory.getRecordClass(-1));
+		assertNull(RecordFactory.getRecordClass(0x7FFF));
+	}
 }
@@ -0,0 +1,154 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.usermodel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.IOUtils;
+
+/**
+ * Tests for {@link HSSFStreamingWriter}
+ */
+public final class TestHSSFStreamingWriter extends TestCase {
+
+    private static final int ROWS = 1000;
+
+    /**
+     * Fills in two sheets, the second of them with gaps between the rows
+     *  and a row without cells
+     */
+    private static void fill(HSSFWorkbook wb, int maxRows) {
+        HSSFCellStyle style = wb.createCellStyle();
+        style.setDataFormat(wb.createDataFormat().getFormat("0.00"));
+
+        HSSFSheet first = wb.createSheet("first");
+        HSSFSheet second = wb.createSheet("second");
+        for (int i = 0; i < ROWS; i++) {
+            HSSFRow row = first.createRow(i);
+            row.createCell(0).setCellValue("row " + i);
+            row.createCell(1).setCellValue(i);
+            row.getCell(1).setCellStyle(style);
+            row.createCell(3).setCellFormula("B" + (i + 1) + "*2");
+            assertTrue(first.getPhysicalNumberOfRows() <= maxRows);
+
+            row = second.createRow(i * 3);
+            if (i % 10 != 0) {
+                row.createCell(i % 200).setCellValue(i % 2 == 0);
+            }
+            assertTrue(second.getPhysicalNumberOfRows() <= maxRows);
+        }
+    }
+
+    private static byte[] getWorkbookStream(byte[] file) throws IOException {
+        POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(file));
+        return IOUtils.toByteArray(fs.createDocumentInputStream("Workbook"));
+    }
+
+    public void testSameAsInMemory() throws Exception {
+        HSSFWorkbook expectedWb = new HSSFWorkbook();
+        fill(expectedWb, Integer.MAX_VALUE);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expectedWb.write(expected);
+
+        HSSFWorkbook wb = new HSSFWorkbook();
+        HSSFStreamingWriter writer = new HSSFStreamingWriter(wb, 100);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try {
+            fill(wb, 100);
+            assertTrue(writer.hasFlushedRows());
+            writer.write(actual);
+        } finally {
+            writer.dispose();
+        }
+
+        assertTrue(Arrays.equals(getWorkbookStream(expected.toByteArray()),
+                getWorkbookStream(actual.toByteArray())));
+
+        HSSFWorkbook read = new HSSFWorkbook(new ByteArrayInputStream(actual.toByteArray()));
+        HSSFSheet first = read.getSheet("first");
+        assertEquals(ROWS, first.getPhysicalNumberOfRows());
+        assertEquals("row 567", first.getRow(567).getCell(0).getStringCellValue());
+        assertEquals(567.0, first.getRow(567).getCell(1).getNumericCellValue(), 0.0);
+        assertEquals("0.00", first.getRow(567).getCell(1).getCellStyle().getDataFormatString());
+        assertEquals("B568*2", first.getRow(567).getCell(3).getCellFormula());
+        HSSFSheet second = read.getSheet("second");
+        assertEquals(ROWS, second.getPhysicalNumberOfRows());
+        assertEquals(0, second.getRow(30).getPhysicalNumberOfCells());
+        assertTrue(second.getRow(336).getCell(112).getBooleanCellValue());
+    }
+
+    public void testFlushedRows() throws Exception {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        HSSFStreamingWriter writer = new HSSFStreamingWriter(wb, 32);
+        try {
+            HSSFSheet sheet = wb.createSheet();
+            for (int i = 0; i < 40; i++) {
+                sheet.createRow(i).createCell(0).setCellValue(i);
+            }
+            assertEquals(8, sheet.getPhysicalNumberOfRows());
+            assertNull(sheet.getRow(31));
+            assertNotNull(sheet.getRow(32));
+
+            try {
+                sheet.createRow(31);
+                fail("expected exception");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            // rows still in memory can be replaced
+            sheet.createRow(32).createCell(1).setCellValue("replaced");
+
+            writer.flushRows(sheet);
+            assertEquals(0, sheet.getPhysicalNumberOfRows());
+            try {
+                wb.write(new ByteArrayOutputStream());
+                fail("expected exception");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            sheet.createRow(100).createCell(0).setCellValue(100);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.write(out);
+            HSSFSheet read = new HSSFWorkbook(new ByteArrayInputStream(out.toByteArray())).getSheetAt(0);
+            assertEquals(41, read.getPhysicalNumberOfRows());
+            assertEquals(0, read.getFirstRowNum());
+            assertEquals(100, read.getLastRowNum());
+            assertEquals(31.0, read.getRow(31).getCell(0).getNumericCellValue(), 0.0);
+            assertNull(read.getRow(32).getCell(0));
+            assertEquals("replaced", read.getRow(32).getCell(1).getStringCellValue());
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    public void testWindowTooSmall() {
+        try {
+            new HSSFStreamingWriter(new HSSFWorkbook(), 10);
+            fail("expected exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.hssf.usermodel;
+
+import org.apache.poi.hssf.HSSFITestDataProvider;
+import org.apache.poi.hssf.HSSFTestDataSamples;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.snapshot.BaseTestWorkbookSnapshot;
+import org.apache.poi.ss.usermodel.snapshot.WorkbookSnapshot;
+
+public final class TestHSSFWorkbookSnapshot extends BaseTestWorkbookSnapshot {
+
+    public TestHSSFWorkbookSnapshot() {
+        super(HSSFITestDataProvider.instance);
+    }
+
+    public void testDate1904() {
+        HSSFWorkbook wb = HSSFTestDataSamples.openSampleWorkbook("1904DateWindowing.xls");
+        Workbook snapshot = WorkbookSnapshot.create(wb);
+        assertEquals(wb.getSheetAt(0).getRow(0).getCell(0).getDateCellValue(),
+                snapshot.getSheetAt(0).getRow(0).getCell(0).getDateCellValue());
+    }
+}
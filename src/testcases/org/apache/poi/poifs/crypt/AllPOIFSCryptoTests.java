@@ -32,6 +32,7 @@ public final class AllPOIFSCryptoTests {
         TestSuite result = new TestSuite(AllPOIFSCryptoTests.class.getName());
         result.addTestSuite(TestDecryptor.class);
         result.addTestSuite(TestEncryptionInfo.class);
+        result.addTestSuite(TestEncryptor.class);
         return result;
     }
 }
\ No newline at end of file
@@ -18,12 +18,26 @@ package org.apache.poi.poifs.crypt;
 
 import junit.framework.TestCase;
 import org.apache.poi.POIDataSamples;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.poifs.nio.DataSource;
+import org.apache.poi.util.IOUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -114,4 +128,146 @@ public class TestDecryptor extends TestCase {
         }
     }
 
+    public void testAgileDataSource() throws Exception {
+        POIFSFileSystem fs = new POIFSFileSystem(POIDataSamples.getPOIFSInstance().openResourceAsStream("protected_agile.docx"));
+        Decryptor d = Decryptor.getInstance(new EncryptionInfo(fs));
+        assertTrue(d.verifyPassword(Decryptor.DEFAULT_PASSWORD));
+        byte[] expected = IOUtils.toByteArray(d.getDataStream(fs));
+        assertEquals(12810, expected.length);
+
+        DataSource source = ((AgileDecryptor)d).getDataSource(fs.getRoot());
+        assertEquals(12810, source.size());
+        // backwards, and across the segments
+        confirmRead(source, expected, 12000, 810);
+        confirmRead(source, expected, 4000, 5000);
+        confirmRead(source, expected, 0, 100);
+        confirmRead(source, expected, 12800, 1000);
+        try {
+            source.read(1, 12810);
+            fail("expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        source.copyTo(bos);
+        assertTrue(Arrays.equals(expected, bos.toByteArray()));
+    }
+
+    public void testAgileReadAhead() throws Exception {
+        byte[] data = new byte[3000000];
+        new Random(42).nextBytes(data);
+        NPOIFSFileSystem nfs = new NPOIFSFileSystem();
+        Encryptor enc = new AgileEncryptor();
+        enc.confirmPassword("pass");
+        OutputStream os = enc.getDataStream(nfs);
+        os.write(data);
+        os.close();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        nfs.writeFilesystem(bos);
+        final POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(bos.toByteArray()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Decryptor d = Decryptor.getInstance(new EncryptionInfo(fs));
+            d.setExecutor(executor);
+            assertTrue(d.verifyPassword("pass"));
+            assertTrue(Arrays.equals(data, IOUtils.toByteArray(d.getDataStream(fs))));
+
+            // several threads reading the same data source
+            final DataSource source = ((AgileDecryptor)d).getDataSource(fs.getRoot());
+            List<Future<byte[]>> readers = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws IOException {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        source.copyTo(out);
+                        return out.toByteArray();
+                    }
+                }));
+            }
+            Random random = new Random(7);
+            for (int i = 0; i < 100; i++) {
+                confirmRead(source, data, random.nextInt(data.length), random.nextInt(10000));
+            }
+            for (Future<byte[]> reader : readers) {
+                assertTrue(Arrays.equals(data, reader.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void confirmRead(DataSource source, byte[] expected, int position, int length)
+        throws IOException {
+        ByteBuffer buffer = source.read(length, position);
+        int count = Math.min(length, expected.length - position);
+        assertEquals(count, buffer.remaining());
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected[position + i], buffer.get());
+        }
+    }
+
+    public void testPasswordHashCache() throws Exception {
+        byte[] salt = new byte[16];
+        new Random(12345).nextBytes(salt);
+        PasswordHashCache cache = new PasswordHashCache(2);
+
+        byte[] expected = Decryptor.hashPassword("pass", salt, 1000);
+        byte[] cached = cache.getHash("pass", salt, 1000);
+        assertTrue(Arrays.equals(expected, cached));
+        // only copies are handed out
+        Arrays.fill(cached, (byte) 0);
+        assertTrue(Arrays.equals(expected, cache.getHash("pass", salt, 1000)));
+        assertEquals(1, cache.size());
+
+        // the salt and spin count are part of the key
+        byte[] otherSalt = salt.clone();
+        otherSalt[0]++;
+        assertFalse(Arrays.equals(expected, cache.getHash("pass", otherSalt, 1000)));
+        assertFalse(Arrays.equals(expected, cache.getHash("pass", salt, 999)));
+        assertEquals(2, cache.size());
+        assertTrue(Arrays.equals(expected, cache.getHash("pass", salt, 1000)));
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testFindPassword() throws Exception {
+        POIFSFileSystem fs = new POIFSFileSystem(POIDataSamples.getPOIFSInstance().openResourceAsStream("protected_agile.docx"));
+        EncryptionInfo info = new EncryptionInfo(fs);
+        List<String> passwords = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            passwords.add("wrong" + i);
+        }
+        passwords.add(3, Decryptor.DEFAULT_PASSWORD);
+
+        PasswordHashCache cache = new PasswordHashCache(100);
+        Decryptor d = Decryptor.getInstance(info);
+        d.setPasswordHashCache(cache);
+        assertNull(d.findPassword(passwords.subList(0, 3)));
+        assertEquals(Decryptor.DEFAULT_PASSWORD, d.findPassword(passwords));
+        assertEquals(4, cache.size());
+        zipOk(fs, d);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // a different decryptor of the same file finds the hash in the cache
+            d = Decryptor.getInstance(new EncryptionInfo(fs));
+            d.setExecutor(executor);
+            d.setPasswordHashCache(cache);
+            assertEquals(Decryptor.DEFAULT_PASSWORD, d.findPassword(passwords));
+            assertNull(d.findPassword(passwords.subList(4, 7)));
+            assertEquals(Decryptor.DEFAULT_PASSWORD, d.findPassword(passwords));
+            zipOk(fs, d);
+
+            fs = new POIFSFileSystem(POIDataSamples.getPOIFSInstance().openResourceAsStream("protect.xlsx"));
+            d = Decryptor.getInstance(new EncryptionInfo(fs));
+            d.setExecutor(executor);
+            assertEquals(Decryptor.DEFAULT_PASSWORD, d.findPassword(passwords));
+            zipOk(fs, d);
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
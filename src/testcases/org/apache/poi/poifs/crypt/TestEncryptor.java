@@ -0,0 +1,142 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+package org.apache.poi.poifs.crypt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.IOUtils;
+
+/**
+ * Tests that what the {@link Encryptor}s write is read back by the
+ *  {@link Decryptor}s
+ */
+public final class TestEncryptor extends TestCase {
+    private static final int[] SIZES = {
+        0, 1, 15, 16, 4095, 4096, 4097, 64 * 4096, 1000000,
+    };
+
+    private static byte[] getData(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] encrypt(Encryptor enc, byte[] data) throws Exception {
+        NPOIFSFileSystem fs = new NPOIFSFileSystem();
+        OutputStream os = enc.getDataStream(fs);
+        // in pieces which do not line up with the segments
+        for (int pos = 0; pos < data.length; pos += 1000) {
+            os.write(data, pos, Math.min(1000, data.length - pos));
+        }
+        os.close();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        fs.writeFilesystem(bos);
+        return bos.toByteArray();
+    }
+
+    private static void confirmDecrypted(DirectoryNode dir, String password, byte[] expected)
+        throws IOException, GeneralSecurityException {
+        Decryptor d = Decryptor.getInstance(new EncryptionInfo(dir));
+        assertFalse(d.verifyPassword("wrong"));
+        assertTrue(d.verifyPassword(password));
+
+        InputStream is = d.getDataStream(dir);
+        assertEquals(expected.length, d.getLength());
+        byte[] actual = new byte[expected.length];
+        IOUtils.readFully(is, actual);
+        assertTrue(Arrays.equals(expected, actual));
+    }
+
+    private static void confirmRoundTrip(Encryptor enc) throws Exception {
+        enc.confirmPassword("pass");
+        for (int size : SIZES) {
+            byte[] data = getData(size);
+            byte[] encrypted = encrypt(enc, data);
+            POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(encrypted));
+            confirmDecrypted(fs.getRoot(), "pass", data);
+            NPOIFSFileSystem nfs = new NPOIFSFileSystem(new ByteArrayInputStream(encrypted));
+            confirmDecrypted(nfs.getRoot(), "pass", data);
+
+            DirectoryNode dataSpaces = (DirectoryNode)fs.getRoot().getEntry("\u0006DataSpaces");
+            assertTrue(dataSpaces.hasEntry("DataSpaceMap"));
+            assertTrue(dataSpaces.hasEntry("TransformInfo"));
+        }
+    }
+
+    public void testAgile() throws Exception {
+        AgileEncryptor enc = new AgileEncryptor();
+        confirmRoundTrip(enc);
+
+        EncryptionInfo info = new EncryptionInfo(
+            new POIFSFileSystem(new ByteArrayInputStream(encrypt(enc, getData(10)))));
+        assertEquals(4, info.getVersionMajor());
+        assertEquals(4, info.getVersionMinor());
+        assertEquals(EncryptionHeader.ALGORITHM_AES_128, info.getHeader().getAlgorithm());
+        assertEquals(EncryptionHeader.MODE_CBC, info.getHeader().getCipherMode());
+        assertEquals(100000, info.getVerifier().getSpinCount());
+    }
+
+    public void testStandard() throws Exception {
+        EcmaEncryptor enc = new EcmaEncryptor();
+        confirmRoundTrip(enc);
+
+        EncryptionInfo info = new EncryptionInfo(
+            new POIFSFileSystem(new ByteArrayInputStream(encrypt(enc, getData(10)))));
+        assertEquals(4, info.getVersionMajor());
+        assertEquals(2, info.getVersionMinor());
+        assertEquals(EncryptionHeader.ALGORITHM_AES_128, info.getHeader().getAlgorithm());
+        assertEquals(128, info.getHeader().getKeySize());
+        assertEquals("Microsoft Enhanced RSA and AES Cryptographic Provider", info.getHeader().getCspName());
+    }
+
+    public void testParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Encryptor[] encryptors = { new AgileEncryptor(), new EcmaEncryptor() };
+            for (Encryptor enc : encryptors) {
+                enc.setExecutor(executor);
+                confirmRoundTrip(enc);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testPasswordRequired() throws Exception {
+        try {
+            new AgileEncryptor().getDataStream(new NPOIFSFileSystem());
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.poi.poifs.filesystem;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 import java.util.*;
 
@@ -212,4 +213,47 @@ public final class TestDirectoryNode extends TestCase {
         assertTrue(dir2.renameTo("foo"));
         assertEquals("foo", dir2.getName());
     }
+
+    /**
+     * test creating a document from buffers, which are reused
+     */
+    public void testCreateDocumentFromBuffers() throws IOException {
+        final byte[] buffer = new byte[1000];
+        for (int i = 0; i < 2; i++) {
+            DirectoryNode root;
+            if (i == 0) {
+                root = new NPOIFSFileSystem().getRoot();
+            } else {
+                root = new POIFSFileSystem().getRoot();
+            }
+            Iterator<ByteBuffer> contents = new Iterator<ByteBuffer>() {
+                private int _next;
+
+                public boolean hasNext() {
+                    return true;
+                }
+
+                public ByteBuffer next() {
+                    for (int j = 0; j < buffer.length; j++) {
+                        buffer[j] = (byte)(_next + j);
+                    }
+                    _next += buffer.length;
+                    return ByteBuffer.wrap(buffer);
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+            root.createDocument("Doc", 10500, contents);
+
+            DocumentInputStream in = root.createDocumentInputStream("Doc");
+            assertEquals(10500, in.available());
+            byte[] data = new byte[10500];
+            in.readFully(data);
+            for (int j = 0; j < data.length; j++) {
+                assertEquals((byte)j, data[j]);
+            }
+        }
+    }
 }
@@ -25,6 +25,8 @@ import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.apache.poi.POIDataSamples;
+
 public class TestEntryUtils extends TestCase {
     private byte[] dataSmallA = new byte[] { 12, 42, 11, -12, -121 };
     private byte[] dataSmallB = new byte[] { 11, 73, 21, -92, -103 };
@@ -188,4 +190,62 @@ public class TestEntryUtils extends TestCase {
        dirBI.createDocument("IgnZZ", new ByteArrayInputStream(dataSmallA));
        assertEquals(true, EntryUtils.areDirectoriesIdentical(fdA, fdB));
     }
+
+    public void testCopyNPOIFS() throws Exception {
+       POIDataSamples samples = POIDataSamples.getPOIFSInstance();
+       for (String file : new String[] { "BlockSize512.zvi", "BlockSize4096.zvi" }) {
+          NPOIFSFileSystem source = new NPOIFSFileSystem(samples.getFile(file), true, true);
+          NPOIFSFileSystem target = new NPOIFSFileSystem();
+          EntryUtils.copyNodes(source, target);
+          assertTrue(file, EntryUtils.areDirectoriesIdentical(source.getRoot(), target.getRoot()));
+
+          // Check it survives being written and read back in
+          ByteArrayOutputStream baos = new ByteArrayOutputStream();
+          target.writeFilesystem(baos);
+          NPOIFSFileSystem reread = new NPOIFSFileSystem(new ByteArrayInputStream(baos.toByteArray()));
+          assertTrue(file, EntryUtils.areDirectoriesIdentical(source.getRoot(), reread.getRoot()));
+          POIFSFileSystem oreread = new POIFSFileSystem(new ByteArrayInputStream(baos.toByteArray()));
+          assertTrue(file, EntryUtils.areDirectoriesIdentical(source.getRoot(), oreread.getRoot()));
+          source.close();
+       }
+    }
+
+    public void testCopyNPOIFSBlocks() throws Exception {
+       byte[] dataLarge = new byte[20000];
+       for (int i = 0; i < dataLarge.length; i++) {
+          dataLarge[i] = (byte)(i * 31);
+       }
+       NPOIFSFileSystem fs = new NPOIFSFileSystem();
+       DirectoryEntry dirA = fs.createDirectory("DirA");
+       fs.createDocument(new ByteArrayInputStream(dataLarge), "Large");
+       fs.createDocument(new ByteArrayInputStream(new byte[0]), "Empty");
+       dirA.createDocument("EntryA1", new ByteArrayInputStream(dataSmallA));
+       dirA.createDocument("EntryA2", new ByteArrayInputStream(new byte[4096]));
+
+       // Into another filesystem, minus one of the entries
+       NPOIFSFileSystem fsD = new NPOIFSFileSystem();
+       EntryUtils.copyNodes(fs, fsD, Arrays.asList("DirA/EntryA2"));
+       assertEquals(3, fsD.getRoot().getEntryCount());
+       DirectoryEntry dirD = (DirectoryEntry)fsD.getRoot().getEntry("DirA");
+       assertEquals(1, dirD.getEntryCount());
+       assertTrue(EntryUtils.areDocumentsIdentical(
+             (DocumentEntry)dirA.getEntry("EntryA1"), (DocumentEntry)dirD.getEntry("EntryA1")));
+       DocumentEntry large = (DocumentEntry)fs.getRoot().getEntry("Large");
+       assertTrue(EntryUtils.areDocumentsIdentical(large, (DocumentEntry)fsD.getRoot().getEntry("Large")));
+       assertEquals(0, ((DocumentEntry)fsD.getRoot().getEntry("Empty")).getSize());
+
+       // Within the same filesystem
+       DirectoryEntry dirB = fs.createDirectory("DirB");
+       EntryUtils.copyNodeRecursively(dirA, dirB);
+       EntryUtils.copyNodeRecursively(large, dirB);
+       DirectoryEntry dirBA = (DirectoryEntry)dirB.getEntry("DirA");
+       assertTrue(EntryUtils.areDirectoriesIdentical(dirA, dirBA));
+
+       ByteArrayOutputStream baos = new ByteArrayOutputStream();
+       fs.writeFilesystem(baos);
+       NPOIFSFileSystem reread = new NPOIFSFileSystem(new ByteArrayInputStream(baos.toByteArray()));
+       DirectoryEntry rereadB = (DirectoryEntry)reread.getRoot().getEntry("DirB");
+       assertTrue(EntryUtils.areDirectoriesIdentical(dirA, (DirectoryEntry)rereadB.getEntry("DirA")));
+       assertTrue(EntryUtils.areDocumentsIdentical(large, (DocumentEntry)rereadB.getEntry("Large")));
+    }
 }
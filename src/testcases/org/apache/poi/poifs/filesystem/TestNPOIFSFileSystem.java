@@ -19,6 +19,11 @@ package org.apache.poi.poifs.filesystem;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 
@@ -31,8 +36,13 @@ import org.apache.poi.hpsf.SummaryInformation;
 import org.apache.poi.poifs.common.POIFSConstants;
 import org.apache.poi.poifs.property.NPropertyTable;
 import org.apache.poi.poifs.property.Property;
+import org.apache.poi.poifs.property.PropertyConstants;
 import org.apache.poi.poifs.property.RootProperty;
 import org.apache.poi.poifs.storage.HeaderBlock;
+import org.apache.poi.poifs.storage.HeaderBlockConstants;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.util.TempFile;
 
 /**
  * Tests for the new NIO POIFSFileSystem implementation
@@ -524,7 +534,9 @@ public final class TestNPOIFSFileSystem extends TestCase {
       NPOIFSFileSystem fsB = new NPOIFSFileSystem(_inst.openResourceAsStream("BlockSize512.zvi"));
       NPOIFSFileSystem fsC = new NPOIFSFileSystem(_inst.getFile("BlockSize4096.zvi"));
       NPOIFSFileSystem fsD = new NPOIFSFileSystem(_inst.openResourceAsStream("BlockSize4096.zvi"));
-      for(NPOIFSFileSystem fs : new NPOIFSFileSystem[] {fsA,fsB,fsC,fsD}) {
+      NPOIFSFileSystem fsE = new NPOIFSFileSystem(_inst.getFile("BlockSize512.zvi"), true, true);
+      NPOIFSFileSystem fsF = new NPOIFSFileSystem(_inst.getFile("BlockSize4096.zvi"), true, true);
+      for(NPOIFSFileSystem fs : new NPOIFSFileSystem[] {fsA,fsB,fsC,fsD,fsE,fsF}) {
          DirectoryEntry root = fs.getRoot();
          Entry si = root.getEntry("\u0005SummaryInformation");
          
@@ -584,9 +596,209 @@ public final class TestNPOIFSFileSystem extends TestCase {
       assertEquals(POIFSConstants.END_OF_CHAIN, fs.getRoot().getProperty().getStartBlock());
 
       // Now add a normal stream and a mini stream
-      // TODO
-      
-      // TODO The rest of the test
+      byte[] main4096 = new byte[4096];
+      for(int i=0; i<main4096.length; i++) {
+         main4096[i] = (byte)i;
+      }
+      byte[] mini = new byte[] { 42, 0, 1, 2, 3, 4, 42 };
+      fs.getRoot().createDocument("Normal", new ByteArrayInputStream(main4096));
+      DirectoryEntry dir = fs.getRoot().createDirectory("Dir");
+      dir.createDocument("Mini", new ByteArrayInputStream(mini));
+      for(int i=0; i<5; i++) {
+         dir.createDocument("Mini" + i, new ByteArrayInputStream(mini));
+      }
+
+      // Write and read it, the mini stream and the properties
+      //  need more blocks than before
+      baos = new ByteArrayOutputStream();
+      fs.writeFilesystem(baos);
+      for(int i=0; i<2; i++) {
+         DirectoryNode root;
+         if(i == 0) {
+            root = new NPOIFSFileSystem(new ByteArrayInputStream(baos.toByteArray())).getRoot();
+         } else {
+            root = new POIFSFileSystem(new ByteArrayInputStream(baos.toByteArray())).getRoot();
+         }
+         assertEquals(2, root.getEntryCount());
+         assertContents(main4096, root.createDocumentInputStream("Normal"));
+         dir = (DirectoryEntry)root.getEntry("Dir");
+         assertEquals(6, dir.getEntryCount());
+         assertContents(mini, ((DirectoryNode)dir).createDocumentInputStream("Mini"));
+         assertContents(mini, ((DirectoryNode)dir).createDocumentInputStream("Mini4"));
+      }
+
+      // The last property block is padded with unused entries
+      assertUnusedPropertySlots(baos.toByteArray(), 9);
+   }
+
+   /**
+    * Open a file read-write, replace some of its streams in place,
+    *  and check only what changed was written
+    */
+   public void testInPlaceUpdate() throws Exception {
+      for(String name : new String[] { "BlockSize512.zvi", "BlockSize4096.zvi" }) {
+         File file = TempFile.createTempFile("TestNPOIFS", ".zvi");
+         FileOutputStream fout = new FileOutputStream(file);
+         InputStream fin = _inst.openResourceAsStream(name);
+         IOUtils.copy(fin, fout);
+         fin.close();
+         fout.close();
+         byte[] original = IOUtils.toByteArray(_inst.openResourceAsStream(name));
+         byte[] tags = IOUtils.toByteArray(
+               new NPOIFSFileSystem(_inst.openResourceAsStream(name)).createDocumentInputStream("Tags"));
+
+         // The same size, only the data block changes
+         byte[] summary = new byte[88];
+         for(int i=0; i<summary.length; i++) {
+            summary[i] = (byte)(i + 1);
+         }
+         NPOIFSFileSystem fs = new NPOIFSFileSystem(file, false);
+         DocumentEntry entry = fs.getRoot().createOrUpdateDocument("\u0005SummaryInformation", new ByteArrayInputStream(summary));
+         assertEquals(88, entry.getSize());
+         fs.writeFilesystem();
+         fs.close();
+
+         byte[] updated = IOUtils.toByteArray(new FileInputStream(file));
+         assertEquals(name, original.length, updated.length);
+         int blockSize = fs.getBigBlockSize();
+         int changedBlocks = 0;
+         for(int i=0; i<original.length; i+=blockSize) {
+            for(int j=i; j<i+blockSize; j++) {
+               if(original[j] != updated[j]) {
+                  changedBlocks++;
+                  break;
+               }
+            }
+         }
+         assertEquals(name, 1, changedBlocks);
+
+         // Grow a big stream, move a mini one into the big blocks and
+         //  another out of them, and add a new one
+         byte[] thumbnail = new byte[100000];
+         for(int i=0; i<thumbnail.length; i++) {
+            thumbnail[i] = (byte)(i * 7);
+         }
+         byte[] bigSummary = new byte[5000];
+         for(int i=0; i<bigSummary.length; i++) {
+            bigSummary[i] = (byte)(i * 3);
+         }
+         byte[] small = new byte[] { 1, 2, 3, 4, 5 };
+         fs = new NPOIFSFileSystem(file, false);
+         fs.getRoot().createOrUpdateDocument("Thumbnail", new ByteArrayInputStream(thumbnail));
+         fs.getRoot().createOrUpdateDocument("\u0005SummaryInformation", new ByteArrayInputStream(bigSummary));
+         fs.getRoot().createOrUpdateDocument("\u0005DocumentSummaryInformation", new ByteArrayInputStream(small));
+         fs.getRoot().createOrUpdateDocument("New", new ByteArrayInputStream(small));
+         ((DirectoryNode)fs.getRoot().getEntry("Image")).createOrUpdateDocument(
+               "Contents", new ByteArrayInputStream(new byte[0]));
+         fs.writeFilesystem();
+         fs.close();
+
+         for(int i=0; i<2; i++) {
+            DirectoryNode root;
+            if(i == 0) {
+               fs = new NPOIFSFileSystem(file);
+               root = fs.getRoot();
+            } else {
+               fs = null;
+               root = new POIFSFileSystem(new FileInputStream(file)).getRoot();
+            }
+            assertEquals(name, 6, root.getEntryCount());
+            assertContents(thumbnail, root.createDocumentInputStream("Thumbnail"));
+            assertContents(bigSummary, root.createDocumentInputStream("\u0005SummaryInformation"));
+            assertContents(small, root.createDocumentInputStream("\u0005DocumentSummaryInformation"));
+            assertContents(small, root.createDocumentInputStream("New"));
+            assertContents(tags, root.createDocumentInputStream("Tags"));
+            DirectoryNode image = (DirectoryNode)root.getEntry("Image");
+            assertEquals(0, ((DocumentEntry)image.getEntry("Contents")).getSize());
+            assertEquals(3346, ((DocumentEntry)((DirectoryEntry)image.getEntry("Tags")).getEntry("Contents")).getSize());
+            if(fs != null) {
+               fs.close();
+            }
+         }
+
+         // And back again
+         fs = new NPOIFSFileSystem(file, false);
+         fs.getRoot().createOrUpdateDocument("\u0005SummaryInformation", new ByteArrayInputStream(summary));
+         fs.getRoot().createOrUpdateDocument("Thumbnail", new ByteArrayInputStream(small));
+         fs.writeFilesystem();
+         fs.close();
+         fs = new NPOIFSFileSystem(file);
+         assertContents(summary, fs.createDocumentInputStream("\u0005SummaryInformation"));
+         assertContents(small, fs.createDocumentInputStream("Thumbnail"));
+         assertContents(tags, fs.createDocumentInputStream("Tags"));
+         fs.close();
+         file.delete();
+      }
+
+      // Office files have NOSTREAM links in their empty directory
+      //  slots, which must be kept as they are
+      File file = TempFile.createTempFile("TestNPOIFS", ".bin");
+      FileOutputStream fout = new FileOutputStream(file);
+      InputStream fin = _inst.openResourceAsStream("oleObject1.bin");
+      IOUtils.copy(fin, fout);
+      fin.close();
+      fout.close();
+      byte[] original = IOUtils.toByteArray(_inst.openResourceAsStream("oleObject1.bin"));
+
+      byte[] compObj = new byte[80];
+      for(int i=0; i<compObj.length; i++) {
+         compObj[i] = (byte)(i + 1);
+      }
+      NPOIFSFileSystem fs = new NPOIFSFileSystem(file, false);
+      fs.getRoot().createOrUpdateDocument("\u0001CompObj", new ByteArrayInputStream(compObj));
+      fs.writeFilesystem();
+      fs.close();
+
+      byte[] updated = IOUtils.toByteArray(new FileInputStream(file));
+      assertEquals(original.length, updated.length);
+      int changedBlocks = 0;
+      for(int i=0; i<original.length; i+=512) {
+         for(int j=i; j<i+512; j++) {
+            if(original[j] != updated[j]) {
+               changedBlocks++;
+               break;
+            }
+         }
+      }
+      assertEquals(1, changedBlocks);
+      assertUnusedPropertySlots(updated, 5);
+
+      fs = new NPOIFSFileSystem(file);
+      assertContents(compObj, fs.createDocumentInputStream("\u0001CompObj"));
+      fs.close();
+      file.delete();
+   }
+
+   /**
+    * Checks the slots of the property table after the given number of
+    *  properties are unused, with all their links set to NOSTREAM
+    */
+   private static void assertUnusedPropertySlots(byte[] file, int properties) throws IOException {
+      NPOIFSFileSystem fs = new NPOIFSFileSystem(new ByteArrayInputStream(file));
+      int start = LittleEndian.getInt(file, HeaderBlockConstants._property_start_offset);
+      int slot = 0;
+      for(ByteBuffer block : new NPOIFSStream(fs, start)) {
+         for(int offset=0; offset<fs.getBigBlockSize(); offset+=POIFSConstants.PROPERTY_SIZE, slot++) {
+            if(slot < properties) {
+               continue;
+            }
+            int pos = block.position() + offset;
+            assertEquals("Slot " + slot, 0, block.get(pos + PropertyConstants.PROPERTY_TYPE_OFFSET));
+            assertEquals("Slot " + slot, -1, block.getInt(pos + 0x44));
+            assertEquals("Slot " + slot, -1, block.getInt(pos + 0x48));
+            assertEquals("Slot " + slot, -1, block.getInt(pos + 0x4C));
+         }
+      }
+      assertTrue(slot > properties);
+   }
+
+   private static void assertContents(byte[] expected, DocumentInputStream inp) throws IOException {
+      assertEquals(expected.length, inp.available());
+      byte[] contents = new byte[expected.length];
+      inp.readFully(contents);
+      for(int i=0; i<expected.length; i++) {
+         assertEquals(expected[i], contents[i]);
+      }
    }
    
    // TODO Directory/Document write tests
@@ -20,8 +20,10 @@
 package org.apache.poi.poifs.nio;
 
 import java.io.File;
+import java.io.RandomAccessFile;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
 
 import org.apache.poi.POIDataSamples;
 
@@ -78,6 +80,47 @@ public class TestDataSource extends TestCase
       } catch(IllegalArgumentException e) {}
    }
    
+   public void testMappedFile() throws Exception {
+      File f = data.getFile("Notes.ole2");
+      
+      FileBackedDataSource ds = new FileBackedDataSource(
+            (new RandomAccessFile(f, "r")).getChannel(), true);
+      assertTrue(ds.isMemoryMapped());
+      assertEquals(8192, ds.size());
+      
+      // Start of file
+      ByteBuffer bs; 
+      bs = ds.read(4, 0);
+      assertEquals(4, bs.capacity());
+      assertEquals(0, bs.position());
+      assertEquals(0xd0-256, bs.get(0));
+      assertEquals(0xe0-256, bs.get(3));
+      
+      // Mid way through
+      bs = ds.read(8, 0x400);
+      assertEquals(8, bs.capacity());
+      assertEquals(0, bs.position());
+      assertEquals((byte)'R', bs.get(0));
+      assertEquals((byte)'t', bs.get(6));
+      
+      // The buffers are views of the mapping, so can't be changed
+      try {
+         bs.put(0, (byte)0);
+         fail("Mapped buffers should be read only");
+      } catch(ReadOnlyBufferException e) {}
+      
+      // Reads past the end of the mapping behave as normal
+      bs = ds.read(8, 8190);
+      assertEquals(8, bs.capacity());
+      assertEquals(0, bs.position());
+      try {
+         bs = ds.read(4, 8192);
+         fail("Shouldn't be able to read off the end of the file");
+      } catch(IllegalArgumentException e) {}
+      
+      ds.close();
+   }
+   
    public void testByteArray() throws Exception {
       byte[] data = new byte[256];
       byte b;
@@ -36,6 +36,9 @@ import org.apache.poi.ss.formula.eval.ErrorEval;
 import org.apache.poi.ss.formula.eval.NumberEval;
 import org.apache.poi.ss.formula.eval.StringEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.functions.FreeRefFunction;
+import org.apache.poi.ss.formula.udf.DefaultUDFFinder;
+import org.apache.poi.ss.formula.udf.UDFFinder;
 import org.apache.poi.hssf.usermodel.FormulaExtractor;
 import org.apache.poi.hssf.usermodel.HSSFCell;
 import org.apache.poi.hssf.usermodel.HSSFEvaluationTestHelper;
@@ -774,4 +777,200 @@ public class TestEvaluationCache extends TestCase {
         assertEquals(8394753.0, summaryCell.getNumericCellValue());
     }
 
+    /**
+     * Exact lookups into large areas go through an index of the area, which must
+     * be rebuilt whenever any of the cells in the area change.
+     */
+    public void testLookupIndex() {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        HSSFSheet sheet = wb.createSheet("Sheet1");
+        for (int i = 0; i < 40; i++) {
+            HSSFRow row = sheet.createRow(i);
+            row.createCell(0).setCellValue("k" + i);
+            row.createCell(1).setCellValue(i * 10);
+        }
+        HSSFCell cellA10 = sheet.getRow(9).getCell(0);
+        cellA10.setCellFormula("C1");
+        HSSFCell cellC1 = sheet.getRow(0).createCell(2);
+        cellC1.setCellValue("dyn");
+        HSSFCell cellA30 = sheet.getRow(29).getCell(0);
+        cellA30.setCellValue("k5");
+
+        HSSFCell vlookup = sheet.getRow(0).createCell(4);
+        vlookup.setCellFormula("VLOOKUP(\"K5\", A1:B50, 2, FALSE)");
+        HSSFCell match = sheet.getRow(1).createCell(4);
+        match.setCellFormula("MATCH(\"k7\", A1:A50, 0)");
+        HSSFCell numberMatch = sheet.getRow(2).createCell(4);
+        numberMatch.setCellFormula("MATCH(250, B1:B50, 0)");
+        HSSFCell wildcard = sheet.getRow(3).createCell(4);
+        wildcard.setCellFormula("VLOOKUP(\"k1*\", A1:B50, 2, FALSE)");
+        HSSFCell dynamic = sheet.getRow(4).createCell(4);
+        dynamic.setCellFormula("VLOOKUP(\"dyn\", A1:B50, 2, FALSE)");
+        HSSFCell added = sheet.getRow(5).createCell(4);
+        added.setCellFormula("MATCH(\"new\", A1:A50, 0)");
+
+        HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+        assertEquals(50.0, fe.evaluate(vlookup).getNumberValue(), 0.0);
+        assertEquals(8.0, fe.evaluate(match).getNumberValue(), 0.0);
+        assertEquals(26.0, fe.evaluate(numberMatch).getNumberValue(), 0.0);
+        assertEquals(10.0, fe.evaluate(wildcard).getNumberValue(), 0.0);
+        assertEquals(90.0, fe.evaluate(dynamic).getNumberValue(), 0.0);
+        assertEquals(ErrorEval.NA.getErrorCode(), fe.evaluate(added).getErrorValue());
+
+        // the second occurrence is found once the first one changes
+        sheet.getRow(5).getCell(0).setCellValue("x");
+        fe.notifyUpdateCell(sheet.getRow(5).getCell(0));
+        assertEquals(290.0, fe.evaluate(vlookup).getNumberValue(), 0.0);
+        assertEquals(8.0, fe.evaluate(match).getNumberValue(), 0.0);
+
+        // a formula cell within the area changes through one of its inputs
+        cellC1.setCellValue("other");
+        fe.notifyUpdateCell(cellC1);
+        assertEquals(ErrorEval.NA.getErrorCode(), fe.evaluate(dynamic).getErrorValue());
+
+        // a blank cell within the area gets a value
+        HSSFCell cellA45 = sheet.createRow(44).createCell(0);
+        cellA45.setCellValue("new");
+        fe.notifyUpdateCell(cellA45);
+        assertEquals(45.0, fe.evaluate(added).getNumberValue(), 0.0);
+    }
+
+    /**
+     * An area is only indexed once it is looked up again, so that each formula using
+     * an expanding range like A$1:A5 does not build an index of its own.
+     */
+    public void testAreaIndexBuiltOnReuse() {
+        final int[] builds = { 0, };
+        final AreaIndexBuilder<Object> builder = new AreaIndexBuilder<Object>() {
+            public Object build(TwoDEval area) {
+                builds[0]++;
+                readAll(area);
+                return Boolean.TRUE;
+            }
+        };
+        FreeRefFunction indexed = new FreeRefFunction() {
+            public ValueEval evaluate(ValueEval[] args, OperationEvaluationContext ec) {
+                IndexableAreaEval area = (IndexableAreaEval) args[0];
+                if (area.getIndex(builder) != null) {
+                    return BoolEval.TRUE;
+                }
+                // scanned instead, as a lookup would
+                readAll(area);
+                return BoolEval.FALSE;
+            }
+        };
+        UDFFinder udfFinder = new DefaultUDFFinder(new String[] { "INDEXED", },
+                new FreeRefFunction[] { indexed, });
+
+        HSSFWorkbook wb = new HSSFWorkbook();
+        wb.addToolPack(udfFinder);
+        HSSFSheet sheet = wb.createSheet("Sheet1");
+        for (int i = 0; i < 20; i++) {
+            HSSFRow row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i);
+            row.createCell(1).setCellFormula("INDEXED(A$1:A" + (i + 1) + ")");
+            row.createCell(2).setCellFormula("INDEXED(A1:A30)");
+        }
+
+        HSSFFormulaEvaluator fe = HSSFFormulaEvaluator.create(wb, null, udfFinder);
+        for (int i = 0; i < 20; i++) {
+            HSSFRow row = sheet.getRow(i);
+            assertFalse(fe.evaluate(row.getCell(1)).getBooleanValue());
+            assertEquals(i > 0, fe.evaluate(row.getCell(2)).getBooleanValue());
+        }
+        assertEquals(1, builds[0]);
+
+        // the index is rebuilt once a cell of the area changes
+        HSSFCell cellA5 = sheet.getRow(4).getCell(0);
+        cellA5.setCellValue(100);
+        fe.notifyUpdateCell(cellA5);
+        assertTrue(fe.evaluate(sheet.getRow(0).getCell(2)).getBooleanValue());
+        assertEquals(2, builds[0]);
+    }
+
+    private static void readAll(TwoDEval area) {
+        for (int r = 0; r < area.getHeight(); r++) {
+            area.getValue(r, 0);
+        }
+    }
+
+    public void testCriteriaIndex() {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        HSSFSheet sheet = wb.createSheet("Sheet1");
+        for (int i = 0; i < 40; i++) {
+            HSSFRow row = sheet.createRow(i);
+            HSSFCell cellA = row.createCell(0);
+            switch (i % 4) {
+                case 0: cellA.setCellValue("Apple"); break;
+                case 1: cellA.setCellValue("pear"); break;
+                case 2: cellA.setCellValue(i / 4); break;
+                // text which COUNTIF compares equal to numbers
+                case 3: cellA.setCellValue(String.valueOf(i / 4)); break;
+            }
+            row.createCell(1).setCellValue(i);
+            row.createCell(2).setCellValue(i % 2 == 0);
+        }
+
+        HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+        HSSFCell cell = sheet.getRow(0).createCell(4);
+        assertEquals(2.0, evaluateNumber(fe, cell, "COUNTIF(A1:A40, 5)"), 0.0);
+        assertEquals(4.0, evaluateNumber(fe, cell, "COUNTIF(A1:A40, \">5\")"), 0.0);
+        assertEquals(6.0, evaluateNumber(fe, cell, "COUNTIF(A1:A40, \"<=5\")"), 0.0);
+        assertEquals(10.0, evaluateNumber(fe, cell, "COUNTIF(A1:A40, \"APPLE\")"), 0.0);
+        assertEquals(10.0, evaluateNumber(fe, cell, "COUNTIF(A1:A40, \"p*\")"), 0.0);
+        // numbers never match string criteria
+        assertEquals(20.0, evaluateNumber(fe, cell, "COUNTIF(A1:A40, \"<>pear\")"), 0.0);
+        assertEquals(20.0, evaluateNumber(fe, cell, "COUNTIF(C1:C40, TRUE)"), 0.0);
+        assertEquals(3.0, evaluateNumber(fe, cell, "COUNTIF(A1:C40, 5)"), 0.0);
+        assertEquals(20.0, evaluateNumber(fe, cell, "COUNTIF(A1:C40, TRUE)"), 0.0);
+        assertEquals(180.0, evaluateNumber(fe, cell, "SUMIF(A1:A40, \"apple\", B1:B40)"), 0.0);
+        assertEquals(345.0, evaluateNumber(fe, cell, "SUMIF(B1:B40, \">=30\")"), 0.0);
+        assertEquals(190.0, evaluateNumber(fe, cell, "SUMIFS(B1:B40, A1:A40, \"pear\", C1:C40, FALSE)"), 0.0);
+        assertEquals(145.0, evaluateNumber(fe, cell, "SUMIFS(B1:B40, A1:A40, \"pear\", B1:B40, \">20\")"), 0.0);
+
+        // the index is rebuilt once a cell of the range changes
+        HSSFCell countIf = sheet.getRow(1).createCell(4);
+        countIf.setCellFormula("COUNTIF(A1:A40, \"apple\")");
+        HSSFCell sumIf = sheet.getRow(2).createCell(4);
+        sumIf.setCellFormula("SUMIF(A1:A40, \"apple\", B1:B40)");
+        assertEquals(10.0, fe.evaluate(countIf).getNumberValue(), 0.0);
+        assertEquals(180.0, fe.evaluate(sumIf).getNumberValue(), 0.0);
+        HSSFCell cellA40 = sheet.getRow(39).getCell(0);
+        cellA40.setCellValue("apple");
+        fe.notifyUpdateCell(cellA40);
+        assertEquals(11.0, fe.evaluate(countIf).getNumberValue(), 0.0);
+        assertEquals(219.0, fe.evaluate(sumIf).getNumberValue(), 0.0);
+    }
+
+    /**
+     * The running count idiom looks up a different range in each row, which are
+     * scanned the first time and indexed when they are evaluated again.
+     */
+    public void testCriteriaIndexRunningCount() {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        HSSFSheet sheet = wb.createSheet("Sheet1");
+        for (int i = 0; i < 40; i++) {
+            HSSFRow row = sheet.createRow(i);
+            row.createCell(0).setCellValue("k" + (i % 5));
+            row.createCell(1).setCellFormula("COUNTIF($A$1:A" + (i + 1) + ",A" + (i + 1) + ")");
+        }
+        HSSFFormulaEvaluator fe = new HSSFFormulaEvaluator(wb);
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i / 5 + 1, fe.evaluate(sheet.getRow(i).getCell(1)).getNumberValue(), 0.0);
+        }
+
+        HSSFCell cellA20 = sheet.getRow(19).getCell(0);
+        cellA20.setCellValue("k0");
+        fe.notifyUpdateCell(cellA20);
+        assertEquals(5.0, fe.evaluate(sheet.getRow(19).getCell(1)).getNumberValue(), 0.0);
+        assertEquals(7.0, fe.evaluate(sheet.getRow(39).getCell(1)).getNumberValue(), 0.0);
+        assertEquals(9.0, fe.evaluate(sheet.getRow(35).getCell(1)).getNumberValue(), 0.0);
+        assertEquals(6.0, fe.evaluate(sheet.getRow(34).getCell(1)).getNumberValue(), 0.0);
+    }
+
+    private static double evaluateNumber(HSSFFormulaEvaluator fe, HSSFCell cell, String formula) {
+        cell.setCellFormula(formula);
+        fe.notifyUpdateCell(cell);
+        return fe.evaluate(cell).getNumberValue();
+    }
 }
@@ -20,6 +20,10 @@ package org.apache.poi.ss.usermodel;
 import junit.framework.AssertionFailedError;
 import junit.framework.TestCase;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
 import org.apache.poi.ss.ITestDataProvider;
 
 /**
@@ -300,4 +304,70 @@ public abstract class BaseTestFormulaEvaluator extends TestCase {
         assertEquals(2162.62, fe.evaluateInCell(cellC1).getNumericCellValue(), 0.0);
         assertEquals(2162.61, fe.evaluateInCell(cellD1).getNumericCellValue(), 0.0);
     }
-}
\ No newline at end of file
+
+    public void testEvaluateAllInParallel() {
+        Workbook sequential = createChainedSheets();
+        sequential.getCreationHelper().createFormulaEvaluator().evaluateAll();
+
+        Workbook parallel = createChainedSheets();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            HSSFFormulaEvaluator.evaluateAllFormulaCells(parallel, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < sequential.getNumberOfSheets(); i++) {
+            Sheet expectedSheet = sequential.getSheetAt(i);
+            Sheet actualSheet = parallel.getSheetAt(i);
+            for (Row expectedRow : expectedSheet) {
+                Row actualRow = actualSheet.getRow(expectedRow.getRowNum());
+                for (Cell expected : expectedRow) {
+                    Cell actual = actualRow.getCell(expected.getColumnIndex());
+                    assertEquals(expected.getCellType(), actual.getCellType());
+                    if (expected.getCellType() != Cell.CELL_TYPE_FORMULA) {
+                        continue;
+                    }
+                    assertEquals(expected.getCachedFormulaResultType(), actual.getCachedFormulaResultType());
+                    switch (expected.getCachedFormulaResultType()) {
+                        case Cell.CELL_TYPE_NUMERIC:
+                            assertEquals(expected.getNumericCellValue(), actual.getNumericCellValue(), 0.0);
+                            break;
+                        case Cell.CELL_TYPE_STRING:
+                            assertEquals(expected.getStringCellValue(), actual.getStringCellValue());
+                            break;
+                        case Cell.CELL_TYPE_ERROR:
+                            assertEquals(expected.getErrorCellValue(), actual.getErrorCellValue());
+                            break;
+                        default:
+                            fail("Unexpected result type " + expected.getCachedFormulaResultType());
+                    }
+                }
+            }
+        }
+        assertEquals(3.0 * 6, parallel.getSheet("S5").getRow(0).getCell(1).getNumericCellValue(), 0.0);
+    }
+
+    /**
+     * Sheets whose formulas refer to the previous sheet, so that evaluating
+     * any one of them needs the precedents on all sheets before it
+     */
+    private Workbook createChainedSheets() {
+        Workbook wb = _testDataProvider.createWorkbook();
+        for (int i = 0; i < 6; i++) {
+            Sheet sheet = wb.createSheet("S" + i);
+            for (int r = 0; r < 20; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue(r + i);
+                if (i == 0) {
+                    row.createCell(1).setCellFormula("A" + (r + 1) + "+3");
+                } else {
+                    row.createCell(1).setCellFormula("S" + (i - 1) + "!B" + (r + 1) + "+3");
+                }
+                row.createCell(2).setCellFormula("SUM(A1:A20)/(" + (r % 4) + ")");
+                row.createCell(3).setCellFormula("\"x\"&B" + (r + 1));
+            }
+        }
+        return wb;
+    }
+}
@@ -0,0 +1,104 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link CompiledNumberFormat}
+ */
+public final class TestCompiledNumberFormat extends TestCase {
+
+    private static final String[] PATTERNS = {
+        "#", "#.##########", "0", "0.0", "0.00", "#,##0", "#,##0.00", "#,#0.0#",
+        "0%", "0.00%", "$#,##0.00", "#,##0.00 units", "000000", "00.000#", "#.##",
+        "0.", "#,###",
+    };
+
+    private static final double[] VALUES = {
+        0.0, -0.0, 1.0, -1.0, 0.5, 1.5, 2.5, 0.125, 1.005, 2.675, -0.001, 0.004,
+        1e-11, 1234567.5, 123456789.123456789, 99999.995, 1e13, 1e14, 1e20,
+        1.2345678901234567e20, Double.MAX_VALUE, Double.MIN_VALUE,
+        Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+    };
+
+    private static void confirmSame(DecimalFormat expected, CompiledNumberFormat actual, double value) {
+        StringBuilder sb = new StringBuilder("x");
+        actual.append(value, sb);
+        assertEquals(expected.toPattern() + " " + value, "x" + expected.format(value), sb.toString());
+    }
+
+    public void testSameAsDecimalFormat() {
+        Random random = new Random(12345);
+        Locale[] locales = { Locale.US, Locale.FRENCH, Locale.GERMANY };
+        for (Locale locale : locales) {
+            DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+            for (String pattern : PATTERNS) {
+                DecimalFormat df = new DecimalFormat(pattern, symbols);
+                DataFormatter.setExcelStyleRoundingMode(df);
+                for (int i = 0; i < 2; i++) {
+                    // half up as in number formats, and half even as in General
+                    DecimalFormat expected = i == 0 ? df : new DecimalFormat(pattern, symbols);
+                    CompiledNumberFormat actual = CompiledNumberFormat.compile(expected);
+                    assertNotNull(pattern, actual);
+                    for (double value : VALUES) {
+                        confirmSame(expected, actual, value);
+                        confirmSame(expected, actual, -value);
+                    }
+                    for (int j = 0; j < 2000; j++) {
+                        double value = random.nextDouble() * Math.pow(10, random.nextInt(18) - 4);
+                        confirmSame(expected, actual, value);
+                        confirmSame(expected, actual, -value);
+                        // short decimals, which are the most likely to be near a tie
+                        value = Math.round(value * 1000) / 1000.0;
+                        confirmSame(expected, actual, value);
+                    }
+                }
+            }
+        }
+    }
+
+    public void testUnsupported() {
+        assertNull(CompiledNumberFormat.compile(new DecimalFormat("0.00E00")));
+        assertNull(CompiledNumberFormat.compile(new DecimalFormat("\u00A4#,##0.00")));
+        DecimalFormat down = new DecimalFormat("0.00");
+        DataFormatter.setExcelStyleRoundingMode(down, RoundingMode.DOWN);
+        assertNull(CompiledNumberFormat.compile(down));
+    }
+
+    public void testDataFormatterAppends() {
+        DataFormatter dfUS = new DataFormatter(Locale.US);
+        StringBuilder sb = new StringBuilder();
+        dfUS.formatRawCellContents(1234.567, -1, "#,##0.00", false, sb);
+        sb.append(',');
+        dfUS.formatRawCellContents(12.5, -1, "General", false, sb);
+        sb.append(',');
+        dfUS.formatRawCellContents(0.25, -1, "0%", false, sb);
+        sb.append(',');
+        dfUS.formatRawCellContents(12345.0, -1, "0.00E+00", false, sb);
+        sb.append(',');
+        dfUS.formatRawCellContents(41275.0, -1, "yyyy-mm-dd", false, sb);
+        assertEquals("1,234.57,12.5,25%,1.23E+04,2013-01-01", sb.toString());
+    }
+}
@@ -0,0 +1,412 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.usermodel.snapshot;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.ss.ITestDataProvider;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.ComparisonOperator;
+import org.apache.poi.ss.usermodel.ConditionalFormatting;
+import org.apache.poi.ss.usermodel.ConditionalFormattingRule;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.ErrorConstants;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Common superclass for testing {@link WorkbookSnapshot} of HSSF and XSSF workbooks
+ */
+public abstract class BaseTestWorkbookSnapshot extends TestCase {
+
+    private final ITestDataProvider _testDataProvider;
+
+    protected BaseTestWorkbookSnapshot(ITestDataProvider testDataProvider) {
+        _testDataProvider = testDataProvider;
+    }
+
+    private Workbook createWorkbook() {
+        Workbook wb = _testDataProvider.createWorkbook();
+        CellStyle dateStyle = wb.createCellStyle();
+        dateStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+        Sheet data = wb.createSheet("Data");
+        for (int i = 0; i < 3; i++) {
+            data.createRow(i).createCell(0).setCellValue(i + 1);
+        }
+        Row row = data.getRow(0);
+        row.createCell(1).setCellValue("text");
+        row.createCell(2).setCellValue(true);
+        row.createCell(3).setCellErrorValue((byte) ErrorConstants.ERROR_DIV_0);
+        row.createCell(4);
+        Calendar date = Calendar.getInstance();
+        date.clear();
+        date.set(2013, Calendar.MARCH, 14);
+        Cell dateCell = row.createCell(5);
+        dateCell.setCellValue(date);
+        dateCell.setCellStyle(dateStyle);
+        data.getRow(1).createCell(1).setCellFormula("A2*2");
+        data.getRow(2).createCell(3).setCellValue("far");
+        data.addMergedRegion(new CellRangeAddress(1, 1, 2, 3));
+        data.setColumnWidth(1, 5000);
+
+        Name name = wb.createName();
+        name.setNameName("Total");
+        name.setRefersToFormula("Data!$A$1:$A$3");
+
+        Sheet report = wb.createSheet("Report");
+        report.createRow(0).createCell(0).setCellFormula("SUM(Total)+Data!A1");
+        report.getRow(0).createCell(1).setCellFormula("Data!B1&\"!\"");
+        report.getRow(0).createCell(2).setCellFormula("IF(Data!C1,1/0,0)");
+        wb.setSheetHidden(1, true);
+
+        wb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+        return wb;
+    }
+
+    public final void testValues() {
+        Workbook wb = createWorkbook();
+        Workbook snapshot = WorkbookSnapshot.create(wb);
+        assertSame(snapshot, WorkbookSnapshot.create(snapshot));
+
+        // changes to the workbook are not seen in the snapshot
+        wb.getSheetAt(0).getRow(0).getCell(0).setCellValue(100);
+        wb.getSheetAt(0).getRow(0).getCell(1).setCellValue("changed");
+        wb.getSheetAt(0).getRow(1).getCell(1).setCellFormula("A2*3");
+        wb.setSheetName(0, "Renamed");
+
+        assertEquals(2, snapshot.getNumberOfSheets());
+        assertEquals("Data", snapshot.getSheetName(0));
+        assertEquals(1, snapshot.getSheetIndex("REPORT"));
+        assertTrue(snapshot.isSheetHidden(1));
+        assertFalse(snapshot.isSheetHidden(0));
+
+        Sheet data = snapshot.getSheet("Data");
+        assertSame(snapshot, data.getWorkbook());
+        assertEquals(0, data.getFirstRowNum());
+        assertEquals(2, data.getLastRowNum());
+        assertEquals(3, data.getPhysicalNumberOfRows());
+        assertNull(data.getRow(3));
+        assertEquals(5000, data.getColumnWidth(1));
+        assertEquals(1, data.getNumMergedRegions());
+        assertEquals("C2:D2", data.getMergedRegion(0).formatAsString());
+
+        Row row = data.getRow(0);
+        assertSame(data, row.getSheet());
+        assertEquals(0, row.getFirstCellNum());
+        assertEquals(6, row.getLastCellNum());
+        assertEquals(6, row.getPhysicalNumberOfCells());
+        assertEquals(1.0, row.getCell(0).getNumericCellValue(), 0.0);
+        assertEquals("text", row.getCell(1).getStringCellValue());
+        assertTrue(row.getCell(2).getBooleanCellValue());
+        assertEquals(ErrorConstants.ERROR_DIV_0, row.getCell(3).getErrorCellValue());
+        assertEquals(Cell.CELL_TYPE_BLANK, row.getCell(4).getCellType());
+        assertNull(row.getCell(4, Row.RETURN_BLANK_AS_NULL));
+        assertEquals(wb.getSheetAt(0).getRow(0).getCell(5).getDateCellValue(), row.getCell(5).getDateCellValue());
+        assertEquals("yyyy-mm-dd", row.getCell(5).getCellStyle().getDataFormatString());
+        assertSame(row.getCell(5).getCellStyle(), snapshot.getCellStyleAt(row.getCell(5).getCellStyle().getIndex()));
+        assertNull(row.getCell(10));
+        Cell blank = row.getCell(10, Row.CREATE_NULL_AS_BLANK);
+        assertEquals(Cell.CELL_TYPE_BLANK, blank.getCellType());
+        assertEquals(10, blank.getColumnIndex());
+        assertNull(row.getCell(10));
+        try {
+            row.getCell(1).getNumericCellValue();
+            fail("expected ISE");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot get a numeric value from a text cell", e.getMessage());
+        }
+
+        Cell formula = data.getRow(1).getCell(1);
+        assertEquals(Cell.CELL_TYPE_FORMULA, formula.getCellType());
+        assertEquals("A2*2", formula.getCellFormula());
+        assertEquals(Cell.CELL_TYPE_NUMERIC, formula.getCachedFormulaResultType());
+        assertEquals(4.0, formula.getNumericCellValue(), 0.0);
+
+        List<String> cells = new ArrayList<String>();
+        for (Row r : data) {
+            for (Cell c : r) {
+                cells.add(c.toString());
+            }
+        }
+        assertEquals("[A1, B1, C1, D1, E1, F1, A2, B2, A3, D3]", cells.toString());
+
+        assertEquals(1, snapshot.getNumberOfNames());
+        Name name = snapshot.getName("total");
+        assertEquals("Total", name.getNameName());
+        assertEquals("Data!$A$1:$A$3", name.getRefersToFormula());
+    }
+
+    public final void testReadOnly() {
+        Workbook snapshot = WorkbookSnapshot.create(createWorkbook());
+        Sheet sheet = snapshot.getSheetAt(0);
+        Row row = sheet.getRow(0);
+        Cell cell = row.getCell(0);
+
+        try {
+            snapshot.createSheet();
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            sheet.createRow(10);
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            row.createCell(10);
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            cell.setCellValue(2.0);
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            cell.getCellStyle().setAlignment(CellStyle.ALIGN_CENTER);
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            snapshot.getNameAt(0).setNameName("Other");
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Iterator<Row> rows = sheet.rowIterator();
+        rows.next();
+        try {
+            rows.remove();
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Iterator<Cell> cells = row.cellIterator();
+        cells.next();
+        try {
+            cells.remove();
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(1.0, cell.getNumericCellValue(), 0.0);
+        assertEquals(3, sheet.getPhysicalNumberOfRows());
+    }
+
+    public final void testSheetSettings() {
+        Workbook wb = createWorkbook();
+        CreationHelper factory = wb.getCreationHelper();
+        Sheet sheet = wb.getSheetAt(0);
+        sheet.setPrintGridlines(true);
+        sheet.setFitToPage(true);
+        sheet.setHorizontallyCenter(true);
+        sheet.setRowSumsBelow(false);
+        sheet.setMargin(Sheet.LeftMargin, 1.5);
+        sheet.setRowBreak(1);
+        sheet.setColumnBreak(2);
+        sheet.setRepeatingRows(CellRangeAddress.valueOf("1:2"));
+        sheet.getPrintSetup().setLandscape(true);
+        sheet.getPrintSetup().setCopies((short) 3);
+        sheet.getHeader().setCenter("Top");
+        sheet.getFooter().setRight("Bottom");
+        wb.setPrintArea(0, "$A$1:$C$3");
+
+        Cell cell = sheet.getRow(0).getCell(1);
+        ClientAnchor anchor = factory.createClientAnchor();
+        anchor.setRow1(0);
+        anchor.setCol1(1);
+        anchor.setRow2(3);
+        anchor.setCol2(4);
+        Comment comment = sheet.createDrawingPatriarch().createCellComment(anchor);
+        comment.setString(factory.createRichTextString("a comment"));
+        comment.setAuthor("POI");
+        cell.setCellComment(comment);
+        Hyperlink link = factory.createHyperlink(Hyperlink.LINK_URL);
+        link.setAddress("http://poi.apache.org/");
+        cell.setHyperlink(link);
+
+        SheetConditionalFormatting formatting = sheet.getSheetConditionalFormatting();
+        ConditionalFormattingRule rule = formatting.createConditionalFormattingRule(ComparisonOperator.GT, "2");
+        rule.createFontFormatting().setFontStyle(true, false);
+        formatting.addConditionalFormatting(new CellRangeAddress[] { CellRangeAddress.valueOf("A1:A3") }, rule);
+
+        Workbook snapshot = WorkbookSnapshot.create(wb);
+        sheet.setPrintGridlines(false);
+        sheet.setMargin(Sheet.LeftMargin, 0.5);
+        sheet.getHeader().setCenter("Changed");
+        link.setAddress("http://www.apache.org/");
+
+        Sheet copy = snapshot.getSheetAt(0);
+        assertTrue(copy.isPrintGridlines());
+        assertTrue(copy.getFitToPage());
+        assertTrue(copy.getHorizontallyCenter());
+        assertFalse(copy.getVerticallyCenter());
+        assertFalse(copy.getRowSumsBelow());
+        assertEquals(1.5, copy.getMargin(Sheet.LeftMargin), 0.0);
+        assertTrue(copy.isRowBroken(1));
+        assertFalse(copy.isRowBroken(0));
+        assertTrue(copy.isColumnBroken(2));
+        assertEquals(1, copy.getRowBreaks().length);
+        assertEquals("1:2", copy.getRepeatingRows().formatAsString());
+        assertNull(copy.getRepeatingColumns());
+        assertTrue(copy.getPrintSetup().getLandscape());
+        assertEquals(3, copy.getPrintSetup().getCopies());
+        assertEquals("Top", copy.getHeader().getCenter());
+        assertEquals("Bottom", copy.getFooter().getRight());
+        assertEquals("Data!$A$1:$C$3", snapshot.getPrintArea(0));
+        assertNull(snapshot.getPrintArea(1));
+        assertEquals(0, snapshot.getAllPictures().size());
+
+        Cell copiedCell = copy.getRow(0).getCell(1);
+        assertEquals("a comment", copiedCell.getCellComment().getString().getString());
+        assertEquals("POI", copiedCell.getCellComment().getAuthor());
+        assertSame(copiedCell.getCellComment(), copy.getCellComment(0, 1));
+        assertNull(copy.getRow(0).getCell(0).getCellComment());
+        assertEquals("http://poi.apache.org/", copiedCell.getHyperlink().getAddress());
+        assertEquals(Hyperlink.LINK_URL, copiedCell.getHyperlink().getType());
+        assertNull(copy.getRow(0).getCell(0).getHyperlink());
+
+        SheetConditionalFormatting copiedFormatting = copy.getSheetConditionalFormatting();
+        assertEquals(1, copiedFormatting.getNumConditionalFormattings());
+        ConditionalFormatting cf = copiedFormatting.getConditionalFormattingAt(0);
+        assertEquals("A1:A3", cf.getFormattingRanges()[0].formatAsString());
+        assertEquals(1, cf.getNumberOfRules());
+        assertEquals(ComparisonOperator.GT, cf.getRule(0).getComparisonOperation());
+        assertEquals("2", cf.getRule(0).getFormula1());
+        assertTrue(cf.getRule(0).getFontFormatting().isItalic());
+
+        try {
+            copy.setMargin(Sheet.LeftMargin, 2.0);
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            copy.getHeader().setCenter("Other");
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            copiedCell.getCellComment().setAuthor("Other");
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public final void testEvaluate() {
+        Workbook wb = createWorkbook();
+        WorkbookSnapshot snapshot = WorkbookSnapshot.create(wb);
+        wb.getSheetAt(0).getRow(0).getCell(0).setCellValue(100);
+
+        FormulaEvaluator evaluator = snapshot.getFormulaEvaluator();
+        assertSame(evaluator, snapshot.getCreationHelper().createFormulaEvaluator());
+        Row row = snapshot.getSheet("Report").getRow(0);
+        assertEquals(7.0, evaluator.evaluate(row.getCell(0)).getNumberValue(), 0.0);
+        assertEquals("text!", evaluator.evaluate(row.getCell(1)).getStringValue());
+        CellValue error = evaluator.evaluate(row.getCell(2));
+        assertEquals(Cell.CELL_TYPE_ERROR, error.getCellType());
+        assertEquals(ErrorConstants.ERROR_DIV_0, error.getErrorValue());
+        assertEquals(4.0, evaluator.evaluate(snapshot.getSheetAt(0).getRow(1).getCell(1)).getNumberValue(), 0.0);
+
+        try {
+            evaluator.evaluate(wb.getSheetAt(1).getRow(0).getCell(0));
+            fail("expected IAE");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            evaluator.evaluateFormulaCell(row.getCell(0));
+            fail("expected UOE");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public final void testConcurrentReaders() throws Exception {
+        Workbook wb = _testDataProvider.createWorkbook();
+        Sheet sheet = wb.createSheet("Numbers");
+        int numRows = 300;
+        for (int i = 0; i < numRows; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i * 3 % 17);
+            int r = i + 1;
+            row.createCell(1).setCellFormula(i == 0 ? "A1" : "A" + r + "+B" + i);
+            row.createCell(2).setCellFormula("VLOOKUP(" + (numRows - 1 - i) + ",$A$1:$B$" + numRows + ",2,FALSE)");
+            row.createCell(3).setCellFormula("COUNTIF($A$1:$A$" + numRows + ",A" + r + ")");
+        }
+        FormulaEvaluator sourceEvaluator = wb.getCreationHelper().createFormulaEvaluator();
+        final List<String> expected = new ArrayList<String>();
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                expected.add(sourceEvaluator.evaluate(cell).formatAsString());
+            }
+        }
+
+        final WorkbookSnapshot snapshot = WorkbookSnapshot.create(wb);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<List<String>>() {
+                    public List<String> call() {
+                        List<String> actual = new ArrayList<String>();
+                        FormulaEvaluator evaluator = snapshot.getFormulaEvaluator();
+                        for (Row row : snapshot.getSheetAt(0)) {
+                            for (Cell cell : row) {
+                                actual.add(evaluator.evaluate(cell).formatAsString());
+                            }
+                        }
+                        return actual;
+                    }
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
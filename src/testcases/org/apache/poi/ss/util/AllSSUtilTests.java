@@ -29,6 +29,7 @@ public final class AllSSUtilTests {
 		TestSuite result = new TestSuite(AllSSUtilTests.class.getName());
 		result.addTestSuite(TestCellRangeAddress.class);
 		result.addTestSuite(TestCellReference.class);
+		result.addTestSuite(TestColumnWidthCalculator.class);
 		result.addTestSuite(TestExpandedDouble.class);
 		result.addTestSuite(TestNumberComparer.class);
 		result.addTestSuite(TestNumberToTextConverter.class);
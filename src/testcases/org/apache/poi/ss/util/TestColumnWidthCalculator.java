@@ -0,0 +1,146 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Tests for {@link ColumnWidthCalculator}
+ */
+public final class TestColumnWidthCalculator extends TestCase {
+
+    private static Sheet createSheet() {
+        Workbook wb = new HSSFWorkbook();
+        Sheet sheet = wb.createSheet();
+        Row row = sheet.createRow(0);
+        row.createCell(0).setCellValue("Name");
+        row.createCell(1).setCellValue("A rather longer heading");
+        row.createCell(2).setCellValue(1234567.5);
+        for (int i = 1; i < 100; i++) {
+            row = sheet.createRow(i);
+            row.createCell(0).setCellValue("Item " + i);
+            row.createCell(1).setCellValue(i % 2 == 0);
+        }
+        sheet.getRow(54).createCell(0).setCellValue("The longest item of the column");
+        return sheet;
+    }
+
+    public void testEstimate() {
+        Sheet sheet = createSheet();
+        ColumnWidthCalculator calculator = new ColumnWidthCalculator();
+
+        double item = calculator.getColumnWidth(sheet, 0);
+        double heading = calculator.getColumnWidth(sheet, 1);
+        double number = calculator.getColumnWidth(sheet, 2);
+        assertEquals(-1.0, calculator.getColumnWidth(sheet, 3), 0.0);
+        // one '0' of the default font for each digit, the separator and the padding
+        assertEquals(9.5, number, 0.5);
+        assertTrue(heading > number);
+        assertTrue(item > heading);
+
+        // the estimate should be near the text layout
+        for (int column = 0; column < 3; column++) {
+            double exact = SheetUtil.getColumnWidth(sheet, column, false);
+            double estimate = calculator.getColumnWidth(sheet, column);
+            assertTrue(column + ": " + estimate + " " + exact, Math.abs(estimate - exact) < exact * 0.25);
+        }
+
+        calculator.setUseFontMetrics(false);
+        assertEquals(SheetUtil.getColumnWidth(sheet, 0, false), calculator.getColumnWidth(sheet, 0), 0.0);
+    }
+
+    public void testFonts() {
+        Sheet sheet = createSheet();
+        ColumnWidthCalculator calculator = new ColumnWidthCalculator();
+        double plain = calculator.getColumnWidth(sheet, 1);
+
+        Font big = sheet.getWorkbook().createFont();
+        big.setFontHeightInPoints((short) 20);
+        CellStyle style = sheet.getWorkbook().createCellStyle();
+        style.setFont(big);
+        sheet.getRow(0).getCell(1).setCellStyle(style);
+        double twice = calculator.getColumnWidth(sheet, 1);
+        assertEquals(plain * 2, twice, plain * 0.1);
+
+        // not in the font metrics file, so measured as Arial
+        big.setFontName("No Such Font");
+        assertEquals(twice, calculator.getColumnWidth(sheet, 1), 0.0);
+
+        // lines are measured separately
+        sheet.getRow(0).getCell(1).setCellValue("A rather longer\nheading");
+        assertTrue(calculator.getColumnWidth(sheet, 1) < twice * 0.75);
+    }
+
+    public void testSampling() {
+        Sheet sheet = createSheet();
+        ColumnWidthCalculator calculator = new ColumnWidthCalculator();
+        double all = calculator.getColumnWidth(sheet, 0);
+
+        // rows 0, 10, 20, ... miss the longest item
+        calculator.setSampleSize(10);
+        double sampled = calculator.getColumnWidth(sheet, 0);
+        assertTrue(sampled < all);
+        // rows 0, 2, 4, ... include it
+        calculator.setSampleSize(50);
+        assertEquals(all, calculator.getColumnWidth(sheet, 0), 0.0);
+        calculator.setSampleSize(1000);
+        assertEquals(all, calculator.getColumnWidth(sheet, 0), 0.0);
+    }
+
+    public void testMergedCells() {
+        Sheet sheet = createSheet();
+        sheet.getRow(54).createCell(1);
+        sheet.addMergedRegion(new CellRangeAddress(54, 54, 0, 1));
+        ColumnWidthCalculator calculator = new ColumnWidthCalculator();
+        double withoutMerged = calculator.getColumnWidth(sheet, 0);
+        calculator.setUseMergedCells(true);
+        double withMerged = calculator.getColumnWidth(sheet, 0);
+        assertTrue(withoutMerged < withMerged);
+    }
+
+    public void testParallel() {
+        Sheet sheet = createSheet();
+        int[] columns = { 0, 1, 2, 3 };
+        ColumnWidthCalculator calculator = new ColumnWidthCalculator();
+        double[] expected = calculator.getColumnWidths(sheet, columns);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            calculator.setExecutor(executor);
+            double[] actual = calculator.getColumnWidths(sheet, columns);
+            for (int i = 0; i < columns.length; i++) {
+                assertEquals(expected[i], actual[i], 0.0);
+            }
+
+            calculator.autoSizeColumns(sheet, columns);
+            assertEquals((int) (expected[1] * 256), sheet.getColumnWidth(1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Class to test ChunkedIntMap
+ */
+public final class TestChunkedIntMap extends TestCase {
+
+    public void testBasic() {
+        ChunkedIntMap<String> map = new ChunkedIntMap<String>(2);
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertNull(map.get(-1));
+        assertNull(map.remove(100));
+        assertEquals(0, map.countKeysBelow(5));
+        try {
+            map.firstKey();
+            fail("expected exception");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+
+        assertNull(map.put(9, "nine"));
+        assertNull(map.put(2, "two"));
+        assertNull(map.put(5, "five"));
+        assertEquals("five", map.put(5, "FIVE"));
+        assertEquals(3, map.size());
+        assertEquals(2, map.firstKey());
+        assertEquals(9, map.lastKey());
+        assertEquals("FIVE", map.get(5));
+        assertNull(map.get(6));
+
+        assertEquals(0, map.countKeysBelow(2));
+        assertEquals(1, map.countKeysBelow(3));
+        assertEquals(1, map.countKeysBelow(5));
+        assertEquals(2, map.countKeysBelow(9));
+        assertEquals(3, map.countKeysBelow(10));
+
+        assertEquals("two", map.remove(2));
+        assertEquals(5, map.firstKey());
+        assertEquals("nine", map.remove(9));
+        assertEquals(5, map.lastKey());
+        assertEquals(1, map.size());
+
+        try {
+            map.put(-1, "minus one");
+            fail("expected exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testIterator() {
+        ChunkedIntMap<Integer> map = new ChunkedIntMap<Integer>(3);
+        int[] keys = { 70, 3, 1000, 4, 71, 0 };
+        for (int key : keys) {
+            map.put(key, Integer.valueOf(key));
+        }
+        Iterator<Integer> it = map.iterator();
+        int[] expected = { 0, 3, 4, 70, 71, 1000 };
+        for (int key : expected) {
+            assertTrue(it.hasNext());
+            assertEquals(key, it.next().intValue());
+            if (key == 4 || key == 1000) {
+                it.remove();
+            }
+        }
+        assertFalse(it.hasNext());
+        assertEquals(4, map.size());
+        assertEquals(71, map.lastKey());
+
+        it = map.iterator();
+        it.next();
+        map.put(2, Integer.valueOf(2));
+        try {
+            it.next();
+            fail("expected exception");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Compares the behaviour with that of a TreeMap for random updates
+     */
+    public void testAgainstTreeMap() {
+        Random rnd = new Random(12345);
+        ChunkedIntMap<Integer> map = new ChunkedIntMap<Integer>(4);
+        TreeMap<Integer, Integer> treeMap = new TreeMap<Integer, Integer>();
+        for (int i = 0; i < 10000; i++) {
+            int key = rnd.nextInt(2000);
+            if (rnd.nextInt(3) == 0) {
+                assertEquals(treeMap.remove(key), map.remove(key));
+            } else {
+                Integer value = Integer.valueOf(i);
+                assertEquals(treeMap.put(key, value), map.put(key, value));
+            }
+            assertEquals(treeMap.size(), map.size());
+            if (!treeMap.isEmpty()) {
+                assertEquals(treeMap.firstKey().intValue(), map.firstKey());
+                assertEquals(treeMap.lastKey().intValue(), map.lastKey());
+            }
+            int probe = rnd.nextInt(2100);
+            assertEquals(treeMap.headMap(probe).size(), map.countKeysBelow(probe));
+        }
+        Iterator<Integer> it = map.iterator();
+        for (Integer value : treeMap.values()) {
+            assertEquals(value, it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+}